@@ -1,5 +1,7 @@
 package com.heronix.edu.client.api;
 
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.heronix.edu.client.api.dto.*;
 import com.heronix.edu.client.api.exception.ApiException;
 import com.heronix.edu.client.api.exception.NetworkException;
@@ -12,18 +14,32 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PipedInputStream;
+import java.io.PipedOutputStream;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.net.http.HttpResponse.BodyHandlers;
+import java.util.Iterator;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * REST API client for communicating with the Heronix server
  */
 public class HeronixApiClient {
     private static final Logger logger = LoggerFactory.getLogger(HeronixApiClient.class);
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int STREAM_PIPE_BYTES = 64 * 1024;
+    private static final long STREAM_WRITER_JOIN_MS = 5000;
 
     private final HttpClient httpClient;
     private final String baseUrl;
@@ -103,6 +119,192 @@ public class HeronixApiClient {
         return sendRequest(httpRequest, SyncResponse.class);
     }
 
+    /**
+     * Ask the server which scores it already has before uploading
+     * POST /api/sync/resume
+     */
+    public SyncResumeResponse resumeSync(String epoch, long syncedThrough) {
+        logger.debug("Resuming sync of epoch {} after seq {}", epoch, syncedThrough);
+
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/api/sync/resume"))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + tokenManager.getToken())
+            .POST(HttpRequest.BodyPublishers.ofString(JsonUtil.toJson(new SyncResumeRequest(epoch, syncedThrough))))
+            .build();
+
+        return sendRequest(httpRequest, SyncResumeResponse.class);
+    }
+
+    /**
+     * Queue game scores on the server
+     * POST /api/sync/upload/async
+     *
+     * Returns as soon as the server has the upload on disk; poll
+     * {@link #getUploadStatus} for the result.
+     */
+    public UploadStatus uploadScoresAsync(String deviceId, List<GameScoreDto> scores) {
+        logger.info("Queueing {} scores on server", scores.size());
+
+        SyncUploadRequest request = new SyncUploadRequest(deviceId, scores);
+
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/api/sync/upload/async"))
+            .header("Content-Type", "application/json")
+            .header("Authorization", "Bearer " + tokenManager.getToken())
+            .POST(HttpRequest.BodyPublishers.ofString(JsonUtil.toJson(request)))
+            .build();
+
+        return sendRequest(httpRequest, UploadStatus.class);
+    }
+
+    /**
+     * Get the status of a queued upload
+     * GET /api/sync/status/{syncId}
+     */
+    public UploadStatus getUploadStatus(String syncId) {
+        logger.debug("Checking upload status: {}", syncId);
+
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/api/sync/status/" + syncId))
+            .header("Authorization", "Bearer " + tokenManager.getToken())
+            .GET()
+            .build();
+
+        return sendRequest(httpRequest, UploadStatus.class);
+    }
+
+    /**
+     * Supplies the scores for a streamed upload
+     */
+    @FunctionalInterface
+    public interface ScoreSource {
+        /**
+         * Pass every score to upload to the sink, in order
+         */
+        void forEach(Consumer<GameScoreDto> sink);
+    }
+
+    /**
+     * Upload scores as a gzip-compressed NDJSON stream
+     * POST /api/sync/upload/stream
+     *
+     * The body is written from the source on a separate thread while it is
+     * sent, so the scores are never all in memory or in one string. The server
+     * commits them in chunks and answers with a line per score as each chunk
+     * commits; those are passed to onResult as they arrive.
+     *
+     * @return the server's summary of the stream
+     */
+    public ScoreStreamSummary uploadScoreStream(ScoreSource source, Consumer<ScoreUploadResult> onResult) {
+        logger.info("Streaming scores to server");
+
+        PipedInputStream body = new PipedInputStream(STREAM_PIPE_BYTES);
+        AtomicInteger sent = new AtomicInteger();
+        AtomicReference<Exception> writeFailure = new AtomicReference<>();
+        Thread writer;
+        try {
+            PipedOutputStream pipe = new PipedOutputStream(body);
+            writer = new Thread(() -> writeScores(source, pipe, sent, writeFailure), "ScoreStreamWriter");
+        } catch (IOException e) {
+            throw new NetworkException("Failed to open upload stream: " + e.getMessage(), e);
+        }
+        writer.setDaemon(true);
+
+        HttpRequest httpRequest = HttpRequest.newBuilder()
+            .uri(URI.create(baseUrl + "/api/sync/upload/stream"))
+            .header("Content-Type", NDJSON)
+            .header("Content-Encoding", "gzip")
+            .header("Authorization", "Bearer " + tokenManager.getToken())
+            .POST(HttpRequest.BodyPublishers.ofInputStream(() -> body))
+            .build();
+
+        writer.start();
+        try {
+            HttpResponse<Stream<String>> response = httpClient.send(httpRequest, BodyHandlers.ofLines());
+
+            logger.debug("HTTP {} {} -> {}", httpRequest.method(), httpRequest.uri(), response.statusCode());
+
+            try (Stream<String> lines = response.body()) {
+                // Handle authentication errors
+                if (response.statusCode() == 401) {
+                    throw new TokenExpiredException("Token expired or invalid");
+                }
+
+                if (response.statusCode() >= 400) {
+                    throw new ApiException("HTTP " + response.statusCode() + ": "
+                        + lines.collect(Collectors.joining("\n")), response.statusCode());
+                }
+
+                ScoreStreamSummary summary = null;
+                Iterator<String> it = lines.iterator();
+                while (it.hasNext()) {
+                    String line = it.next();
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    JsonNode node = JsonUtil.getObjectMapper().readTree(line);
+                    // Only the summary line carries a sync ID
+                    if (node.has("syncId")) {
+                        summary = JsonUtil.getObjectMapper().treeToValue(node, ScoreStreamSummary.class);
+                    } else {
+                        onResult.accept(JsonUtil.getObjectMapper().treeToValue(node, ScoreUploadResult.class));
+                    }
+                }
+
+                if (summary == null) {
+                    throw new NetworkException("Upload stream ended without a summary",
+                        writeFailure.get());
+                }
+                logger.info("Streamed {} scores: {} accepted, {} rejected", sent.get(),
+                    summary.getScoresAccepted(), summary.getScoresRejected());
+                return summary;
+            }
+
+        } catch (IOException | UncheckedIOException e) {
+            logger.error("Network error streaming scores", e);
+            throw new NetworkException("Failed to stream scores: " + e.getMessage(), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NetworkException("Upload interrupted", e);
+        } finally {
+            // Unblocks the writer if the request ended before the body did
+            try {
+                body.close();
+            } catch (IOException ignored) {
+                // Nothing left to release
+            }
+            try {
+                writer.join(STREAM_WRITER_JOIN_MS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Write the source's scores into the pipe as gzip NDJSON
+     */
+    private void writeScores(ScoreSource source, PipedOutputStream pipe, AtomicInteger sent,
+                             AtomicReference<Exception> failure) {
+        ObjectWriter json = JsonUtil.getObjectMapper().writer();
+        try (OutputStream out = new GZIPOutputStream(pipe, STREAM_PIPE_BYTES)) {
+            source.forEach(score -> {
+                try {
+                    out.write(json.writeValueAsBytes(score));
+                    out.write('\n');
+                    sent.incrementAndGet();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (IOException | RuntimeException e) {
+            // The request fails or the stream ends early; the server keeps what it committed
+            logger.warn("Score stream stopped after {} scores: {}", sent.get(), e.getMessage());
+            failure.set(e);
+        }
+    }
+
     /**
      * Get list of available games from server
      */
@@ -1,5 +1,7 @@
 package com.heronix.edu.client.api.dto;
 
+import com.fasterxml.jackson.annotation.JsonFormat;
+
 import java.time.LocalDateTime;
 
 /**
@@ -17,8 +19,11 @@ public class GameScoreDto {
     private Integer completionPercentage;
     private boolean completed;
     private String difficultyLevel;
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss") // Same as the server's GameScore
     private LocalDateTime playedAt;
     private String deviceId;
+    private Long seq;                     // Position in this device's upload order
+    private String seqEpoch;              // Numbering the seq belongs to
     private String metadata;
 
     public GameScoreDto() {
@@ -129,6 +134,22 @@ public class GameScoreDto {
         this.deviceId = deviceId;
     }
 
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
+    public String getSeqEpoch() {
+        return seqEpoch;
+    }
+
+    public void setSeqEpoch(String seqEpoch) {
+        this.seqEpoch = seqEpoch;
+    }
+
     public String getMetadata() {
         return metadata;
     }
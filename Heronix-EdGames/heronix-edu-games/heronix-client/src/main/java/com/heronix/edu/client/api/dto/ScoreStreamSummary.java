@@ -0,0 +1,88 @@
+package com.heronix.edu.client.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * The server's summary of an upload: the last line of a streamed upload,
+ * or the result of a queued one
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ScoreStreamSummary {
+    private boolean success;
+    private int scoresProcessed;
+    private int scoresAccepted;
+    private int scoresRejected;
+    private List<ScoreUploadResult> conflicts; // Why a stream stopped, or a queued upload's rejected scores
+    private String syncId;
+    private LocalDateTime syncTimestamp;
+
+    public ScoreStreamSummary() {
+    }
+
+    /**
+     * First problem reported for the stream, or null
+     */
+    public String getMessage() {
+        return conflicts != null && !conflicts.isEmpty() ? conflicts.get(0).getMessage() : null;
+    }
+
+    // Getters and Setters
+    public boolean isSuccess() {
+        return success;
+    }
+
+    public void setSuccess(boolean success) {
+        this.success = success;
+    }
+
+    public int getScoresProcessed() {
+        return scoresProcessed;
+    }
+
+    public void setScoresProcessed(int scoresProcessed) {
+        this.scoresProcessed = scoresProcessed;
+    }
+
+    public int getScoresAccepted() {
+        return scoresAccepted;
+    }
+
+    public void setScoresAccepted(int scoresAccepted) {
+        this.scoresAccepted = scoresAccepted;
+    }
+
+    public int getScoresRejected() {
+        return scoresRejected;
+    }
+
+    public void setScoresRejected(int scoresRejected) {
+        this.scoresRejected = scoresRejected;
+    }
+
+    public List<ScoreUploadResult> getConflicts() {
+        return conflicts;
+    }
+
+    public void setConflicts(List<ScoreUploadResult> conflicts) {
+        this.conflicts = conflicts;
+    }
+
+    public String getSyncId() {
+        return syncId;
+    }
+
+    public void setSyncId(String syncId) {
+        this.syncId = syncId;
+    }
+
+    public LocalDateTime getSyncTimestamp() {
+        return syncTimestamp;
+    }
+
+    public void setSyncTimestamp(LocalDateTime syncTimestamp) {
+        this.syncTimestamp = syncTimestamp;
+    }
+}
@@ -0,0 +1,67 @@
+package com.heronix.edu.client.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+/**
+ * Outcome of one score in a streamed upload
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class ScoreUploadResult {
+    private String scoreId;
+    private boolean accepted;
+    private String conflictType; // DUPLICATE_SCORE, VALIDATION_ERROR, ...
+    private String resolution;   // SERVER_KEPT, REJECTED
+    private String message;
+
+    public ScoreUploadResult() {
+    }
+
+    /**
+     * True if the server now holds this score, whether saved by this upload
+     * or by an earlier one, so it need not be sent again
+     */
+    public boolean isOnServer() {
+        return accepted || "SERVER_KEPT".equals(resolution);
+    }
+
+    // Getters and Setters
+    public String getScoreId() {
+        return scoreId;
+    }
+
+    public void setScoreId(String scoreId) {
+        this.scoreId = scoreId;
+    }
+
+    public boolean isAccepted() {
+        return accepted;
+    }
+
+    public void setAccepted(boolean accepted) {
+        this.accepted = accepted;
+    }
+
+    public String getConflictType() {
+        return conflictType;
+    }
+
+    public void setConflictType(String conflictType) {
+        this.conflictType = conflictType;
+    }
+
+    public String getResolution() {
+        return resolution;
+    }
+
+    public void setResolution(String resolution) {
+        this.resolution = resolution;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public void setMessage(String message) {
+        this.message = message;
+    }
+}
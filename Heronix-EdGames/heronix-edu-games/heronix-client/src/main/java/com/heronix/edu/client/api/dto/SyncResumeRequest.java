@@ -0,0 +1,34 @@
+package com.heronix.edu.client.api.dto;
+
+/**
+ * Request for the handshake before uploading scores
+ */
+public class SyncResumeRequest {
+    private String epoch;                 // This database's score numbering
+    private long syncedThrough;           // Every score up to this seq is marked synced here
+
+    public SyncResumeRequest() {
+    }
+
+    public SyncResumeRequest(String epoch, long syncedThrough) {
+        this.epoch = epoch;
+        this.syncedThrough = syncedThrough;
+    }
+
+    // Getters and Setters
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getSyncedThrough() {
+        return syncedThrough;
+    }
+
+    public void setSyncedThrough(long syncedThrough) {
+        this.syncedThrough = syncedThrough;
+    }
+}
@@ -0,0 +1,54 @@
+package com.heronix.edu.client.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Where to resume uploading: the server already has every score up to the
+ * high-water mark, and those listed above it
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class SyncResumeResponse {
+    private String deviceId;
+    private String epoch;
+    private long highWaterMark;
+    private List<Long> receivedAbove = new ArrayList<>();
+
+    public SyncResumeResponse() {
+    }
+
+    // Getters and Setters
+    public String getDeviceId() {
+        return deviceId;
+    }
+
+    public void setDeviceId(String deviceId) {
+        this.deviceId = deviceId;
+    }
+
+    public String getEpoch() {
+        return epoch;
+    }
+
+    public void setEpoch(String epoch) {
+        this.epoch = epoch;
+    }
+
+    public long getHighWaterMark() {
+        return highWaterMark;
+    }
+
+    public void setHighWaterMark(long highWaterMark) {
+        this.highWaterMark = highWaterMark;
+    }
+
+    public List<Long> getReceivedAbove() {
+        return receivedAbove;
+    }
+
+    public void setReceivedAbove(List<Long> receivedAbove) {
+        this.receivedAbove = receivedAbove;
+    }
+}
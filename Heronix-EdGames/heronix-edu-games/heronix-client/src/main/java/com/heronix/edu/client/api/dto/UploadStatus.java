@@ -0,0 +1,69 @@
+package com.heronix.edu.client.api.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of an upload queued on the server, returned when it is accepted and
+ * when polled
+ */
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class UploadStatus {
+    private String syncId;
+    private String state;                 // QUEUED, COMPLETED or FAILED
+    private int scores;
+    private LocalDateTime receivedAt;
+    private ScoreStreamSummary result;    // Present once the server has finished with it
+
+    public UploadStatus() {
+    }
+
+    /**
+     * True while the upload is on the server's queue, not yet saved
+     */
+    public boolean isQueued() {
+        return "QUEUED".equals(state);
+    }
+
+    // Getters and Setters
+    public String getSyncId() {
+        return syncId;
+    }
+
+    public void setSyncId(String syncId) {
+        this.syncId = syncId;
+    }
+
+    public String getState() {
+        return state;
+    }
+
+    public void setState(String state) {
+        this.state = state;
+    }
+
+    public int getScores() {
+        return scores;
+    }
+
+    public void setScores(int scores) {
+        this.scores = scores;
+    }
+
+    public LocalDateTime getReceivedAt() {
+        return receivedAt;
+    }
+
+    public void setReceivedAt(LocalDateTime receivedAt) {
+        this.receivedAt = receivedAt;
+    }
+
+    public ScoreStreamSummary getResult() {
+        return result;
+    }
+
+    public void setResult(ScoreStreamSummary result) {
+        this.result = result;
+    }
+}
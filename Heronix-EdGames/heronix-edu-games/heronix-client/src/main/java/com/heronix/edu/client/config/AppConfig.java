@@ -59,6 +59,14 @@ public class AppConfig {
         return Integer.parseInt(properties.getProperty("heronix.sync.batch.size", "100"));
     }
 
+    /**
+     * Get how long a sync waits for the server to save a queued upload before
+     * leaving it to the next sync
+     */
+    public static int getSyncStatusWaitSeconds() {
+        return Integer.parseInt(properties.getProperty("heronix.sync.status.wait.seconds", "30"));
+    }
+
     /**
      * Get games directory
      */
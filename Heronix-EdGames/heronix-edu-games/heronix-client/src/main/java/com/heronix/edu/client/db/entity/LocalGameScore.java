@@ -20,6 +20,7 @@ public class LocalGameScore {
     private String difficultyLevel;
     private LocalDateTime playedAt;
     private String deviceId;
+    private Long seq;                  // Upload order on this device, set when saved
     private boolean synced;
     private LocalDateTime syncedAt;
     private int syncAttempts;
@@ -143,6 +144,14 @@ public class LocalGameScore {
         this.deviceId = deviceId;
     }
 
+    public Long getSeq() {
+        return seq;
+    }
+
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+
     public boolean isSynced() {
         return synced;
     }
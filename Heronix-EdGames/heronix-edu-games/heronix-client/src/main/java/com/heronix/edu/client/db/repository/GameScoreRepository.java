@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 /**
  * Repository for game score data
@@ -17,17 +18,20 @@ import java.util.Optional;
  */
 public class GameScoreRepository {
     private static final Logger logger = LoggerFactory.getLogger(GameScoreRepository.class);
+    private static final int STREAM_FETCH_SIZE = 500;
 
     /**
-     * Save a new game score
+     * Save a new game score, numbering it after the device's last one.
+     * Synchronized so two saves never take the same seq.
      */
-    public void save(LocalGameScore score) {
+    public synchronized void save(LocalGameScore score) {
         String sql = "INSERT INTO game_score (score_id, student_id, game_id, score, max_score, " +
                      "time_seconds, correct_answers, incorrect_answers, completion_percentage, " +
                      "completed, difficulty_level, played_at, device_id, synced, synced_at, " +
                      "sync_attempts, last_sync_error, metadata, " +
-                     "local_version, server_version, modified_at, content_hash, sync_status) " +
-                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+                     "local_version, server_version, modified_at, content_hash, sync_status, seq) " +
+                     "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, " +
+                     "(SELECT COALESCE(MAX(seq), 0) + 1 FROM game_score WHERE device_id = ?))";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -56,6 +60,7 @@ public class GameScoreRepository {
             pstmt.setTimestamp(21, toTimestamp(score.getModifiedAt()));
             pstmt.setString(22, score.getContentHash());
             pstmt.setString(23, score.getSyncStatus());
+            pstmt.setString(24, score.getDeviceId());
 
             pstmt.executeUpdate();
             logger.debug("Game score saved: {}", score.getScoreId());
@@ -70,7 +75,7 @@ public class GameScoreRepository {
      * Find unsynced scores
      */
     public List<LocalGameScore> findUnsyncedScores() {
-        String sql = "SELECT * FROM game_score WHERE synced = FALSE ORDER BY played_at";
+        String sql = "SELECT * FROM game_score WHERE synced = FALSE ORDER BY seq, played_at";
         return findScoresBySql(sql);
     }
 
@@ -78,7 +83,7 @@ public class GameScoreRepository {
      * Find unsynced scores with limit
      */
     public List<LocalGameScore> findUnsyncedScores(int limit) {
-        String sql = "SELECT * FROM game_score WHERE synced = FALSE ORDER BY played_at LIMIT ?";
+        String sql = "SELECT * FROM game_score WHERE synced = FALSE ORDER BY seq, played_at LIMIT ?";
 
         try (Connection conn = DatabaseManager.getConnection();
              PreparedStatement pstmt = conn.prepareStatement(sql)) {
@@ -99,6 +104,36 @@ public class GameScoreRepository {
         }
     }
 
+    /**
+     * Pass every unsynced score to the consumer, oldest first, reading the
+     * rows through a cursor so they are never all in memory at once
+     *
+     * @return number of scores read
+     */
+    public int forEachUnsyncedScore(Consumer<LocalGameScore> consumer) {
+        String sql = "SELECT * FROM game_score WHERE synced = FALSE ORDER BY seq, played_at";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql,
+                 ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY)) {
+
+            pstmt.setFetchSize(STREAM_FETCH_SIZE);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                int count = 0;
+                while (rs.next()) {
+                    consumer.accept(mapResultSetToScore(rs));
+                    count++;
+                }
+                return count;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error streaming unsynced scores", e);
+            throw new RuntimeException("Failed to stream unsynced scores", e);
+        }
+    }
+
     /**
      * Find score by ID
      */
@@ -144,6 +179,74 @@ public class GameScoreRepository {
         }
     }
 
+    /**
+     * Highest seq such that every score of the device up to it is marked
+     * synced: the one before its first unsynced score, or its last score
+     */
+    public long findSyncedThrough(String deviceId) {
+        String sql = "SELECT COALESCE(" +
+                     "(SELECT MIN(seq) - 1 FROM game_score WHERE device_id = ? AND synced = FALSE AND seq IS NOT NULL), " +
+                     "(SELECT MAX(seq) FROM game_score WHERE device_id = ?), 0)";
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement pstmt = conn.prepareStatement(sql)) {
+
+            pstmt.setString(1, deviceId);
+            pstmt.setString(2, deviceId);
+
+            try (ResultSet rs = pstmt.executeQuery()) {
+                return rs.next() ? rs.getLong(1) : 0;
+            }
+
+        } catch (SQLException e) {
+            logger.error("Error finding synced-through seq", e);
+            throw new RuntimeException("Failed to find synced-through seq", e);
+        }
+    }
+
+    /**
+     * Mark the device's scores the server already has as synced: every seq
+     * up to the high-water mark, and the listed seqs above it
+     *
+     * @return number of scores newly marked
+     */
+    public int markSyncedBySeq(String deviceId, long highWaterMark, List<Long> receivedAbove) {
+        String throughSql = "UPDATE game_score SET synced = TRUE, synced_at = ? " +
+                            "WHERE device_id = ? AND synced = FALSE AND seq <= ?";
+        String seqSql = "UPDATE game_score SET synced = TRUE, synced_at = ? " +
+                        "WHERE device_id = ? AND synced = FALSE AND seq = ?";
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+
+        try (Connection conn = DatabaseManager.getConnection();
+             PreparedStatement through = conn.prepareStatement(throughSql);
+             PreparedStatement bySeq = conn.prepareStatement(seqSql)) {
+
+            through.setTimestamp(1, now);
+            through.setString(2, deviceId);
+            through.setLong(3, highWaterMark);
+            int marked = through.executeUpdate();
+
+            for (Long seq : receivedAbove) {
+                bySeq.setTimestamp(1, now);
+                bySeq.setString(2, deviceId);
+                bySeq.setLong(3, seq);
+                bySeq.addBatch();
+            }
+            if (!receivedAbove.isEmpty()) {
+                for (int count : bySeq.executeBatch()) {
+                    marked += Math.max(count, 0);
+                }
+            }
+
+            logger.debug("Marked {} scores synced through seq {}", marked, highWaterMark);
+            return marked;
+
+        } catch (SQLException e) {
+            logger.error("Error marking scores synced by seq", e);
+            throw new RuntimeException("Failed to mark scores synced", e);
+        }
+    }
+
     /**
      * Increment sync attempt counter and record error
      */
@@ -405,6 +508,8 @@ public class GameScoreRepository {
         score.setDifficultyLevel(rs.getString("difficulty_level"));
         score.setPlayedAt(rs.getTimestamp("played_at").toLocalDateTime());
         score.setDeviceId(rs.getString("device_id"));
+        long seq = rs.getLong("seq");
+        score.setSeq(rs.wasNull() ? null : seq);
         score.setSynced(rs.getBoolean("synced"));
         score.setSyncedAt(toLocalDateTime(rs.getTimestamp("synced_at")));
         score.setSyncAttempts(rs.getInt("sync_attempts"));
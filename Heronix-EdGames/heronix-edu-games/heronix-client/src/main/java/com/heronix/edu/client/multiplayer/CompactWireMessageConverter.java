@@ -0,0 +1,57 @@
+package com.heronix.edu.client.multiplayer;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.wire.CompactWireCodec;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+import org.springframework.util.MimeType;
+
+import java.io.IOException;
+
+/**
+ * Reads the {@link CompactWireCodec} frames the server sends once the
+ * connection has negotiated them, into the same Maps the JSON converter gives.
+ *
+ * Only used for messages whose content-type names the compact format; what the
+ * client sends has no content-type and stays with the JSON converter.
+ */
+public class CompactWireMessageConverter extends AbstractMessageConverter {
+
+    private final ObjectMapper objectMapper;
+
+    public CompactWireMessageConverter(ObjectMapper objectMapper) {
+        super(MimeType.valueOf(CompactWireCodec.MIME_TYPE));
+        this.objectMapper = objectMapper;
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+        JavaType javaType = objectMapper.constructType(targetClass);
+        try {
+            return CompactWireCodec.read(objectMapper, payload, javaType);
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Could not read compact message: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        try {
+            return CompactWireCodec.write(objectMapper, payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write compact message: " + e.getMessage(), e);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.heronix.edu.client.multiplayer;
+
+import java.util.*;
+
+/**
+ * Client-side copy of a session leaderboard rebuilt from versioned
+ * LEADERBOARD_UPDATE messages.
+ *
+ * A full snapshot replaces the state. A delta is applied only if its
+ * baseVersion matches the version held here; otherwise the caller must
+ * request a new snapshot.
+ */
+public class LeaderboardState {
+
+    private final Map<String, Map<String, Object>> rows = new HashMap<>();
+    private long version = 0;
+
+    /**
+     * Apply a LEADERBOARD_UPDATE message.
+     *
+     * @return false if the message is a delta against a version we do not hold
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized boolean apply(Map<String, Object> message) {
+        long msgVersion = toLong(message.get("version"));
+        boolean full = Boolean.TRUE.equals(message.get("full"));
+        List<Map<String, Object>> entries = (List<Map<String, Object>>) message.getOrDefault("entries", List.of());
+
+        if (full) {
+            if (msgVersion < version) {
+                return true;  // stale snapshot, what we hold is newer
+            }
+            rows.clear();
+        } else {
+            long baseVersion = toLong(message.get("baseVersion"));
+            if (msgVersion <= version) {
+                return true;  // already applied
+            }
+            if (baseVersion != version) {
+                return false;
+            }
+            List<String> removed = (List<String>) message.getOrDefault("removed", List.of());
+            for (String playerId : removed) {
+                rows.remove(playerId);
+            }
+        }
+
+        for (Map<String, Object> entry : entries) {
+            rows.put((String) entry.get("playerId"), entry);
+        }
+        version = msgVersion;
+        return true;
+    }
+
+    /**
+     * All rows, ordered by rank.
+     */
+    public synchronized List<Map<String, Object>> getRows() {
+        List<Map<String, Object>> sorted = new ArrayList<>(rows.values());
+        sorted.sort(Comparator.comparingLong(r -> toLong(r.get("rank"))));
+        return sorted;
+    }
+
+    public synchronized long getVersion() {
+        return version;
+    }
+
+    public synchronized void reset() {
+        rows.clear();
+        version = 0;
+    }
+
+    private static long toLong(Object value) {
+        return value instanceof Number n ? n.longValue() : 0L;
+    }
+}
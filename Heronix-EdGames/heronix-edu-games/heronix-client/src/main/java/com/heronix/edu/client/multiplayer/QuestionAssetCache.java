@@ -0,0 +1,99 @@
+package com.heronix.edu.client.multiplayer;
+
+import com.heronix.edu.client.config.HttpClientConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Question images fetched ahead of time.
+ *
+ * Each question names the images of the next few questions under "prefetch";
+ * they are downloaded in the background while the student is still answering,
+ * so the next question shows with its image already here. The most recently
+ * used images are kept; a failed download is forgotten and tried again when
+ * next asked for.
+ */
+public class QuestionAssetCache {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionAssetCache.class);
+
+    private static final int MAX_IMAGES = 32;
+    private static final Duration FETCH_TIMEOUT = Duration.ofSeconds(15);
+
+    private final HttpClient httpClient;
+    private final Map<String, CompletableFuture<byte[]>> images = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, CompletableFuture<byte[]>> eldest) {
+            return size() > MAX_IMAGES;
+        }
+    };
+
+    public QuestionAssetCache() {
+        this(HttpClientConfig.getHttpClient());
+    }
+
+    public QuestionAssetCache(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    /**
+     * Start downloading any of these images not already held or on their way.
+     */
+    public void prefetch(List<?> urls) {
+        for (Object url : urls) {
+            if (url instanceof String imageUrl && !imageUrl.isBlank()) {
+                get(imageUrl);
+            }
+        }
+    }
+
+    /**
+     * The image's bytes, from the cache or downloaded now.
+     */
+    public synchronized CompletableFuture<byte[]> get(String url) {
+        CompletableFuture<byte[]> image = images.get(url);
+        if (image == null || image.isCompletedExceptionally()) {
+            image = fetch(url);
+            images.put(url, image);
+        }
+        return image;
+    }
+
+    /**
+     * Whether the image has finished downloading.
+     */
+    public synchronized boolean isReady(String url) {
+        CompletableFuture<byte[]> image = images.get(url);
+        return image != null && image.isDone() && !image.isCompletedExceptionally();
+    }
+
+    private CompletableFuture<byte[]> fetch(String url) {
+        HttpRequest request;
+        try {
+            request = HttpRequest.newBuilder(URI.create(url)).timeout(FETCH_TIMEOUT).GET().build();
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        return httpClient.sendAsync(request, HttpResponse.BodyHandlers.ofByteArray())
+            .thenApply(response -> {
+                if (response.statusCode() != 200) {
+                    throw new IllegalStateException("HTTP " + response.statusCode() + " for " + url);
+                }
+                return response.body();
+            })
+            .whenComplete((body, error) -> {
+                if (error != null) {
+                    logger.debug("Could not prefetch {}: {}", url, error.getMessage());
+                }
+            });
+    }
+}
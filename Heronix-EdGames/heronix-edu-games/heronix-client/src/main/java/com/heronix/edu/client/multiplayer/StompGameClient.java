@@ -3,8 +3,10 @@ package com.heronix.edu.client.multiplayer;
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.heronix.edu.common.wire.CompactWireCodec;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.messaging.converter.CompositeMessageConverter;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.simp.stomp.*;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
@@ -15,8 +17,15 @@ import org.springframework.web.socket.sockjs.client.SockJsClient;
 import org.springframework.web.socket.sockjs.client.Transport;
 import org.springframework.web.socket.sockjs.client.WebSocketTransport;
 
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
 import java.lang.reflect.Type;
+import java.security.GeneralSecurityException;
 import java.util.ArrayList;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.*;
@@ -28,27 +37,78 @@ import java.util.function.Consumer;
  *
  * This client:
  * - Connects to the server using STOMP over WebSocket
- * - Handles automatic reconnection on disconnect
+ * - Handles automatic reconnection on disconnect, with jittered backoff
+ * - Resumes as the same player after a reconnect and is sent only the events it missed
  * - Supports session-code based authentication (no JWT required)
- * - Uses SockJS fallback for browser compatibility
+ * - Asks for compact binary frames on a plain WebSocket, and falls back to
+ *   SockJS with JSON if that connection cannot be made
+ * - Takes the next question inside each answer result, so it can be shown
+ *   without waiting on the server, and fetches upcoming question images ahead
  */
 public class StompGameClient {
     private static final Logger logger = LoggerFactory.getLogger(StompGameClient.class);
 
     private final String serverUrl;
     private final ObjectMapper objectMapper;
-    private WebSocketStompClient stompClient;
+    private WebSocketStompClient stompClient;        // SockJS, JSON frames
+    private WebSocketStompClient directStompClient;  // plain WebSocket, compact frames
     private StompSession session;
 
+    // CONNECT header asking the server for compact frames
+    private static final String WIRE_FORMAT_HEADER = "wire-format";
+    // Cleared for good once a plain WebSocket connection fails, e.g. behind a proxy that only passes SockJS
+    private volatile boolean compactWire;
+
     private String playerId;
     private String sessionCode;
     private String studentId;
     private String studentName;
 
+    // Issued with the join response; presented on reconnect to stay the same player
+    private volatile String resumeToken;
+
     // Event handlers
     private Consumer<Boolean> connectionStatusHandler;
     private final ConcurrentHashMap<String, Consumer<Map<String, Object>>> messageHandlers = new ConcurrentHashMap<>();
 
+    // Leaderboard rebuilt from versioned deltas
+    private final LeaderboardState leaderboardState = new LeaderboardState();
+
+    // Question images named in "imageUrl" and "prefetch", fetched before they are shown
+    private final QuestionAssetCache assetCache = new QuestionAssetCache();
+
+    // Next question handed out sealed with a correct answer's result; once the
+    // reward is picked the server sends a QUESTION with "revealed" set and the key
+    private final Object heldQuestionLock = new Object();
+    private String heldQuestion;  // guarded by heldQuestionLock
+
+    // Per-player queues and the message type each is dispatched as
+    private static final Map<String, String> USER_QUEUE_TYPES = new LinkedHashMap<>();
+    static {
+        USER_QUEUE_TYPES.put("/user/queue/joined", "JOIN_RESPONSE");
+        USER_QUEUE_TYPES.put("/user/queue/question", "QUESTION");
+        USER_QUEUE_TYPES.put("/user/queue/answer-result", "ANSWER_RESULT");
+        USER_QUEUE_TYPES.put("/user/queue/hack-result", "HACK_RESULT");
+        USER_QUEUE_TYPES.put("/user/queue/hacked", "YOU_WERE_HACKED");
+        USER_QUEUE_TYPES.put("/user/queue/leaderboard", "LEADERBOARD");
+        USER_QUEUE_TYPES.put("/user/queue/session-info", "SESSION_INFO");
+        USER_QUEUE_TYPES.put("/user/queue/leaderboard-snapshot", "LEADERBOARD_UPDATE");
+        // Own rank and neighbours; only sent in large sessions, where the topic carries the top of the board
+        USER_QUEUE_TYPES.put("/user/queue/rank", "RANK_UPDATE");
+        // Events missed while disconnected, in answer to a resume
+        USER_QUEUE_TYPES.put("/user/queue/replay", "REPLAY");
+        // Why a request such as a reward selection failed on the server
+        USER_QUEUE_TYPES.put("/user/queue/errors", "ERROR");
+    }
+
+    // Session events carry a "seq" header; the last one seen is where a resume picks up
+    private static final String SEQ_HEADER = "seq";
+    private static final long REPLAY_TIMEOUT_MS = 10000;
+    private final Object replayLock = new Object();
+    private long lastSeq;              // guarded by replayLock
+    private boolean awaitingReplay;    // guarded by replayLock
+    private final List<HeldFrame> heldFrames = new ArrayList<>();  // guarded by replayLock
+
     // Connection state
     private volatile boolean connected = false;
     private volatile boolean connecting = false;
@@ -56,16 +116,34 @@ public class StompGameClient {
     private ScheduledFuture<?> reconnectTask;
     private int reconnectAttempts = 0;
     private static final int MAX_RECONNECT_ATTEMPTS = 10;
-    private static final long RECONNECT_DELAY_MS = 3000;
+    // Backoff doubles from the base up to the cap; each delay is drawn at random below it,
+    // so a class whose Wi-Fi dropped at once does not reconnect at once
+    private static final long RECONNECT_BASE_DELAY_MS = 1000;
+    private static final long RECONNECT_MAX_DELAY_MS = 30000;
 
     public StompGameClient(String serverUrl) {
+        this(serverUrl, true);
+    }
+
+    /**
+     * @param compactWire ask for compact binary frames; false keeps to SockJS and JSON
+     */
+    public StompGameClient(String serverUrl, boolean compactWire) {
         this.serverUrl = serverUrl;
+        this.compactWire = compactWire;
         this.objectMapper = new ObjectMapper();
         this.objectMapper.registerModule(new JavaTimeModule());
         initializeClient();
     }
 
     private void initializeClient() {
+        // Create and configure TaskScheduler for heartbeats
+        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
+        taskScheduler.setPoolSize(1);
+        taskScheduler.setThreadNamePrefix("stomp-heartbeat-");
+        taskScheduler.setDaemon(true);
+        taskScheduler.initialize();
+
         // Create WebSocket client with SockJS fallback
         List<Transport> transports = new ArrayList<>();
         transports.add(new WebSocketTransport(new StandardWebSocketClient()));
@@ -73,18 +151,21 @@ public class StompGameClient {
         SockJsClient sockJsClient = new SockJsClient(transports);
 
         stompClient = new WebSocketStompClient(sockJsClient);
+        configure(stompClient, taskScheduler);
 
-        // Configure message converter
+        // SockJS frames are text only; compact frames need a plain WebSocket
+        directStompClient = new WebSocketStompClient(new StandardWebSocketClient());
+        configure(directStompClient, taskScheduler);
+    }
+
+    private void configure(WebSocketStompClient stompClient, ThreadPoolTaskScheduler taskScheduler) {
+        // Configure message converters: JSON for what we send, and for frames
+        // without a compact content-type; compact frames by their content-type
         MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
         converter.setObjectMapper(objectMapper);
-        stompClient.setMessageConverter(converter);
+        stompClient.setMessageConverter(new CompositeMessageConverter(
+            List.of(converter, new CompactWireMessageConverter(objectMapper))));
 
-        // Create and configure TaskScheduler for heartbeats
-        ThreadPoolTaskScheduler taskScheduler = new ThreadPoolTaskScheduler();
-        taskScheduler.setPoolSize(1);
-        taskScheduler.setThreadNamePrefix("stomp-heartbeat-");
-        taskScheduler.setDaemon(true);
-        taskScheduler.initialize();
         stompClient.setTaskScheduler(taskScheduler);
 
         // Set default heartbeat (10 seconds)
@@ -119,11 +200,19 @@ public class StompGameClient {
             if (studentName != null) {
                 connectHeaders.add("studentName", studentName);
             }
+            if (resumeToken != null) {
+                connectHeaders.add("resumeToken", resumeToken);
+            }
 
-            String wsUrl = serverUrl + "/ws/game";
-            logger.info("Connecting to WebSocket server: {}", wsUrl);
+            boolean direct = compactWire;
+            if (direct) {
+                connectHeaders.add(WIRE_FORMAT_HEADER, CompactWireCodec.MIME_TYPE);
+            }
+            String wsUrl = (direct ? toWebSocketUrl(serverUrl) : serverUrl) + "/ws/game";
+            logger.info("Connecting to WebSocket server: {} ({})", wsUrl, direct ? "compact" : "SockJS, JSON");
 
-            stompClient.connectAsync(wsUrl, headers, connectHeaders, new StompSessionHandlerAdapter() {
+            WebSocketStompClient client = direct ? directStompClient : stompClient;
+            client.connectAsync(wsUrl, headers, connectHeaders, new StompSessionHandlerAdapter() {
                 @Override
                 public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
                     StompGameClient.this.session = session;
@@ -155,6 +244,10 @@ public class StompGameClient {
                 @Override
                 public void handleTransportError(StompSession session, Throwable exception) {
                     logger.error("Transport error: {}", exception.getMessage());
+                    if (direct && !future.isDone()) {
+                        logger.info("Plain WebSocket connection failed, using SockJS with JSON from now on");
+                        compactWire = false;
+                    }
                     handleDisconnect();
                     if (!future.isDone()) {
                         future.complete(false);
@@ -171,6 +264,19 @@ public class StompGameClient {
         return future;
     }
 
+    /**
+     * The plain WebSocket form of an http(s) server URL.
+     */
+    static String toWebSocketUrl(String url) {
+        if (url.startsWith("https://")) {
+            return "wss://" + url.substring("https://".length());
+        }
+        if (url.startsWith("http://")) {
+            return "ws://" + url.substring("http://".length());
+        }
+        return url;
+    }
+
     /**
      * Disconnect from the server.
      */
@@ -207,7 +313,8 @@ public class StompGameClient {
         }
 
         reconnectAttempts++;
-        long delay = RECONNECT_DELAY_MS * reconnectAttempts;
+        long ceiling = Math.min(RECONNECT_MAX_DELAY_MS, RECONNECT_BASE_DELAY_MS << Math.min(reconnectAttempts, 10));
+        long delay = ThreadLocalRandom.current().nextLong(ceiling / 4, ceiling + 1);
 
         logger.info("Scheduling reconnect attempt {} in {}ms", reconnectAttempts, delay);
 
@@ -218,13 +325,39 @@ public class StompGameClient {
                     logger.info("Reconnected successfully");
                     // Re-subscribe to game session if we had one
                     if (sessionCode != null) {
-                        subscribeToSession(sessionCode);
+                        if (resumeToken != null) {
+                            resumeSession();
+                        } else {
+                            subscribeToSession(sessionCode);
+                        }
                     }
                 }
             });
         }, delay, TimeUnit.MILLISECONDS);
     }
 
+    /**
+     * Pick the session up again after a reconnect: subscribe, then ask for the
+     * events missed since the last one seen. Live session events that arrive
+     * before the replay are held and applied after it.
+     */
+    private void resumeSession() {
+        long from;
+        synchronized (replayLock) {
+            awaitingReplay = true;
+            from = lastSeq;
+        }
+        subscribeToSession(sessionCode);
+        session.send("/app/session/" + sessionCode + "/resume", Map.of("lastSeq", from));
+        logger.info("Resuming session {} from seq {}", sessionCode, from);
+
+        scheduler.schedule(() -> {
+            if (releaseHeldFrames(0)) {
+                logger.warn("No replay within {}ms, continuing with live events", REPLAY_TIMEOUT_MS);
+            }
+        }, REPLAY_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+    }
+
     private void cancelReconnect() {
         if (reconnectTask != null) {
             reconnectTask.cancel(false);
@@ -256,19 +389,17 @@ public class StompGameClient {
             @SuppressWarnings("unchecked")
             public void handleFrame(StompHeaders headers, Object payload) {
                 Map<String, Object> message = (Map<String, Object>) payload;
-                handleMessage(message);
+                deliver(headers, message);
             }
         });
         logger.info("Subscribed to session topic: {}", sessionTopic);
 
         // Subscribe to user-specific queues
-        subscribeToUserQueue("/user/queue/joined", "JOIN_RESPONSE");
-        subscribeToUserQueue("/user/queue/question", "QUESTION");
-        subscribeToUserQueue("/user/queue/answer-result", "ANSWER_RESULT");
-        subscribeToUserQueue("/user/queue/hack-result", "HACK_RESULT");
-        subscribeToUserQueue("/user/queue/hacked", "YOU_WERE_HACKED");
-        subscribeToUserQueue("/user/queue/leaderboard", "LEADERBOARD");
-        subscribeToUserQueue("/user/queue/session-info", "SESSION_INFO");
+        USER_QUEUE_TYPES.forEach(this::subscribeToUserQueue);
+
+        // Start from a fresh snapshot; deltas are applied on top of it
+        leaderboardState.reset();
+        requestLeaderboardSnapshot();
     }
 
     private void subscribeToUserQueue(String destination, String messageType) {
@@ -283,15 +414,129 @@ public class StompGameClient {
             public void handleFrame(StompHeaders headers, Object payload) {
                 Map<String, Object> message = (Map<String, Object>) payload;
                 message.put("type", messageType);
-                handleMessage(message);
+                if ("REPLAY".equals(messageType)) {
+                    applyReplay(message);
+                } else {
+                    deliver(headers, message);
+                }
             }
         });
         logger.debug("Subscribed to user queue: {}", destination);
     }
 
-    private void handleMessage(Map<String, Object> message) {
+    /**
+     * Dispatch a received message, noting its sequence number, or hold it while
+     * a replay is awaited.
+     */
+    private void deliver(StompHeaders headers, Map<String, Object> message) {
+        String seqHeader = headers.getFirst(SEQ_HEADER);
+        if (seqHeader != null) {
+            long seq = Long.parseLong(seqHeader);
+            synchronized (replayLock) {
+                if (awaitingReplay) {
+                    heldFrames.add(new HeldFrame(seq, message));
+                    return;
+                }
+                lastSeq = Math.max(lastSeq, seq);
+            }
+        }
+        handleMessage(message);
+    }
+
+    /**
+     * Apply the events missed while disconnected, then the live ones held meanwhile.
+     *
+     * An incomplete replay carries no events: the server has already resent the
+     * current question, and the leaderboard comes from the snapshot requested on
+     * subscribe.
+     */
+    @SuppressWarnings("unchecked")
+    private void applyReplay(Map<String, Object> replay) {
+        boolean complete = Boolean.TRUE.equals(replay.get("complete"));
+        long replayLastSeq = ((Number) replay.getOrDefault("lastSeq", 0)).longValue();
+        List<Map<String, Object>> events = (List<Map<String, Object>>) replay.getOrDefault("events", List.of());
+        logger.info("Replay received: {} events, complete={}, status={}", events.size(), complete, replay.get("status"));
+
+        for (Map<String, Object> event : events) {
+            if (!(event.get("payload") instanceof Map<?, ?> payload)) {
+                continue;
+            }
+            Map<String, Object> message = new HashMap<>((Map<String, Object>) payload);
+            String type = USER_QUEUE_TYPES.get(String.valueOf(event.get("destination")));
+            if (type != null) {
+                message.put("type", type);
+            }
+            handleMessage(message);
+        }
+        // Without the events, everything held is newer than what the client has
+        releaseHeldFrames(complete ? replayLastSeq : 0);
+        synchronized (replayLock) {
+            lastSeq = Math.max(lastSeq, replayLastSeq);
+        }
+        handleMessage(replay);
+    }
+
+    /**
+     * Stop holding live events and dispatch those newer than {@code replayedUpTo}.
+     *
+     * @return false if no replay was being awaited
+     */
+    private boolean releaseHeldFrames(long replayedUpTo) {
+        List<HeldFrame> held;
+        synchronized (replayLock) {
+            if (!awaitingReplay) {
+                return false;
+            }
+            awaitingReplay = false;
+            held = new ArrayList<>(heldFrames);
+            heldFrames.clear();
+            for (HeldFrame frame : held) {
+                lastSeq = Math.max(lastSeq, frame.seq());
+            }
+        }
+        for (HeldFrame frame : held) {
+            if (frame.seq() > replayedUpTo) {
+                handleMessage(frame.message());
+            }
+        }
+        return true;
+    }
+
+    private record HeldFrame(long seq, Map<String, Object> message) {}
+
+    void handleMessage(Map<String, Object> message) {
         String type = (String) message.get("type");
 
+        if ("JOIN_RESPONSE".equals(type) && message.get("resumeToken") instanceof String token) {
+            resumeToken = token;
+        }
+
+        if ("LEADERBOARD_UPDATE".equals(type)) {
+            message = applyLeaderboardUpdate(message);
+            if (message == null) {
+                return;
+            }
+        }
+
+        if ("ANSWER_RESULT".equals(type)) {
+            handleAnswerResult(message);
+            return;
+        }
+
+        if ("QUESTION".equals(type)) {
+            if (Boolean.TRUE.equals(message.get("revealed"))) {
+                message = takeRevealedQuestion(message);
+                if (message == null) {
+                    return;
+                }
+            }
+            prefetchImages(message);
+        }
+
+        dispatch(type, message);
+    }
+
+    private void dispatch(String type, Map<String, Object> message) {
         if (type != null) {
             Consumer<Map<String, Object>> handler = messageHandlers.get(type);
             if (handler != null) {
@@ -306,6 +551,101 @@ public class StompGameClient {
         }
     }
 
+    /**
+     * Dispatch an answer result and the next question riding on it.
+     *
+     * After a wrong answer that question is shown straight away. After a right
+     * one it comes sealed and is held until the reveal brings its key.
+     */
+    private void handleAnswerResult(Map<String, Object> message) {
+        Object next = message.remove("nextQuestion");
+        Object sealed = message.remove("sealedNextQuestion");
+        dispatch("ANSWER_RESULT", message);
+        if (sealed instanceof String sealedQuestion) {
+            synchronized (heldQuestionLock) {
+                heldQuestion = sealedQuestion;
+            }
+        }
+        if (!(next instanceof Map<?, ?> nextMap)) {
+            return;
+        }
+
+        @SuppressWarnings("unchecked")
+        Map<String, Object> question = new HashMap<>((Map<String, Object>) nextMap);
+        question.put("type", "QUESTION");
+        prefetchImages(question);
+        dispatch("QUESTION", question);
+    }
+
+    /**
+     * Open the held question a reveal refers to, or null if there is none.
+     */
+    private Map<String, Object> takeRevealedQuestion(Map<String, Object> reveal) {
+        String sealed;
+        synchronized (heldQuestionLock) {
+            sealed = heldQuestion;
+            heldQuestion = null;
+        }
+        if (sealed == null || !(reveal.get("key") instanceof String key)) {
+            logger.warn("Reveal of question {} that is not held", reveal.get("questionId"));
+            return null;
+        }
+
+        Map<String, Object> question;
+        try {
+            question = objectMapper.readValue(openSealed(sealed, key), new TypeReference<Map<String, Object>>() {});
+        } catch (Exception e) {
+            logger.warn("Cannot open held question {}", reveal.get("questionId"), e);
+            return null;
+        }
+        if (!reveal.get("questionId").equals(question.get("questionId"))) {
+            logger.warn("Reveal of question {} that is not held", reveal.get("questionId"));
+            return null;
+        }
+        question.put("type", "QUESTION");
+        return question;
+    }
+
+    /**
+     * Decrypt a sealed question: base64 of a 12-byte IV followed by the AES-GCM
+     * ciphertext, under the base64 key from the reveal.
+     */
+    private static byte[] openSealed(String sealed, String key) throws GeneralSecurityException {
+        byte[] bytes = Base64.getDecoder().decode(sealed);
+        Cipher cipher = Cipher.getInstance("AES/GCM/NoPadding");
+        cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(key), "AES"),
+            new GCMParameterSpec(128, bytes, 0, 12));
+        return cipher.doFinal(bytes, 12, bytes.length - 12);
+    }
+
+    private void prefetchImages(Map<String, Object> question) {
+        if (question.get("imageUrl") instanceof String imageUrl) {
+            assetCache.prefetch(List.of(imageUrl));
+        }
+        if (question.get("prefetch") instanceof List<?> upcoming) {
+            assetCache.prefetch(upcoming);
+        }
+    }
+
+    /**
+     * Merge a leaderboard delta or snapshot into the local copy and hand the
+     * handler the full ranked list under "leaderboard".
+     *
+     * @return the message to dispatch, or null if a snapshot had to be requested
+     */
+    private Map<String, Object> applyLeaderboardUpdate(Map<String, Object> message) {
+        if (!leaderboardState.apply(message)) {
+            logger.debug("Missed leaderboard delta (have v{}, got base v{}), requesting snapshot",
+                leaderboardState.getVersion(), message.get("baseVersion"));
+            requestLeaderboardSnapshot();
+            return null;
+        }
+
+        Map<String, Object> merged = new HashMap<>(message);
+        merged.put("leaderboard", leaderboardState.getRows());
+        return merged;
+    }
+
     /**
      * Register a handler for a specific message type.
      */
@@ -359,7 +699,8 @@ public class StompGameClient {
 
         Map<String, Object> request = Map.of(
             "questionId", questionId,
-            "answer", answer
+            "answer", answer,
+            "piggybackNext", true
         );
 
         session.send("/app/session/" + sessionCode + "/answer", request);
@@ -367,7 +708,8 @@ public class StompGameClient {
     }
 
     /**
-     * Select a reward after correct answer.
+     * Select a reward after correct answer. The held question is shown when the
+     * server's reveal arrives.
      */
     public void selectReward(String rewardType) {
         if (!connected || session == null || sessionCode == null) {
@@ -407,6 +749,17 @@ public class StompGameClient {
         session.send("/app/session/" + sessionCode + "/leaderboard", Map.of());
     }
 
+    /**
+     * Request a full versioned leaderboard snapshot.
+     */
+    public void requestLeaderboardSnapshot() {
+        if (!connected || session == null || sessionCode == null) {
+            return;
+        }
+
+        session.send("/app/session/" + sessionCode + "/leaderboard/snapshot", Map.of());
+    }
+
     /**
      * Request session info.
      */
@@ -471,6 +824,14 @@ public class StompGameClient {
         return sessionCode;
     }
 
+    public LeaderboardState getLeaderboardState() {
+        return leaderboardState;
+    }
+
+    public QuestionAssetCache getAssetCache() {
+        return assetCache;
+    }
+
     /**
      * Cleanup resources.
      */
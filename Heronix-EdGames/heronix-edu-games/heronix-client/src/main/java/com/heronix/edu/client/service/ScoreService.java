@@ -9,6 +9,7 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 /**
  * Service for managing game scores
@@ -84,6 +85,15 @@ public class ScoreService {
         return scoreRepository.findUnsyncedScores(limit);
     }
 
+    /**
+     * Pass every unsynced score to the consumer without loading them all
+     *
+     * @return number of scores read
+     */
+    public int forEachUnsyncedScore(Consumer<LocalGameScore> consumer) {
+        return scoreRepository.forEachUnsyncedScore(consumer);
+    }
+
     /**
      * Mark a score as synced
      */
@@ -91,6 +101,22 @@ public class ScoreService {
         scoreRepository.markAsSynced(scoreId);
     }
 
+    /**
+     * Highest seq up to which every score of the device is marked synced
+     */
+    public long getSyncedThrough(String deviceId) {
+        return scoreRepository.findSyncedThrough(deviceId);
+    }
+
+    /**
+     * Mark the scores the server reports it already has as synced
+     *
+     * @return number of scores newly marked
+     */
+    public int markSyncedBySeq(String deviceId, long highWaterMark, List<Long> receivedAbove) {
+        return scoreRepository.markSyncedBySeq(deviceId, highWaterMark, receivedAbove);
+    }
+
     /**
      * Increment sync attempt counter
      */
@@ -2,7 +2,10 @@ package com.heronix.edu.client.service;
 
 import com.heronix.edu.client.api.HeronixApiClient;
 import com.heronix.edu.client.api.dto.GameScoreDto;
+import com.heronix.edu.client.api.dto.ScoreStreamSummary;
 import com.heronix.edu.client.api.dto.SyncResponse;
+import com.heronix.edu.client.api.dto.SyncResumeResponse;
+import com.heronix.edu.client.api.dto.UploadStatus;
 import com.heronix.edu.client.config.AppConfig;
 import com.heronix.edu.client.db.entity.LocalGameScore;
 import com.heronix.edu.client.db.entity.SyncCheckpoint;
@@ -19,6 +22,7 @@ import org.slf4j.LoggerFactory;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.UUID;
 import java.util.concurrent.Executors;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
@@ -40,6 +44,9 @@ import java.util.stream.Collectors;
 public class SyncService {
     private static final Logger logger = LoggerFactory.getLogger(SyncService.class);
     private static final String ENTITY_TYPE_GAME_SCORE = "game_score";
+    private static final String ENTITY_TYPE_SCORE_SEQUENCE = "score_seq";
+    private static final long STATUS_POLL_MIN_MS = 250;
+    private static final long STATUS_POLL_MAX_MS = 2000;
 
     public enum SyncStatus {
         IDLE, SYNCING, SUCCESS, ERROR, CONFLICT
@@ -60,6 +67,7 @@ public class SyncService {
     private final AtomicReference<SyncStatus> currentStatus = new AtomicReference<>(SyncStatus.IDLE);
     private final AtomicReference<String> lastSyncMessage = new AtomicReference<>("");
     private final AtomicInteger pendingConflictCount = new AtomicInteger(0);
+    private volatile String sequenceEpoch;
 
     // Callback for conflict notification (UI can register to be notified)
     private Consumer<List<SyncConflict>> conflictCallback;
@@ -142,7 +150,13 @@ public class SyncService {
             return;
         }
 
-        performSync();
+        // A backlog bigger than one batch goes up as one stream rather than
+        // one batch per interval
+        if (scoreService.getUnsyncedCount() > AppConfig.getSyncBatchSize()) {
+            performStreamingSync();
+        } else {
+            performSync();
+        }
     }
 
     /**
@@ -170,13 +184,6 @@ public class SyncService {
                 return;
             }
 
-            logger.info("Syncing {} scores to server", unsyncedScores.size());
-
-            // Convert to DTOs
-            List<GameScoreDto> scoreDtos = unsyncedScores.stream()
-                .map(this::toDto)
-                .collect(Collectors.toList());
-
             // Get device ID
             String deviceId = deviceService.getDevice()
                 .orElseThrow(() -> new IllegalStateException("Device not found"))
@@ -192,30 +199,64 @@ public class SyncService {
                 return;
             }
 
-            // Upload to server
-            SyncResponse response = apiClient.uploadScores(deviceId, scoreDtos);
+            // Skip what the server already has from an earlier, unanswered upload
+            int resumed;
+            try {
+                resumed = resumeFromServer(deviceId);
+            } catch (Exception e) {
+                logger.warn("Sync resume handshake failed: {}. Scores will sync next time.", e.getMessage());
+                currentStatus.set(SyncStatus.ERROR);
+                lastSyncMessage.set("Server unavailable - scores pending");
+                return;
+            }
+            if (resumed > 0) {
+                unsyncedScores = scoreService.getUnsyncedScores(batchSize);
+                if (unsyncedScores.isEmpty()) {
+                    currentStatus.set(SyncStatus.SUCCESS);
+                    lastSyncMessage.set("All scores synced");
+                    return;
+                }
+            }
+
+            logger.info("Syncing {} scores to server", unsyncedScores.size());
+
+            // Convert to DTOs
+            List<GameScoreDto> scoreDtos = unsyncedScores.stream()
+                .map(this::toDto)
+                .collect(Collectors.toList());
+
+            // Queue on the server, then wait for it to be saved
+            UploadStatus status = awaitUpload(apiClient.uploadScoresAsync(deviceId, scoreDtos));
+            ScoreStreamSummary response = status.getResult();
 
             // Process response
-            if (response.isSuccess()) {
+            if (status.isQueued()) {
+                // Safe on the server; resent next time they come back as already saved
+                currentStatus.set(SyncStatus.SUCCESS);
+                lastSyncMessage.set("Uploaded " + unsyncedScores.size() + " score(s), server still saving");
+                logger.info("Upload {} still queued on server after {}s",
+                    status.getSyncId(), AppConfig.getSyncStatusWaitSeconds());
+
+            } else if (response != null && response.isSuccess()) {
                 // Mark all as synced (server wins approach)
                 for (LocalGameScore score : unsyncedScores) {
                     scoreService.markAsSynced(score.getScoreId());
                 }
 
                 currentStatus.set(SyncStatus.SUCCESS);
-                lastSyncMessage.set("Synced " + response.getSuccessCount() + " score(s)");
-                logger.info("Sync successful: {} scores uploaded", response.getSuccessCount());
+                lastSyncMessage.set("Synced " + response.getScoresAccepted() + " score(s)");
+                logger.info("Sync successful: {} scores uploaded", response.getScoresAccepted());
 
             } else {
                 // Handle partial or full failure
+                String errorMsg = response != null && response.getMessage() != null ?
+                    response.getMessage() : "Unknown error";
                 currentStatus.set(SyncStatus.ERROR);
-                lastSyncMessage.set("Sync failed: " + response.getMessage());
-                logger.error("Sync failed: {}", response.getMessage());
+                lastSyncMessage.set("Sync failed: " + errorMsg);
+                logger.error("Sync failed: {}", errorMsg);
 
                 // Increment sync attempts for failed scores
                 for (LocalGameScore score : unsyncedScores) {
-                    String errorMsg = response.getMessage() != null ?
-                        response.getMessage() : "Unknown error";
                     scoreService.incrementSyncAttempt(score.getScoreId(), errorMsg);
                 }
             }
@@ -238,6 +279,136 @@ public class SyncService {
         }
     }
 
+    /**
+     * Stream every unsynced score to the server in one request, reading them
+     * from the local database as they are sent. Each score is marked synced
+     * as soon as the server reports it committed, so a stream cut short
+     * leaves only the rest to send next time.
+     */
+    public void performStreamingSync() {
+        if (!isSyncing.compareAndSet(false, true)) {
+            logger.debug("Sync already in progress");
+            return;
+        }
+
+        currentStatus.set(SyncStatus.SYNCING);
+        lastSyncMessage.set("Syncing...");
+
+        try {
+            try {
+                deviceService.refreshTokenIfNeeded();
+            } catch (Exception e) {
+                logger.warn("Unable to obtain valid token for sync: {}. Scores will sync when token is available.", e.getMessage());
+                currentStatus.set(SyncStatus.ERROR);
+                lastSyncMessage.set("Authentication required - scores pending");
+                return;
+            }
+
+            String deviceId = deviceService.getDevice()
+                .orElseThrow(() -> new IllegalStateException("Device not found"))
+                .getDeviceId();
+            try {
+                resumeFromServer(deviceId);
+            } catch (Exception e) {
+                logger.warn("Sync resume handshake failed: {}. Scores will sync next time.", e.getMessage());
+                currentStatus.set(SyncStatus.ERROR);
+                lastSyncMessage.set("Server unavailable - scores pending");
+                return;
+            }
+
+            AtomicInteger synced = new AtomicInteger();
+            ScoreStreamSummary summary = apiClient.uploadScoreStream(
+                sink -> scoreService.forEachUnsyncedScore(score -> sink.accept(toDto(score))),
+                result -> {
+                    if (result.isOnServer()) {
+                        scoreService.markAsSynced(result.getScoreId());
+                        synced.incrementAndGet();
+                    } else if (result.getScoreId() != null) {
+                        scoreService.incrementSyncAttempt(result.getScoreId(), result.getMessage());
+                    }
+                });
+
+            if (summary.isSuccess()) {
+                currentStatus.set(SyncStatus.SUCCESS);
+                lastSyncMessage.set("Synced " + summary.getScoresAccepted() + " score(s)");
+                logger.info("Streaming sync successful: {} scores uploaded, {} already on server",
+                    summary.getScoresAccepted(), synced.get() - summary.getScoresAccepted());
+            } else {
+                currentStatus.set(SyncStatus.ERROR);
+                lastSyncMessage.set("Sync failed: " + summary.getMessage());
+                logger.error("Streaming sync stopped after {} scores: {}",
+                    summary.getScoresProcessed(), summary.getMessage());
+            }
+
+        } catch (Exception e) {
+            // Scores the server committed before the error are already marked
+            logger.error("Streaming sync error", e);
+            currentStatus.set(SyncStatus.ERROR);
+            lastSyncMessage.set("Sync error: " + e.getMessage());
+
+        } finally {
+            isSyncing.set(false);
+        }
+    }
+
+    /**
+     * Handshake before an upload: tell the server this database's score epoch
+     * and how far its scores are synced, then mark synced the ones the server
+     * reports it already has, so a lost answer does not mean sending them
+     * again. Nothing is uploaded unless it succeeds: the server must know the
+     * epoch before it can tell this database's seqs from an earlier one's.
+     *
+     * @return number of scores newly marked synced
+     * @throws Exception if the server could not be reached or refused
+     */
+    private int resumeFromServer(String deviceId) throws Exception {
+        SyncResumeResponse resume = apiClient.resumeSync(getSequenceEpoch(),
+            scoreService.getSyncedThrough(deviceId));
+        int marked = scoreService.markSyncedBySeq(deviceId, resume.getHighWaterMark(),
+            resume.getReceivedAbove());
+        if (marked > 0) {
+            logger.info("Server already had {} unsynced score(s); resuming after seq {}",
+                marked, resume.getHighWaterMark());
+        }
+        return marked;
+    }
+
+    /**
+     * This database's score sequence epoch. A new local database numbers its
+     * scores from 1 again, under a new epoch, so the server does not take
+     * them for ones it already has.
+     */
+    private String getSequenceEpoch() {
+        String epoch = sequenceEpoch;
+        if (epoch == null) {
+            SyncCheckpoint checkpoint = checkpointRepository.getOrCreate(ENTITY_TYPE_SCORE_SEQUENCE);
+            if (checkpoint.getServerSequenceId() == null) {
+                checkpoint.setServerSequenceId(UUID.randomUUID().toString());
+                checkpointRepository.update(checkpoint);
+            }
+            epoch = checkpoint.getServerSequenceId();
+            sequenceEpoch = epoch;
+        }
+        return epoch;
+    }
+
+    /**
+     * Poll a queued upload until the server has finished with it, backing off
+     * from 250ms to 2s, for at most the configured wait.
+     *
+     * @return the last status seen, still QUEUED if the wait ran out
+     */
+    private UploadStatus awaitUpload(UploadStatus status) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + AppConfig.getSyncStatusWaitSeconds() * 1000L;
+        long delayMs = STATUS_POLL_MIN_MS;
+        while (status.isQueued() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(delayMs);
+            delayMs = Math.min(delayMs * 2, STATUS_POLL_MAX_MS);
+            status = apiClient.getUploadStatus(status.getSyncId());
+        }
+        return status;
+    }
+
     /**
      * Convert LocalGameScore to DTO
      */
@@ -256,6 +427,8 @@ public class SyncService {
         dto.setDifficultyLevel(score.getDifficultyLevel());
         dto.setPlayedAt(score.getPlayedAt());
         dto.setDeviceId(score.getDeviceId());
+        dto.setSeq(score.getSeq());
+        dto.setSeqEpoch(getSequenceEpoch());
         dto.setMetadata(score.getMetadata());
         return dto;
     }
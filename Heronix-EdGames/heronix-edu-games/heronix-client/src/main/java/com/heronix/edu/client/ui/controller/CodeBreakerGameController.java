@@ -169,6 +169,9 @@ public class CodeBreakerGameController {
         // Leaderboard update
         wsClient.onMessage("LEADERBOARD_UPDATE", this::handleLeaderboardUpdate);
 
+        // Own standing in large sessions, where the leaderboard shows only the top
+        wsClient.onMessage("RANK_UPDATE", this::handleRankUpdate);
+
         // Being hacked
         wsClient.onMessage("BEING_HACKED", this::handleBeingHacked);
 
@@ -441,11 +444,12 @@ public class CodeBreakerGameController {
 
     /**
      * Handle leaderboard update.
+     * StompGameClient has already merged the delta; "leaderboard" holds the full ranked list.
      */
     private void handleLeaderboardUpdate(Map<String, Object> msg) {
         Platform.runLater(() -> {
             try {
-                List<?> players = (List<?>) msg.get("payload");
+                List<?> players = (List<?>) msg.get("leaderboard");
                 updateLeaderboard(players);
                 updateHackTargets(players);
             } catch (Exception e) {
@@ -454,6 +458,18 @@ public class CodeBreakerGameController {
         });
     }
 
+    /**
+     * Handle own rank update.
+     */
+    private void handleRankUpdate(Map<String, Object> msg) {
+        Platform.runLater(() -> {
+            int rank = ((Number) msg.get("rank")).intValue();
+            int total = ((Number) msg.get("totalPlayers")).intValue();
+            playerState.setRank(rank);
+            rankLabel.setText("Rank: #" + rank + " of " + total);
+        });
+    }
+
     /**
      * Update leaderboard display.
      */
@@ -46,6 +46,7 @@ CREATE TABLE IF NOT EXISTS game_score (
     difficulty_level VARCHAR(50),
     played_at TIMESTAMP NOT NULL,
     device_id VARCHAR(255),
+    seq BIGINT,                          -- Upload order per device: 1, 2, 3, ...
     synced BOOLEAN DEFAULT FALSE,
     synced_at TIMESTAMP,
     sync_attempts INTEGER DEFAULT 0,
@@ -118,10 +119,24 @@ CREATE TABLE IF NOT EXISTS sync_checkpoint (
     updated_at TIMESTAMP DEFAULT CURRENT_TIMESTAMP
 );
 
+-- Number the scores of databases created before seq existed, per device in
+-- the order played; later scores get theirs when saved
+ALTER TABLE game_score ADD COLUMN IF NOT EXISTS seq BIGINT;
+MERGE INTO game_score t
+USING (
+    SELECT g.score_id,
+           ROW_NUMBER() OVER (PARTITION BY g.device_id ORDER BY g.played_at, g.score_id)
+               + (SELECT COALESCE(MAX(m.seq), 0) FROM game_score m WHERE m.device_id = g.device_id) AS seq
+    FROM game_score g
+    WHERE g.seq IS NULL AND g.device_id IS NOT NULL
+) s ON (t.score_id = s.score_id)
+WHEN MATCHED THEN UPDATE SET t.seq = s.seq;
+
 -- Indexes for performance
 CREATE INDEX IF NOT EXISTS idx_score_synced ON game_score(synced, played_at);
 CREATE INDEX IF NOT EXISTS idx_score_student ON game_score(student_id, played_at DESC);
 CREATE INDEX IF NOT EXISTS idx_score_game ON game_score(game_id, played_at DESC);
+CREATE UNIQUE INDEX IF NOT EXISTS idx_score_device_seq ON game_score(device_id, seq);
 CREATE INDEX IF NOT EXISTS idx_sync_log_time ON sync_log(sync_started_at DESC);
 CREATE INDEX IF NOT EXISTS idx_sync_conflict_pending ON sync_conflict(resolution, created_at);
 CREATE INDEX IF NOT EXISTS idx_sync_conflict_entity ON sync_conflict(entity_type, entity_id);
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
@@ -337,5 +338,90 @@ class StompGameClientTest {
             assertNotNull(httpsClient);
             httpsClient.shutdown();
         }
+
+        @Test
+        @DisplayName("Should connect compact frames over the plain WebSocket form of the URL")
+        void shouldDeriveWebSocketUrl() {
+            assertEquals("ws://localhost:8081", StompGameClient.toWebSocketUrl("http://localhost:8081"));
+            assertEquals("wss://game.heronix.edu", StompGameClient.toWebSocketUrl("https://game.heronix.edu"));
+            assertEquals("ws://10.0.0.5:8081", StompGameClient.toWebSocketUrl("ws://10.0.0.5:8081"));
+        }
+
+        @Test
+        @DisplayName("Should accept a client that keeps to SockJS and JSON")
+        void shouldAcceptJsonOnlyClient() {
+            StompGameClient jsonClient = new StompGameClient("http://localhost:8081", false);
+            assertNotNull(jsonClient);
+            jsonClient.shutdown();
+        }
+    }
+
+    @Nested
+    @DisplayName("Leaderboard Delta Tests")
+    class LeaderboardDeltaTests {
+
+        @Test
+        @DisplayName("Should merge deltas into the full ranked leaderboard")
+        void shouldMergeDeltas() {
+            AtomicReference<Map<String, Object>> received = new AtomicReference<>();
+            client.onMessage("LEADERBOARD_UPDATE", received::set);
+
+            client.handleMessage(update(1, 1, true, List.of(row("a", 1, 100), row("b", 2, 50))));
+            client.handleMessage(update(1, 2, false, List.of(row("b", 1, 150), row("a", 2, 100))));
+            client.handleMessage(update(2, 3, false, List.of(row("c", 3, 10))));
+
+            List<?> leaderboard = (List<?>) received.get().get("leaderboard");
+            assertEquals(3, leaderboard.size());
+            assertEquals("b", ((Map<?, ?>) leaderboard.get(0)).get("playerId"));
+            assertEquals("a", ((Map<?, ?>) leaderboard.get(1)).get("playerId"));
+            assertEquals("c", ((Map<?, ?>) leaderboard.get(2)).get("playerId"));
+            assertEquals(3, client.getLeaderboardState().getVersion());
+        }
+
+        @Test
+        @DisplayName("Should drop a delta that skips a version")
+        void shouldDropDeltaWithVersionGap() {
+            AtomicReference<Map<String, Object>> received = new AtomicReference<>();
+            client.onMessage("LEADERBOARD_UPDATE", received::set);
+
+            client.handleMessage(update(1, 1, true, List.of(row("a", 1, 100))));
+            received.set(null);
+
+            client.handleMessage(update(4, 5, false, List.of(row("a", 1, 200))));
+
+            assertNull(received.get());
+            assertEquals(1, client.getLeaderboardState().getVersion());
+        }
+
+        @Test
+        @DisplayName("Should replace state with a newer snapshot")
+        void shouldReplaceStateWithSnapshot() {
+            client.handleMessage(update(0, 1, false, List.of(row("a", 1, 100), row("b", 2, 50))));
+            client.handleMessage(update(7, 7, true, List.of(row("z", 1, 300))));
+
+            List<Map<String, Object>> rows = client.getLeaderboardState().getRows();
+            assertEquals(1, rows.size());
+            assertEquals("z", rows.get(0).get("playerId"));
+            assertEquals(7, client.getLeaderboardState().getVersion());
+        }
+
+        private Map<String, Object> update(long baseVersion, long version, boolean full,
+                                           List<Map<String, Object>> entries) {
+            Map<String, Object> message = new HashMap<>();
+            message.put("type", "LEADERBOARD_UPDATE");
+            message.put("baseVersion", baseVersion);
+            message.put("version", version);
+            message.put("full", full);
+            message.put("entries", entries);
+            return message;
+        }
+
+        private Map<String, Object> row(String playerId, int rank, int credits) {
+            Map<String, Object> row = new HashMap<>();
+            row.put("playerId", playerId);
+            row.put("rank", rank);
+            row.put("credits", credits);
+            return row;
+        }
     }
 }
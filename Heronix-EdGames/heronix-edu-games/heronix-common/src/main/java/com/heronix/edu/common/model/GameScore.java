@@ -77,6 +77,18 @@ public class GameScore {
      */
     private String deviceId;
     
+    /**
+     * Position of this score in its device's upload order (1, 2, 3, ...),
+     * or null if the device does not number its scores
+     */
+    private Long seq;
+    
+    /**
+     * The device's sequence numbering the seq belongs to; a new local
+     * database starts a new one
+     */
+    private String seqEpoch;
+    
     /**
      * Whether this score has been synced to server
      */
@@ -215,6 +227,22 @@ public class GameScore {
         this.deviceId = deviceId;
     }
     
+    public Long getSeq() {
+        return seq;
+    }
+    
+    public void setSeq(Long seq) {
+        this.seq = seq;
+    }
+    
+    public String getSeqEpoch() {
+        return seqEpoch;
+    }
+    
+    public void setSeqEpoch(String seqEpoch) {
+        this.seqEpoch = seqEpoch;
+    }
+    
     public boolean isSynced() {
         return synced;
     }
@@ -0,0 +1,499 @@
+package com.heronix.edu.common.wire;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.RawValue;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compact binary encoding of the multiplayer messages, negotiated by clients on
+ * a plain WebSocket; JSON stays the format for everyone else.
+ *
+ * The encoding carries the same tree as the JSON, so any message can be sent in
+ * either form and turned back into the other. Each value starts with one byte:
+ * a 3-bit type and a 5-bit argument, 0-30 inline or 31 for an unsigned varint
+ * that follows.
+ *
+ *   0 uint         value
+ *   1 negative int -1 - value
+ *   2 string       UTF-8 byte length, then the bytes
+ *   3 string ref   index of an earlier string of 3 or more bytes in this message
+ *   4 known string index into {@link #KNOWN_STRINGS}
+ *   5 container    0 object, 1 array; entries until an end marker
+ *   6 simple       null, false, true, float32, float64, end, decimal text
+ *
+ * Field names and message type values are known strings, usually one byte each,
+ * and a name or value repeated through a list (every leaderboard entry's
+ * playerId key, the same avatar) is a reference after its first use. A message
+ * starts with the format {@link #VERSION}.
+ */
+public final class CompactWireCodec {
+
+    public static final String MIME_TYPE = "application/vnd.heronix.compact";
+    public static final int VERSION = 1;
+
+    /**
+     * Field names and values of the fixed message types. The index is the wire
+     * form, so entries are only ever appended; changing one means a new VERSION.
+     */
+    static final List<String> KNOWN_STRINGS = List.of(
+        // 0-30: one byte
+        "type", "playerId", "playerName", "studentName", "credits", "rank", "avatarId", "eventType",
+        "sessionId", "data", "timestamp", "version", "baseVersion", "full", "totalPlayers", "entries",
+        "removed", "correctAnswers", "successfulHacks", "isCurrentPlayer", "questionId", "questionText",
+        "answers", "difficulty", "timeLimitSeconds", "correct", "correctAnswer", "explanation",
+        "rewardOptions", "creditsEarned", "newTotalCredits",
+        // 31 on: two bytes
+        "LEADERBOARD_UPDATE", "RANK_UPDATE", "REPLAY", "neighbours", "seq", "destination", "payload",
+        "events", "complete", "lastSeq", "status", "success", "targetPlayerName", "creditsStolen", "hint",
+        "failedAttempts", "challengeType", "label", "description", "value", "iconUrl", "imageUrl",
+        "incorrectAnswers", "accuracy", "hackerName", "creditsLost", "message", "otherPlayers",
+        "resumeToken", "gameType", "studentId", "connected", "joinedAt", "hackAttempts", "hackSuccessRate",
+        "timesHacked", "orderIndex", "questionNumber",
+        "PLAYER_JOINED", "PLAYER_LEFT", "PLAYER_DISCONNECTED", "PLAYER_RECONNECTED", "GAME_STARTED",
+        "GAME_PAUSED", "GAME_RESUMED", "GAME_ENDED", "QUESTION_SENT", "ANSWER_CORRECT", "ANSWER_INCORRECT",
+        "HACK_SUCCESS", "HACK_FAILED", "PLAYER_HACKED", "TIME_WARNING", "CREDITS_EARNED", "YOU_WERE_HACKED",
+        "CREDITS", "HACK", "SHIELD", "DOUBLE_NEXT");
+
+    private static final Map<String, Integer> KNOWN_INDEX = new HashMap<>();
+    static {
+        for (int i = 0; i < KNOWN_STRINGS.size(); i++) {
+            KNOWN_INDEX.put(KNOWN_STRINGS.get(i), i);
+        }
+    }
+
+    private static final int UINT = 0;
+    private static final int NEGATIVE_INT = 1;
+    private static final int STRING = 2;
+    private static final int STRING_REF = 3;
+    private static final int KNOWN = 4;
+    private static final int CONTAINER = 5;
+    private static final int SIMPLE = 6;
+
+    private static final int OBJECT = 0;
+    private static final int ARRAY = 1;
+
+    private static final int NULL = 0;
+    private static final int FALSE = 1;
+    private static final int TRUE = 2;
+    private static final int FLOAT32 = 3;
+    private static final int FLOAT64 = 4;
+    private static final int END = 5;
+    private static final int DECIMAL = 6;
+
+    private static final int VARINT_FOLLOWS = 31;
+    // Shorter strings cost no more written out than referenced
+    private static final int MIN_REF_LENGTH = 3;
+    private static final int MAX_REFS = 4096;
+    private static final int MAX_DEPTH = 256;
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private CompactWireCodec() {
+    }
+
+    /**
+     * Re-encode a JSON document without binding it to objects.
+     */
+    public static byte[] fromJson(byte[] json) throws IOException {
+        try (JsonParser parser = JSON.createParser(json)) {
+            return encode(parser);
+        }
+    }
+
+    /**
+     * The JSON text of a compact message.
+     */
+    public static byte[] toJson(byte[] compact) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(compact.length * 2);
+        try (JsonGenerator generator = JSON.createGenerator(out)) {
+            decode(compact, generator);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Serialize a value as the mapper would to JSON, straight to the compact form.
+     */
+    public static byte[] write(ObjectMapper mapper, Object value) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        mapper.writeValue(tokens, value);
+        try (JsonParser parser = tokens.asParser()) {
+            return encode(parser);
+        }
+    }
+
+    /**
+     * Bind a compact message as the mapper would its JSON.
+     */
+    public static <T> T read(ObjectMapper mapper, byte[] compact, JavaType type) throws IOException {
+        TokenBuffer tokens = new TokenBuffer(mapper, false);
+        decode(compact, tokens);
+        try (JsonParser parser = tokens.asParser()) {
+            return mapper.readValue(parser, type);
+        }
+    }
+
+    /**
+     * Encode the next value of a token stream.
+     */
+    public static byte[] encode(JsonParser parser) throws IOException {
+        Encoder encoder = new Encoder();
+        if (parser.nextToken() == null) {
+            throw new IOException("No value to encode");
+        }
+        encoder.writeVersion();
+        encoder.writeValue(parser);
+        return encoder.toByteArray();
+    }
+
+    /**
+     * Write a compact message to a token stream, such as a JSON generator.
+     */
+    public static void decode(byte[] compact, JsonGenerator generator) throws IOException {
+        Decoder decoder = new Decoder(compact);
+        decoder.readVersion();
+        decoder.readValue(generator, decoder.readLead(), 0);
+        if (decoder.position != compact.length) {
+            throw new IOException("Trailing bytes after compact message at " + decoder.position);
+        }
+    }
+
+    private static final class Encoder {
+        private byte[] buffer = new byte[256];
+        private int length;
+        private final Map<String, Integer> refs = new HashMap<>();
+
+        void writeVersion() {
+            writeByte(VERSION);
+        }
+
+        void writeValue(JsonParser parser) throws IOException {
+            JsonToken token = parser.currentToken();
+            switch (token) {
+                case START_OBJECT -> {
+                    writeLead(CONTAINER, OBJECT);
+                    while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                        writeString(parser.currentName());
+                        parser.nextToken();
+                        writeValue(parser);
+                    }
+                    writeLead(SIMPLE, END);
+                }
+                case START_ARRAY -> {
+                    writeLead(CONTAINER, ARRAY);
+                    while (parser.nextToken() != JsonToken.END_ARRAY) {
+                        writeValue(parser);
+                    }
+                    writeLead(SIMPLE, END);
+                }
+                case VALUE_STRING -> writeString(parser.getText());
+                case VALUE_NUMBER_INT -> {
+                    if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+                        writeDecimal(parser.getText());
+                    } else {
+                        writeLong(parser.getLongValue());
+                    }
+                }
+                case VALUE_NUMBER_FLOAT -> writeFloat(parser);
+                case VALUE_TRUE -> writeLead(SIMPLE, TRUE);
+                case VALUE_FALSE -> writeLead(SIMPLE, FALSE);
+                case VALUE_NULL -> writeLead(SIMPLE, NULL);
+                case VALUE_EMBEDDED_OBJECT -> writeEmbedded(parser.getEmbeddedObject());
+                default -> throw new IOException("Unexpected token " + token);
+            }
+        }
+
+        private void writeLong(long value) {
+            if (value >= 0) {
+                writeLead(UINT, value);
+            } else {
+                writeLead(NEGATIVE_INT, -1 - value);
+            }
+        }
+
+        private void writeFloat(JsonParser parser) throws IOException {
+            if (parser.getNumberType() == JsonParser.NumberType.BIG_DECIMAL) {
+                writeDecimal(parser.getText());
+                return;
+            }
+            double value = parser.getDoubleValue();
+            float narrow = (float) value;
+            if (narrow == value) {
+                // Widens back to the same double on the other side
+                writeLead(SIMPLE, FLOAT32);
+                writeInt(Float.floatToIntBits(narrow));
+            } else {
+                writeLead(SIMPLE, FLOAT64);
+                long bits = Double.doubleToLongBits(value);
+                writeInt((int) (bits >>> 32));
+                writeInt((int) bits);
+            }
+        }
+
+        private void writeEmbedded(Object value) throws IOException {
+            if (value == null) {
+                writeLead(SIMPLE, NULL);
+            } else if (value instanceof RawValue raw) {
+                // A @JsonRawValue property: JSON text to be embedded as is
+                try (JsonParser parser = JSON.createParser(String.valueOf(raw.rawValue()))) {
+                    parser.nextToken();
+                    writeValue(parser);
+                }
+            } else if (value instanceof byte[] bytes) {
+                writeString(Base64.getEncoder().encodeToString(bytes));  // as Jackson writes it to JSON
+            } else {
+                throw new IOException("Cannot encode embedded " + value.getClass().getName());
+            }
+        }
+
+        private void writeDecimal(String text) {
+            byte[] ascii = text.getBytes(StandardCharsets.US_ASCII);
+            writeLead(SIMPLE, DECIMAL);
+            writeVarint(ascii.length);
+            writeBytes(ascii);
+        }
+
+        private void writeString(String value) {
+            Integer known = KNOWN_INDEX.get(value);
+            if (known != null) {
+                writeLead(KNOWN, known);
+                return;
+            }
+            Integer ref = refs.get(value);
+            if (ref != null) {
+                writeLead(STRING_REF, ref);
+                return;
+            }
+            byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+            writeLead(STRING, utf8.length);
+            writeBytes(utf8);
+            if (utf8.length >= MIN_REF_LENGTH && refs.size() < MAX_REFS) {
+                refs.put(value, refs.size());
+            }
+        }
+
+        private void writeLead(int type, long argument) {
+            if (argument < VARINT_FOLLOWS) {
+                writeByte(type << 5 | (int) argument);
+            } else {
+                writeByte(type << 5 | VARINT_FOLLOWS);
+                writeVarint(argument - VARINT_FOLLOWS);
+            }
+        }
+
+        private void writeVarint(long value) {
+            while ((value & ~0x7FL) != 0) {
+                writeByte((int) (value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            writeByte((int) value);
+        }
+
+        private void writeInt(int value) {
+            ensure(4);
+            buffer[length++] = (byte) (value >>> 24);
+            buffer[length++] = (byte) (value >>> 16);
+            buffer[length++] = (byte) (value >>> 8);
+            buffer[length++] = (byte) value;
+        }
+
+        private void writeByte(int value) {
+            ensure(1);
+            buffer[length++] = (byte) value;
+        }
+
+        private void writeBytes(byte[] bytes) {
+            ensure(bytes.length);
+            System.arraycopy(bytes, 0, buffer, length, bytes.length);
+            length += bytes.length;
+        }
+
+        private void ensure(int extra) {
+            if (length + extra > buffer.length) {
+                buffer = Arrays.copyOf(buffer, Math.max(buffer.length * 2, length + extra));
+            }
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(buffer, length);
+        }
+    }
+
+    private static final class Decoder {
+        private final byte[] input;
+        private int position;
+        private final List<String> refs = new ArrayList<>();
+
+        Decoder(byte[] input) {
+            this.input = input;
+        }
+
+        void readVersion() throws IOException {
+            int version = readByte();
+            if (version != VERSION) {
+                throw new IOException("Unsupported compact format version " + version);
+            }
+        }
+
+        int readLead() throws IOException {
+            return readByte();
+        }
+
+        void readValue(JsonGenerator generator, int lead, int depth) throws IOException {
+            int type = lead >>> 5;
+            switch (type) {
+                case UINT -> writeInteger(generator, readArgument(lead));
+                case NEGATIVE_INT -> writeInteger(generator, -1 - readArgument(lead));
+                case STRING, STRING_REF, KNOWN -> generator.writeString(readString(lead));
+                case CONTAINER -> readContainer(generator, (int) readArgument(lead), depth);
+                case SIMPLE -> readSimple(generator, lead & VARINT_FOLLOWS);
+                default -> throw malformed("type " + type);
+            }
+        }
+
+        private void readContainer(JsonGenerator generator, int kind, int depth) throws IOException {
+            if (depth >= MAX_DEPTH) {
+                throw malformed("nesting deeper than " + MAX_DEPTH);
+            }
+            if (kind == OBJECT) {
+                generator.writeStartObject();
+                for (int lead = readLead(); lead != (SIMPLE << 5 | END); lead = readLead()) {
+                    generator.writeFieldName(readString(lead));
+                    readValue(generator, readLead(), depth + 1);
+                }
+                generator.writeEndObject();
+            } else if (kind == ARRAY) {
+                generator.writeStartArray();
+                for (int lead = readLead(); lead != (SIMPLE << 5 | END); lead = readLead()) {
+                    readValue(generator, lead, depth + 1);
+                }
+                generator.writeEndArray();
+            } else {
+                throw malformed("container " + kind);
+            }
+        }
+
+        private void readSimple(JsonGenerator generator, int kind) throws IOException {
+            switch (kind) {
+                case NULL -> generator.writeNull();
+                case FALSE -> generator.writeBoolean(false);
+                case TRUE -> generator.writeBoolean(true);
+                case FLOAT32 -> generator.writeNumber((double) Float.intBitsToFloat(readInt()));
+                case FLOAT64 -> generator.writeNumber(Double.longBitsToDouble((long) readInt() << 32
+                    | (readInt() & 0xFFFFFFFFL)));
+                case DECIMAL -> {
+                    int length = readLength();
+                    String text = new String(input, position, length, StandardCharsets.US_ASCII);
+                    position += length;
+                    if (text.indexOf('.') < 0 && text.indexOf('e') < 0 && text.indexOf('E') < 0) {
+                        generator.writeNumber(new BigInteger(text));
+                    } else {
+                        generator.writeNumber(new BigDecimal(text));
+                    }
+                }
+                default -> throw malformed("simple value " + kind);
+            }
+        }
+
+        private static void writeInteger(JsonGenerator generator, long value) throws IOException {
+            // As Jackson parses JSON: int where it fits
+            if (value == (int) value) {
+                generator.writeNumber((int) value);
+            } else {
+                generator.writeNumber(value);
+            }
+        }
+
+        private String readString(int lead) throws IOException {
+            int type = lead >>> 5;
+            if (type == KNOWN) {
+                long index = readArgument(lead);
+                if (index >= KNOWN_STRINGS.size()) {
+                    throw malformed("known string " + index);
+                }
+                return KNOWN_STRINGS.get((int) index);
+            }
+            if (type == STRING_REF) {
+                long index = readArgument(lead);
+                if (index >= refs.size()) {
+                    throw malformed("string ref " + index);
+                }
+                return refs.get((int) index);
+            }
+            if (type != STRING) {
+                throw malformed("string expected, type " + type);
+            }
+            int length = checkedLength(readArgument(lead));
+            String value = new String(input, position, length, StandardCharsets.UTF_8);
+            position += length;
+            if (length >= MIN_REF_LENGTH && refs.size() < MAX_REFS) {
+                refs.add(value);
+            }
+            return value;
+        }
+
+        private long readArgument(int lead) throws IOException {
+            int argument = lead & VARINT_FOLLOWS;
+            return argument < VARINT_FOLLOWS ? argument : VARINT_FOLLOWS + readVarint();
+        }
+
+        private long readVarint() throws IOException {
+            long value = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int b = readByte();
+                value |= (long) (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    return value;
+                }
+            }
+            throw malformed("varint too long");
+        }
+
+        private int readLength() throws IOException {
+            return checkedLength(readVarint());
+        }
+
+        private int checkedLength(long length) throws IOException {
+            if (length < 0 || length > input.length - position) {
+                throw malformed("length " + length);
+            }
+            return (int) length;
+        }
+
+        private int readInt() throws IOException {
+            checkedLength(4);
+            int value = (input[position] & 0xFF) << 24 | (input[position + 1] & 0xFF) << 16
+                | (input[position + 2] & 0xFF) << 8 | input[position + 3] & 0xFF;
+            position += 4;
+            return value;
+        }
+
+        private int readByte() throws IOException {
+            if (position >= input.length) {
+                throw malformed("unexpected end");
+            }
+            return input[position++] & 0xFF;
+        }
+
+        private IOException malformed(String detail) {
+            return new IOException("Malformed compact message at " + position + ": " + detail);
+        }
+    }
+}
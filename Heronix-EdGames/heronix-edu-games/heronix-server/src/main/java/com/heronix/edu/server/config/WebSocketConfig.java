@@ -1,12 +1,25 @@
 package com.heronix.edu.server.config;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.util.VirtualThreads;
+import com.heronix.edu.server.websocket.CompactWireFormat;
+import com.heronix.edu.server.websocket.CompactWireMessageConverter;
 import com.heronix.edu.server.websocket.GameSessionChannelInterceptor;
 import com.heronix.edu.server.websocket.GameSessionHandshakeInterceptor;
+import com.heronix.edu.server.websocket.MessagingMetrics;
+import com.heronix.edu.server.websocket.OutboundBackpressure;
+import com.heronix.edu.server.websocket.SessionEventRecorder;
+import com.heronix.edu.server.websocket.SessionTopicFanout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.messaging.converter.MessageConverter;
 import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
@@ -14,12 +27,21 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
 
+import java.util.List;
+import java.util.concurrent.ThreadFactory;
+
 /**
  * High-performance WebSocket configuration for multiplayer game support.
  * Optimized to handle 500+ concurrent student connections.
  *
  * Key optimizations:
- * - Dedicated thread pools for inbound/outbound channels (20-100 threads)
+ * - Dedicated thread pools for inbound/outbound channels (20-100 threads), or
+ *   virtual threads with heronix.websocket.executor.mode=virtual
+ * - Bounded outbound queue per connection, so a slow client cannot stall the others
+ * - Numbered session events kept per session, so a reconnecting player is sent only what they missed
+ * - Session topic frames encoded once per broadcast and shared by every subscriber
+ * - Compact binary frames for clients that ask for them on a plain WebSocket; JSON otherwise
+ * - Message counts and receive-to-reply latency per destination, for the monitor endpoint
  * - Increased buffer sizes and message limits
  * - Session-code based authentication (no JWT for WebSocket)
  * - Heartbeat configuration for connection health
@@ -27,6 +49,7 @@ import org.springframework.web.socket.server.standard.ServletServerContainerFact
 @Configuration
 @EnableWebSocketMessageBroker
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
+    private static final Logger logger = LoggerFactory.getLogger(WebSocketConfig.class);
 
     @Autowired
     private GameSessionHandshakeInterceptor handshakeInterceptor;
@@ -34,6 +57,31 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
     @Autowired
     private GameSessionChannelInterceptor channelInterceptor;
 
+    @Autowired
+    private OutboundBackpressure outboundBackpressure;
+
+    @Autowired
+    private SessionEventRecorder sessionEventRecorder;
+
+    @Autowired
+    private SessionTopicFanout sessionTopicFanout;
+
+    @Autowired
+    private CompactWireFormat compactWireFormat;
+
+    @Autowired
+    private MessagingMetrics messagingMetrics;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    // platform (sized thread pools) or virtual (Java 21 virtual threads)
+    @Value("${heronix.websocket.executor.mode:platform}")
+    private String executorMode;
+
+    @Value("${heronix.websocket.executor.virtual-max-threads:10000}")
+    private int virtualMaxThreads;
+
     @Override
     public void configureMessageBroker(MessageBrokerRegistry config) {
         // Enable simple broker with heartbeat for connection health monitoring
@@ -50,6 +98,11 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
         // Preserve publish order for consistent game state
         config.setPreservePublishOrder(true);
+
+        // Number and keep session events on their way to the broker, for replay on resume;
+        // then encode each session topic broadcast once, numbered, for all its subscribers.
+        // Replies first pick up the trace of the request they answer
+        config.configureBrokerChannel().interceptors(messagingMetrics.broker(), sessionEventRecorder, sessionTopicFanout);
     }
 
     @Override
@@ -59,6 +112,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             .addInterceptors(handshakeInterceptor)
             .setAllowedOriginPatterns("*");
 
+        // Handle each connection's messages in the order they arrived, whatever the executor
+        registry.setPreserveReceiveOrder(true);
+
         // SockJS fallback endpoint for browsers without WebSocket support
         registry.addEndpoint("/ws/game")
             .addInterceptors(handshakeInterceptor)
@@ -77,7 +133,9 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
             .setMessageSizeLimit(128 * 1024)      // 128KB max message size
             .setSendBufferSizeLimit(1024 * 1024)  // 1MB send buffer
             .setSendTimeLimit(30 * 1000)          // 30 second send timeout
-            .setTimeToFirstMessage(60 * 1000);    // 60 second initial timeout
+            .setTimeToFirstMessage(60 * 1000)     // 60 second initial timeout
+            // Per-connection bounded queues: sends from the broker never wait on a slow socket
+            .addDecoratorFactory(outboundBackpressure::decorate);
     }
 
     @Override
@@ -85,12 +143,8 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Configure inbound channel for handling client messages
         // Optimized for 500+ concurrent connections
         // Core: 20 threads, Max: 100 threads (handles bursts during game events)
-        registration.taskExecutor()
-            .corePoolSize(20)
-            .maxPoolSize(100)
-            .queueCapacity(500)
-            .keepAliveSeconds(60);
-        registration.interceptors(channelInterceptor);
+        channelExecutor(registration, "ws-inbound-", 20, 100, 500);
+        registration.interceptors(messagingMetrics.inbound(), channelInterceptor);
     }
 
     @Override
@@ -98,11 +152,51 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
         // Configure outbound channel for sending messages to clients
         // Larger pool for broadcasting game events
         // Core: 30 threads, Max: 150 threads
-        registration.taskExecutor()
-            .corePoolSize(30)
-            .maxPoolSize(150)
-            .queueCapacity(1000)
-            .keepAliveSeconds(60);
+        channelExecutor(registration, "ws-outbound-", 30, 150, 1000);
+        // Shared session topic frames go straight to the connection's queue,
+        // as do the re-encoded frames of compact connections, so they are counted first
+        registration.interceptors(messagingMetrics.outbound(), sessionTopicFanout, compactWireFormat);
+    }
+
+    @Override
+    public boolean configureMessageConverters(List<MessageConverter> messageConverters) {
+        // Compact bodies from clients that send them; JSON stays the default both ways
+        messageConverters.add(new CompactWireMessageConverter(objectMapper));
+        return true;
+    }
+
+    /**
+     * Platform mode: the sized pool. Virtual mode: a pool of virtual threads that
+     * hands every message its own thread, up to virtual-max-threads, so a message
+     * waiting on the database does not hold up others. Ordering does not depend on
+     * the pool: each connection's inbound and outbound messages are kept in order
+     * by the registry and broker settings above, and each session's state changes
+     * run on its event loop.
+     */
+    private void channelExecutor(ChannelRegistration registration, String prefix,
+                                 int corePoolSize, int maxPoolSize, int queueCapacity) {
+        ThreadFactory virtualThreads = "virtual".equalsIgnoreCase(executorMode)
+            ? VirtualThreads.factory(prefix) : null;
+        if (virtualThreads == null) {
+            if ("virtual".equalsIgnoreCase(executorMode)) {
+                logger.warn("Virtual threads need Java 21+, {} channel uses platform threads", prefix);
+            }
+            registration.taskExecutor()
+                .corePoolSize(corePoolSize)
+                .maxPoolSize(maxPoolSize)
+                .queueCapacity(queueCapacity)
+                .keepAliveSeconds(60);
+            return;
+        }
+
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadFactory(virtualThreads);
+        executor.setCorePoolSize(0);
+        executor.setMaxPoolSize(virtualMaxThreads);
+        executor.setQueueCapacity(0);
+        executor.setKeepAliveSeconds(60);
+        registration.taskExecutor(executor);
+        logger.info("{} channel on virtual threads, at most {}", prefix, virtualMaxThreads);
     }
 
     /**
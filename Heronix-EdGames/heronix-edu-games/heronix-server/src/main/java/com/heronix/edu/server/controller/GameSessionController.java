@@ -1,6 +1,7 @@
 package com.heronix.edu.server.controller;
 
 import com.heronix.edu.server.dto.game.*;
+import com.heronix.edu.server.security.ResumeTokenProvider;
 import com.heronix.edu.server.service.GameSessionService;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -12,19 +13,26 @@ import org.springframework.stereotype.Controller;
 
 import java.security.Principal;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * WebSocket controller for multiplayer game sessions.
  * Handles real-time game messages via STOMP protocol.
+ *
+ * Session actions are handed to the session's event loop and the inbound thread
+ * returns immediately; replies are sent when the returned future completes.
  */
 @Controller
 public class GameSessionController {
     private static final Logger logger = LoggerFactory.getLogger(GameSessionController.class);
 
     private final GameSessionService gameSessionService;
+    private final ResumeTokenProvider resumeTokenProvider;
 
-    public GameSessionController(GameSessionService gameSessionService) {
+    public GameSessionController(GameSessionService gameSessionService, ResumeTokenProvider resumeTokenProvider) {
         this.gameSessionService = gameSessionService;
+        this.resumeTokenProvider = resumeTokenProvider;
     }
 
     /**
@@ -40,28 +48,60 @@ public class GameSessionController {
     }
 
     /**
-     * Student joins a game session.
+     * Student joins a game session. A successful response carries the resume
+     * token the client presents when it reconnects; one turned away under load
+     * carries retryAfterMs instead.
      * Client sends to: /app/session/{sessionCode}/join
      * Response sent to: /user/queue/joined
      */
     @MessageMapping("/session/{sessionCode}/join")
     @SendToUser("/queue/joined")
-    public JoinSessionResponse joinSession(@DestinationVariable String sessionCode,
-                                            @Payload JoinSessionRequest request,
-                                            Principal principal) {
+    public CompletableFuture<JoinSessionResponse> joinSession(@DestinationVariable String sessionCode,
+                                                               @Payload JoinSessionRequest request,
+                                                               Principal principal) {
         logger.info("Player {} joining session {}", request.getStudentName(), sessionCode);
-        return gameSessionService.joinSession(sessionCode, request);
+        String playerId = principal.getName();
+        return gameSessionService.requestJoin(sessionCode, playerId, request)
+            .thenApply(response -> {
+                if (response.isSuccess()) {
+                    response.setResumeToken(resumeTokenProvider.issue(sessionCode, playerId,
+                        request.getStudentId(), request.getStudentName()));
+                }
+                return response;
+            });
+    }
+
+    /**
+     * Player picks the session up again on a new connection, opened with their
+     * resume token, and is sent the events they missed after {@code lastSeq}.
+     * Client sends to: /app/session/{sessionCode}/resume
+     * Response sent to: /user/queue/replay
+     */
+    @MessageMapping("/session/{sessionCode}/resume")
+    @SendToUser("/queue/replay")
+    public CompletableFuture<ReplayBatch> resumeSession(@DestinationVariable String sessionCode,
+                                                        @Payload ResumeRequest request,
+                                                        Principal principal) {
+        String playerId = principal.getName();
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.resumePlayer(sessionCode, playerId, request.getLastSeq()));
     }
 
     /**
      * Teacher starts the game.
      * Client sends to: /app/session/{sessionCode}/start
      * Broadcasts game start to all players via /topic/session/{sessionCode}
+     * Error sent to: /user/queue/errors
      */
     @MessageMapping("/session/{sessionCode}/start")
-    public void startGame(@DestinationVariable String sessionCode, Principal principal) {
+    @SendToUser("/queue/errors")
+    public CompletableFuture<GameEvent> startGame(@DestinationVariable String sessionCode, Principal principal) {
         logger.info("Starting game for session {}", sessionCode);
-        gameSessionService.startGame(sessionCode, principal.getName());
+        String teacherId = principal.getName();
+        return gameSessionService.executeInSession(sessionCode, () -> {
+            gameSessionService.startGame(sessionCode, teacherId);
+            return (GameEvent) null;
+        }).exceptionally(e -> failed("start game", sessionCode, teacherId, e));
     }
 
     /**
@@ -81,9 +121,11 @@ public class GameSessionController {
      */
     @MessageMapping("/session/{sessionCode}/end")
     @SendToUser("/queue/session")
-    public GameSessionDto endGame(@DestinationVariable String sessionCode, Principal principal) {
+    public CompletableFuture<GameSessionDto> endGame(@DestinationVariable String sessionCode, Principal principal) {
         logger.info("Ending game for session {}", sessionCode);
-        return gameSessionService.endGame(sessionCode, principal.getName());
+        String teacherId = principal.getName();
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.endGame(sessionCode, teacherId));
     }
 
     /**
@@ -93,21 +135,29 @@ public class GameSessionController {
      */
     @MessageMapping("/session/{sessionCode}/answer")
     @SendToUser("/queue/answer-result")
-    public AnswerResult submitAnswer(@DestinationVariable String sessionCode,
-                                      @Payload AnswerRequest request,
-                                      Principal principal) {
-        return gameSessionService.processAnswer(sessionCode, principal.getName(), request);
+    public CompletableFuture<AnswerResult> submitAnswer(@DestinationVariable String sessionCode,
+                                                         @Payload AnswerRequest request,
+                                                         Principal principal) {
+        String playerId = principal.getName();
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.processAnswer(sessionCode, playerId, request));
     }
 
     /**
      * Player selects a reward after correct answer.
      * Client sends to: /app/session/{sessionCode}/reward
+     * Error sent to: /user/queue/errors
      */
     @MessageMapping("/session/{sessionCode}/reward")
-    public void selectReward(@DestinationVariable String sessionCode,
-                             @Payload RewardSelectionRequest request,
-                             Principal principal) {
-        gameSessionService.processRewardSelection(sessionCode, principal.getName(), request.getRewardType());
+    @SendToUser("/queue/errors")
+    public CompletableFuture<GameEvent> selectReward(@DestinationVariable String sessionCode,
+                                                     @Payload RewardSelectionRequest request,
+                                                     Principal principal) {
+        String playerId = principal.getName();
+        return gameSessionService.executeInSession(sessionCode, () -> {
+            gameSessionService.processRewardSelection(sessionCode, playerId, request.getRewardType());
+            return (GameEvent) null;
+        }).exceptionally(e -> failed("select reward", sessionCode, playerId, e));
     }
 
     /**
@@ -117,11 +167,13 @@ public class GameSessionController {
      */
     @MessageMapping("/session/{sessionCode}/hack")
     @SendToUser("/queue/hack-result")
-    public HackResult attemptHack(@DestinationVariable String sessionCode,
-                                   @Payload HackRequest request,
-                                   Principal principal) {
-        logger.debug("Hack attempt in session {} by {}", sessionCode, principal.getName());
-        return gameSessionService.processHack(sessionCode, principal.getName(), request);
+    public CompletableFuture<HackResult> attemptHack(@DestinationVariable String sessionCode,
+                                                      @Payload HackRequest request,
+                                                      Principal principal) {
+        String hackerId = principal.getName();
+        logger.debug("Hack attempt in session {} by {}", sessionCode, hackerId);
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.processHack(sessionCode, hackerId, request));
     }
 
     /**
@@ -131,8 +183,22 @@ public class GameSessionController {
      */
     @MessageMapping("/session/{sessionCode}/leaderboard")
     @SendToUser("/queue/leaderboard")
-    public List<PlayerDto> getLeaderboard(@DestinationVariable String sessionCode) {
-        return gameSessionService.getLeaderboard(sessionCode);
+    public CompletableFuture<List<PlayerDto>> getLeaderboard(@DestinationVariable String sessionCode) {
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.getLeaderboard(sessionCode));
+    }
+
+    /**
+     * Get a full versioned leaderboard snapshot, used by clients to resynchronize
+     * when they miss a leaderboard delta.
+     * Client sends to: /app/session/{sessionCode}/leaderboard/snapshot
+     * Response sent to: /user/queue/leaderboard-snapshot
+     */
+    @MessageMapping("/session/{sessionCode}/leaderboard/snapshot")
+    @SendToUser("/queue/leaderboard-snapshot")
+    public CompletableFuture<LeaderboardUpdate> getLeaderboardSnapshot(@DestinationVariable String sessionCode) {
+        return gameSessionService.executeInSession(sessionCode,
+            () -> gameSessionService.getLeaderboardSnapshot(sessionCode));
     }
 
     /**
@@ -145,4 +211,14 @@ public class GameSessionController {
     public GameSessionDto getSessionInfo(@DestinationVariable String sessionCode) {
         return gameSessionService.getSession(sessionCode);
     }
+
+    /**
+     * Log a request that failed on the session's loop and answer the user with why.
+     * Nothing is sent for a request that succeeded (its future completes with null).
+     */
+    private GameEvent failed(String action, String sessionCode, String userId, Throwable e) {
+        Throwable cause = e instanceof CompletionException && e.getCause() != null ? e.getCause() : e;
+        logger.warn("Could not {} in session {} for {}: {}", action, sessionCode, userId, cause.getMessage());
+        return GameEvent.error(sessionCode, cause.getMessage());
+    }
 }
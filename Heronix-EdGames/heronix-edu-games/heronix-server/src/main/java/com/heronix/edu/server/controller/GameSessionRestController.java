@@ -1,6 +1,7 @@
 package com.heronix.edu.server.controller;
 
 import com.heronix.edu.server.dto.game.*;
+import com.heronix.edu.server.engine.QuestionBankCache;
 import com.heronix.edu.server.entity.QuestionSetEntity;
 import com.heronix.edu.server.entity.QuestionEntity;
 import com.heronix.edu.server.repository.QuestionSetRepository;
@@ -14,6 +15,7 @@ import org.springframework.web.bind.annotation.*;
 import java.security.Principal;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * REST API endpoints for game session management.
@@ -27,13 +29,16 @@ public class GameSessionRestController {
     private final GameSessionService gameSessionService;
     private final QuestionSetRepository questionSetRepository;
     private final QuestionRepository questionRepository;
+    private final QuestionBankCache questionBankCache;
 
     public GameSessionRestController(GameSessionService gameSessionService,
                                       QuestionSetRepository questionSetRepository,
-                                      QuestionRepository questionRepository) {
+                                      QuestionRepository questionRepository,
+                                      QuestionBankCache questionBankCache) {
         this.gameSessionService = gameSessionService;
         this.questionSetRepository = questionSetRepository;
         this.questionRepository = questionRepository;
+        this.questionBankCache = questionBankCache;
     }
 
     // ========== Session Management ==========
@@ -75,9 +80,9 @@ public class GameSessionRestController {
      * Get session leaderboard.
      */
     @GetMapping("/sessions/{sessionCode}/leaderboard")
-    public ResponseEntity<List<PlayerDto>> getLeaderboard(@PathVariable String sessionCode) {
-        List<PlayerDto> leaderboard = gameSessionService.getLeaderboard(sessionCode);
-        return ResponseEntity.ok(leaderboard);
+    public CompletableFuture<ResponseEntity<List<PlayerDto>>> getLeaderboard(@PathVariable String sessionCode) {
+        return gameSessionService.executeInSession(sessionCode, () -> gameSessionService.getLeaderboard(sessionCode))
+            .thenApply(ResponseEntity::ok);
     }
 
     // ========== Question Set Management ==========
@@ -158,6 +163,7 @@ public class GameSessionRestController {
         question.setOrderIndex(request.getOrderIndex() != null ? request.getOrderIndex() : 0);
 
         questionRepository.save(question);
+        questionBankCache.invalidate(setId);
 
         return ResponseEntity.ok(toQuestionDto(question));
     }
@@ -190,6 +196,7 @@ public class GameSessionRestController {
                 return toQuestionDto(question);
             })
             .toList();
+        questionBankCache.invalidate(setId);
 
         return ResponseEntity.ok(addedQuestions);
     }
@@ -220,6 +227,9 @@ public class GameSessionRestController {
         }
 
         questionRepository.save(question);
+        if (question.getQuestionSet() != null) {
+            questionBankCache.invalidate(question.getQuestionSet().getSetId());
+        }
 
         return ResponseEntity.ok(toQuestionDtoFull(question));
     }
@@ -229,7 +239,11 @@ public class GameSessionRestController {
      */
     @DeleteMapping("/questions/{questionId}")
     public ResponseEntity<Void> deleteQuestion(@PathVariable String questionId) {
+        String setId = questionRepository.findById(questionId)
+            .map(q -> q.getQuestionSet() != null ? q.getQuestionSet().getSetId() : null)
+            .orElse(null);
         questionRepository.deleteById(questionId);
+        questionBankCache.invalidate(setId);
         return ResponseEntity.ok().build();
     }
 
@@ -267,6 +281,7 @@ public class GameSessionRestController {
         questionRepository.deleteByQuestionSetSetId(setId);
         // Then delete the set
         questionSetRepository.deleteById(setId);
+        questionBankCache.invalidate(setId);
         return ResponseEntity.ok().build();
     }
 
@@ -322,6 +337,7 @@ public class GameSessionRestController {
             clonedQ.setOrderIndex(q.getOrderIndex());
             questionRepository.save(clonedQ);
         }
+        questionBankCache.invalidate(cloned.getSetId());
 
         return ResponseEntity.ok(toQuestionSetDto(cloned));
     }
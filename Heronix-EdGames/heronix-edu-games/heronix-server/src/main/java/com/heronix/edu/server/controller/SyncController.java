@@ -1,19 +1,37 @@
 package com.heronix.edu.server.controller;
 
+import com.heronix.edu.server.dto.request.SyncResumeRequest;
 import com.heronix.edu.server.dto.request.SyncUploadRequest;
 import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.dto.response.SyncResumeResponse;
+import com.heronix.edu.server.dto.response.SyncState;
+import com.heronix.edu.server.dto.response.SyncStatusResponse;
 import com.heronix.edu.server.security.JwtAuthenticationFilter;
+import com.heronix.edu.server.service.DeviceSequenceTracker;
+import com.heronix.edu.server.service.ScoreIngestService;
+import com.heronix.edu.server.service.ScoreStreamService;
 import com.heronix.edu.server.service.SyncService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
 import java.time.LocalDateTime;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipException;
 
 /**
  * REST controller for score synchronization.
@@ -24,9 +42,17 @@ public class SyncController {
 
     private static final Logger logger = LoggerFactory.getLogger(SyncController.class);
 
+    private static final int RETRY_AFTER_SECONDS = 5;
+
     @Autowired
     private SyncService syncService;
 
+    @Autowired
+    private ScoreStreamService scoreStreamService;
+
+    @Autowired
+    private ScoreIngestService scoreIngestService;
+
     /**
      * Get last sync timestamp for device
      * GET /api/sync/last-sync?deviceId={id}
@@ -56,6 +82,36 @@ public class SyncController {
         ));
     }
 
+    /**
+     * Find out where to resume uploading
+     * POST /api/sync/resume
+     *
+     * The device names its score sequence epoch and how far it holds its
+     * scores as synced; the answer lists which seqs the server already has,
+     * so after a failed or unanswered upload only the rest are sent again.
+     */
+    @PostMapping("/resume")
+    public ResponseEntity<SyncResumeResponse> resume(
+            @Valid @RequestBody SyncResumeRequest request,
+            Authentication authentication) {
+
+        JwtAuthenticationFilter.DevicePrincipal principal =
+                (JwtAuthenticationFilter.DevicePrincipal) authentication.getPrincipal();
+
+        String deviceId = principal.getDeviceId();
+
+        DeviceSequenceTracker.Position position =
+                syncService.resumeSequence(deviceId, request.epoch(), request.syncedThrough());
+
+        return ResponseEntity.ok(new SyncResumeResponse(
+                deviceId,
+                position.epoch(),
+                position.highWaterMark(),
+                position.receivedAbove(),
+                LocalDateTime.now()
+        ));
+    }
+
     /**
      * Upload game scores
      * POST /api/sync/upload
@@ -77,6 +133,103 @@ public class SyncController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Queue game scores for saving
+     * POST /api/sync/upload/async
+     *
+     * Answers 202 with a sync id as soon as the upload is durable on the
+     * server; poll GET /api/sync/status/{syncId} for the result. Answers 503
+     * with Retry-After while the queue is full.
+     */
+    @PostMapping("/upload/async")
+    public ResponseEntity<SyncStatusResponse> uploadScoresAsync(
+            @Valid @RequestBody SyncUploadRequest request,
+            Authentication authentication) {
+
+        JwtAuthenticationFilter.DevicePrincipal principal =
+                (JwtAuthenticationFilter.DevicePrincipal) authentication.getPrincipal();
+
+        String deviceId = principal.getDeviceId();
+
+        logger.debug("Async score upload from device: {} ({} scores)", deviceId, request.scores().size());
+
+        SyncStatusResponse status;
+        try {
+            status = scoreIngestService.submit(deviceId, request.scores());
+        } catch (RejectedExecutionException e) {
+            logger.warn("Async upload from device {} refused: {}", deviceId, e.getMessage());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, String.valueOf(RETRY_AFTER_SECONDS))
+                    .build();
+        }
+
+        if (status.state() != SyncState.QUEUED) {
+            return ResponseEntity.status(HttpStatus.FORBIDDEN).body(status);
+        }
+        return ResponseEntity.accepted()
+                .location(URI.create("/api/sync/status/" + status.syncId()))
+                .body(status);
+    }
+
+    /**
+     * Get the status of a queued upload
+     * GET /api/sync/status/{syncId}
+     */
+    @GetMapping("/status/{syncId}")
+    public ResponseEntity<SyncStatusResponse> getSyncStatus(
+            @PathVariable String syncId,
+            Authentication authentication) {
+
+        JwtAuthenticationFilter.DevicePrincipal principal =
+                (JwtAuthenticationFilter.DevicePrincipal) authentication.getPrincipal();
+
+        // Another device's uploads are reported as unknown
+        return scoreIngestService.getStatus(syncId)
+                .filter(status -> status.deviceId().equals(principal.getDeviceId()))
+                .map(ResponseEntity::ok)
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Upload game scores as a stream
+     * POST /api/sync/upload/stream
+     *
+     * Body is NDJSON, one score per line, gzip compressed if sent with
+     * Content-Encoding: gzip. The response is NDJSON as well: a result per
+     * score as each chunk commits, then the summary of the stream.
+     */
+    @PostMapping(value = "/upload/stream", consumes = MediaType.APPLICATION_NDJSON_VALUE)
+    public void uploadScoreStream(
+            HttpServletRequest request,
+            HttpServletResponse response,
+            Authentication authentication) throws IOException {
+
+        JwtAuthenticationFilter.DevicePrincipal principal =
+                (JwtAuthenticationFilter.DevicePrincipal) authentication.getPrincipal();
+
+        String deviceId = principal.getDeviceId();
+        String encoding = request.getHeader(HttpHeaders.CONTENT_ENCODING);
+
+        logger.info("Score stream from device: {} ({}{} bytes)", deviceId,
+                encoding != null ? encoding + ", " : "", request.getContentLengthLong());
+
+        InputStream body = request.getInputStream();
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            try {
+                body = new GZIPInputStream(body);
+            } catch (ZipException e) {
+                response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Body is not gzip compressed");
+                return;
+            }
+        } else if (encoding != null && !"identity".equalsIgnoreCase(encoding)) {
+            response.sendError(HttpServletResponse.SC_UNSUPPORTED_MEDIA_TYPE, "Unsupported encoding: " + encoding);
+            return;
+        }
+
+        response.setContentType(MediaType.APPLICATION_NDJSON_VALUE);
+        scoreStreamService.ingest(deviceId, body, response.getOutputStream());
+    }
+
     /**
      * Mark sync as complete
      * POST /api/sync/complete
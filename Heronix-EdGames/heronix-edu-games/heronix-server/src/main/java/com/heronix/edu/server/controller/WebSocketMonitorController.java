@@ -1,11 +1,20 @@
 package com.heronix.edu.server.controller;
 
+import com.heronix.edu.server.engine.DatabaseGate;
+import com.heronix.edu.server.engine.JoinAdmission;
+import com.heronix.edu.server.engine.TeacherFeed;
+import com.heronix.edu.server.websocket.CompactWireFormat;
 import com.heronix.edu.server.websocket.GameSessionChannelInterceptor;
+import com.heronix.edu.server.websocket.MessagingMetrics;
+import com.heronix.edu.server.websocket.OutboundBackpressure;
+import com.heronix.edu.server.websocket.SessionEventRecorder;
+import com.heronix.edu.server.websocket.SessionTopicFanout;
 import com.heronix.edu.server.websocket.WebSocketEventListener;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.lang.management.ManagementFactory;
@@ -30,6 +39,30 @@ public class WebSocketMonitorController {
     @Autowired
     private GameSessionChannelInterceptor channelInterceptor;
 
+    @Autowired
+    private OutboundBackpressure outboundBackpressure;
+
+    @Autowired
+    private SessionEventRecorder sessionEventRecorder;
+
+    @Autowired
+    private SessionTopicFanout sessionTopicFanout;
+
+    @Autowired
+    private CompactWireFormat compactWireFormat;
+
+    @Autowired
+    private MessagingMetrics messagingMetrics;
+
+    @Autowired
+    private DatabaseGate databaseGate;
+
+    @Autowired
+    private JoinAdmission joinAdmission;
+
+    @Autowired
+    private TeacherFeed teacherFeed;
+
     private final Instant startTime = Instant.now();
 
     /**
@@ -46,9 +79,32 @@ public class WebSocketMonitorController {
         // Add channel interceptor stats
         stats.put("channelActiveConnections", channelInterceptor.getActiveConnectionCount());
 
+        // Outbound queue totals
+        stats.put("outbound", outboundBackpressure.getStats());
+        stats.put("eventLogs", sessionEventRecorder.getStats());
+        stats.put("topicFanout", sessionTopicFanout.getStats());
+        stats.put("compactWire", compactWireFormat.getStats());
+        stats.put("database", databaseGate.getStats());
+        stats.put("joinAdmission", joinAdmission.getStats());
+        stats.put("teacherFeed", teacherFeed.getStats());
+        stats.put("messaging", messagingMetrics.getStats());
+
         return ResponseEntity.ok(stats);
     }
 
+    /**
+     * Get outbound queue depth per connection, deepest first.
+     */
+    @GetMapping("/websocket/queues")
+    public ResponseEntity<Map<String, Object>> getOutboundQueues(@RequestParam(defaultValue = "50") int limit) {
+        Map<String, Object> result = new HashMap<>();
+
+        result.put("totals", outboundBackpressure.getStats());
+        result.put("connections", outboundBackpressure.getQueueDepths(limit));
+
+        return ResponseEntity.ok(result);
+    }
+
     /**
      * Get detailed server health information.
      */
@@ -7,6 +7,7 @@ public class AnswerRequest {
     private String questionId;
     private String answer;
     private Long answerTimeMs;  // Time taken to answer in milliseconds
+    private Boolean piggybackNext;  // Client takes the next question inside the answer result
 
     public AnswerRequest() {}
 
@@ -38,4 +39,12 @@ public class AnswerRequest {
     public void setAnswerTimeMs(Long answerTimeMs) {
         this.answerTimeMs = answerTimeMs;
     }
+
+    public Boolean getPiggybackNext() {
+        return piggybackNext;
+    }
+
+    public void setPiggybackNext(Boolean piggybackNext) {
+        this.piggybackNext = piggybackNext;
+    }
 }
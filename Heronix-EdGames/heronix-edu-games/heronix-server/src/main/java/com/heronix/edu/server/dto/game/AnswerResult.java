@@ -1,10 +1,18 @@
 package com.heronix.edu.server.dto.game;
 
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
 import java.util.List;
 
 /**
  * Response after submitting an answer.
  * If correct, includes reward options to choose from.
+ *
+ * For a client that asked for it, {@code nextQuestion} carries the player's next
+ * QUESTION message after a wrong answer, sent nowhere else. After a correct one
+ * {@code sealedNextQuestion} carries it encrypted; the client holds it until the
+ * reward is picked, and the server then sends only a short reveal with the key
+ * on /queue/question.
  */
 public class AnswerResult {
     private boolean correct;
@@ -13,6 +21,9 @@ public class AnswerResult {
     private List<RewardOption> rewardOptions;  // Available if correct
     private Integer creditsEarned;  // If auto-reward
     private Integer newTotalCredits;
+    @JsonRawValue
+    private String nextQuestion;  // QUESTION message JSON, as on /queue/question
+    private String sealedNextQuestion;  // The same, sealed until revealed
 
     public AnswerResult() {}
 
@@ -78,4 +89,20 @@ public class AnswerResult {
     public void setNewTotalCredits(Integer newTotalCredits) {
         this.newTotalCredits = newTotalCredits;
     }
+
+    public String getNextQuestion() {
+        return nextQuestion;
+    }
+
+    public void setNextQuestion(String nextQuestion) {
+        this.nextQuestion = nextQuestion;
+    }
+
+    public String getSealedNextQuestion() {
+        return sealedNextQuestion;
+    }
+
+    public void setSealedNextQuestion(String sealedNextQuestion) {
+        this.sealedNextQuestion = sealedNextQuestion;
+    }
 }
@@ -0,0 +1,198 @@
+package com.heronix.edu.server.dto.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Answer activity for the teacher's dashboard, sent to /user/queue/session-events
+ * once per feed interval instead of one message per answer.
+ *
+ * Question accuracy and the response-time histogram are totals for the session
+ * so far; {@code questions} lists only those answered since the last summary.
+ * {@code events} are the individual answers since the last summary, up to the
+ * feed's limit, with any beyond it counted in {@code eventsDropped}.
+ */
+public class AnswerSummary {
+    private final String type = "ANSWER_SUMMARY";
+    private String sessionId;
+    private int answers;
+    private int totalPlayers;
+    private List<QuestionStats> questions = new ArrayList<>();
+    private ResponseTimes responseTimes;
+    private int waitingCount;
+    private List<WaitingPlayer> waiting = new ArrayList<>();
+    private List<AnswerEvent> events = new ArrayList<>();
+    private int eventsDropped;
+
+    public AnswerSummary() {}
+
+    public AnswerSummary(String sessionId, int answers, int totalPlayers, List<QuestionStats> questions,
+                         ResponseTimes responseTimes, List<AnswerEvent> events, int eventsDropped) {
+        this.sessionId = sessionId;
+        this.answers = answers;
+        this.totalPlayers = totalPlayers;
+        this.questions = questions;
+        this.responseTimes = responseTimes;
+        this.events = events;
+        this.eventsDropped = eventsDropped;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public String getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(String sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public int getAnswers() {
+        return answers;
+    }
+
+    public void setAnswers(int answers) {
+        this.answers = answers;
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    public void setTotalPlayers(int totalPlayers) {
+        this.totalPlayers = totalPlayers;
+    }
+
+    public List<QuestionStats> getQuestions() {
+        return questions;
+    }
+
+    public void setQuestions(List<QuestionStats> questions) {
+        this.questions = questions;
+    }
+
+    public ResponseTimes getResponseTimes() {
+        return responseTimes;
+    }
+
+    public void setResponseTimes(ResponseTimes responseTimes) {
+        this.responseTimes = responseTimes;
+    }
+
+    public int getWaitingCount() {
+        return waitingCount;
+    }
+
+    public void setWaitingCount(int waitingCount) {
+        this.waitingCount = waitingCount;
+    }
+
+    public List<WaitingPlayer> getWaiting() {
+        return waiting;
+    }
+
+    public void setWaiting(List<WaitingPlayer> waiting) {
+        this.waiting = waiting;
+    }
+
+    public List<AnswerEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<AnswerEvent> events) {
+        this.events = events;
+    }
+
+    public int getEventsDropped() {
+        return eventsDropped;
+    }
+
+    public void setEventsDropped(int eventsDropped) {
+        this.eventsDropped = eventsDropped;
+    }
+
+    public static class QuestionStats {
+        public String questionId;
+        public int answered;
+        public int correct;
+        public double accuracy;
+
+        public QuestionStats() {}
+
+        public QuestionStats(String questionId, int answered, int correct) {
+            this.questionId = questionId;
+            this.answered = answered;
+            this.correct = correct;
+            this.accuracy = answered > 0 ? Math.round(1000.0 * correct / answered) / 10.0 : 0.0;
+        }
+    }
+
+    /**
+     * Answers by response time: {@code counts[i]} answered within
+     * {@code boundsMs[i]}, the last count after the last bound. Questions left
+     * to run out are counted in {@code timedOut} only.
+     */
+    public static class ResponseTimes {
+        public long[] boundsMs;
+        public int[] counts;
+        public int timedOut;
+
+        public ResponseTimes() {}
+
+        public ResponseTimes(long[] boundsMs, int[] counts, int timedOut) {
+            this.boundsMs = boundsMs;
+            this.counts = counts;
+            this.timedOut = timedOut;
+        }
+    }
+
+    /**
+     * A player still on a question they were sent before the last summary.
+     */
+    public static class WaitingPlayer {
+        public String playerId;
+        public String playerName;
+        public long waitingMs;
+
+        public WaitingPlayer() {}
+
+        public WaitingPlayer(String playerId, String playerName, long waitingMs) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.waitingMs = waitingMs;
+        }
+    }
+
+    /**
+     * One answer, with the player's totals after it; {@code responseMs} is -1
+     * when the question was sent before a server restart.
+     */
+    public static class AnswerEvent {
+        public String playerId;
+        public String playerName;
+        public String questionId;
+        public boolean correct;
+        public boolean timedOut;
+        public long responseMs;
+        public int correctAnswers;
+        public int incorrectAnswers;
+        public double accuracy;
+
+        public AnswerEvent() {}
+
+        public AnswerEvent(String playerId, String playerName, String questionId, boolean correct, boolean timedOut,
+                           long responseMs, int correctAnswers, int incorrectAnswers, double accuracy) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.questionId = questionId;
+            this.correct = correct;
+            this.timedOut = timedOut;
+            this.responseMs = responseMs;
+            this.correctAnswers = correctAnswers;
+            this.incorrectAnswers = incorrectAnswers;
+            this.accuracy = accuracy;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package com.heronix.edu.server.dto.game;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * Generic game event sent via WebSocket.
@@ -26,7 +27,10 @@ public class GameEvent {
 
     // Event type constants
     public static final String PLAYER_JOINED = "PLAYER_JOINED";
+    public static final String PLAYERS_JOINED = "PLAYERS_JOINED";
     public static final String PLAYER_LEFT = "PLAYER_LEFT";
+    public static final String PLAYER_DISCONNECTED = "PLAYER_DISCONNECTED";
+    public static final String PLAYER_RECONNECTED = "PLAYER_RECONNECTED";
     public static final String GAME_STARTED = "GAME_STARTED";
     public static final String GAME_PAUSED = "GAME_PAUSED";
     public static final String GAME_RESUMED = "GAME_RESUMED";
@@ -40,6 +44,7 @@ public class GameEvent {
     public static final String LEADERBOARD_UPDATE = "LEADERBOARD_UPDATE";
     public static final String TIME_WARNING = "TIME_WARNING";
     public static final String CREDITS_EARNED = "CREDITS_EARNED";
+    public static final String ERROR = "ERROR";
 
     // Factory methods for common events
     public static GameEvent playerJoined(String sessionId, String playerId, String playerName) {
@@ -49,6 +54,22 @@ public class GameEvent {
         return event;
     }
 
+    /**
+     * Several players admitted in one join batch, announced together.
+     */
+    public static GameEvent playersJoined(String sessionId, List<JoinedPlayer> players, int totalPlayers) {
+        GameEvent event = new GameEvent(PLAYERS_JOINED, sessionId);
+        event.data = new RosterData(players, totalPlayers);
+        return event;
+    }
+
+    public static GameEvent playerConnection(String sessionId, String playerId, String playerName, boolean connected) {
+        GameEvent event = new GameEvent(connected ? PLAYER_RECONNECTED : PLAYER_DISCONNECTED, sessionId);
+        event.playerId = playerId;
+        event.playerName = playerName;
+        return event;
+    }
+
     public static GameEvent gameStarted(String sessionId, int timeLimitSeconds) {
         GameEvent event = new GameEvent(GAME_STARTED, sessionId);
         event.data = new GameStartData(timeLimitSeconds);
@@ -61,6 +82,15 @@ public class GameEvent {
         return event;
     }
 
+    /**
+     * A request from this user failed; data is the reason.
+     */
+    public static GameEvent error(String sessionId, String message) {
+        GameEvent event = new GameEvent(ERROR, sessionId);
+        event.data = message;
+        return event;
+    }
+
     public static GameEvent hackSuccess(String sessionId, String hackerId, String hackerName,
                                         String targetName, int creditsStolen) {
         GameEvent event = new GameEvent(HACK_SUCCESS, sessionId);
@@ -128,6 +158,28 @@ public class GameEvent {
         }
     }
 
+    public static class RosterData {
+        public List<JoinedPlayer> players;
+        public int totalPlayers;
+
+        public RosterData(List<JoinedPlayer> players, int totalPlayers) {
+            this.players = players;
+            this.totalPlayers = totalPlayers;
+        }
+    }
+
+    public static class JoinedPlayer {
+        public String playerId;
+        public String playerName;
+        public String avatarId;
+
+        public JoinedPlayer(String playerId, String playerName, String avatarId) {
+            this.playerId = playerId;
+            this.playerName = playerName;
+            this.avatarId = avatarId;
+        }
+    }
+
     public static class HackEventData {
         public String targetName;
         public int creditsStolen;
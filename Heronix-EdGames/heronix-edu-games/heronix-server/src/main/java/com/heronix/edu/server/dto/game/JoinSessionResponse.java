@@ -12,6 +12,8 @@ public class JoinSessionResponse {
     private String sessionId;
     private String gameType;
     private List<PlayerDto> otherPlayers;  // List of other players in the session
+    private String resumeToken;  // CONNECT header that rebinds a later connection to this player
+    private Long retryAfterMs;  // set when the join was turned away under load; send it again after this long
 
     public JoinSessionResponse() {}
 
@@ -32,6 +34,12 @@ public class JoinSessionResponse {
         return response;
     }
 
+    public static JoinSessionResponse retryLater(String message, long retryAfterMs) {
+        JoinSessionResponse response = error(message);
+        response.retryAfterMs = retryAfterMs;
+        return response;
+    }
+
     public boolean isSuccess() {
         return success;
     }
@@ -79,4 +87,20 @@ public class JoinSessionResponse {
     public void setOtherPlayers(List<PlayerDto> otherPlayers) {
         this.otherPlayers = otherPlayers;
     }
+
+    public String getResumeToken() {
+        return resumeToken;
+    }
+
+    public void setResumeToken(String resumeToken) {
+        this.resumeToken = resumeToken;
+    }
+
+    public Long getRetryAfterMs() {
+        return retryAfterMs;
+    }
+
+    public void setRetryAfterMs(Long retryAfterMs) {
+        this.retryAfterMs = retryAfterMs;
+    }
 }
@@ -0,0 +1,96 @@
+package com.heronix.edu.server.dto.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Versioned leaderboard message broadcast to /topic/session/{code}.
+ *
+ * A delta carries only the rows that changed since {@code baseVersion}; a client
+ * holding a different version discards it and asks for a full snapshot instead.
+ */
+public class LeaderboardUpdate {
+    private final String type = "LEADERBOARD_UPDATE";
+    private long version;
+    private long baseVersion;
+    private boolean full;
+    private int totalPlayers;
+    private List<LeaderboardEntry> entries = new ArrayList<>();
+    private List<String> removed = new ArrayList<>();
+
+    public LeaderboardUpdate() {}
+
+    public static LeaderboardUpdate snapshot(long version, List<LeaderboardEntry> entries) {
+        LeaderboardUpdate update = new LeaderboardUpdate();
+        update.version = version;
+        update.baseVersion = version;
+        update.full = true;
+        update.totalPlayers = entries.size();
+        update.entries = entries;
+        return update;
+    }
+
+    public static LeaderboardUpdate delta(long baseVersion, long version, int totalPlayers,
+                                          List<LeaderboardEntry> changed, List<String> removed) {
+        LeaderboardUpdate update = new LeaderboardUpdate();
+        update.version = version;
+        update.baseVersion = baseVersion;
+        update.full = false;
+        update.totalPlayers = totalPlayers;
+        update.entries = changed;
+        update.removed = removed;
+        return update;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public long getBaseVersion() {
+        return baseVersion;
+    }
+
+    public void setBaseVersion(long baseVersion) {
+        this.baseVersion = baseVersion;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public void setFull(boolean full) {
+        this.full = full;
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    public void setTotalPlayers(int totalPlayers) {
+        this.totalPlayers = totalPlayers;
+    }
+
+    public List<LeaderboardEntry> getEntries() {
+        return entries;
+    }
+
+    public void setEntries(List<LeaderboardEntry> entries) {
+        this.entries = entries;
+    }
+
+    public List<String> getRemoved() {
+        return removed;
+    }
+
+    public void setRemoved(List<String> removed) {
+        this.removed = removed;
+    }
+}
@@ -12,6 +12,7 @@ public class QuestionDto {
     private Integer difficulty;
     private String imageUrl;
     private Integer timeLimitSeconds;  // Time to answer
+    private List<String> prefetch;  // Images of the questions after this one, for the client to fetch ahead
 
     // Full question details (for editing)
     private String correctAnswer;
@@ -69,6 +70,14 @@ public class QuestionDto {
         this.imageUrl = imageUrl;
     }
 
+    public List<String> getPrefetch() {
+        return prefetch;
+    }
+
+    public void setPrefetch(List<String> prefetch) {
+        this.prefetch = prefetch;
+    }
+
     public Integer getTimeLimitSeconds() {
         return timeLimitSeconds;
     }
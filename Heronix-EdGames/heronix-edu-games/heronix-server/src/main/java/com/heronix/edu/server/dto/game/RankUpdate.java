@@ -0,0 +1,74 @@
+package com.heronix.edu.server.dto.game;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A player's own standing, sent to /user/queue/rank in large sessions where the
+ * session topic carries only the top of the board.
+ *
+ * {@code neighbours} holds the rows just above and below the player, the
+ * player's own row included, in rank order.
+ */
+public class RankUpdate {
+    private final String type = "RANK_UPDATE";
+    private long version;
+    private int rank;
+    private int credits;
+    private int totalPlayers;
+    private List<LeaderboardEntry> neighbours = new ArrayList<>();
+
+    public RankUpdate() {}
+
+    public RankUpdate(long version, int rank, int credits, int totalPlayers, List<LeaderboardEntry> neighbours) {
+        this.version = version;
+        this.rank = rank;
+        this.credits = credits;
+        this.totalPlayers = totalPlayers;
+        this.neighbours = neighbours;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public void setVersion(long version) {
+        this.version = version;
+    }
+
+    public int getRank() {
+        return rank;
+    }
+
+    public void setRank(int rank) {
+        this.rank = rank;
+    }
+
+    public int getCredits() {
+        return credits;
+    }
+
+    public void setCredits(int credits) {
+        this.credits = credits;
+    }
+
+    public int getTotalPlayers() {
+        return totalPlayers;
+    }
+
+    public void setTotalPlayers(int totalPlayers) {
+        this.totalPlayers = totalPlayers;
+    }
+
+    public List<LeaderboardEntry> getNeighbours() {
+        return neighbours;
+    }
+
+    public void setNeighbours(List<LeaderboardEntry> neighbours) {
+        this.neighbours = neighbours;
+    }
+}
@@ -0,0 +1,98 @@
+package com.heronix.edu.server.dto.game;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The session events a reconnecting player missed, sent to /user/queue/replay
+ * in answer to a resume request.
+ *
+ * Each event carries the destination it was first sent to and its payload as
+ * sent. If {@code complete} is false some events had already left the server's
+ * buffer; the client should then take the current question and leaderboard as
+ * its state rather than rely on the events.
+ */
+public class ReplayBatch {
+    private final String type = "REPLAY";
+    private boolean complete;
+    private long lastSeq;
+    private String status;
+    private List<ReplayEvent> events = new ArrayList<>();
+
+    public ReplayBatch() {}
+
+    public ReplayBatch(boolean complete, long lastSeq, String status, List<ReplayEvent> events) {
+        this.complete = complete;
+        this.lastSeq = lastSeq;
+        this.status = status;
+        this.events = events;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public void setComplete(boolean complete) {
+        this.complete = complete;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public List<ReplayEvent> getEvents() {
+        return events;
+    }
+
+    public void setEvents(List<ReplayEvent> events) {
+        this.events = events;
+    }
+
+    /**
+     * One missed event. The payload is the JSON that was sent, embedded as is.
+     */
+    public static class ReplayEvent {
+        private long seq;
+        private String destination;
+        private String payload;
+
+        public ReplayEvent() {}
+
+        public ReplayEvent(long seq, String destination, String payload) {
+            this.seq = seq;
+            this.destination = destination;
+            this.payload = payload;
+        }
+
+        public long getSeq() {
+            return seq;
+        }
+
+        public String getDestination() {
+            return destination;
+        }
+
+        @JsonRawValue
+        public String getPayload() {
+            return payload;
+        }
+    }
+}
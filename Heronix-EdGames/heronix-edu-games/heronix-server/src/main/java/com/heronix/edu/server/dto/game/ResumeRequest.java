@@ -0,0 +1,23 @@
+package com.heronix.edu.server.dto.game;
+
+/**
+ * Sent by a player after reconnecting, with the {@code seq} header of the last
+ * session event they received (0 if none).
+ */
+public class ResumeRequest {
+    private long lastSeq;
+
+    public ResumeRequest() {}
+
+    public ResumeRequest(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+
+    public long getLastSeq() {
+        return lastSeq;
+    }
+
+    public void setLastSeq(long lastSeq) {
+        this.lastSeq = lastSeq;
+    }
+}
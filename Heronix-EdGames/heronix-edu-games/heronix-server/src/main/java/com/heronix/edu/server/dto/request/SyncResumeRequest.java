@@ -0,0 +1,15 @@
+package com.heronix.edu.server.dto.request;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.PositiveOrZero;
+
+/**
+ * Request DTO for the resume handshake before a score upload.
+ */
+public record SyncResumeRequest(
+        @NotBlank(message = "Sequence epoch is required")
+        String epoch,
+        @PositiveOrZero(message = "Synced-through seq cannot be negative")
+        long syncedThrough
+) {
+}
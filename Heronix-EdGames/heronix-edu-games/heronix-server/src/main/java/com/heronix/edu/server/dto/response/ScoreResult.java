@@ -0,0 +1,23 @@
+package com.heronix.edu.server.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+/**
+ * Outcome of one score in a streamed upload, one per response line.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record ScoreResult(
+        String scoreId,
+        boolean accepted,
+        ConflictType conflictType,
+        String resolution,
+        String message
+) {
+    public static ScoreResult accepted(String scoreId) {
+        return new ScoreResult(scoreId, true, null, null, null);
+    }
+
+    public static ScoreResult rejected(ConflictInfo conflict) {
+        return new ScoreResult(conflict.scoreId(), false, conflict.type(), conflict.resolution(), conflict.message());
+    }
+}
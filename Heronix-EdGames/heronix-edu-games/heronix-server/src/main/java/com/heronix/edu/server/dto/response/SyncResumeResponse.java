@@ -0,0 +1,18 @@
+package com.heronix.edu.server.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Where a device's score upload resumes: every seq up to the high-water
+ * mark, and those listed above it, has been received and need not be sent
+ * again.
+ */
+public record SyncResumeResponse(
+        String deviceId,
+        String epoch,
+        long highWaterMark,
+        List<Long> receivedAbove,
+        LocalDateTime timestamp
+) {
+}
@@ -0,0 +1,10 @@
+package com.heronix.edu.server.dto.response;
+
+/**
+ * Progress of a queued score upload.
+ */
+public enum SyncState {
+    QUEUED,      // Durable on the server, not yet written to game_scores
+    COMPLETED,   // Checked and saved; the result lists any conflicts
+    FAILED       // Could not be saved after retries; resend the scores
+}
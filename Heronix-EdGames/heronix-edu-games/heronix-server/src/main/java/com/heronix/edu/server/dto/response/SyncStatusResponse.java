@@ -0,0 +1,29 @@
+package com.heronix.edu.server.dto.response;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.time.LocalDateTime;
+
+/**
+ * Status of a queued score upload, returned when it is accepted (202) and by
+ * GET /api/sync/status/{syncId}. The result is present once it has left the
+ * queue.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record SyncStatusResponse(
+        String syncId,
+        String deviceId,
+        SyncState state,
+        int scores,
+        LocalDateTime receivedAt,
+        SyncResponse result
+) {
+    public static SyncStatusResponse queued(String syncId, String deviceId, int scores, LocalDateTime receivedAt) {
+        return new SyncStatusResponse(syncId, deviceId, SyncState.QUEUED, scores, receivedAt, null);
+    }
+
+    public SyncStatusResponse finish(SyncResponse result) {
+        return new SyncStatusResponse(syncId, deviceId, result.success() ? SyncState.COMPLETED : SyncState.FAILED,
+                scores, receivedAt, result);
+    }
+}
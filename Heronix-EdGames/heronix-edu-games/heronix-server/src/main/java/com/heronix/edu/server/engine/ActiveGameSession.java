@@ -0,0 +1,736 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import com.heronix.edu.server.entity.GameSessionEntity;
+import com.heronix.edu.server.entity.GameSessionStatus;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+
+/**
+ * In-memory state of a live game session.
+ *
+ * Each player gets a dense slot on join, in join order. Per-player game state is
+ * kept in parallel arrays indexed by slot, and the two id maps are the only
+ * string lookups on the answer path.
+ *
+ * All mutations are applied on the session's event loop (see {@link SessionEngine}),
+ * so the state below is deliberately unsynchronized.
+ */
+public class ActiveGameSession {
+    private static final int INITIAL_CAPACITY = 32;
+    private static final int HACK_COUNT_MASK = 0xFFFF;
+    private static final int MAX_PLAYERS = 1 << 16;  // slots must fit the packed hack entries
+
+    private final GameSessionEntity sessionEntity;
+    private final QuestionBank questionBank;
+    private final int[] questionOrder;  // this session's shuffle of bank indexes
+    private final Map<String, byte[]> questionPayloads = new HashMap<>();  // questionId -> encoded body
+    private final SessionMailbox mailbox;
+    private final Map<String, Integer> slotByPlayerId = new HashMap<>();
+    private final Map<String, Integer> slotByStudentId = new HashMap<>();
+
+    // Per-player state, indexed by slot
+    private int playerCount;
+    private GamePlayerEntity[] players = new GamePlayerEntity[INITIAL_CAPACITY];
+    private int[] questionIndex = new int[INITIAL_CAPACITY];
+    private long[] shieldUntil = new long[INITIAL_CAPACITY];  // expiry time, 0 = no shield
+    private TimingWheel.Timeout[] shieldTimers = new TimingWheel.Timeout[INITIAL_CAPACITY];
+    private TimingWheel.Timeout[] questionTimers = new TimingWheel.Timeout[INITIAL_CAPACITY];  // answer deadlines
+    // Failed hack attempts per hacker slot: each entry packs (target slot << 16 | count), 0 = free.
+    // Rows hold only the targets actually attempted, so a large session does not pay n^2.
+    private int[][] failedHacks = new int[INITIAL_CAPACITY][];
+    // Hash of the rank, credits and neighbours last pushed to each player in large-session mode
+    private long[] standingSent = new long[INITIAL_CAPACITY];
+    // Players whose client holds the next question from an answer result until it is revealed
+    private boolean[] piggybacking = new boolean[INITIAL_CAPACITY];
+    // Number of the question handed out in the last answer result and not yet revealed, 0 = none
+    private int[] handedOut = new int[INITIAL_CAPACITY];
+    private String[] handedOutKeys = new String[INITIAL_CAPACITY];
+
+    private final RankedLeaderboard leaderboard = new RankedLeaderboard();
+    private final LeaderboardDeltaTracker leaderboardTracker = new LeaderboardDeltaTracker();
+    // Set by the loop, cleared by the broadcast tick
+    private final AtomicBoolean leaderboardDirty = new AtomicBoolean(false);
+    private volatile GameSessionStatus status;
+    private LocalDateTime startedAt;
+    private int journalEventsSinceSnapshot;
+    private long lastActivityAt;
+    private TimingWheel.Timeout idleTimer;
+    // Admitted joins waiting for the next batch, and the timer that will apply them
+    private List<PendingJoin> pendingJoins = new ArrayList<>();
+    private TimingWheel.Timeout joinTimer;
+    private long lastJoinBatchAt = Long.MIN_VALUE / 2;
+    private volatile AnswerFeed answerFeed;  // created with the first answer while the teacher feed is on
+
+    public ActiveGameSession(GameSessionEntity entity, QuestionBank questionBank, SessionMailbox mailbox) {
+        this(entity, questionBank, mailbox, questionBank.shuffledOrder());  // Randomize question order
+    }
+
+    /**
+     * Session with a known question order, used when restoring from the journal.
+     */
+    public ActiveGameSession(GameSessionEntity entity, QuestionBank questionBank, SessionMailbox mailbox,
+                             int[] questionOrder) {
+        this.sessionEntity = entity;
+        this.questionBank = questionBank;
+        this.questionOrder = questionOrder;
+        this.mailbox = mailbox;
+        this.status = entity.getStatus();
+    }
+
+    public GameSessionEntity getSessionEntity() {
+        return sessionEntity;
+    }
+
+    public String getSessionCode() {
+        return sessionEntity.getSessionId();
+    }
+
+    public SessionMailbox getMailbox() {
+        return mailbox;
+    }
+
+    public String getTeacherId() {
+        return sessionEntity.getTeacherId();
+    }
+
+    public String getGameType() {
+        return sessionEntity.getGameType();
+    }
+
+    public GameSessionStatus getStatus() {
+        return status;
+    }
+
+    public void setStatus(GameSessionStatus status) {
+        this.status = status;
+        sessionEntity.setStatus(status);
+    }
+
+    public Integer getTimeLimitSeconds() {
+        return sessionEntity.getTimeLimitSeconds();
+    }
+
+    public LocalDateTime getStartedAt() {
+        return startedAt;
+    }
+
+    public void setStartedAt(LocalDateTime startedAt) {
+        this.startedAt = startedAt;
+    }
+
+    /**
+     * Add a player in the next free slot.
+     *
+     * @return the player's slot
+     */
+    public int addPlayer(GamePlayerEntity player) {
+        if (playerCount == MAX_PLAYERS) {
+            throw new IllegalStateException("Session " + getSessionCode() + " is full");
+        }
+        if (playerCount == players.length) {
+            grow();
+        }
+        int slot = playerCount++;
+        players[slot] = player;
+        slotByPlayerId.put(player.getPlayerId(), slot);
+        slotByStudentId.put(player.getStudentId(), slot);
+        leaderboard.add(player.getPlayerId(), player.getCredits());
+        return slot;
+    }
+
+    public boolean hasPlayer(String studentId) {
+        return slotByStudentId.containsKey(studentId);
+    }
+
+    /**
+     * Slot of a player, or -1 if the player is not in this session.
+     * The answer path resolves the slot once and uses the slot overloads below.
+     */
+    public int getSlot(String playerId) {
+        Integer slot = slotByPlayerId.get(playerId);
+        return slot != null ? slot : -1;
+    }
+
+    public GamePlayerEntity getPlayer(String playerId) {
+        return getPlayer(getSlot(playerId));
+    }
+
+    public GamePlayerEntity getPlayer(int slot) {
+        return slot >= 0 ? players[slot] : null;
+    }
+
+    /**
+     * Players in join order.
+     */
+    public List<GamePlayerEntity> getPlayers() {
+        return Collections.unmodifiableList(Arrays.asList(players).subList(0, playerCount));
+    }
+
+    public int getPlayerCount() {
+        return playerCount;
+    }
+
+    /**
+     * Re-rank a player after their credits changed.
+     */
+    public void updateRanking(GamePlayerEntity player) {
+        leaderboard.update(player.getPlayerId(), player.getCredits());
+    }
+
+    /**
+     * All players, best first.
+     */
+    public List<GamePlayerEntity> getRankedPlayers() {
+        return getTopPlayers(leaderboard.size());
+    }
+
+    /**
+     * The first {@code limit} players, best first.
+     */
+    public List<GamePlayerEntity> getTopPlayers(int limit) {
+        return toPlayers(leaderboard.top(limit));
+    }
+
+    /**
+     * 1-based leaderboard rank of a player, 0 if unknown.
+     */
+    public int getRank(String playerId) {
+        return leaderboard.rank(playerId);
+    }
+
+    public RankedLeaderboard getLeaderboard() {
+        return leaderboard;
+    }
+
+    public LeaderboardDeltaTracker getLeaderboardTracker() {
+        return leaderboardTracker;
+    }
+
+    /**
+     * Record the standing about to be pushed to a player.
+     *
+     * @param signature hash of the player's rank, credits and neighbour rows
+     * @return false if the player was already sent this standing
+     */
+    public boolean takeStandingChange(int slot, long signature) {
+        if (standingSent[slot] == signature) {
+            return false;
+        }
+        standingSent[slot] = signature;
+        return true;
+    }
+
+    /**
+     * Forget the standing last pushed to a player, so the next tick sends it again.
+     */
+    public void clearStanding(int slot) {
+        if (slot >= 0) {
+            standingSent[slot] = 0;
+        }
+    }
+
+    /**
+     * Flag the leaderboard for the next broadcast tick.
+     */
+    public void markLeaderboardDirty() {
+        leaderboardDirty.set(true);
+    }
+
+    /**
+     * Clear and return the dirty flag.
+     */
+    public boolean takeLeaderboardDirty() {
+        return leaderboardDirty.getAndSet(false);
+    }
+
+    public QuestionBank getQuestionBank() {
+        return questionBank;
+    }
+
+    /**
+     * The question most recently sent to the player, i.e. the one they are answering.
+     */
+    public BankQuestion getCurrentQuestion(String playerId) {
+        return getCurrentQuestion(getSlot(playerId));
+    }
+
+    public BankQuestion getCurrentQuestion(int slot) {
+        int index = slot >= 0 ? questionIndex[slot] - 1 : -1;
+        if (index >= 0 && index < questionOrder.length) {
+            return questionBank.get(questionOrder[index]);
+        }
+        return null;
+    }
+
+    public BankQuestion getNextQuestion(String playerId) {
+        return getNextQuestion(getSlot(playerId));
+    }
+
+    public BankQuestion getNextQuestion(int slot) {
+        if (slot < 0) {
+            return null;
+        }
+        int index = questionIndex[slot]++;
+        if (index < questionOrder.length) {
+            return questionBank.get(questionOrder[index]);
+        }
+        return null;
+    }
+
+    /**
+     * The question {@link #getNextQuestion(int)} will give the player, wrapping
+     * round to the start of the set as the service does, without moving on to it.
+     */
+    public BankQuestion peekNextQuestion(int slot) {
+        if (slot < 0 || questionOrder.length == 0) {
+            return null;
+        }
+        int index = questionIndex[slot] < questionOrder.length ? questionIndex[slot] : 0;
+        return questionBank.get(questionOrder[index]);
+    }
+
+    /**
+     * Question number the peeked question will have once it is sent.
+     */
+    public int peekNextQuestionNumber(int slot) {
+        return slot >= 0 && questionIndex[slot] < questionOrder.length ? questionIndex[slot] + 1 : 1;
+    }
+
+    /**
+     * Up to {@code count} questions following the given one in this session's
+     * order, wrapping round; the same for every player, so it can go in the
+     * shared question body.
+     */
+    public List<BankQuestion> getUpcomingQuestions(BankQuestion question, int count) {
+        int position = -1;
+        for (int i = 0; i < questionOrder.length; i++) {
+            if (questionBank.get(questionOrder[i]).getQuestionId().equals(question.getQuestionId())) {
+                position = i;
+                break;
+            }
+        }
+        if (position < 0) {
+            return List.of();
+        }
+        int n = Math.min(count, questionOrder.length - 1);
+        List<BankQuestion> upcoming = new ArrayList<>(n);
+        for (int k = 1; k <= n; k++) {
+            upcoming.add(questionBank.get(questionOrder[(position + k) % questionOrder.length]));
+        }
+        return upcoming;
+    }
+
+    /**
+     * How many questions the player has been sent in the current pass through the set.
+     */
+    public int getQuestionNumber(String playerId) {
+        return getQuestionNumber(getSlot(playerId));
+    }
+
+    public int getQuestionNumber(int slot) {
+        return slot >= 0 ? questionIndex[slot] : 0;
+    }
+
+    /**
+     * Encoded wire body of a question, built once per session.
+     */
+    public byte[] getQuestionPayload(BankQuestion question, Function<BankQuestion, byte[]> encoder) {
+        return questionPayloads.computeIfAbsent(question.getQuestionId(), id -> encoder.apply(question));
+    }
+
+    public void resetQuestionIndex(String playerId) {
+        setQuestionNumber(getSlot(playerId), 0);
+    }
+
+    public void resetQuestionIndex(int slot) {
+        setQuestionNumber(slot, 0);
+    }
+
+    public void setQuestionNumber(String playerId, int questionNumber) {
+        setQuestionNumber(getSlot(playerId), questionNumber);
+    }
+
+    private void setQuestionNumber(int slot, int questionNumber) {
+        if (slot >= 0) {
+            questionIndex[slot] = questionNumber;
+        }
+    }
+
+    /**
+     * Question ids in this session's order.
+     */
+    public List<String> getQuestionOrderIds() {
+        List<String> ids = new ArrayList<>(questionOrder.length);
+        for (int index : questionOrder) {
+            ids.add(questionBank.get(index).getQuestionId());
+        }
+        return ids;
+    }
+
+    public void setShieldUntil(String playerId, long expiryTime) {
+        int slot = getSlot(playerId);
+        if (slot >= 0) {
+            shieldUntil[slot] = expiryTime;
+        }
+    }
+
+    /**
+     * Attach the timer that will lift a player's shield, replacing any earlier one.
+     */
+    public void setShieldTimer(String playerId, TimingWheel.Timeout timer) {
+        int slot = getSlot(playerId);
+        if (slot >= 0) {
+            cancel(shieldTimers[slot]);
+            shieldTimers[slot] = timer;
+        }
+    }
+
+    /**
+     * Lift a shield when its timer fires. Ignored if the shield was renewed since.
+     */
+    public void expireShield(String playerId, TimingWheel.Timeout timer) {
+        int slot = getSlot(playerId);
+        if (slot >= 0 && shieldTimers[slot] == timer) {
+            shieldTimers[slot] = null;
+            shieldUntil[slot] = 0;
+        }
+    }
+
+    public void removeShield(String playerId) {
+        int slot = getSlot(playerId);
+        if (slot >= 0) {
+            shieldUntil[slot] = 0;
+            cancel(shieldTimers[slot]);
+            shieldTimers[slot] = null;
+        }
+    }
+
+    /**
+     * Shield expiry time, or null if the player has no shield.
+     */
+    public Long getShieldUntil(String playerId) {
+        int slot = getSlot(playerId);
+        return slot >= 0 && shieldUntil[slot] != 0 ? shieldUntil[slot] : null;
+    }
+
+    /**
+     * Whether the player is shielded. Shields are lifted by their timer.
+     */
+    public boolean hasShield(String playerId) {
+        return hasShield(getSlot(playerId));
+    }
+
+    public boolean hasShield(int slot) {
+        return slot >= 0 && shieldUntil[slot] != 0;
+    }
+
+    /**
+     * Attach the answer deadline for the question just sent, replacing any earlier one.
+     */
+    public void setQuestionTimer(String playerId, TimingWheel.Timeout timer) {
+        setQuestionTimer(getSlot(playerId), timer);
+    }
+
+    public void setQuestionTimer(int slot, TimingWheel.Timeout timer) {
+        if (slot >= 0) {
+            cancel(questionTimers[slot]);
+            questionTimers[slot] = timer;
+        }
+    }
+
+    /**
+     * Stop the answer deadline once the player has answered.
+     */
+    public void cancelQuestionTimer(String playerId) {
+        cancelQuestionTimer(getSlot(playerId));
+    }
+
+    public void cancelQuestionTimer(int slot) {
+        if (slot >= 0) {
+            cancel(questionTimers[slot]);
+            questionTimers[slot] = null;
+        }
+    }
+
+    /**
+     * True while the player has a question out that they have not yet answered.
+     */
+    public boolean hasQuestionTimer(int slot) {
+        return slot >= 0 && questionTimers[slot] != null;
+    }
+
+    /**
+     * Record whether the player's client takes the next question piggybacked on
+     * an answer result; it says so with each answer.
+     */
+    public void setPiggybacking(int slot, boolean piggybacking) {
+        if (slot >= 0) {
+            this.piggybacking[slot] = piggybacking;
+        }
+    }
+
+    public boolean isPiggybacking(int slot) {
+        return slot >= 0 && piggybacking[slot];
+    }
+
+    /**
+     * Note the question handed out early, sealed, with an answer result; sending
+     * it later only needs to reveal it with its key.
+     */
+    public void setHandedOut(int slot, int questionNumber, String key) {
+        if (slot >= 0) {
+            handedOut[slot] = questionNumber;
+            handedOutKeys[slot] = key;
+        }
+    }
+
+    /**
+     * Claim the handed-out question as the one being sent now.
+     *
+     * @return the key that opens it, or null if the client was not already given this question
+     */
+    public String takeHandedOut(int slot, int questionNumber) {
+        if (slot < 0 || handedOut[slot] == 0) {
+            return null;
+        }
+        String key = handedOut[slot] == questionNumber ? handedOutKeys[slot] : null;
+        handedOut[slot] = 0;
+        handedOutKeys[slot] = null;
+        return key;
+    }
+
+    /**
+     * Deadline of the player's open question, or 0 if they have none.
+     */
+    public long getQuestionDeadline(int slot) {
+        TimingWheel.Timeout timer = slot >= 0 ? questionTimers[slot] : null;
+        return timer != null ? timer.getDeadline() : 0;
+    }
+
+    /**
+     * Claim a fired answer deadline.
+     *
+     * @return false if the player answered or got a new question since it was set
+     */
+    public boolean takeQuestionTimer(String playerId, TimingWheel.Timeout timer) {
+        int slot = getSlot(playerId);
+        if (slot < 0 || questionTimers[slot] != timer) {
+            return false;
+        }
+        questionTimers[slot] = null;
+        return true;
+    }
+
+    public long getLastActivityAt() {
+        return lastActivityAt;
+    }
+
+    /**
+     * Record player or teacher activity, which keeps the session from idling out.
+     */
+    public void touch(long now) {
+        lastActivityAt = now;
+    }
+
+    public void setIdleTimer(TimingWheel.Timeout timer) {
+        cancel(idleTimer);
+        idleTimer = timer;
+    }
+
+    /**
+     * Queue an admitted join for the next batch.
+     *
+     * @return number of joins now waiting
+     */
+    public int queueJoin(PendingJoin join) {
+        pendingJoins.add(join);
+        return pendingJoins.size();
+    }
+
+    /**
+     * Take every waiting join, in arrival order, and cancel the batch timer.
+     */
+    public List<PendingJoin> takePendingJoins(long now) {
+        cancel(joinTimer);
+        joinTimer = null;
+        lastJoinBatchAt = now;
+        if (pendingJoins.isEmpty()) {
+            return List.of();
+        }
+        List<PendingJoin> batch = pendingJoins;
+        pendingJoins = new ArrayList<>();
+        return batch;
+    }
+
+    public boolean hasJoinTimer() {
+        return joinTimer != null;
+    }
+
+    public void setJoinTimer(TimingWheel.Timeout timer) {
+        cancel(joinTimer);
+        joinTimer = timer;
+    }
+
+    /**
+     * When the last join batch was applied, on the timing wheel's clock.
+     */
+    public long getLastJoinBatchAt() {
+        return lastJoinBatchAt;
+    }
+
+    public AnswerFeed getAnswerFeed() {
+        return answerFeed;
+    }
+
+    public void setAnswerFeed(AnswerFeed answerFeed) {
+        this.answerFeed = answerFeed;
+    }
+
+    /**
+     * Cancel every pending timer of the session, when it ends.
+     */
+    public void cancelTimers() {
+        for (int slot = 0; slot < playerCount; slot++) {
+            cancel(shieldTimers[slot]);
+            cancel(questionTimers[slot]);
+        }
+        Arrays.fill(shieldTimers, null);
+        Arrays.fill(questionTimers, null);
+        cancel(idleTimer);
+        idleTimer = null;
+        cancel(joinTimer);
+        joinTimer = null;
+    }
+
+    private static void cancel(TimingWheel.Timeout timer) {
+        if (timer != null) {
+            timer.cancel();
+        }
+    }
+
+    /**
+     * Record a failed hack attempt and return the number of failures against this target.
+     */
+    public int recordFailedHackAttempt(String hackerId, String targetId) {
+        int hacker = getSlot(hackerId);
+        int target = getSlot(targetId);
+        if (hacker < 0 || target < 0) {
+            return 0;
+        }
+        int[] row = failedHacks[hacker];
+        int index = row != null ? hackEntry(row, target) : -1;
+        if (index < 0) {
+            return addHackEntry(hacker, target, 1);
+        }
+        int count = Math.min(row[index] & HACK_COUNT_MASK, HACK_COUNT_MASK - 1) + 1;
+        row[index] = target << 16 | count;
+        return count;
+    }
+
+    /**
+     * Failed attempts of one hacker per target id.
+     */
+    public Map<String, Integer> getFailedHackAttempts(String hackerId) {
+        int hacker = getSlot(hackerId);
+        int[] row = hacker >= 0 ? failedHacks[hacker] : null;
+        if (row == null) {
+            return Collections.emptyMap();
+        }
+        Map<String, Integer> attempts = new HashMap<>();
+        for (int entry : row) {
+            if (entry != 0) {
+                attempts.put(players[entry >>> 16].getPlayerId(), entry & HACK_COUNT_MASK);
+            }
+        }
+        return attempts;
+    }
+
+    public void setFailedHackAttempts(String hackerId, Map<String, Integer> attempts) {
+        int hacker = getSlot(hackerId);
+        if (hacker < 0) {
+            return;
+        }
+        attempts.forEach((targetId, count) -> {
+            int target = getSlot(targetId);
+            if (target >= 0 && count > 0) {
+                clearHackAttempts(hackerId, targetId);
+                addHackEntry(hacker, target, Math.min(count, HACK_COUNT_MASK));
+            }
+        });
+    }
+
+    /**
+     * Count a journaled event and return how many were written since the last snapshot.
+     */
+    public int countJournalEvent() {
+        return ++journalEventsSinceSnapshot;
+    }
+
+    public void resetJournalCount() {
+        journalEventsSinceSnapshot = 0;
+    }
+
+    public void clearHackAttempts(String hackerId, String targetId) {
+        int hacker = getSlot(hackerId);
+        int target = getSlot(targetId);
+        int[] row = hacker >= 0 && target >= 0 ? failedHacks[hacker] : null;
+        int index = row != null ? hackEntry(row, target) : -1;
+        if (index >= 0) {
+            row[index] = 0;
+        }
+    }
+
+    private List<GamePlayerEntity> toPlayers(List<String> playerIds) {
+        List<GamePlayerEntity> result = new ArrayList<>(playerIds.size());
+        for (String playerId : playerIds) {
+            result.add(getPlayer(playerId));
+        }
+        return result;
+    }
+
+    /**
+     * Position of a target in a hacker's row, or -1.
+     */
+    private static int hackEntry(int[] row, int target) {
+        for (int i = 0; i < row.length; i++) {
+            if (row[i] != 0 && row[i] >>> 16 == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private int addHackEntry(int hacker, int target, int count) {
+        int[] row = failedHacks[hacker];
+        if (row == null) {
+            row = failedHacks[hacker] = new int[4];
+        }
+        int free = 0;
+        while (free < row.length && row[free] != 0) {
+            free++;
+        }
+        if (free == row.length) {
+            row = failedHacks[hacker] = Arrays.copyOf(row, row.length * 2);
+        }
+        row[free] = target << 16 | count;
+        return count;
+    }
+
+    private void grow() {
+        int capacity = players.length * 2;
+        players = Arrays.copyOf(players, capacity);
+        questionIndex = Arrays.copyOf(questionIndex, capacity);
+        shieldUntil = Arrays.copyOf(shieldUntil, capacity);
+        shieldTimers = Arrays.copyOf(shieldTimers, capacity);
+        questionTimers = Arrays.copyOf(questionTimers, capacity);
+        failedHacks = Arrays.copyOf(failedHacks, capacity);
+        standingSent = Arrays.copyOf(standingSent, capacity);
+        piggybacking = Arrays.copyOf(piggybacking, capacity);
+        handedOut = Arrays.copyOf(handedOut, capacity);
+        handedOutKeys = Arrays.copyOf(handedOutKeys, capacity);
+    }
+}
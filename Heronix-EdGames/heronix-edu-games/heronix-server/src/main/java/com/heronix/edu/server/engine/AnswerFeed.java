@@ -0,0 +1,116 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.dto.game.AnswerSummary;
+import com.heronix.edu.server.entity.GamePlayerEntity;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * One session's answers, gathered between teacher summaries.
+ *
+ * Recording and summarising happen on the session's event loop, so apart from
+ * the dirty flag (read by the feed tick) nothing here is shared.
+ */
+public class AnswerFeed {
+    /** Upper bounds of the response-time buckets; one more bucket holds anything slower. */
+    public static final long[] RESPONSE_BOUNDS_MS = {1000, 2000, 5000, 10000, 20000};
+
+    private final int maxEvents;
+    private final Map<String, int[]> byQuestion = new HashMap<>();  // questionId -> {answered, correct}
+    private final Set<String> changedQuestions = new LinkedHashSet<>();
+    private final int[] responseCounts = new int[RESPONSE_BOUNDS_MS.length + 1];
+    private int timedOut;
+    private final AtomicBoolean dirty = new AtomicBoolean(false);
+
+    private int answers;
+    private List<AnswerSummary.AnswerEvent> events = new ArrayList<>();
+    private int eventsDropped;
+
+    public AnswerFeed(int maxEvents) {
+        this.maxEvents = maxEvents;
+    }
+
+    /**
+     * Add an answer, or a question left to run out, and flag the feed for the next tick.
+     *
+     * @param responseMs time since the question was sent, or -1 if not known
+     */
+    public void record(GamePlayerEntity player, String questionId, boolean correct, boolean expired,
+                       long responseMs) {
+        answers++;
+        int[] counts = byQuestion.computeIfAbsent(questionId, id -> new int[2]);
+        counts[0]++;
+        if (correct) {
+            counts[1]++;
+        }
+        changedQuestions.add(questionId);
+
+        if (expired) {
+            timedOut++;
+        } else if (responseMs >= 0) {
+            responseCounts[bucket(responseMs)]++;
+        }
+
+        if (events.size() < maxEvents) {
+            events.add(new AnswerSummary.AnswerEvent(player.getPlayerId(), player.getStudentName(), questionId,
+                correct, expired, responseMs, player.getCorrectAnswers(), player.getIncorrectAnswers(),
+                player.getAccuracy()));
+        } else {
+            eventsDropped++;
+        }
+        dirty.set(true);
+    }
+
+    /**
+     * Clear and return the dirty flag.
+     */
+    public boolean takeDirty() {
+        return dirty.getAndSet(false);
+    }
+
+    public void markDirty() {
+        dirty.set(true);
+    }
+
+    public int getPendingAnswers() {
+        return answers;
+    }
+
+    /**
+     * Build the summary of everything since the last one and start a new interval.
+     * The session totals carry on.
+     */
+    public AnswerSummary summarize(String sessionId, int totalPlayers) {
+        List<AnswerSummary.QuestionStats> questions = new ArrayList<>(changedQuestions.size());
+        for (String questionId : changedQuestions) {
+            int[] counts = byQuestion.get(questionId);
+            questions.add(new AnswerSummary.QuestionStats(questionId, counts[0], counts[1]));
+        }
+        AnswerSummary summary = new AnswerSummary(sessionId, answers, totalPlayers, questions,
+            new AnswerSummary.ResponseTimes(RESPONSE_BOUNDS_MS, Arrays.copyOf(responseCounts, responseCounts.length),
+                timedOut),
+            events, eventsDropped);
+
+        answers = 0;
+        changedQuestions.clear();
+        events = new ArrayList<>();
+        eventsDropped = 0;
+        return summary;
+    }
+
+    private static int bucket(long responseMs) {
+        for (int i = 0; i < RESPONSE_BOUNDS_MS.length; i++) {
+            if (responseMs <= RESPONSE_BOUNDS_MS[i]) {
+                return i;
+            }
+        }
+        return RESPONSE_BOUNDS_MS.length;
+    }
+}
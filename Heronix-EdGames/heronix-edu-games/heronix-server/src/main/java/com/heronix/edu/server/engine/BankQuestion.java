@@ -0,0 +1,95 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.QuestionEntity;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Immutable copy of one question as loaded into a {@link QuestionBank}.
+ * Holds the answer options and the normalized correct answer so answer
+ * checks and question delivery never touch the JPA entity.
+ */
+public final class BankQuestion {
+    private final String questionId;
+    private final String questionText;
+    private final String correctAnswer;
+    private final String normalizedAnswer;
+    private final List<String> answerOptions;
+    private final int difficulty;
+    private final String imageUrl;
+    private final String explanation;
+
+    BankQuestion(QuestionEntity entity) {
+        this.questionId = entity.getQuestionId();
+        this.questionText = entity.getQuestionText();
+        this.correctAnswer = entity.getCorrectAnswer();
+        this.normalizedAnswer = normalize(entity.getCorrectAnswer());
+        this.difficulty = entity.getDifficulty() != null ? entity.getDifficulty() : 1;
+        this.imageUrl = entity.getImageUrl();
+        this.explanation = entity.getExplanation();
+
+        List<String> options = new ArrayList<>(4);
+        options.add(entity.getCorrectAnswer());
+        addIfPresent(options, entity.getWrongAnswer1());
+        addIfPresent(options, entity.getWrongAnswer2());
+        addIfPresent(options, entity.getWrongAnswer3());
+        this.answerOptions = Collections.unmodifiableList(options);
+    }
+
+    /**
+     * Case-insensitive check of a submitted answer, ignoring surrounding whitespace.
+     */
+    public boolean isCorrect(String answer) {
+        return answer != null && normalizedAnswer.equals(normalize(answer));
+    }
+
+    /**
+     * Answer options with the correct answer at a random position.
+     */
+    public List<String> shuffledAnswers() {
+        List<String> shuffled = new ArrayList<>(answerOptions);
+        Collections.shuffle(shuffled);
+        return shuffled;
+    }
+
+    public String getQuestionId() {
+        return questionId;
+    }
+
+    public String getQuestionText() {
+        return questionText;
+    }
+
+    public String getCorrectAnswer() {
+        return correctAnswer;
+    }
+
+    public List<String> getAnswerOptions() {
+        return answerOptions;
+    }
+
+    public int getDifficulty() {
+        return difficulty;
+    }
+
+    public String getImageUrl() {
+        return imageUrl;
+    }
+
+    public String getExplanation() {
+        return explanation;
+    }
+
+    static String normalize(String answer) {
+        return answer == null ? "" : answer.trim().toLowerCase(Locale.ROOT);
+    }
+
+    private static void addIfPresent(List<String> options, String answer) {
+        if (answer != null && !answer.isBlank()) {
+            options.add(answer);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.heronix.edu.server.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Bound on how many game threads talk to the database at once.
+ *
+ * With virtual-thread channel executors there is no thread pool left to limit
+ * how many callers reach H2 together, so session writes and write-behind
+ * flushes pass through this semaphore instead. It is kept below the connection
+ * pool size, leaving connections for REST requests.
+ *
+ * A caller that cannot get a permit within the timeout gets a
+ * {@link TransientDataAccessResourceException}, as if the pool had run dry.
+ */
+@Component
+public class DatabaseGate {
+    private static final Logger logger = LoggerFactory.getLogger(DatabaseGate.class);
+
+    private final Semaphore permits;
+    private final int maxConcurrent;
+    private final long acquireTimeoutMs;
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+
+    public DatabaseGate(@Value("${heronix.game.db.max-concurrent:16}") int maxConcurrent,
+                        @Value("${heronix.game.db.acquire-timeout-ms:20000}") long acquireTimeoutMs) {
+        this.maxConcurrent = Math.max(1, maxConcurrent);
+        this.permits = new Semaphore(this.maxConcurrent, true);
+        this.acquireTimeoutMs = acquireTimeoutMs;
+        logger.info("Database gate: {} concurrent callers, {}ms acquire timeout", this.maxConcurrent, acquireTimeoutMs);
+    }
+
+    /**
+     * Run database work once a permit is free.
+     */
+    public <T> T call(Supplier<T> work) {
+        acquire();
+        try {
+            return work.get();
+        } finally {
+            permits.release();
+        }
+    }
+
+    public void run(Runnable work) {
+        call(() -> {
+            work.run();
+            return null;
+        });
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("maxConcurrent", maxConcurrent);
+        stats.put("inUse", maxConcurrent - permits.availablePermits());
+        stats.put("queued", permits.getQueueLength());
+        stats.put("waits", waits.get());
+        stats.put("timeouts", timeouts.get());
+        return stats;
+    }
+
+    private void acquire() {
+        if (permits.tryAcquire()) {
+            return;
+        }
+        waits.incrementAndGet();
+        try {
+            if (permits.tryAcquire(acquireTimeoutMs, TimeUnit.MILLISECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new TransientDataAccessResourceException("Interrupted waiting for the database", e);
+        }
+        timeouts.incrementAndGet();
+        throw new TransientDataAccessResourceException(
+            "No database permit within " + acquireTimeoutMs + "ms (" + maxConcurrent + " in use)");
+    }
+}
@@ -0,0 +1,154 @@
+package com.heronix.edu.server.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission control for join storms: when a teacher shares a session code, the
+ * whole class joins within a second or two.
+ *
+ * A join needs a token from its session's bucket and from the server-wide
+ * bucket. Each session lets a class-sized burst straight in and then a steady
+ * rate; the global bucket does the same for many classes starting together.
+ * A join over either gets a retry-after hint instead of queueing in the
+ * session's mailbox behind everyone else.
+ *
+ * Admitted joins are applied in batches on the session's loop (see
+ * GameSessionService): one save and one roster broadcast per window rather than
+ * per player. This class holds the buckets, the batching settings and the counts.
+ */
+@Component
+public class JoinAdmission {
+    private static final Logger logger = LoggerFactory.getLogger(JoinAdmission.class);
+
+    private static final long MIN_RETRY_MS = 50;
+    private static final long MAX_RETRY_MS = 30_000;
+
+    private final boolean enabled;
+    private final double sessionRate;
+    private final int sessionBurst;
+    private final long batchWindowMs;
+    private final int maxBatch;
+    private final LongSupplier nanoClock;
+    private final TokenBucket global;
+    private final Map<String, TokenBucket> sessions = new ConcurrentHashMap<>();
+
+    private final AtomicLong admitted = new AtomicLong();
+    private final AtomicLong rejectedBySession = new AtomicLong();
+    private final AtomicLong rejectedGlobally = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+    private final AtomicLong batchedJoins = new AtomicLong();
+    private final AtomicLong largestBatch = new AtomicLong();
+
+    @Autowired
+    public JoinAdmission(@Value("${heronix.game.join.enabled:true}") boolean enabled,
+                         @Value("${heronix.game.join.session-rate:50}") double sessionRate,
+                         @Value("${heronix.game.join.session-burst:300}") int sessionBurst,
+                         @Value("${heronix.game.join.global-rate:500}") double globalRate,
+                         @Value("${heronix.game.join.global-burst:1000}") int globalBurst,
+                         @Value("${heronix.game.join.batch-window-ms:100}") long batchWindowMs,
+                         @Value("${heronix.game.join.max-batch:100}") int maxBatch) {
+        this(enabled, sessionRate, sessionBurst, globalRate, globalBurst, batchWindowMs, maxBatch, System::nanoTime);
+        if (enabled) {
+            logger.info("Join admission: {} per session at once then {}/s, {} server-wide then {}/s; "
+                + "batched every {}ms, up to {} joins", sessionBurst, sessionRate, globalBurst, globalRate,
+                batchWindowMs, maxBatch);
+        }
+    }
+
+    /**
+     * Admission on an explicit nanosecond clock, for tests.
+     */
+    public JoinAdmission(boolean enabled, double sessionRate, int sessionBurst, double globalRate, int globalBurst,
+                         long batchWindowMs, int maxBatch, LongSupplier nanoClock) {
+        this.enabled = enabled;
+        this.sessionRate = sessionRate;
+        this.sessionBurst = sessionBurst;
+        this.batchWindowMs = batchWindowMs;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.nanoClock = nanoClock;
+        this.global = new TokenBucket(globalRate, globalBurst, nanoClock);
+    }
+
+    /**
+     * Whether joins go through admission and batching at all. When off, each
+     * join is applied on its own as it arrives.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Take a join token for the session and for the server.
+     *
+     * @return 0 if the join is admitted, otherwise the milliseconds the client
+     *         should wait before trying again
+     */
+    public long tryAdmit(String sessionCode) {
+        TokenBucket session = sessions.computeIfAbsent(sessionCode,
+            code -> new TokenBucket(sessionRate, sessionBurst, nanoClock));
+        long wait = session.tryTake();
+        if (wait > 0) {
+            rejectedBySession.incrementAndGet();
+            return retryAfterMs(wait);
+        }
+        wait = global.tryTake();
+        if (wait > 0) {
+            session.giveBack();
+            rejectedGlobally.incrementAndGet();
+            return retryAfterMs(wait);
+        }
+        admitted.incrementAndGet();
+        return 0;
+    }
+
+    /**
+     * Drop the session's bucket once the session has ended.
+     */
+    public void forget(String sessionCode) {
+        sessions.remove(sessionCode);
+    }
+
+    public void recordBatch(int size) {
+        batches.incrementAndGet();
+        batchedJoins.addAndGet(size);
+        largestBatch.accumulateAndGet(size, Math::max);
+    }
+
+    public long getBatchWindowMs() {
+        return batchWindowMs;
+    }
+
+    public int getMaxBatch() {
+        return maxBatch;
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("admitted", admitted.get());
+        stats.put("rejectedBySession", rejectedBySession.get());
+        stats.put("rejectedGlobally", rejectedGlobally.get());
+        stats.put("globalTokens", Math.floor(global.getAvailable()));
+        stats.put("sessionsTracked", sessions.size());
+        long batchCount = batches.get();
+        stats.put("batches", batchCount);
+        stats.put("meanBatchSize", batchCount > 0 ? Math.round(10.0 * batchedJoins.get() / batchCount) / 10.0 : 0.0);
+        stats.put("largestBatch", largestBatch.get());
+        return stats;
+    }
+
+    private static long retryAfterMs(long waitNanos) {
+        return Math.min(MAX_RETRY_MS, Math.max(MIN_RETRY_MS, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1));
+    }
+}
@@ -0,0 +1,75 @@
+package com.heronix.edu.server.engine;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Entries of the session journal, one JSON line each, tagged with a "type" field
+ * (see {@link #TYPES}).
+ *
+ * Events record the effect of an action (credits added, credits stolen) rather
+ * than its inputs, so replay is deterministic and never re-rolls random outcomes.
+ * Times are epoch milliseconds.
+ */
+public sealed interface JournalEvent {
+
+    /**
+     * Value of the "type" field for each event class.
+     */
+    Map<String, Class<? extends JournalEvent>> TYPES = Map.of(
+        "SNAPSHOT", Snapshot.class,
+        "JOINED", Joined.class,
+        "STARTED", Started.class,
+        "QUESTION_SENT", QuestionSent.class,
+        "ANSWERED", Answered.class,
+        "REWARDED", Rewarded.class,
+        "HACKED", Hacked.class,
+        "ENDED", Ended.class);
+
+    /**
+     * Full state of a session. Always the first line of a journal file.
+     */
+    record Snapshot(String sessionId, String teacherId, String gameType, String questionSetId,
+                    String status, Integer timeLimitSeconds, Integer targetCredits,
+                    Long createdAt, Long startedAt, List<String> questionOrder,
+                    List<PlayerState> players) implements JournalEvent {
+    }
+
+    /**
+     * Player state inside a snapshot, in join order.
+     */
+    record PlayerState(String playerId, String studentId, String studentName, String secretCode,
+                       String avatarId, int credits, int correctAnswers, int incorrectAnswers,
+                       int hackAttempts, int successfulHacks, int timesHacked, int creditsStolen,
+                       int creditsLost, Long joinedAt, int questionIndex, Long shieldUntil,
+                       Map<String, Integer> failedHacks) {
+    }
+
+    record Joined(String playerId, String studentId, String studentName, String secretCode,
+                  String avatarId, long at) implements JournalEvent {
+    }
+
+    record Started(long at) implements JournalEvent {
+    }
+
+    /**
+     * A question was sent; {@code questionIndex} is the player's index afterwards.
+     */
+    record QuestionSent(String playerId, int questionIndex) implements JournalEvent {
+    }
+
+    record Answered(String playerId, String questionId, boolean correct) implements JournalEvent {
+    }
+
+    /**
+     * Reward applied: credits added, or a shield until {@code shieldUntil}.
+     */
+    record Rewarded(String playerId, String rewardType, int credits, Long shieldUntil) implements JournalEvent {
+    }
+
+    record Hacked(String hackerId, String targetId, boolean success, int stolen) implements JournalEvent {
+    }
+
+    record Ended(long at) implements JournalEvent {
+    }
+}
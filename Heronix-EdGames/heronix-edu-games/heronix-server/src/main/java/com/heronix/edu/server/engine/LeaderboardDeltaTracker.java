@@ -0,0 +1,92 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.dto.game.LeaderboardEntry;
+import com.heronix.edu.server.dto.game.LeaderboardUpdate;
+
+import java.util.*;
+
+/**
+ * Remembers the last leaderboard published for a session and turns the next one
+ * into a versioned delta of changed rows.
+ *
+ * Owned by the session's event loop; not thread-safe.
+ */
+public class LeaderboardDeltaTracker {
+    private final Map<String, LeaderboardEntry> published = new LinkedHashMap<>();
+    private long version = 0;
+    private int totalPlayers = 0;
+
+    /**
+     * Compare the current board with the last published one.
+     *
+     * @param current all rows in rank order
+     * @return the delta to broadcast, or null if nothing visible changed
+     */
+    public LeaderboardUpdate nextDelta(List<LeaderboardEntry> current) {
+        return nextDelta(current, current.size());
+    }
+
+    /**
+     * Compare a top-of-board cut with the last published one. Rows that fall out
+     * of the cut are sent as removed.
+     *
+     * @param current      the published rows in rank order
+     * @param totalPlayers players in the whole session
+     * @return the delta to broadcast, or null if nothing visible changed
+     */
+    public LeaderboardUpdate nextDelta(List<LeaderboardEntry> current, int totalPlayers) {
+        List<LeaderboardEntry> changed = new ArrayList<>();
+        Set<String> seen = new HashSet<>(current.size() * 2);
+
+        for (LeaderboardEntry entry : current) {
+            seen.add(entry.getPlayerId());
+            LeaderboardEntry previous = published.get(entry.getPlayerId());
+            if (previous == null || !sameRow(previous, entry)) {
+                changed.add(entry);
+            }
+        }
+
+        List<String> removed = new ArrayList<>();
+        for (String playerId : published.keySet()) {
+            if (!seen.contains(playerId)) {
+                removed.add(playerId);
+            }
+        }
+
+        if (changed.isEmpty() && removed.isEmpty() && totalPlayers == this.totalPlayers) {
+            return null;
+        }
+
+        published.clear();
+        for (LeaderboardEntry entry : current) {
+            published.put(entry.getPlayerId(), entry);
+        }
+
+        this.totalPlayers = totalPlayers;
+
+        long baseVersion = version++;
+        return LeaderboardUpdate.delta(baseVersion, version, totalPlayers, changed, removed);
+    }
+
+    /**
+     * Full copy of the last published board, at its version.
+     */
+    public LeaderboardUpdate snapshot() {
+        LeaderboardUpdate snapshot = LeaderboardUpdate.snapshot(version, new ArrayList<>(published.values()));
+        snapshot.setTotalPlayers(totalPlayers);
+        return snapshot;
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    private static boolean sameRow(LeaderboardEntry a, LeaderboardEntry b) {
+        return Objects.equals(a.getRank(), b.getRank())
+            && Objects.equals(a.getCredits(), b.getCredits())
+            && Objects.equals(a.getCorrectAnswers(), b.getCorrectAnswers())
+            && Objects.equals(a.getSuccessfulHacks(), b.getSuccessfulHacks())
+            && Objects.equals(a.getStudentName(), b.getStudentName())
+            && Objects.equals(a.getAvatarId(), b.getAvatarId());
+    }
+}
@@ -0,0 +1,18 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.dto.game.JoinSessionRequest;
+import com.heronix.edu.server.dto.game.JoinSessionResponse;
+
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * An admitted join waiting on its session's loop for the next join batch.
+ * The response future completes when the batch has been applied.
+ */
+public record PendingJoin(String playerId, JoinSessionRequest request,
+                          CompletableFuture<JoinSessionResponse> response) {
+
+    public PendingJoin(String playerId, JoinSessionRequest request) {
+        this(playerId, request, new CompletableFuture<>());
+    }
+}
@@ -0,0 +1,194 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Write-behind persistence for in-game player state.
+ *
+ * The GamePlayerEntity objects held by each ActiveGameSession are the authoritative
+ * copy while a game runs. Instead of saving on every answer, the session loop calls
+ * {@link #markDirty} with the player; a snapshot is taken on the loop thread and
+ * coalesced per player, and the latest snapshot of every dirty player is written in
+ * JDBC batches on a timer, when the backlog reaches its bound, at game end and at
+ * shutdown. Each batch takes a {@link DatabaseGate} permit.
+ */
+@Component
+public class PlayerStateWriteBehind {
+    private static final Logger logger = LoggerFactory.getLogger(PlayerStateWriteBehind.class);
+
+    private static final String UPDATE_SQL =
+        "UPDATE game_players SET credits = ?, correct_answers = ?, incorrect_answers = ?, " +
+        "hack_attempts = ?, successful_hacks = ?, times_hacked = ?, credits_stolen = ?, " +
+        "credits_lost = ?, connected = ?, last_activity_at = ? WHERE player_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final DatabaseGate databaseGate;
+    private final int batchSize;
+    private final int maxPendingPlayers;
+    private final Map<String, PlayerSnapshot> pending = new ConcurrentHashMap<>();
+    private final ScheduledExecutorService flusher;
+    private final Object flushLock = new Object();
+    // At most one early flush queued at a time; cleared when it starts
+    private final AtomicBoolean flushRequested = new AtomicBoolean(false);
+    private volatile boolean shutdown = false;
+
+    public PlayerStateWriteBehind(JdbcTemplate jdbcTemplate,
+                                  DatabaseGate databaseGate,
+                                  @Value("${heronix.game.persistence.flush-interval-ms:2000}") long flushIntervalMs,
+                                  @Value("${heronix.game.persistence.batch-size:200}") int batchSize,
+                                  @Value("${heronix.game.persistence.max-pending-players:5000}") int maxPendingPlayers) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.databaseGate = databaseGate;
+        this.batchSize = batchSize;
+        this.maxPendingPlayers = maxPendingPlayers;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "player-write-behind");
+            t.setDaemon(true);
+            return t;
+        });
+        flusher.scheduleWithFixedDelay(this::flushQuietly, flushIntervalMs, flushIntervalMs, TimeUnit.MILLISECONDS);
+        logger.info("Player write-behind enabled: flush every {}ms, batch size {}, max pending {}",
+            flushIntervalMs, batchSize, maxPendingPlayers);
+    }
+
+    /**
+     * Queue the player's current state for persistence. Must be called on the
+     * session's event loop so the snapshot is consistent.
+     */
+    public void markDirty(GamePlayerEntity player) {
+        pending.put(player.getPlayerId(), PlayerSnapshot.of(player));
+
+        // Bound how much unsaved state we can lose by flushing early under load
+        if (pending.size() >= maxPendingPlayers && !shutdown && flushRequested.compareAndSet(false, true)) {
+            flusher.execute(() -> {
+                flushRequested.set(false);
+                flushQuietly();
+            });
+        }
+    }
+
+    /**
+     * Write every pending snapshot now.
+     *
+     * @return number of player rows written
+     */
+    public int flush() {
+        synchronized (flushLock) {
+            return write(new ArrayList<>(pending.keySet()));
+        }
+    }
+
+    /**
+     * Write the pending snapshots of the given players now, such as one
+     * session's players at game end, leaving everyone else to the timer.
+     *
+     * @return number of player rows written
+     */
+    public int flush(Collection<String> playerIds) {
+        synchronized (flushLock) {
+            return write(playerIds);
+        }
+    }
+
+    private int write(Collection<String> playerIds) {
+        List<PlayerSnapshot> batch = new ArrayList<>(playerIds.size());
+        for (String playerId : playerIds) {
+            PlayerSnapshot snapshot = pending.remove(playerId);
+            if (snapshot != null) {
+                batch.add(snapshot);
+            }
+        }
+        if (batch.isEmpty()) {
+            return 0;
+        }
+
+        int written = 0;
+        try {
+            for (int from = 0; from < batch.size(); from += batchSize) {
+                List<PlayerSnapshot> chunk = batch.subList(from, Math.min(from + batchSize, batch.size()));
+                databaseGate.run(() -> jdbcTemplate.batchUpdate(UPDATE_SQL, chunk, chunk.size(), (ps, s) -> {
+                    ps.setInt(1, s.credits());
+                    ps.setInt(2, s.correctAnswers());
+                    ps.setInt(3, s.incorrectAnswers());
+                    ps.setInt(4, s.hackAttempts());
+                    ps.setInt(5, s.successfulHacks());
+                    ps.setInt(6, s.timesHacked());
+                    ps.setInt(7, s.creditsStolen());
+                    ps.setInt(8, s.creditsLost());
+                    ps.setBoolean(9, s.connected());
+                    ps.setTimestamp(10, s.lastActivityAt() != null ? Timestamp.valueOf(s.lastActivityAt()) : null);
+                    ps.setString(11, s.playerId());
+                }));
+                written += chunk.size();
+            }
+        } catch (RuntimeException e) {
+            // Put back what was not written, unless a newer snapshot arrived meanwhile
+            for (PlayerSnapshot snapshot : batch.subList(written, batch.size())) {
+                pending.putIfAbsent(snapshot.playerId(), snapshot);
+            }
+            throw e;
+        }
+
+        logger.debug("Flushed {} player rows", written);
+        return written;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    /**
+     * Final flush on graceful shutdown.
+     */
+    @PreDestroy
+    public void shutdown() {
+        shutdown = true;
+        flusher.shutdown();
+        try {
+            flusher.awaitTermination(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        int written = flush();
+        logger.info("Player write-behind stopped, {} rows flushed on shutdown", written);
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (Exception e) {
+            logger.error("Player state flush failed, will retry", e);
+        }
+    }
+
+    /**
+     * Immutable copy of the persisted player columns.
+     */
+    record PlayerSnapshot(String playerId, int credits, int correctAnswers, int incorrectAnswers,
+                          int hackAttempts, int successfulHacks, int timesHacked,
+                          int creditsStolen, int creditsLost, boolean connected,
+                          LocalDateTime lastActivityAt) {
+
+        static PlayerSnapshot of(GamePlayerEntity player) {
+            return new PlayerSnapshot(player.getPlayerId(), player.getCredits(), player.getCorrectAnswers(),
+                player.getIncorrectAnswers(), player.getHackAttempts(), player.getSuccessfulHacks(),
+                player.getTimesHacked(), player.getCreditsStolen(), player.getCreditsLost(),
+                Boolean.TRUE.equals(player.getConnected()), player.getLastActivityAt());
+        }
+    }
+}
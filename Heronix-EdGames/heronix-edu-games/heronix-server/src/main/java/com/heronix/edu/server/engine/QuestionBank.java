@@ -0,0 +1,78 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.QuestionEntity;
+
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Immutable, pre-indexed questions of one question set, shared by every
+ * session that plays the set. Sessions keep their own shuffled order of
+ * indexes into the bank rather than copies of the questions.
+ */
+public final class QuestionBank {
+    private static final int[] NO_INDEXES = new int[0];
+
+    private final String setId;
+    private final List<BankQuestion> questions;
+    private final Map<Integer, int[]> difficultyBuckets;
+
+    public QuestionBank(String setId, List<QuestionEntity> entities) {
+        this.setId = setId;
+
+        List<BankQuestion> loaded = new ArrayList<>(entities.size());
+        Map<Integer, List<Integer>> buckets = new TreeMap<>();
+        for (QuestionEntity entity : entities) {
+            BankQuestion question = new BankQuestion(entity);
+            buckets.computeIfAbsent(question.getDifficulty(), d -> new ArrayList<>()).add(loaded.size());
+            loaded.add(question);
+        }
+        this.questions = Collections.unmodifiableList(loaded);
+
+        Map<Integer, int[]> indexed = new HashMap<>();
+        buckets.forEach((difficulty, indexes) ->
+            indexed.put(difficulty, indexes.stream().mapToInt(Integer::intValue).toArray()));
+        this.difficultyBuckets = Collections.unmodifiableMap(indexed);
+    }
+
+    public String getSetId() {
+        return setId;
+    }
+
+    public int size() {
+        return questions.size();
+    }
+
+    public BankQuestion get(int index) {
+        return questions.get(index);
+    }
+
+    public List<BankQuestion> getQuestions() {
+        return questions;
+    }
+
+    /**
+     * Indexes of the questions with the given difficulty (1-5). Callers must not modify the array.
+     */
+    public int[] indexesForDifficulty(int difficulty) {
+        return difficultyBuckets.getOrDefault(difficulty, NO_INDEXES);
+    }
+
+    /**
+     * A fresh random permutation of all question indexes, for one session.
+     */
+    public int[] shuffledOrder() {
+        int[] order = new int[questions.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Random random = ThreadLocalRandom.current();
+        for (int i = order.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            int tmp = order[i];
+            order[i] = order[j];
+            order[j] = tmp;
+        }
+        return order;
+    }
+}
@@ -0,0 +1,69 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.repository.QuestionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Loads each question set once into a shared {@link QuestionBank}.
+ *
+ * Banks are immutable, so a session keeps the bank it started with even after
+ * the set is edited; the question CRUD endpoints call {@link #invalidate} so
+ * sessions created afterwards load the new version.
+ */
+@Component
+public class QuestionBankCache {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionBankCache.class);
+
+    private final QuestionRepository questionRepository;
+    private final Map<String, QuestionBank> banks = new ConcurrentHashMap<>();
+    private final AtomicLong loads = new AtomicLong(0);
+
+    public QuestionBankCache(QuestionRepository questionRepository) {
+        this.questionRepository = questionRepository;
+    }
+
+    /**
+     * Get the bank for a question set, loading it on first use.
+     */
+    public QuestionBank get(String setId) {
+        if (setId == null) {
+            return new QuestionBank(null, List.of());
+        }
+        return banks.computeIfAbsent(setId, this::load);
+    }
+
+    /**
+     * Drop the cached bank for a set after its questions changed.
+     * Call after the change is committed.
+     */
+    public void invalidate(String setId) {
+        if (setId != null && banks.remove(setId) != null) {
+            logger.debug("Question bank {} invalidated", setId);
+        }
+    }
+
+    public void invalidateAll() {
+        banks.clear();
+    }
+
+    /**
+     * Number of times a set was read from the database.
+     */
+    public long getLoadCount() {
+        return loads.get();
+    }
+
+    private QuestionBank load(String setId) {
+        loads.incrementAndGet();
+        QuestionBank bank = new QuestionBank(setId, questionRepository.findByQuestionSetId(setId));
+        logger.info("Loaded question bank {} with {} questions", setId, bank.size());
+        return bank;
+    }
+}
@@ -0,0 +1,257 @@
+package com.heronix.edu.server.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.dto.game.QuestionDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import javax.crypto.Cipher;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Encodes question payloads for /queue/question once per session and question.
+ *
+ * The cached body is the QuestionDto JSON without its opening brace. Sending
+ * prepends a small per-player envelope, so each delivery is one array copy
+ * instead of building and serializing a new DTO:
+ * <pre>{"questionNumber":3,"playerId":"...",&lt;cached body&gt;</pre>
+ *
+ * The body lists under {@code prefetch} the images of the next few questions in
+ * the session's order ({@code heronix.game.questions.prefetch-ahead}), so the
+ * client can fetch them while the student is still answering.
+ *
+ * A question handed out before it is due is sealed with AES-GCM under a key of
+ * its own, which only goes out with the reveal, so the client cannot read it
+ * while its deadline is not running.
+ */
+@Component
+public class QuestionPayloadEncoder {
+    public static final int QUESTION_TIME_LIMIT_SECONDS = 15;
+
+    private static final byte[] NUMBER_PREFIX = "{\"questionNumber\":".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLAYER_PREFIX = ",\"playerId\":\"".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLAYER_SUFFIX = "\",".getBytes(StandardCharsets.US_ASCII);
+    private static final String SEAL_CIPHER = "AES/GCM/NoPadding";
+    private static final int SEAL_KEY_BYTES = 16;
+    private static final int SEAL_IV_BYTES = 12;
+    private static final int SEAL_TAG_BITS = 128;
+
+    private final ObjectMapper objectMapper;
+    private final int prefetchAhead;
+    private final SecureRandom random = new SecureRandom();
+
+    public QuestionPayloadEncoder(ObjectMapper objectMapper) {
+        this(objectMapper, 3);
+    }
+
+    @Autowired
+    public QuestionPayloadEncoder(ObjectMapper objectMapper,
+                                  @Value("${heronix.game.questions.prefetch-ahead:3}") int prefetchAhead) {
+        this.objectMapper = objectMapper;
+        this.prefetchAhead = prefetchAhead;
+    }
+
+    /**
+     * How many of the following questions to look at for images to prefetch.
+     */
+    public int getPrefetchAhead() {
+        return prefetchAhead;
+    }
+
+    public byte[] encodeBody(BankQuestion question) {
+        return encodeBody(question, List.of());
+    }
+
+    /**
+     * Serialize the shared part of a question message. Answer order is shuffled
+     * here, so every player in the session sees the same order.
+     *
+     * @param upcoming the questions that follow it in the session's order
+     */
+    public byte[] encodeBody(BankQuestion question, List<BankQuestion> upcoming) {
+        QuestionDto dto = new QuestionDto();
+        dto.setQuestionId(question.getQuestionId());
+        dto.setQuestionText(question.getQuestionText());
+        dto.setAnswers(question.shuffledAnswers());
+        dto.setDifficulty(question.getDifficulty());
+        dto.setImageUrl(question.getImageUrl());
+        dto.setTimeLimitSeconds(QUESTION_TIME_LIMIT_SECONDS);
+        List<String> prefetch = new ArrayList<>();
+        for (BankQuestion next : upcoming) {
+            if (next.getImageUrl() != null && !next.getImageUrl().isBlank() && !prefetch.contains(next.getImageUrl())) {
+                prefetch.add(next.getImageUrl());
+            }
+        }
+        if (!prefetch.isEmpty()) {
+            dto.setPrefetch(prefetch);
+        }
+
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(dto);
+            // Drop the leading '{' so the envelope can be spliced in front
+            byte[] body = new byte[json.length - 1];
+            System.arraycopy(json, 1, body, 0, body.length);
+            return body;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode question " + question.getQuestionId(), e);
+        }
+    }
+
+    /**
+     * Complete JSON payload for one player: envelope fields followed by the cached body.
+     * Written straight into the result array, so the payload is the only allocation.
+     */
+    public byte[] withEnvelope(byte[] body, int questionNumber, String playerId) {
+        if (!isPlainAscii(playerId)) {
+            return withEscapedEnvelope(body, questionNumber, playerId);
+        }
+
+        int digits = digitCount(questionNumber);
+        byte[] payload = new byte[NUMBER_PREFIX.length + digits + PLAYER_PREFIX.length
+            + playerId.length() + PLAYER_SUFFIX.length + body.length];
+
+        int pos = copy(NUMBER_PREFIX, payload, 0);
+        for (int i = digits - 1, n = questionNumber; i >= 0; i--, n /= 10) {
+            payload[pos + i] = (byte) ('0' + n % 10);
+        }
+        pos += digits;
+        pos = copy(PLAYER_PREFIX, payload, pos);
+        for (int i = 0; i < playerId.length(); i++) {
+            payload[pos++] = (byte) playerId.charAt(i);
+        }
+        pos = copy(PLAYER_SUFFIX, payload, pos);
+        System.arraycopy(body, 0, payload, pos, body.length);
+        return payload;
+    }
+
+    /**
+     * Encrypt a question message under a fresh key, for the client to hold
+     * until the reveal brings the key.
+     */
+    public SealedQuestion seal(byte[] payload) {
+        byte[] key = new byte[SEAL_KEY_BYTES];
+        byte[] iv = new byte[SEAL_IV_BYTES];
+        random.nextBytes(key);
+        random.nextBytes(iv);
+        try {
+            Cipher cipher = Cipher.getInstance(SEAL_CIPHER);
+            cipher.init(Cipher.ENCRYPT_MODE, new SecretKeySpec(key, "AES"), new GCMParameterSpec(SEAL_TAG_BITS, iv));
+            // IV first, then ciphertext and tag
+            byte[] sealed = new byte[iv.length + cipher.getOutputSize(payload.length)];
+            System.arraycopy(iv, 0, sealed, 0, iv.length);
+            cipher.doFinal(payload, 0, payload.length, sealed, iv.length);
+            Base64.Encoder base64 = Base64.getEncoder();
+            return new SealedQuestion(base64.encodeToString(sealed), base64.encodeToString(key));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot seal question", e);
+        }
+    }
+
+    /**
+     * Decrypt a sealed question message with the key from its reveal, as a
+     * client does.
+     */
+    public static byte[] open(String sealed, String key) {
+        byte[] bytes = Base64.getDecoder().decode(sealed);
+        try {
+            Cipher cipher = Cipher.getInstance(SEAL_CIPHER);
+            cipher.init(Cipher.DECRYPT_MODE, new SecretKeySpec(Base64.getDecoder().decode(key), "AES"),
+                new GCMParameterSpec(SEAL_TAG_BITS, bytes, 0, SEAL_IV_BYTES));
+            return cipher.doFinal(bytes, SEAL_IV_BYTES, bytes.length - SEAL_IV_BYTES);
+        } catch (GeneralSecurityException e) {
+            throw new IllegalArgumentException("Cannot open sealed question", e);
+        }
+    }
+
+    /**
+     * Question message for a question the client already holds sealed from an
+     * answer result: the envelope, the question id and the key to open it.
+     */
+    public byte[] reveal(int questionNumber, String playerId, String questionId, String key) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(new Reveal(questionId, key));
+            byte[] body = new byte[json.length - 1];
+            System.arraycopy(json, 1, body, 0, body.length);
+            return withEnvelope(body, questionNumber, playerId);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode reveal of " + questionId, e);
+        }
+    }
+
+    /**
+     * Wrap encoded JSON in a message that the broker relays as-is.
+     */
+    public Message<byte[]> toMessage(byte[] payload) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create();
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private byte[] withEscapedEnvelope(byte[] body, int questionNumber, String playerId) {
+        byte[] head;
+        try {
+            head = ("{\"questionNumber\":" + questionNumber + ",\"playerId\":"
+                + objectMapper.writeValueAsString(playerId) + ",").getBytes(StandardCharsets.UTF_8);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode player id", e);
+        }
+
+        byte[] payload = new byte[head.length + body.length];
+        System.arraycopy(head, 0, payload, 0, head.length);
+        System.arraycopy(body, 0, payload, head.length, body.length);
+        return payload;
+    }
+
+    /**
+     * Whether the id can be written into a JSON string without escaping.
+     */
+    private static boolean isPlainAscii(String value) {
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == '"' || c == '\\') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int digitCount(int value) {
+        int digits = 1;
+        while (value >= 10) {
+            value /= 10;
+            digits++;
+        }
+        return digits;
+    }
+
+    private record Reveal(String questionId, boolean revealed, String key) {
+        Reveal(String questionId, String key) {
+            this(questionId, true, key);
+        }
+    }
+
+    /**
+     * A sealed question message and its key, both base64.
+     */
+    public record SealedQuestion(String payload, String key) {
+    }
+
+    private static int copy(byte[] source, byte[] target, int pos) {
+        System.arraycopy(source, 0, target, pos, source.length);
+        return pos + source.length;
+    }
+}
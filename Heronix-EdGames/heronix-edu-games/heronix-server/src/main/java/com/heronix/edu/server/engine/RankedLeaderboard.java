@@ -0,0 +1,236 @@
+package com.heronix.edu.server.engine;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Incrementally maintained leaderboard for one session.
+ *
+ * An indexed skip list ordered by credits (highest first), ties broken by join order,
+ * which is the same order the old full sort produced. Each forward link stores how many
+ * entries it skips, so the rank of a player is found during the O(log n) descent.
+ *
+ * Costs: add/update/remove O(log n), rank O(log n), top-k O(k), range O(log n + k).
+ *
+ * Not thread-safe; owned by the session's event loop like the rest of {@link ActiveGameSession}.
+ */
+public class RankedLeaderboard {
+    private static final int MAX_LEVEL = 24;
+
+    private final Node head = new Node(null, Integer.MAX_VALUE, -1, MAX_LEVEL);
+    private final Map<String, Node> nodes = new HashMap<>();
+    private int level = 1;
+    private int size = 0;
+    private long nextJoinOrder = 0;
+
+    /**
+     * Add a player behind everyone already on the board with the same credits.
+     */
+    public void add(String playerId, int credits) {
+        if (nodes.containsKey(playerId)) {
+            update(playerId, credits);
+            return;
+        }
+        nodes.put(playerId, insert(playerId, credits, nextJoinOrder++));
+    }
+
+    /**
+     * Move a player to the position for their new credit total.
+     */
+    public void update(String playerId, int credits) {
+        Node node = nodes.get(playerId);
+        if (node == null) {
+            add(playerId, credits);
+            return;
+        }
+        if (node.credits == credits) {
+            return;
+        }
+        delete(node);
+        nodes.put(playerId, insert(playerId, credits, node.joinOrder));
+    }
+
+    public void remove(String playerId) {
+        Node node = nodes.remove(playerId);
+        if (node != null) {
+            delete(node);
+        }
+    }
+
+    public boolean contains(String playerId) {
+        return nodes.containsKey(playerId);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 1-based rank of a player, or 0 if the player is not on the board.
+     */
+    public int rank(String playerId) {
+        Node target = nodes.get(playerId);
+        if (target == null) {
+            return 0;
+        }
+
+        int rank = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && !target.before(x.next[i])) {
+                rank += x.span[i];
+                x = x.next[i];
+            }
+            if (x == target) {
+                return rank;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Player ids of the first {@code k} places, best first.
+     */
+    public List<String> top(int k) {
+        List<String> result = new ArrayList<>(Math.min(k, size));
+        for (Node x = head.next[0]; x != null && result.size() < k; x = x.next[0]) {
+            result.add(x.playerId);
+        }
+        return result;
+    }
+
+    /**
+     * Player ids holding ranks {@code fromRank} (1-based) up to {@code fromRank + count - 1}.
+     */
+    public List<String> range(int fromRank, int count) {
+        List<String> result = new ArrayList<>();
+        if (fromRank < 1 || fromRank > size || count <= 0) {
+            return result;
+        }
+
+        // Descend to the entry just before fromRank
+        int traversed = 0;
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && traversed + x.span[i] < fromRank) {
+                traversed += x.span[i];
+                x = x.next[i];
+            }
+        }
+
+        for (x = x.next[0]; x != null && result.size() < count; x = x.next[0]) {
+            result.add(x.playerId);
+        }
+        return result;
+    }
+
+    /**
+     * Current credits recorded for a player, or 0 if absent.
+     */
+    public int credits(String playerId) {
+        Node node = nodes.get(playerId);
+        return node != null ? node.credits : 0;
+    }
+
+    private Node insert(String playerId, int credits, long joinOrder) {
+        Node node = new Node(playerId, credits, joinOrder, randomLevel());
+        Node[] update = new Node[MAX_LEVEL];
+        int[] rank = new int[MAX_LEVEL];
+
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            rank[i] = (i == level - 1) ? 0 : rank[i + 1];
+            while (x.next[i] != null && x.next[i].before(node)) {
+                rank[i] += x.span[i];
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        int nodeLevel = node.next.length;
+        if (nodeLevel > level) {
+            for (int i = level; i < nodeLevel; i++) {
+                rank[i] = 0;
+                update[i] = head;
+                head.span[i] = size;
+            }
+            level = nodeLevel;
+        }
+
+        for (int i = 0; i < nodeLevel; i++) {
+            node.next[i] = update[i].next[i];
+            update[i].next[i] = node;
+            node.span[i] = update[i].span[i] - (rank[0] - rank[i]);
+            update[i].span[i] = (rank[0] - rank[i]) + 1;
+        }
+        for (int i = nodeLevel; i < level; i++) {
+            update[i].span[i]++;
+        }
+
+        size++;
+        return node;
+    }
+
+    private void delete(Node node) {
+        Node[] update = new Node[MAX_LEVEL];
+        Node x = head;
+        for (int i = level - 1; i >= 0; i--) {
+            while (x.next[i] != null && x.next[i].before(node)) {
+                x = x.next[i];
+            }
+            update[i] = x;
+        }
+
+        for (int i = 0; i < level; i++) {
+            if (update[i].next[i] == node) {
+                update[i].span[i] += node.span[i] - 1;
+                update[i].next[i] = node.next[i];
+            } else {
+                update[i].span[i]--;
+            }
+        }
+        while (level > 1 && head.next[level - 1] == null) {
+            level--;
+        }
+        size--;
+    }
+
+    private static int randomLevel() {
+        // p = 1/4 per extra level
+        int lvl = 1;
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        while (lvl < MAX_LEVEL && random.nextInt(4) == 0) {
+            lvl++;
+        }
+        return lvl;
+    }
+
+    private static final class Node {
+        final String playerId;
+        final int credits;
+        final long joinOrder;
+        final Node[] next;
+        final int[] span;
+
+        Node(String playerId, int credits, long joinOrder, int level) {
+            this.playerId = playerId;
+            this.credits = credits;
+            this.joinOrder = joinOrder;
+            this.next = new Node[level];
+            this.span = new int[level];
+        }
+
+        /**
+         * Whether this entry ranks ahead of the other one.
+         */
+        boolean before(Node other) {
+            if (credits != other.credits) {
+                return credits > other.credits;
+            }
+            return joinOrder < other.joinOrder;
+        }
+    }
+}
@@ -0,0 +1,160 @@
+package com.heronix.edu.server.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Single-writer event loops for live game sessions.
+ *
+ * Sessions are partitioned across a fixed set of loop threads by a hash of the
+ * session code. Every mutation of a session is queued in its {@link SessionMailbox}
+ * and executed on that session's loop, so session state is only ever touched by
+ * one thread and needs no locking. STOMP inbound threads just enqueue and return.
+ */
+@Component
+public class SessionEngine {
+    private static final Logger logger = LoggerFactory.getLogger(SessionEngine.class);
+
+    private static final int DRAIN_BATCH_SIZE = 64;
+
+    private final EventLoop[] loops;
+    private final int mailboxCapacity;
+    private final AtomicLong rejectedActions = new AtomicLong(0);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private volatile TaskDecorator taskDecorator = action -> action;
+
+    public SessionEngine(@Value("${heronix.game.engine.event-loops:0}") int eventLoops,
+                         @Value("${heronix.game.engine.mailbox-capacity:1024}") int mailboxCapacity) {
+        int loopCount = eventLoops > 0 ? eventLoops : Runtime.getRuntime().availableProcessors();
+        this.loops = new EventLoop[loopCount];
+        for (int i = 0; i < loopCount; i++) {
+            loops[i] = new EventLoop(i);
+        }
+        this.mailboxCapacity = mailboxCapacity;
+        logger.info("Session engine started with {} event loops, mailbox capacity {}", loopCount, mailboxCapacity);
+    }
+
+    /**
+     * Create the mailbox for a session, pinned to the loop chosen by its session code.
+     */
+    public SessionMailbox openMailbox(String sessionCode) {
+        return new SessionMailbox(sessionCode, loopFor(sessionCode), mailboxCapacity, DRAIN_BATCH_SIZE);
+    }
+
+    /**
+     * Wrap each action queued for a loop, to carry the submitting thread's context to it.
+     */
+    public void setTaskDecorator(TaskDecorator taskDecorator) {
+        this.taskDecorator = taskDecorator;
+    }
+
+    /**
+     * Run an action on the session's event loop.
+     * Actions submitted from the owning loop itself run inline.
+     *
+     * @return future completed with the action's result, or failed with
+     *         {@link RejectedExecutionException} if the mailbox is full or closed
+     */
+    public <T> CompletableFuture<T> submit(SessionMailbox mailbox, Supplier<T> action) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+
+        if (mailbox.isOwnerThread()) {
+            complete(future, action);
+            return future;
+        }
+
+        if (!mailbox.offer(taskDecorator.decorate(() -> complete(future, action)))) {
+            rejectedActions.incrementAndGet();
+            logger.warn("Session {} mailbox rejected action (closed={}, queued={})",
+                mailbox.getSessionCode(), mailbox.isClosed(), mailbox.size());
+            future.completeExceptionally(new RejectedExecutionException(
+                "Session " + mailbox.getSessionCode() + " is busy"));
+        }
+        return future;
+    }
+
+    public int getEventLoopCount() {
+        return loops.length;
+    }
+
+    public long getRejectedActions() {
+        return rejectedActions.get();
+    }
+
+    /**
+     * Stop the loops after letting already queued actions run. Safe to call more than once.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!stopped.compareAndSet(false, true)) {
+            return;
+        }
+        for (EventLoop loop : loops) {
+            loop.executor.shutdown();
+        }
+        for (EventLoop loop : loops) {
+            try {
+                if (!loop.executor.awaitTermination(5, TimeUnit.SECONDS)) {
+                    loop.executor.shutdownNow();
+                }
+            } catch (InterruptedException e) {
+                loop.executor.shutdownNow();
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Session engine stopped");
+    }
+
+    private EventLoop loopFor(String sessionCode) {
+        return loops[Math.floorMod(sessionCode.hashCode(), loops.length)];
+    }
+
+    private static <T> void complete(CompletableFuture<T> future, Supplier<T> action) {
+        try {
+            future.complete(action.get());
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        }
+    }
+
+    /**
+     * One single-threaded executor. Its queue only holds mailbox drain tasks,
+     * at most one per session, so it is naturally bounded by the session count.
+     */
+    static final class EventLoop {
+        private final int index;
+        private final ExecutorService executor;
+        private volatile Thread thread;
+
+        EventLoop(int index) {
+            this.index = index;
+            this.executor = Executors.newSingleThreadExecutor(r -> {
+                Thread t = new Thread(r, "session-loop-" + index);
+                t.setDaemon(true);
+                thread = t;
+                return t;
+            });
+        }
+
+        void execute(Runnable task) {
+            executor.execute(task);
+        }
+
+        boolean isCurrentThread() {
+            return Thread.currentThread() == thread;
+        }
+
+        int getIndex() {
+            return index;
+        }
+    }
+}
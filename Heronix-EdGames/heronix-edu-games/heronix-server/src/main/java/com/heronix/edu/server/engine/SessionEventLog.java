@@ -0,0 +1,125 @@
+package com.heronix.edu.server.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The last events sent to one session's players, numbered in send order, so a
+ * player who reconnects can be sent only what they missed.
+ *
+ * An event is either for everyone (the session topic) or for one player. The
+ * numbering is shared by the whole session, so a client's last seen number is a
+ * position in the session's stream: its replay is every later event that was for
+ * everyone or for that player.
+ *
+ * The ring is bounded. It grows with the number of players, since each adds its
+ * own questions and results to the stream, up to {@code eventsPerPlayer} each.
+ * A client that fell further behind than the ring reaches gets an incomplete
+ * replay and resynchronises from current state instead.
+ *
+ * Appends come from whichever thread sends, so the log is synchronized.
+ */
+public class SessionEventLog {
+    private final int minCapacity;
+    private final int eventsPerPlayer;
+    private final long firstSeq;
+
+    // Guarded by this
+    private Entry[] ring;
+    private long nextSeq;
+    private int players;
+
+    /**
+     * @param firstSeq number of the first event; taken from the clock so a restarted
+     *                 server never reuses a number a client saw before the restart
+     */
+    public SessionEventLog(int minCapacity, int eventsPerPlayer, long firstSeq) {
+        this.minCapacity = minCapacity;
+        this.eventsPerPlayer = eventsPerPlayer;
+        this.firstSeq = firstSeq;
+        this.nextSeq = firstSeq;
+        this.ring = new Entry[Math.max(1, minCapacity)];
+    }
+
+    /**
+     * Make room for one more player's events.
+     */
+    public synchronized void addPlayer() {
+        players++;
+        int wanted = Math.max(minCapacity, players * eventsPerPlayer);
+        if (wanted <= ring.length) {
+            return;
+        }
+        int capacity = Math.max(wanted, ring.length * 2);
+        Entry[] grown = new Entry[capacity];
+        for (long seq = oldestRetained(); seq < nextSeq; seq++) {
+            grown[(int) (seq % capacity)] = ring[(int) (seq % ring.length)];
+        }
+        ring = grown;
+    }
+
+    /**
+     * Record an event.
+     *
+     * @param playerId the player it was sent to, or null if it went to the whole session
+     * @return its sequence number
+     */
+    public synchronized long append(String playerId, String destination, byte[] payload) {
+        long seq = nextSeq++;
+        ring[(int) (seq % ring.length)] = new Entry(seq, playerId, destination, payload);
+        return seq;
+    }
+
+    /**
+     * Events after {@code lastSeq} that were for everyone or for the given player.
+     *
+     * The replay is complete if every event after {@code lastSeq} is still in the
+     * ring. A {@code lastSeq} ahead of the log, as after a server restart, is
+     * incomplete too.
+     */
+    public synchronized Replay since(String playerId, long lastSeq) {
+        long oldest = oldestRetained();
+        boolean complete = lastSeq >= oldest - 1 && lastSeq < nextSeq;
+        List<Entry> events = new ArrayList<>();
+        for (long seq = Math.max(oldest, lastSeq + 1); seq < nextSeq; seq++) {
+            Entry entry = ring[(int) (seq % ring.length)];
+            if (entry.playerId() == null || entry.playerId().equals(playerId)) {
+                events.add(entry);
+            }
+        }
+        return new Replay(complete, nextSeq - 1, events);
+    }
+
+    /**
+     * Number of the latest event, or {@code firstSeq - 1} if there is none yet.
+     */
+    public synchronized long getLastSeq() {
+        return nextSeq - 1;
+    }
+
+    public synchronized int getCapacity() {
+        return ring.length;
+    }
+
+    public synchronized int getRetained() {
+        return (int) (nextSeq - oldestRetained());
+    }
+
+    private long oldestRetained() {
+        return Math.max(firstSeq, nextSeq - ring.length);
+    }
+
+    /**
+     * One sent event: the destination as the client subscribed to it and the
+     * payload as it was sent.
+     */
+    public record Entry(long seq, String playerId, String destination, byte[] payload) {}
+
+    /**
+     * What a reconnecting player missed.
+     *
+     * @param complete false if some of it has already left the ring
+     * @param lastSeq  number of the latest event in the session when the replay was taken
+     */
+    public record Replay(boolean complete, long lastSeq, List<Entry> events) {}
+}
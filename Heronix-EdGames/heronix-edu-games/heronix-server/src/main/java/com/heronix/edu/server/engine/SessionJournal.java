@@ -0,0 +1,395 @@
+package com.heronix.edu.server.engine;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of live session events, one file per session.
+ *
+ * Callers on the session loops only serialize the event and enqueue it. A single
+ * writer thread appends queued lines and fsyncs each touched file once per batch
+ * (group commit), so a burst of answers costs one fsync rather than one each.
+ * A snapshot rewrites the session's file as a single SNAPSHOT line, which keeps
+ * replay on recovery short.
+ *
+ * A failed write only affects its own session. Its file is left as it is, so
+ * replay still gets every event up to the failure, and its later events are
+ * dropped until a new snapshot replaces the file; {@link #takeSnapshotRequest}
+ * tells the session loop to take one.
+ */
+@Component
+public class SessionJournal {
+    private static final Logger logger = LoggerFactory.getLogger(SessionJournal.class);
+
+    private static final String SUFFIX = ".journal";
+    private static final int MAX_BATCH = 4096;
+    private static final Map<Class<?>, String> TYPE_NAMES = new HashMap<>();
+
+    static {
+        JournalEvent.TYPES.forEach((name, type) -> TYPE_NAMES.put(type, name));
+    }
+
+    private final ObjectMapper objectMapper;
+    private final boolean enabled;
+    private final Path directory;
+    private final long syncIntervalMs;
+    private final int snapshotEvery;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final Map<String, FileChannel> channels = new HashMap<>();  // writer thread only
+    private final Set<String> broken = new HashSet<>();  // writer thread only
+    private final Set<String> snapshotRequests = ConcurrentHashMap.newKeySet();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    public SessionJournal(ObjectMapper objectMapper,
+                          @Value("${heronix.game.journal.enabled:true}") boolean enabled,
+                          @Value("${heronix.game.journal.directory:./data/journal}") String directory,
+                          @Value("${heronix.game.journal.sync-interval-ms:20}") long syncIntervalMs,
+                          @Value("${heronix.game.journal.snapshot-every:200}") int snapshotEvery) {
+        this.objectMapper = objectMapper;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.syncIntervalMs = syncIntervalMs;
+        this.snapshotEvery = snapshotEvery;
+
+        if (enabled) {
+            try {
+                Files.createDirectories(this.directory);
+            } catch (IOException e) {
+                throw new IllegalStateException("Cannot create journal directory " + directory, e);
+            }
+        }
+
+        this.writer = new Thread(this::runWriter, "session-journal");
+        writer.setDaemon(true);
+        if (enabled) {
+            writer.start();
+            logger.info("Session journal at {} (sync every {}ms, snapshot every {} events)",
+                this.directory.toAbsolutePath(), syncIntervalMs, snapshotEvery);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Number of events after which a session should be compacted into a snapshot.
+     */
+    public int getSnapshotEvery() {
+        return snapshotEvery;
+    }
+
+    /**
+     * Queue an event for the session's journal.
+     */
+    public void append(String sessionCode, JournalEvent event) {
+        if (enabled) {
+            queue.add(new Command(CommandType.APPEND, sessionCode, encode(event), null));
+        }
+    }
+
+    /**
+     * Replace the session's journal with a single snapshot line.
+     */
+    public void snapshot(String sessionCode, JournalEvent.Snapshot snapshot) {
+        if (enabled) {
+            queue.add(new Command(CommandType.SNAPSHOT, sessionCode, encode(snapshot), null));
+        }
+    }
+
+    /**
+     * Delete the session's journal once the game is over and its results are in the database.
+     */
+    public void remove(String sessionCode) {
+        if (enabled) {
+            queue.add(new Command(CommandType.REMOVE, sessionCode, null, null));
+        }
+    }
+
+    /**
+     * Whether the session's journal lost a write and needs a snapshot before
+     * its events are journaled again. Answers true once per failure.
+     */
+    public boolean takeSnapshotRequest(String sessionCode) {
+        return snapshotRequests.remove(sessionCode);
+    }
+
+    /**
+     * Wait until everything queued so far is written and fsynced.
+     */
+    public void flush() {
+        if (!enabled || !running) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Command(CommandType.SYNC, null, null, done));
+        try {
+            done.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Session journal flush failed", e);
+        }
+    }
+
+    /**
+     * Read every journal on disk.
+     *
+     * @return events per session code, in file order. A torn or corrupt line
+     *         ends that session's replay; everything before it is kept.
+     */
+    public Map<String, List<JournalEvent>> readAll() {
+        Map<String, List<JournalEvent>> result = new LinkedHashMap<>();
+        if (!enabled || !Files.isDirectory(directory)) {
+            return result;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.filter(f -> f.getFileName().toString().endsWith(SUFFIX)).sorted().toList()) {
+                String name = file.getFileName().toString();
+                result.put(name.substring(0, name.length() - SUFFIX.length()), read(file));
+            }
+        } catch (IOException e) {
+            logger.error("Cannot list session journals in {}", directory, e);
+        }
+        return result;
+    }
+
+    /**
+     * Stop after writing and syncing everything queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        flush();
+        halt();
+        logger.info("Session journal closed");
+    }
+
+    /**
+     * Stop the writer immediately, dropping anything not yet written, as a crash would.
+     */
+    public void halt() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        for (FileChannel channel : channels.values()) {
+            closeQuietly(channel);
+        }
+        channels.clear();
+    }
+
+    private List<JournalEvent> read(Path file) {
+        List<JournalEvent> events = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            int lineNo = 0;
+            while ((line = reader.readLine()) != null) {
+                lineNo++;
+                if (line.isBlank()) {
+                    continue;
+                }
+                try {
+                    events.add(decode(line));
+                } catch (JsonProcessingException | IllegalArgumentException e) {
+                    logger.warn("Journal {} line {} is unreadable, ignoring the rest", file.getFileName(), lineNo);
+                    break;
+                }
+            }
+        } catch (IOException e) {
+            logger.error("Cannot read session journal {}", file, e);
+        }
+        return events;
+    }
+
+    private JournalEvent decode(String line) throws JsonProcessingException {
+        JsonNode node = objectMapper.readTree(line);
+        Class<? extends JournalEvent> type = JournalEvent.TYPES.get(node.path("type").asText());
+        if (!(node instanceof ObjectNode object) || type == null) {
+            throw new IllegalArgumentException("Unknown journal entry");
+        }
+        object.remove("type");
+        return objectMapper.treeToValue(object, type);
+    }
+
+    private byte[] encode(JournalEvent event) {
+        try {
+            ObjectNode node = objectMapper.createObjectNode();
+            node.put("type", TYPE_NAMES.get(event.getClass()));
+            node.setAll((ObjectNode) objectMapper.valueToTree(event));
+            byte[] json = objectMapper.writeValueAsBytes(node);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode journal event " + event, e);
+        }
+    }
+
+    private void runWriter() {
+        List<Command> batch = new ArrayList<>();
+        Map<String, FileChannel> touched = new HashMap<>();
+        List<CompletableFuture<Void>> syncs = new ArrayList<>();
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // Let concurrent appends pile up so they share one fsync
+                if (syncIntervalMs > 0) {
+                    Thread.sleep(syncIntervalMs);
+                }
+                queue.drainTo(batch, MAX_BATCH);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            // Each command stands alone, so one session's failure does not cost the others
+            IOException failure = null;
+            for (Command command : batch) {
+                try {
+                    switch (command.type) {
+                        case APPEND -> {
+                            if (!broken.contains(command.sessionCode)) {
+                                touched.put(command.sessionCode, write(command.sessionCode, command.line));
+                            }
+                        }
+                        case SNAPSHOT -> {
+                            touched.remove(command.sessionCode);
+                            rewrite(command.sessionCode, command.line);
+                            broken.remove(command.sessionCode);
+                        }
+                        case REMOVE -> {
+                            touched.remove(command.sessionCode);
+                            broken.remove(command.sessionCode);
+                            snapshotRequests.remove(command.sessionCode);
+                            FileChannel channel = channels.remove(command.sessionCode);
+                            if (channel != null) {
+                                closeQuietly(channel);
+                            }
+                            Files.deleteIfExists(fileFor(command.sessionCode));
+                        }
+                        case SYNC -> syncs.add(command.done);
+                    }
+                } catch (IOException e) {
+                    logger.error("Session journal {} of session {} failed", command.type, command.sessionCode, e);
+                    failure = e;
+                    if (command.type != CommandType.REMOVE) {
+                        touched.remove(command.sessionCode);
+                        markBroken(command.sessionCode);
+                    }
+                }
+            }
+            for (Map.Entry<String, FileChannel> entry : touched.entrySet()) {
+                try {
+                    entry.getValue().force(false);
+                } catch (IOException e) {
+                    logger.error("Session journal sync of session {} failed", entry.getKey(), e);
+                    failure = e;
+                    markBroken(entry.getKey());
+                }
+            }
+            for (CompletableFuture<Void> done : syncs) {
+                if (failure == null) {
+                    done.complete(null);
+                } else {
+                    done.completeExceptionally(failure);
+                }
+            }
+
+            batch.clear();
+            touched.clear();
+            syncs.clear();
+        }
+    }
+
+    /**
+     * Stop appending to a session whose last write may be torn, until a
+     * snapshot replaces its file.
+     */
+    private void markBroken(String sessionCode) {
+        FileChannel channel = channels.remove(sessionCode);
+        if (channel != null) {
+            closeQuietly(channel);
+        }
+        broken.add(sessionCode);
+        snapshotRequests.add(sessionCode);
+    }
+
+    /**
+     * Append one line to the session's file. Overridden by tests to fail a write.
+     */
+    FileChannel write(String sessionCode, byte[] line) throws IOException {
+        FileChannel channel = channels.get(sessionCode);
+        if (channel == null) {
+            channel = FileChannel.open(fileFor(sessionCode),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            channels.put(sessionCode, channel);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        return channel;
+    }
+
+    private void rewrite(String sessionCode, byte[] snapshotLine) throws IOException {
+        FileChannel old = channels.remove(sessionCode);
+        if (old != null) {
+            closeQuietly(old);
+        }
+
+        Path target = fileFor(sessionCode);
+        Path tmp = directory.resolve(sessionCode + SUFFIX + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(snapshotLine);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    private Path fileFor(String sessionCode) {
+        return directory.resolve(sessionCode + SUFFIX);
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+            // closing after a failure or on shutdown
+        }
+    }
+
+    private enum CommandType { APPEND, SNAPSHOT, REMOVE, SYNC }
+
+    private record Command(CommandType type, String sessionCode, byte[] line, CompletableFuture<Void> done) {
+    }
+}
@@ -0,0 +1,102 @@
+package com.heronix.edu.server.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bounded queue of pending actions for one game session.
+ *
+ * A mailbox is bound to a single {@link SessionEngine.EventLoop}. Whenever it has
+ * work, exactly one drain task is queued on that loop, so actions for the session
+ * run one at a time and in the order they were accepted.
+ */
+public class SessionMailbox {
+    private static final Logger logger = LoggerFactory.getLogger(SessionMailbox.class);
+
+    private final String sessionCode;
+    private final SessionEngine.EventLoop loop;
+    private final BlockingQueue<Runnable> queue;
+    private final int drainBatchSize;
+    private final AtomicBoolean scheduled = new AtomicBoolean(false);
+    private volatile boolean closed = false;
+
+    SessionMailbox(String sessionCode, SessionEngine.EventLoop loop, int capacity, int drainBatchSize) {
+        this.sessionCode = sessionCode;
+        this.loop = loop;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.drainBatchSize = drainBatchSize;
+    }
+
+    /**
+     * Queue an action for this session.
+     *
+     * @return false if the mailbox is closed or full
+     */
+    boolean offer(Runnable action) {
+        if (closed || !queue.offer(action)) {
+            return false;
+        }
+        scheduleDrain();
+        return true;
+    }
+
+    /**
+     * Whether the calling thread is the event loop that owns this mailbox.
+     */
+    public boolean isOwnerThread() {
+        return loop.isCurrentThread();
+    }
+
+    /**
+     * Stop accepting new actions. Actions already queued still run.
+     */
+    public void close() {
+        closed = true;
+    }
+
+    public boolean isClosed() {
+        return closed;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public String getSessionCode() {
+        return sessionCode;
+    }
+
+    public int getLoopIndex() {
+        return loop.getIndex();
+    }
+
+    private void scheduleDrain() {
+        if (scheduled.compareAndSet(false, true)) {
+            loop.execute(this::drain);
+        }
+    }
+
+    private void drain() {
+        // Run a bounded batch so one busy session cannot starve the others on this loop
+        for (int i = 0; i < drainBatchSize; i++) {
+            Runnable action = queue.poll();
+            if (action == null) {
+                break;
+            }
+            try {
+                action.run();
+            } catch (Exception e) {
+                logger.error("Unhandled error in session {} action", sessionCode, e);
+            }
+        }
+
+        scheduled.set(false);
+        if (!queue.isEmpty()) {
+            scheduleDrain();
+        }
+    }
+}
@@ -0,0 +1,198 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import com.heronix.edu.server.entity.GameSessionEntity;
+import com.heronix.edu.server.entity.GameSessionStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Converts live sessions to journal snapshots and rebuilds them from a journal.
+ *
+ * Replay applies recorded effects in order on top of the last snapshot; it never
+ * sends messages or touches the database.
+ */
+public final class SessionRecovery {
+
+    private SessionRecovery() {
+    }
+
+    /**
+     * Full state of a session. Must run on the session's event loop.
+     */
+    public static JournalEvent.Snapshot snapshot(ActiveGameSession session) {
+        GameSessionEntity entity = session.getSessionEntity();
+
+        List<JournalEvent.PlayerState> players = new ArrayList<>();
+        for (GamePlayerEntity p : session.getPlayers()) {
+            players.add(new JournalEvent.PlayerState(p.getPlayerId(), p.getStudentId(), p.getStudentName(),
+                p.getSecretCode(), p.getAvatarId(), p.getCredits(), p.getCorrectAnswers(),
+                p.getIncorrectAnswers(), p.getHackAttempts(), p.getSuccessfulHacks(), p.getTimesHacked(),
+                p.getCreditsStolen(), p.getCreditsLost(), toMillis(p.getJoinedAt()),
+                session.getQuestionNumber(p.getPlayerId()), session.getShieldUntil(p.getPlayerId()),
+                new HashMap<>(session.getFailedHackAttempts(p.getPlayerId()))));
+        }
+
+        return new JournalEvent.Snapshot(entity.getSessionId(), entity.getTeacherId(), entity.getGameType(),
+            entity.getQuestionSetId(), session.getStatus().name(), entity.getTimeLimitSeconds(),
+            entity.getTargetCredits(), toMillis(entity.getCreatedAt()), toMillis(session.getStartedAt()),
+            session.getQuestionOrderIds(), players);
+    }
+
+    /**
+     * Rebuild a session from its journal.
+     *
+     * @param banks question bank per question set id
+     * @return the session, or null if the journal has no snapshot or the game already ended
+     */
+    public static ActiveGameSession restore(List<JournalEvent> events, Function<String, QuestionBank> banks,
+                                            SessionMailbox mailbox) {
+        if (events.isEmpty() || !(events.get(0) instanceof JournalEvent.Snapshot snapshot)) {
+            return null;
+        }
+
+        GameSessionEntity entity = new GameSessionEntity(snapshot.sessionId(), snapshot.teacherId(), snapshot.gameType());
+        entity.setQuestionSetId(snapshot.questionSetId());
+        entity.setStatus(GameSessionStatus.valueOf(snapshot.status()));
+        entity.setTimeLimitSeconds(snapshot.timeLimitSeconds());
+        entity.setTargetCredits(snapshot.targetCredits());
+        entity.setCreatedAt(toDateTime(snapshot.createdAt()));
+        entity.setStartedAt(toDateTime(snapshot.startedAt()));
+
+        QuestionBank bank = banks.apply(snapshot.questionSetId());
+        ActiveGameSession session = new ActiveGameSession(entity, bank, mailbox,
+            questionOrder(bank, snapshot.questionOrder()));
+        session.setStartedAt(entity.getStartedAt());
+
+        for (JournalEvent.PlayerState state : snapshot.players()) {
+            GamePlayerEntity player = new GamePlayerEntity(state.playerId(), state.studentId(), state.studentName());
+            player.setSecretCode(state.secretCode());
+            player.setAvatarId(state.avatarId());
+            player.setCredits(state.credits());
+            player.setCorrectAnswers(state.correctAnswers());
+            player.setIncorrectAnswers(state.incorrectAnswers());
+            player.setHackAttempts(state.hackAttempts());
+            player.setSuccessfulHacks(state.successfulHacks());
+            player.setTimesHacked(state.timesHacked());
+            player.setCreditsStolen(state.creditsStolen());
+            player.setCreditsLost(state.creditsLost());
+            player.setJoinedAt(toDateTime(state.joinedAt()));
+            player.setSession(entity);
+
+            session.addPlayer(player);
+            session.setQuestionNumber(state.playerId(), state.questionIndex());
+            if (state.shieldUntil() != null) {
+                session.setShieldUntil(state.playerId(), state.shieldUntil());
+            }
+            if (state.failedHacks() != null) {
+                session.setFailedHackAttempts(state.playerId(), state.failedHacks());
+            }
+        }
+
+        for (JournalEvent event : events.subList(1, events.size())) {
+            if (!apply(session, event)) {
+                return null;
+            }
+        }
+        return session;
+    }
+
+    /**
+     * Apply one event; false once the game has ended.
+     */
+    private static boolean apply(ActiveGameSession session, JournalEvent event) {
+        if (event instanceof JournalEvent.Joined e) {
+            GamePlayerEntity player = new GamePlayerEntity(e.playerId(), e.studentId(), e.studentName());
+            player.setSecretCode(e.secretCode());
+            player.setAvatarId(e.avatarId());
+            player.setJoinedAt(toDateTime(e.at()));
+            player.setSession(session.getSessionEntity());
+            session.addPlayer(player);
+        } else if (event instanceof JournalEvent.Started e) {
+            LocalDateTime startedAt = toDateTime(e.at());
+            session.setStatus(GameSessionStatus.ACTIVE);
+            session.setStartedAt(startedAt);
+            session.getSessionEntity().setStartedAt(startedAt);
+        } else if (event instanceof JournalEvent.QuestionSent e) {
+            session.setQuestionNumber(e.playerId(), e.questionIndex());
+        } else if (event instanceof JournalEvent.Answered e) {
+            GamePlayerEntity player = session.getPlayer(e.playerId());
+            if (e.correct()) {
+                player.incrementCorrectAnswers();
+            } else {
+                player.incrementIncorrectAnswers();
+            }
+        } else if (event instanceof JournalEvent.Rewarded e) {
+            if (e.shieldUntil() != null) {
+                session.setShieldUntil(e.playerId(), e.shieldUntil());
+            }
+            if (e.credits() != 0) {
+                GamePlayerEntity player = session.getPlayer(e.playerId());
+                player.addCredits(e.credits());
+                session.updateRanking(player);
+            }
+        } else if (event instanceof JournalEvent.Hacked e) {
+            GamePlayerEntity hacker = session.getPlayer(e.hackerId());
+            GamePlayerEntity target = session.getPlayer(e.targetId());
+            hacker.incrementHackAttempts();
+            if (e.success()) {
+                hacker.incrementSuccessfulHacks();
+                target.incrementTimesHacked();
+                target.subtractCredits(e.stolen());
+                target.recordCreditsLost(e.stolen());
+                hacker.addCredits(e.stolen());
+                hacker.recordCreditsStolen(e.stolen());
+                session.updateRanking(target);
+                session.updateRanking(hacker);
+                session.clearHackAttempts(e.hackerId(), e.targetId());
+            } else {
+                session.recordFailedHackAttempt(e.hackerId(), e.targetId());
+            }
+        } else if (event instanceof JournalEvent.Ended) {
+            return false;
+        } else {
+            throw new IllegalStateException("Unexpected journal event " + event);
+        }
+        return true;
+    }
+
+    /**
+     * Map journaled question ids back to bank indexes. Questions removed since the
+     * session started are skipped; questions added since are appended.
+     */
+    private static int[] questionOrder(QuestionBank bank, List<String> questionIds) {
+        Map<String, Integer> indexById = new HashMap<>();
+        for (int i = 0; i < bank.size(); i++) {
+            indexById.put(bank.get(i).getQuestionId(), i);
+        }
+
+        List<Integer> order = new ArrayList<>(bank.size());
+        Set<Integer> seen = new HashSet<>();
+        if (questionIds != null) {
+            for (String id : questionIds) {
+                Integer index = indexById.get(id);
+                if (index != null && seen.add(index)) {
+                    order.add(index);
+                }
+            }
+        }
+        for (int index : bank.shuffledOrder()) {
+            if (seen.add(index)) {
+                order.add(index);
+            }
+        }
+        return order.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    static Long toMillis(LocalDateTime time) {
+        return time == null ? null : time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    static LocalDateTime toDateTime(Long millis) {
+        return millis == null ? null : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
+    }
+}
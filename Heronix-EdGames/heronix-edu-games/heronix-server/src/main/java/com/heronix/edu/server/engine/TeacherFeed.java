@@ -0,0 +1,90 @@
+package com.heronix.edu.server.engine;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Settings and counts for the teacher's answer feed.
+ *
+ * With the feed on, answers are gathered per session in an {@link AnswerFeed}
+ * and the teacher gets one ANSWER_SUMMARY per session every interval that had
+ * answers (see GameSessionService). With it off, the teacher gets an
+ * ANSWER_CORRECT or ANSWER_INCORRECT message per answer, as before.
+ */
+@Component
+public class TeacherFeed {
+    private static final Logger logger = LoggerFactory.getLogger(TeacherFeed.class);
+
+    private final boolean enabled;
+    private final long intervalMs;
+    private final int maxEvents;
+    private final int maxWaiting;
+
+    private final AtomicLong answers = new AtomicLong();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong eventsDropped = new AtomicLong();
+
+    @Autowired
+    public TeacherFeed(@Value("${heronix.game.teacher-feed.enabled:true}") boolean enabled,
+                       @Value("${heronix.game.teacher-feed.interval-ms:1000}") long intervalMs,
+                       @Value("${heronix.game.teacher-feed.max-events:200}") int maxEvents,
+                       @Value("${heronix.game.teacher-feed.max-waiting:50}") int maxWaiting) {
+        this.enabled = enabled;
+        this.intervalMs = intervalMs;
+        this.maxEvents = maxEvents;
+        this.maxWaiting = maxWaiting;
+        if (enabled) {
+            logger.info("Teacher answer feed: one summary per session every {}ms, up to {} answers listed",
+                intervalMs, maxEvents);
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getIntervalMs() {
+        return intervalMs;
+    }
+
+    /**
+     * Most players listed as still waiting on a question in one summary; the
+     * summary's waitingCount has the full number.
+     */
+    public int getMaxWaiting() {
+        return maxWaiting;
+    }
+
+    public AnswerFeed newFeed() {
+        return new AnswerFeed(maxEvents);
+    }
+
+    /**
+     * Count a message to a teacher carrying this many answers.
+     */
+    public void recordMessage(int answerCount, int dropped) {
+        messages.incrementAndGet();
+        answers.addAndGet(answerCount);
+        eventsDropped.addAndGet(dropped);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("intervalMs", intervalMs);
+        long answerCount = answers.get();
+        long messageCount = messages.get();
+        stats.put("answers", answerCount);
+        stats.put("messages", messageCount);
+        stats.put("answersPerMessage", messageCount > 0 ? Math.round(10.0 * answerCount / messageCount) / 10.0 : 0.0);
+        stats.put("eventsDropped", eventsDropped.get());
+        return stats;
+    }
+}
@@ -0,0 +1,294 @@
+package com.heronix.edu.server.engine;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Hashed timing wheel shared by all sessions: shield expiry, question deadlines
+ * and idle-session checks.
+ *
+ * Each slot holds a doubly linked list of timeouts with the number of full
+ * revolutions left, so scheduling and cancelling are O(1) however many timers
+ * are pending, and a tick only touches one slot. Timers fire up to one tick late,
+ * never early.
+ *
+ * Schedule and cancel are thread-safe: they only enqueue, and the ticker thread
+ * moves timeouts in and out of slots. Expiry callbacks run on the ticker thread
+ * and must be short; session work is handed to the session's event loop.
+ */
+@Component
+public class TimingWheel {
+    private static final Logger logger = LoggerFactory.getLogger(TimingWheel.class);
+
+    private static final int PENDING = 0;
+    private static final int CANCELLED = 1;
+    private static final int EXPIRED = 2;
+
+    private final long tickMs;
+    private final Slot[] wheel;
+    private final int mask;
+    private final LongSupplier clock;
+    private final long startTime;
+
+    private final Queue<Timeout> added = new ConcurrentLinkedQueue<>();
+    private final Queue<Timeout> cancelled = new ConcurrentLinkedQueue<>();
+    private final AtomicLong pending = new AtomicLong();
+    private long tick;  // next tick to process, ticker thread only
+
+    private Thread ticker;
+    private volatile boolean running;
+
+    @Autowired
+    public TimingWheel(@Value("${heronix.game.timers.tick-ms:100}") long tickMs,
+                       @Value("${heronix.game.timers.wheel-size:512}") int wheelSize) {
+        this(tickMs, wheelSize, System::currentTimeMillis);
+        start();
+    }
+
+    /**
+     * Wheel on an explicit clock. Nothing fires until {@link #start()} is called
+     * or the owner drives it with {@link #advanceTo(long)}.
+     */
+    public TimingWheel(long tickMs, int wheelSize, LongSupplier clock) {
+        if (tickMs <= 0) {
+            throw new IllegalArgumentException("tickMs must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, wheelSize - 1)) << 1;  // round up to a power of two
+        this.tickMs = tickMs;
+        this.wheel = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            wheel[i] = new Slot();
+        }
+        this.mask = size - 1;
+        this.clock = clock;
+        this.startTime = clock.getAsLong();
+    }
+
+    /**
+     * Start the ticker thread.
+     */
+    public synchronized void start() {
+        if (ticker != null) {
+            return;
+        }
+        running = true;
+        ticker = new Thread(this::runTicker, "timing-wheel");
+        ticker.setDaemon(true);
+        ticker.start();
+        logger.info("Timing wheel started: {} slots of {}ms", wheel.length, tickMs);
+    }
+
+    @PreDestroy
+    public synchronized void stop() {
+        running = false;
+        if (ticker != null) {
+            ticker.interrupt();
+            try {
+                ticker.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            ticker = null;
+        }
+    }
+
+    /**
+     * Current time on the wheel's clock, in milliseconds.
+     */
+    public long now() {
+        return clock.getAsLong();
+    }
+
+    /**
+     * Run {@code task} once {@code delayMs} has passed.
+     */
+    public Timeout schedule(long delayMs, Consumer<Timeout> task) {
+        Timeout timeout = new Timeout(clock.getAsLong() + Math.max(0, delayMs), task);
+        pending.incrementAndGet();
+        added.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Timers scheduled and neither fired nor cancelled.
+     */
+    public long getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Process every tick up to {@code now}, firing due timers on the calling thread.
+     * Used by the ticker thread, and directly by tests with a controllable clock.
+     */
+    public void advanceTo(long now) {
+        while (startTime + tick * tickMs <= now) {
+            transferAdded();
+            removeCancelled();
+            expire(wheel[(int) (tick & mask)]);
+            tick++;
+        }
+    }
+
+    private void runTicker() {
+        while (running) {
+            long nextTick = startTime + tick * tickMs;
+            long sleep = nextTick - clock.getAsLong();
+            if (sleep > 0) {
+                try {
+                    Thread.sleep(sleep);
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            try {
+                advanceTo(clock.getAsLong());
+            } catch (RuntimeException e) {
+                logger.error("Timing wheel tick failed", e);
+            }
+        }
+    }
+
+    private void transferAdded() {
+        Timeout timeout;
+        while ((timeout = added.poll()) != null) {
+            if (timeout.state.get() != PENDING) {
+                continue;
+            }
+            // Ceiling, so a timer never fires before its deadline
+            long dueTick = Math.max(tick, (timeout.deadline - startTime + tickMs - 1) / tickMs);
+            timeout.rounds = (dueTick - tick) / wheel.length;
+            wheel[(int) (dueTick & mask)].add(timeout);
+        }
+    }
+
+    private void removeCancelled() {
+        Timeout timeout;
+        while ((timeout = cancelled.poll()) != null) {
+            if (timeout.slot != null) {
+                timeout.slot.remove(timeout);
+            }
+        }
+    }
+
+    private void expire(Slot slot) {
+        Timeout timeout = slot.head;
+        while (timeout != null) {
+            Timeout next = timeout.next;
+            if (timeout.rounds <= 0) {
+                slot.remove(timeout);
+                timeout.fire();
+            } else {
+                timeout.rounds--;
+            }
+            timeout = next;
+        }
+    }
+
+    /**
+     * Handle to a scheduled timer.
+     */
+    public final class Timeout {
+        private final long deadline;
+        private final Consumer<Timeout> task;
+        private final AtomicInteger state = new AtomicInteger(PENDING);
+
+        // Slot membership, ticker thread only
+        private long rounds;
+        private Slot slot;
+        private Timeout prev;
+        private Timeout next;
+
+        private Timeout(long deadline, Consumer<Timeout> task) {
+            this.deadline = deadline;
+            this.task = task;
+        }
+
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancel the timer.
+         *
+         * @return false if it already fired or was cancelled
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(PENDING, CANCELLED)) {
+                return false;
+            }
+            pending.decrementAndGet();
+            cancelled.add(this);
+            return true;
+        }
+
+        public boolean isCancelled() {
+            return state.get() == CANCELLED;
+        }
+
+        public boolean isExpired() {
+            return state.get() == EXPIRED;
+        }
+
+        private void fire() {
+            if (!state.compareAndSet(PENDING, EXPIRED)) {
+                return;
+            }
+            pending.decrementAndGet();
+            try {
+                task.accept(this);
+            } catch (RuntimeException e) {
+                logger.error("Timer task failed", e);
+            }
+        }
+    }
+
+    /**
+     * Timeouts hashed to one wheel position.
+     */
+    private static final class Slot {
+        private Timeout head;
+        private Timeout tail;
+
+        void add(Timeout timeout) {
+            timeout.slot = this;
+            timeout.prev = tail;
+            timeout.next = null;
+            if (tail == null) {
+                head = timeout;
+            } else {
+                tail.next = timeout;
+            }
+            tail = timeout;
+        }
+
+        void remove(Timeout timeout) {
+            if (timeout.slot != this) {
+                return;
+            }
+            if (timeout.prev == null) {
+                head = timeout.next;
+            } else {
+                timeout.prev.next = timeout.next;
+            }
+            if (timeout.next == null) {
+                tail = timeout.prev;
+            } else {
+                timeout.next.prev = timeout.prev;
+            }
+            timeout.slot = null;
+            timeout.prev = null;
+            timeout.next = null;
+        }
+    }
+}
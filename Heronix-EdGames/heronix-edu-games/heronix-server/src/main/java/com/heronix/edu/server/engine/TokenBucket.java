@@ -0,0 +1,79 @@
+package com.heronix.edu.server.engine;
+
+import java.util.function.LongSupplier;
+
+/**
+ * Token bucket: holds up to {@code capacity} tokens and refills continuously at
+ * {@code ratePerSecond}, so it lets a burst of {@code capacity} through at once
+ * and the steady rate after that.
+ *
+ * A caller turned away is told when to come back. Callers already told to wait
+ * form a backlog that drains at the refill rate, so the k-th caller refused in a
+ * burst is sent k tokens' time into the future rather than everyone being sent
+ * back at the same moment.
+ *
+ * Thread-safe; the lock covers a few arithmetic operations.
+ */
+public class TokenBucket {
+    private final double capacity;
+    private final double tokensPerNano;
+    private final LongSupplier nanoClock;
+
+    private double tokens;
+    private double backlog;  // callers told to retry who have not been served yet
+    private long refilledAt;
+
+    public TokenBucket(double ratePerSecond, int capacity) {
+        this(ratePerSecond, capacity, System::nanoTime);
+    }
+
+    public TokenBucket(double ratePerSecond, int capacity, LongSupplier nanoClock) {
+        if (ratePerSecond <= 0 || capacity < 1) {
+            throw new IllegalArgumentException("Rate must be positive and capacity at least 1");
+        }
+        this.capacity = capacity;
+        this.tokensPerNano = ratePerSecond / 1e9;
+        this.nanoClock = nanoClock;
+        this.tokens = capacity;
+        this.refilledAt = nanoClock.getAsLong();
+    }
+
+    /**
+     * Take one token.
+     *
+     * @return 0 if a token was taken, otherwise how many nanoseconds the caller
+     *         should wait before trying again
+     */
+    public synchronized long tryTake() {
+        refill();
+        if (tokens >= 1) {
+            tokens -= 1;
+            return 0;
+        }
+        long wait = (long) Math.ceil((1 - tokens + backlog) / tokensPerNano);
+        backlog += 1;
+        return Math.max(1, wait);
+    }
+
+    /**
+     * Return a token taken by {@link #tryTake()} for work that did not go ahead.
+     */
+    public synchronized void giveBack() {
+        tokens = Math.min(capacity, tokens + 1);
+    }
+
+    public synchronized double getAvailable() {
+        refill();
+        return tokens;
+    }
+
+    private void refill() {
+        long now = nanoClock.getAsLong();
+        double added = (now - refilledAt) * tokensPerNano;
+        refilledAt = now;
+        if (added > 0) {
+            tokens = Math.min(capacity, tokens + added);
+            backlog = Math.max(0, backlog - added);
+        }
+    }
+}
@@ -75,6 +75,13 @@ public class DeviceEntity {
     @Column(name = "token_expires_at")
     private LocalDateTime tokenExpiresAt;
 
+    // Score sequence numbering the device last announced, and how far it has been received
+    @Column(name = "score_seq_epoch", length = 36)
+    private String scoreSeqEpoch;
+
+    @Column(name = "score_seq_high_water")
+    private Long scoreSeqHighWater;
+
     // Constructors
     public DeviceEntity() {
     }
@@ -284,6 +291,22 @@ public class DeviceEntity {
         this.tokenExpiresAt = tokenExpiresAt;
     }
 
+    public String getScoreSeqEpoch() {
+        return scoreSeqEpoch;
+    }
+
+    public void setScoreSeqEpoch(String scoreSeqEpoch) {
+        this.scoreSeqEpoch = scoreSeqEpoch;
+    }
+
+    public Long getScoreSeqHighWater() {
+        return scoreSeqHighWater;
+    }
+
+    public void setScoreSeqHighWater(Long scoreSeqHighWater) {
+        this.scoreSeqHighWater = scoreSeqHighWater;
+    }
+
     @Override
     public boolean equals(Object o) {
         if (this == o) return true;
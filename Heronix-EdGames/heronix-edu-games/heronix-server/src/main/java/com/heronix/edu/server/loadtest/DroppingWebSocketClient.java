@@ -0,0 +1,63 @@
+package com.heronix.edu.server.loadtest;
+
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.client.WebSocketClient;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * WebSocket client that can cut a simulated client's socket from under its
+ * STOMP session, as a Wi-Fi drop would: no DISCONNECT frame, the server just
+ * sees the connection go.
+ *
+ * Clients are told apart by a handshake header carrying their name.
+ */
+class DroppingWebSocketClient implements WebSocketClient {
+    static final String CLIENT_HEADER = "X-Load-Client";
+
+    private final WebSocketClient delegate;
+    private final Map<String, WebSocketSession> sockets = new ConcurrentHashMap<>();
+
+    DroppingWebSocketClient(WebSocketClient delegate) {
+        this.delegate = delegate;
+    }
+
+    @Override
+    public CompletableFuture<WebSocketSession> execute(WebSocketHandler handler, String uriTemplate,
+                                                       Object... uriVariables) {
+        return delegate.execute(handler, uriTemplate, uriVariables);
+    }
+
+    @Override
+    public CompletableFuture<WebSocketSession> execute(WebSocketHandler handler, WebSocketHttpHeaders headers,
+                                                       URI uri) {
+        String client = headers != null ? headers.getFirst(CLIENT_HEADER) : null;
+        return delegate.execute(handler, headers, uri).thenApply(socket -> {
+            if (client != null) {
+                sockets.put(client, socket);
+            }
+            return socket;
+        });
+    }
+
+    /**
+     * Close the client's socket without a STOMP DISCONNECT.
+     *
+     * @return false if the client has no open socket
+     */
+    boolean drop(String client) throws IOException {
+        WebSocketSession socket = sockets.remove(client);
+        if (socket == null || !socket.isOpen()) {
+            return false;
+        }
+        socket.close(CloseStatus.SESSION_NOT_RELIABLE);
+        return true;
+    }
+}
@@ -0,0 +1,164 @@
+package com.heronix.edu.server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.heronix.edu.server.util.VirtualThreads;
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.web.socket.client.standard.StandardWebSocketClient;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scripted multiplayer load against a running server: each simulated class has
+ * a teacher that creates and starts a session and players that join, answer,
+ * pick rewards and hack, as in {@link SimulatedPlayer}.
+ *
+ * Every client is a blocking script on its own thread. On Java 21+ these are
+ * virtual threads, which is what makes 5,000+ clients practical from one
+ * machine; on older runtimes a cached platform thread pool is used instead.
+ *
+ * The run ends with a JSON report (scenario, counters, latency percentiles in
+ * ms) written to {@code --report}, for comparing builds.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.loadtest.LoadGenerator \
+ *       --url=ws://localhost:8081/ws/game --sessions=100 --players=50 --duration-seconds=120
+ *
+ * A join storm, one class of 300 joining together (see allJoined in the report):
+ *   ... LoadGenerator --sessions=1 --players=300 --ramp-seconds=0 --duration-seconds=10
+ *
+ * Time between questions over a slow link (see questionGap), with and without
+ * piggybacked questions:
+ *   ... LoadGenerator --sessions=5 --players=30 --rtt-ms=100 --piggyback=false
+ */
+public class LoadGenerator {
+    private static final Logger logger = LoggerFactory.getLogger(LoadGenerator.class);
+
+    // Join replies carry the roster, well over the container's 8 KB default for a class of 300
+    private static final int MAX_FRAME_BYTES = 256 * 1024;
+
+    private final LoadScenario scenario;
+    private final LoadMetrics metrics = new LoadMetrics();
+
+    public LoadGenerator(LoadScenario scenario) {
+        this.scenario = scenario;
+    }
+
+    public Map<String, Object> run() throws InterruptedException {
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(MAX_FRAME_BYTES);
+        container.setDefaultMaxBinaryMessageBufferSize(MAX_FRAME_BYTES);
+        WebSocketStompClient stompClient = new WebSocketStompClient(
+            new DroppingWebSocketClient(new StandardWebSocketClient(container)));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setInboundMessageSizeLimit(MAX_FRAME_BYTES);
+
+        ThreadMode mode = new ThreadMode();
+        ExecutorService executor = mode.executor;
+        logger.info("Running {} clients in {} classes on {}", scenario.totalClients(), scenario.sessions(), mode.name);
+
+        Instant startedAt = Instant.now();
+        long start = System.nanoTime();
+        List<Future<?>> clients = new ArrayList<>();
+        long rampNanos = TimeUnit.SECONDS.toNanos(scenario.rampSeconds());
+        int players = scenario.sessions() * scenario.playersPerSession();
+        try {
+            List<SimulatedTeacher.Classroom> classrooms = new ArrayList<>();
+            for (int s = 0; s < scenario.sessions(); s++) {
+                SimulatedTeacher.Classroom classroom = new SimulatedTeacher.Classroom(s, scenario.playersPerSession());
+                classrooms.add(classroom);
+                clients.add(executor.submit(new SimulatedTeacher(stompClient, scenario, metrics, classroom)));
+            }
+
+            // Spread player connections evenly over the ramp, interleaving classes
+            for (int i = 0; i < players; i++) {
+                long due = start + (players > 1 ? rampNanos * i / (players - 1) : 0);
+                long wait = due - System.nanoTime();
+                if (wait > 0) {
+                    TimeUnit.NANOSECONDS.sleep(wait);
+                }
+                SimulatedTeacher.Classroom classroom = classrooms.get(i % scenario.sessions());
+                clients.add(executor.submit(new SimulatedPlayer(stompClient, scenario, metrics, classroom,
+                    i / scenario.sessions())));
+            }
+
+            long timeoutSeconds = scenario.rampSeconds() + scenario.durationSeconds() + 180L;
+            executor.shutdown();
+            if (!executor.awaitTermination(timeoutSeconds, TimeUnit.SECONDS)) {
+                logger.warn("Clients still running after {}s, stopping them", timeoutSeconds);
+                executor.shutdownNow();
+            }
+        } finally {
+            executor.shutdownNow();
+            stompClient.stop();
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("startedAt", startedAt.toString());
+        report.put("durationMs", TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+        report.put("threads", mode.name);
+        report.put("scenario", scenario);
+        report.put("counters", metrics.counterSummary());
+        report.put("latencyMs", metrics.latencySummary());
+        return report;
+    }
+
+    public LoadMetrics getMetrics() {
+        return metrics;
+    }
+
+    static void writeReport(Map<String, Object> report, String path) throws IOException {
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT).writeValue(new File(path), report);
+    }
+
+    /**
+     * Virtual threads when the runtime has them, platform threads otherwise.
+     */
+    private static final class ThreadMode {
+        final ExecutorService executor;
+        final String name;
+
+        ThreadMode() {
+            ExecutorService virtual = VirtualThreads.newPerTaskExecutor();
+            if (virtual == null) {
+                logger.warn("Virtual threads need Java 21+, using platform threads; "
+                    + "thousands of clients will need a large -Xss budget");
+            }
+            this.executor = virtual != null ? virtual : Executors.newCachedThreadPool();
+            this.name = virtual != null ? "virtual-threads" : "platform-threads";
+        }
+    }
+
+    /**
+     * Main method for standalone load runs.
+     */
+    public static void main(String[] args) throws Exception {
+        LoadScenario scenario = LoadScenario.fromArgs(args);
+
+        logger.info("=== Scenario Load Test ===");
+        logger.info("{}", scenario);
+
+        LoadGenerator generator = new LoadGenerator(scenario);
+        Map<String, Object> report = generator.run();
+        writeReport(report, scenario.reportPath());
+
+        logger.info("Counters: {}", report.get("counters"));
+        generator.getMetrics().latencySummary().forEach((name, row) -> logger.info("{}: {}", name, row));
+        logger.info("Report written to {}", scenario.reportPath());
+    }
+}
@@ -0,0 +1,100 @@
+package com.heronix.edu.server.loadtest;
+
+import com.heronix.edu.server.util.LatencyHistogram;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Latencies and counters shared by every simulated client of a run.
+ *
+ *   connect         - WebSocket + STOMP CONNECT until CONNECTED
+ *   joinAck         - first join SEND until the successful /user/queue/joined
+ *                     reply, including any retries the server asked for
+ *   allJoined       - per class, the first player's join SEND until the last
+ *                     player's join is acknowledged
+ *   answerResult    - answer SEND until the /user/queue/answer-result reply
+ *   hackResult      - hack SEND until the /user/queue/hack-result reply
+ *   broadcast       - the triggering SEND (teacher start, a player's join) until
+ *                     the session topic event arrives at each subscriber
+ *   resume          - reconnect after a dropped socket until the replay of
+ *                     missed events arrives
+ *   questionGap     - what a student waits between questions: from the reward
+ *                     click, or the result of a wrong answer, until the next
+ *                     question and its image can be shown
+ *
+ * Latencies are recorded in nanoseconds and reported in milliseconds.
+ */
+public class LoadMetrics {
+    public static final String CONNECT = "connect";
+    public static final String JOIN_ACK = "joinAck";
+    public static final String ALL_JOINED = "allJoined";
+    public static final String ANSWER_RESULT = "answerResult";
+    public static final String HACK_RESULT = "hackResult";
+    public static final String BROADCAST = "broadcast";
+    public static final String RESUME = "resume";
+    public static final String QUESTION_GAP = "questionGap";
+
+    private final Map<String, LatencyHistogram> latencies = new LinkedHashMap<>();
+    private final Map<String, AtomicLong> counters = new ConcurrentHashMap<>();
+
+    public LoadMetrics() {
+        for (String name : new String[] {CONNECT, JOIN_ACK, ALL_JOINED, ANSWER_RESULT, HACK_RESULT, BROADCAST, RESUME,
+                QUESTION_GAP}) {
+            latencies.put(name, new LatencyHistogram());
+        }
+    }
+
+    public void recordSince(String latency, long startNanos, long endNanos) {
+        latencies.get(latency).record(endNanos - startNanos);
+    }
+
+    public void increment(String counter) {
+        counters.computeIfAbsent(counter, k -> new AtomicLong()).incrementAndGet();
+    }
+
+    public void add(String counter, long delta) {
+        counters.computeIfAbsent(counter, k -> new AtomicLong()).addAndGet(delta);
+    }
+
+    public long get(String counter) {
+        AtomicLong value = counters.get(counter);
+        return value != null ? value.get() : 0;
+    }
+
+    public LatencyHistogram getLatency(String latency) {
+        return latencies.get(latency);
+    }
+
+    /**
+     * Percentile summary per latency, in milliseconds, in a stable order for the report.
+     */
+    public Map<String, Map<String, Object>> latencySummary() {
+        Map<String, Map<String, Object>> summary = new LinkedHashMap<>();
+        latencies.forEach((name, histogram) -> {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("count", histogram.getCount());
+            row.put("p50", millis(histogram.getValueAtPercentile(50)));
+            row.put("p90", millis(histogram.getValueAtPercentile(90)));
+            row.put("p99", millis(histogram.getValueAtPercentile(99)));
+            row.put("p999", millis(histogram.getValueAtPercentile(99.9)));
+            row.put("max", millis(histogram.getMax()));
+            row.put("mean", millis((long) histogram.getMean()));
+            summary.put(name, row);
+        });
+        return summary;
+    }
+
+    public Map<String, Long> counterSummary() {
+        Map<String, Long> summary = new TreeMap<>();
+        counters.forEach((name, value) -> summary.put(name, value.get()));
+        return summary;
+    }
+
+    private static double millis(long nanos) {
+        return Math.round(nanos / 1_000.0) / 1_000.0;
+    }
+}
@@ -0,0 +1,102 @@
+package com.heronix.edu.server.loadtest;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Parameters of a load run: how many classes, how big, and how students behave.
+ *
+ * Think time is log-normal around {@code thinkMedianMs}, which matches how
+ * answer times spread in a real class: most students answer near the median,
+ * a few take much longer.
+ *
+ * Arguments are {@code --name=value}, e.g.
+ *   --sessions=100 --players=50 --duration-seconds=120 --think-median-ms=4000
+ *
+ * {@code dropRate} is the chance that a student's socket is cut right after
+ * they answer; they come back a moment later and resume.
+ *
+ * {@code rttMs} puts a simulated link between every client and the server:
+ * half of it before each send goes out, half after each frame arrives. With
+ * {@code piggyback} on, students take their next question inside the answer
+ * result and prefetch question images as the real client does; off, they wait
+ * for each question and fetch its image when it is shown.
+ */
+public record LoadScenario(
+    String serverUrl,
+    int sessions,
+    int playersPerSession,
+    int durationSeconds,
+    int rampSeconds,
+    long thinkMedianMs,
+    double thinkSigma,
+    double shieldRate,
+    double hackRate,
+    double dropRate,
+    long rttMs,
+    boolean piggyback,
+    String questionSetId,
+    long subscribeSettleMs,
+    long seed,
+    String reportPath
+) {
+    private static final Set<String> OPTIONS = Set.of("url", "sessions", "players", "duration-seconds",
+        "ramp-seconds", "think-median-ms", "think-sigma", "shield-rate", "hack-rate", "drop-rate", "rtt-ms",
+        "piggyback", "question-set", "subscribe-settle-ms", "seed", "report");
+
+    public static LoadScenario defaults() {
+        return new LoadScenario("ws://localhost:8081/ws/game", 10, 30, 60, 10,
+            4000, 0.6, 0.2, 0.2, 0, 0, true, "math-35-operations", 200, 1, "load-report.json");
+    }
+
+    public static LoadScenario fromArgs(String[] args) {
+        Map<String, String> values = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                throw new IllegalArgumentException("Expected --name=value, got " + arg);
+            }
+            String[] pair = arg.substring(2).split("=", 2);
+            if (!OPTIONS.contains(pair[0])) {
+                throw new IllegalArgumentException("Unknown option --" + pair[0] + ", expected one of " + OPTIONS);
+            }
+            values.put(pair[0], pair[1]);
+        }
+
+        LoadScenario d = defaults();
+        return new LoadScenario(
+            values.getOrDefault("url", d.serverUrl()),
+            intValue(values, "sessions", d.sessions()),
+            intValue(values, "players", d.playersPerSession()),
+            intValue(values, "duration-seconds", d.durationSeconds()),
+            intValue(values, "ramp-seconds", d.rampSeconds()),
+            longValue(values, "think-median-ms", d.thinkMedianMs()),
+            doubleValue(values, "think-sigma", d.thinkSigma()),
+            doubleValue(values, "shield-rate", d.shieldRate()),
+            doubleValue(values, "hack-rate", d.hackRate()),
+            doubleValue(values, "drop-rate", d.dropRate()),
+            longValue(values, "rtt-ms", d.rttMs()),
+            values.containsKey("piggyback") ? Boolean.parseBoolean(values.get("piggyback")) : d.piggyback(),
+            values.getOrDefault("question-set", d.questionSetId()),
+            longValue(values, "subscribe-settle-ms", d.subscribeSettleMs()),
+            longValue(values, "seed", d.seed()),
+            values.getOrDefault("report", d.reportPath())
+        );
+    }
+
+    public int totalClients() {
+        return sessions * (playersPerSession + 1);
+    }
+
+    private static int intValue(Map<String, String> values, String name, int fallback) {
+        return values.containsKey(name) ? Integer.parseInt(values.get(name)) : fallback;
+    }
+
+    private static long longValue(Map<String, String> values, String name, long fallback) {
+        return values.containsKey(name) ? Long.parseLong(values.get(name)) : fallback;
+    }
+
+    private static double doubleValue(Map<String, String> values, String name, double fallback) {
+        return values.containsKey(name) ? Double.parseDouble(values.get(name)) : fallback;
+    }
+}
@@ -0,0 +1,255 @@
+package com.heronix.edu.server.loadtest;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompFrameHandler;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.messaging.simp.stomp.StompSession;
+import org.springframework.messaging.simp.stomp.StompSessionHandlerAdapter;
+import org.springframework.web.socket.WebSocketHttpHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One simulated STOMP connection, scripted as plain blocking code.
+ *
+ * Frames are queued as they arrive, stamped with their arrival time, and the
+ * script takes them from the queue in order. Each client runs on its own
+ * (virtual) thread, so waiting on the queue or sleeping for think time costs
+ * no carrier thread.
+ *
+ * With a round trip time set, each send goes out half of it later, without
+ * holding up the script, and each frame is handed to the script half of it
+ * after it arrived, stamped with that later time, as if the client sat at the
+ * far end of a slow link.
+ */
+abstract class SimulatedClient implements Runnable {
+    private static final Logger logger = LoggerFactory.getLogger(SimulatedClient.class);
+
+    // Sends held back by the simulated link; one thread, so each client's sends keep their order
+    private static final ScheduledExecutorService UPLINK = Executors.newSingleThreadScheduledExecutor(task -> {
+        Thread thread = new Thread(task, "loadtest-uplink");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    protected final WebSocketStompClient stompClient;
+    protected final LoadScenario scenario;
+    protected final LoadMetrics metrics;
+    protected final String name;
+
+    private final BlockingQueue<Frame> inbox = new LinkedBlockingQueue<>();
+    protected StompSession session;
+    private Handler handler;
+    private volatile boolean closing;
+    // Highest "seq" header received; where a resume picks up
+    protected volatile long lastSeq;
+
+    protected SimulatedClient(WebSocketStompClient stompClient, LoadScenario scenario, LoadMetrics metrics,
+                              String name) {
+        this.stompClient = stompClient;
+        this.scenario = scenario;
+        this.metrics = metrics;
+        this.name = name;
+    }
+
+    @Override
+    public void run() {
+        try {
+            script();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            metrics.increment("clientErrors");
+            logger.debug("{} stopped: {}", name, e.getMessage());
+        } finally {
+            disconnect();
+        }
+    }
+
+    protected abstract void script() throws Exception;
+
+    /**
+     * Open the connection, recording the connect latency.
+     *
+     * @return false if the connection failed
+     */
+    protected boolean connect(StompHeaders connectHeaders) throws InterruptedException {
+        long start = System.nanoTime();
+        WebSocketHttpHeaders handshakeHeaders = new WebSocketHttpHeaders();
+        handshakeHeaders.add(DroppingWebSocketClient.CLIENT_HEADER, name);
+        handler = new Handler();
+        try {
+            session = stompClient.connectAsync(scenario.serverUrl(), handshakeHeaders, connectHeaders,
+                handler).get(30, TimeUnit.SECONDS);
+            metrics.recordSince(LoadMetrics.CONNECT, start, System.nanoTime());
+            metrics.increment("connected");
+            return true;
+        } catch (InterruptedException e) {
+            throw e;
+        } catch (Exception e) {
+            metrics.increment("connectFailures");
+            logger.debug("{} connect failed: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    protected void subscribe(String destination) {
+        session.subscribe(destination, new StompFrameHandler() {
+            @Override
+            public Type getPayloadType(StompHeaders headers) {
+                return Map.class;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public void handleFrame(StompHeaders headers, Object payload) {
+                String seqHeader = headers.getFirst("seq");
+                Long seq = seqHeader != null ? Long.valueOf(seqHeader) : null;
+                if (seq != null && seq > lastSeq) {
+                    lastSeq = seq;
+                }
+                inbox.add(new Frame(destination, (Map<String, Object>) payload, System.nanoTime(), seq));
+            }
+        });
+    }
+
+    /**
+     * Subscriptions and sends may be handled by different inbound threads on the
+     * server, so give subscriptions a moment to register before the first request.
+     */
+    protected void settleSubscriptions() throws InterruptedException {
+        Thread.sleep(scenario.subscribeSettleMs());
+    }
+
+    protected void send(String destination, Object payload) {
+        if (scenario.rttMs() == 0) {
+            session.send(destination, payload);
+            return;
+        }
+        StompSession target = session;
+        UPLINK.schedule(() -> {
+            try {
+                target.send(destination, payload);
+            } catch (RuntimeException e) {
+                metrics.increment("sendFailures");
+                logger.debug("{} send failed: {}", name, e.getMessage());
+            }
+        }, scenario.rttMs() / 2, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Next frame, or null if none arrives before the timeout.
+     */
+    protected Frame poll(long timeoutMs) throws InterruptedException {
+        Frame frame = inbox.poll(timeoutMs, TimeUnit.MILLISECONDS);
+        if (frame == null || scenario.rttMs() == 0) {
+            return frame;
+        }
+        long visibleNanos = frame.receivedNanos() + TimeUnit.MILLISECONDS.toNanos(scenario.rttMs() / 2);
+        long waitNanos = visibleNanos - System.nanoTime();
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+        return new Frame(frame.destination(), frame.payload(), visibleNanos, frame.seq());
+    }
+
+    /**
+     * Wait for a frame on one destination, discarding others meanwhile.
+     */
+    protected Frame await(String destination, long timeoutMs) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(timeoutMs);
+        while (true) {
+            long remaining = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            Frame frame = remaining > 0 ? poll(remaining) : null;
+            if (frame == null || frame.destination().equals(destination)) {
+                return frame;
+            }
+            onUnhandledFrame(frame);
+        }
+    }
+
+    /**
+     * Cut the socket under the STOMP session without a DISCONNECT, as a network
+     * drop would. Frames already received stay in the inbox.
+     *
+     * @return false if there was no open socket to cut
+     */
+    protected boolean dropConnection() {
+        if (!(stompClient.getWebSocketClient() instanceof DroppingWebSocketClient sockets)) {
+            return false;
+        }
+        handler.dropped = true;
+        try {
+            return sockets.drop(name);
+        } catch (IOException e) {
+            logger.debug("{} drop failed: {}", name, e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Called for frames skipped while waiting for another destination.
+     */
+    protected void onUnhandledFrame(Frame frame) {
+    }
+
+    private void disconnect() {
+        closing = true;
+        if (session != null && session.isConnected()) {
+            try {
+                session.disconnect();
+            } catch (RuntimeException e) {
+                logger.debug("{} disconnect failed: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * A received frame with its arrival time.
+     */
+    protected record Frame(String destination, Map<String, Object> payload, long receivedNanos, Long seq) {
+        String string(String field) {
+            Object value = payload.get(field);
+            return value != null ? value.toString() : null;
+        }
+    }
+
+    private class Handler extends StompSessionHandlerAdapter {
+        volatile boolean dropped;
+
+        @Override
+        public void handleException(StompSession session, StompCommand command, StompHeaders headers,
+                                    byte[] payload, Throwable exception) {
+            metrics.increment("stompErrors");
+            logger.debug("{} STOMP error: {}", name, exception.getMessage());
+        }
+
+        @Override
+        public void handleTransportError(StompSession session, Throwable exception) {
+            if (dropped) {
+                return;  // we cut this one ourselves
+            }
+            metrics.increment("transportErrors");
+            logger.debug("{} transport error: {}", name, exception.getMessage());
+        }
+
+        @Override
+        public void handleFrame(StompHeaders headers, Object payload) {
+            // ERROR frames from the server; one always answers our own DISCONNECT
+            if (!closing) {
+                metrics.increment("stompErrors");
+                logger.debug("{} ERROR frame: {}", name, headers.getFirst("message"));
+            }
+        }
+    }
+}
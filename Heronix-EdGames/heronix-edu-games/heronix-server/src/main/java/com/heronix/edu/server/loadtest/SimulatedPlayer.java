@@ -0,0 +1,440 @@
+package com.heronix.edu.server.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.engine.QuestionPayloadEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.util.ArrayDeque;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Student of one simulated class: joins, answers each question after a
+ * log-normal think time, picks a reward after a correct answer and sometimes
+ * hacks a classmate, until the teacher ends the game.
+ *
+ * With a drop rate set, the student's socket is sometimes cut just after an
+ * answer. They reconnect with their resume token, ask for what they missed and
+ * carry on from the replay as the real client does.
+ *
+ * A question's image takes a round trip to fetch when it is shown, unless it
+ * was named in an earlier question's prefetch list. With piggybacking on, the
+ * next question comes inside the answer result. After a correct answer it comes
+ * sealed and is shown once the server's reveal brings its key, after the
+ * reward or the hack.
+ */
+class SimulatedPlayer extends SimulatedClient {
+    private static final String JOINED = "/user/queue/joined";
+    private static final String QUESTION = "/user/queue/question";
+    private static final String ANSWER_RESULT = "/user/queue/answer-result";
+    private static final String HACK_RESULT = "/user/queue/hack-result";
+    private static final String REPLAY = "/user/queue/replay";
+
+    // Stay inside the server's 15 s question deadline
+    private static final long MAX_THINK_MS = 12_000;
+    private static final int MAX_JOIN_ATTEMPTS = 20;
+    private static final ObjectMapper JSON = new ObjectMapper();
+
+    private final SimulatedTeacher.Classroom classroom;
+    private final String studentId;
+    private final Random random;
+    private final List<String> classmates = new ArrayList<>();
+    // Frames put back in order after a resume, handled before the inbox
+    private final Deque<Frame> pending = new ArrayDeque<>();
+
+    private String topic;
+    private String playerId;
+    private String resumeToken;
+    private long answerSentNanos;
+    private boolean answerDropped;  // its result's latency includes the reconnect
+    private Frame nextQuestion;  // arrived before the result of the previous answer
+    private String heldQuestion;  // sealed with a correct answer's result, opened by the reveal
+    private long gapStartNanos;  // since when the student has been waiting for a question, or 0
+    // Question images fetched or on their way, by when each is here
+    private final Map<String, Long> images = new HashMap<>();
+    private long hackSentNanos;
+    private boolean ended;
+
+    SimulatedPlayer(WebSocketStompClient stompClient, LoadScenario scenario, LoadMetrics metrics,
+                    SimulatedTeacher.Classroom classroom, int index) {
+        super(stompClient, scenario, metrics, "Student " + classroom.index + "-" + index);
+        this.classroom = classroom;
+        this.studentId = "loadtest-" + classroom.index + "-" + index;
+        this.random = new Random(scenario.seed() * 1_000_003 + classroom.index * 10_007L + index);
+    }
+
+    @Override
+    protected void script() throws Exception {
+        String code = classroom.sessionCode.get(scenario.rampSeconds() + 60L, TimeUnit.SECONDS);
+        if (code == null) {
+            metrics.increment("sessionUnavailable");
+            return;
+        }
+        topic = "/topic/session/" + code;
+
+        StompHeaders headers = new StompHeaders();
+        headers.add("sessionCode", code);
+        headers.add("studentId", studentId);
+        headers.add("studentName", name);
+        if (!connect(headers)) {
+            return;
+        }
+        for (String destination : new String[] {JOINED, QUESTION, ANSWER_RESULT, HACK_RESULT, topic}) {
+            subscribe(destination);
+        }
+        settleSubscriptions();
+
+        long joinSent = System.nanoTime();
+        classroom.joinSentNanos.put(name, joinSent);
+        classroom.firstJoinSentNanos.accumulateAndGet(joinSent, Math::min);
+        Frame ack = join(code);
+        if (ack == null || !Boolean.TRUE.equals(ack.payload().get("success"))) {
+            metrics.increment("joinFailures");
+            return;
+        }
+        metrics.recordSince(LoadMetrics.JOIN_ACK, joinSent, ack.receivedNanos());
+        classroom.lastJoinedNanos.accumulateAndGet(ack.receivedNanos(), Math::max);
+        metrics.increment("joined");
+        playerId = ack.string("playerId");
+        resumeToken = ack.string("resumeToken");
+        Object others = ack.payload().get("otherPlayers");
+        if (others instanceof List<?> list) {
+            for (Object other : list) {
+                if (other instanceof Map<?, ?> player && player.get("playerId") != null) {
+                    classmates.add(player.get("playerId").toString());
+                }
+            }
+        }
+        classroom.joined.countDown();
+
+        long giveUp = System.nanoTime() + TimeUnit.SECONDS.toNanos(scenario.rampSeconds() + 60L
+            + scenario.durationSeconds());
+        while (!ended && System.nanoTime() < giveUp) {
+            Frame frame = !pending.isEmpty() ? pending.poll() : poll(1_000);
+            if (frame != null) {
+                handle(code, frame);
+            }
+        }
+    }
+
+    /**
+     * Send the join, and send it again after the hinted wait for as long as the
+     * server turns it away under load.
+     */
+    private Frame join(String code) throws InterruptedException {
+        Map<String, Object> request = Map.of(
+            "studentId", studentId,
+            "studentName", name,
+            "secretCode", String.format("%04d", random.nextInt(10_000)),
+            "avatarId", "ROOKIE_ROBOT");
+        for (int attempt = 1; ; attempt++) {
+            send("/app/session/" + code + "/join", request);
+            Frame ack = await(JOINED, 30_000);
+            if (ack == null || attempt == MAX_JOIN_ATTEMPTS
+                    || !(ack.payload().get("retryAfterMs") instanceof Number retryAfterMs)) {
+                return ack;
+            }
+            metrics.increment("joinRetries");
+            Thread.sleep(retryAfterMs.longValue());
+        }
+    }
+
+    @Override
+    protected void onUnhandledFrame(Frame frame) {
+        if (frame.destination().equals(topic)) {
+            onSessionEvent(frame);
+        }
+    }
+
+    private void handle(String code, Frame frame) throws InterruptedException {
+        String destination = frame.destination();
+        if (destination.equals(topic)) {
+            onSessionEvent(frame);
+        } else if (destination.equals(QUESTION)) {
+            if (Boolean.TRUE.equals(frame.payload().get("revealed"))) {
+                onReveal(code, frame);
+            } else if (answerSentNanos != 0) {
+                // A wrong answer's result can trail the next question; read it first, like a real client
+                nextQuestion = frame;
+            } else {
+                heldQuestion = null;
+                show(code, frame);
+            }
+        } else if (destination.equals(ANSWER_RESULT)) {
+            onAnswerResult(code, frame);
+        } else if (destination.equals(HACK_RESULT)) {
+            if (hackSentNanos != 0) {
+                metrics.recordSince(LoadMetrics.HACK_RESULT, hackSentNanos, frame.receivedNanos());
+                hackSentNanos = 0;
+            }
+            metrics.increment(Boolean.TRUE.equals(frame.payload().get("success")) ? "hacksSucceeded" : "hacksFailed");
+        }
+    }
+
+    private void onSessionEvent(Frame frame) {
+        String eventType = frame.string("eventType");
+        if ("PLAYER_JOINED".equals(eventType)) {
+            onClassmateJoined(frame.string("playerId"), frame.string("playerName"), frame.receivedNanos());
+        } else if ("PLAYERS_JOINED".equals(eventType)) {
+            // One roster event for a whole join batch
+            if (frame.payload().get("data") instanceof Map<?, ?> data && data.get("players") instanceof List<?> joined) {
+                for (Object player : joined) {
+                    if (player instanceof Map<?, ?> entry) {
+                        onClassmateJoined((String) entry.get("playerId"), (String) entry.get("playerName"),
+                            frame.receivedNanos());
+                    }
+                }
+            }
+        } else if ("GAME_STARTED".equals(eventType)) {
+            if (classroom.startSentNanos != 0) {
+                metrics.recordSince(LoadMetrics.BROADCAST, classroom.startSentNanos, frame.receivedNanos());
+            }
+        } else if ("GAME_ENDED".equals(eventType)) {
+            ended = true;
+        }
+    }
+
+    private void onClassmateJoined(String joinedId, String joinedName, long receivedNanos) {
+        Long sent = joinedName != null ? classroom.joinSentNanos.get(joinedName) : null;
+        if (sent != null && !name.equals(joinedName)) {
+            metrics.recordSince(LoadMetrics.BROADCAST, sent, receivedNanos);
+        }
+        if (joinedId != null && !joinedId.equals(playerId) && !classmates.contains(joinedId)) {
+            classmates.add(joinedId);
+        }
+    }
+
+    /**
+     * Put a question on screen once its image is here, then answer it.
+     */
+    private void show(String code, Frame question) throws InterruptedException {
+        prefetch(question);
+        String imageUrl = question.string("imageUrl");
+        if (imageUrl != null) {
+            long readyNanos = images.computeIfAbsent(imageUrl, url -> System.nanoTime() + rttNanos());
+            long waitNanos = readyNanos - System.nanoTime();
+            if (waitNanos > 0) {
+                TimeUnit.NANOSECONDS.sleep(waitNanos);
+            }
+        }
+        if (gapStartNanos != 0) {
+            metrics.recordSince(LoadMetrics.QUESTION_GAP, gapStartNanos, System.nanoTime());
+            gapStartNanos = 0;
+        }
+        answer(code, question);
+    }
+
+    /**
+     * Start fetching the images a question names for the ones after it.
+     */
+    private void prefetch(Frame question) {
+        if (scenario.piggyback() && question.payload().get("prefetch") instanceof List<?> upcoming) {
+            long readyNanos = System.nanoTime() + rttNanos();
+            for (Object url : upcoming) {
+                images.putIfAbsent(String.valueOf(url), readyNanos);
+            }
+        }
+    }
+
+    /**
+     * The server has moved on to the question held since the last answer result
+     * and sent the key to open it.
+     */
+    private void onReveal(String code, Frame reveal) throws InterruptedException {
+        if (heldQuestion == null) {
+            return;
+        }
+        String sealed = heldQuestion;
+        heldQuestion = null;
+        Frame question;
+        try {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> payload = JSON.readValue(QuestionPayloadEncoder.open(sealed, reveal.string("key")),
+                Map.class);
+            question = new Frame(QUESTION, payload, reveal.receivedNanos(), null);
+        } catch (IOException | IllegalArgumentException e) {
+            metrics.increment("revealMismatches");
+            return;
+        }
+        if (!reveal.string("questionId").equals(question.string("questionId"))) {
+            metrics.increment("revealMismatches");
+            return;
+        }
+        prefetch(question);
+        show(code, question);
+    }
+
+    private long rttNanos() {
+        return TimeUnit.MILLISECONDS.toNanos(scenario.rttMs());
+    }
+
+    private void answer(String code, Frame frame) throws InterruptedException {
+        String questionId = frame.string("questionId");
+        Object answers = frame.payload().get("answers");
+        if (questionId == null || !(answers instanceof List<?> choices) || choices.isEmpty()) {
+            metrics.increment("malformedQuestions");
+            return;
+        }
+
+        long thinkMs = thinkTime();
+        Thread.sleep(thinkMs);
+        answerSentNanos = System.nanoTime();
+        send("/app/session/" + code + "/answer", Map.of(
+            "questionId", questionId,
+            "answer", String.valueOf(choices.get(random.nextInt(choices.size()))),
+            "answerTimeMs", thinkMs,
+            "piggybackNext", scenario.piggyback()));
+        metrics.increment("answersSent");
+
+        if (scenario.dropRate() > 0 && random.nextDouble() < scenario.dropRate()) {
+            dropAndResume(code);
+        }
+    }
+
+    /**
+     * Cut the socket, stay away for a moment, then reconnect and resume.
+     *
+     * Frames that arrived before the drop come first, then the replayed events,
+     * then whatever the new connection received that the replay did not cover.
+     */
+    private void dropAndResume(String code) throws InterruptedException {
+        if (resumeToken == null || !dropConnection()) {
+            return;
+        }
+        metrics.increment("drops");
+        long resumeFrom = lastSeq;
+        answerDropped = answerSentNanos != 0;
+        Thread.sleep(500 + random.nextInt(2_500));
+
+        long reconnectStart = System.nanoTime();
+        StompHeaders headers = new StompHeaders();
+        headers.add("resumeToken", resumeToken);
+        if (!connect(headers)) {
+            metrics.increment("resumeFailures");
+            ended = true;
+            return;
+        }
+        for (String destination : new String[] {JOINED, QUESTION, ANSWER_RESULT, HACK_RESULT, REPLAY, topic}) {
+            subscribe(destination);
+        }
+        settleSubscriptions();
+        send("/app/session/" + code + "/resume", Map.of("lastSeq", resumeFrom));
+
+        List<Frame> before = new ArrayList<>();
+        List<Frame> after = new ArrayList<>();
+        Frame replay = null;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (replay == null && System.nanoTime() < deadline) {
+            Frame frame = poll(Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime())));
+            if (frame == null) {
+                break;
+            } else if (frame.destination().equals(REPLAY)) {
+                replay = frame;
+            } else {
+                (frame.receivedNanos() < reconnectStart ? before : after).add(frame);
+            }
+        }
+        pending.addAll(before);
+        if (replay == null) {
+            metrics.increment("resumeFailures");
+            pending.addAll(after);
+            return;
+        }
+        metrics.recordSince(LoadMetrics.RESUME, reconnectStart, replay.receivedNanos());
+        metrics.increment("resumes");
+
+        boolean complete = Boolean.TRUE.equals(replay.payload().get("complete"));
+        long replayLast = replay.payload().get("lastSeq") instanceof Number n ? n.longValue() : 0;
+        if (!complete) {
+            metrics.increment("resumesIncomplete");
+        }
+        if (replay.payload().get("events") instanceof List<?> events) {
+            for (Object event : events) {
+                if (event instanceof Map<?, ?> entry && entry.get("payload") instanceof Map<?, ?> payload) {
+                    @SuppressWarnings("unchecked")
+                    Map<String, Object> body = (Map<String, Object>) payload;
+                    pending.add(new Frame(String.valueOf(entry.get("destination")), body, replay.receivedNanos(),
+                        entry.get("seq") instanceof Number seq ? seq.longValue() : null));
+                }
+            }
+            metrics.add("replayedEvents", events.size());
+        }
+        for (Frame frame : after) {
+            if (!complete || frame.seq() == null || frame.seq() > replayLast) {
+                pending.add(frame);
+            }
+        }
+    }
+
+    private void onAnswerResult(String code, Frame frame) throws InterruptedException {
+        Frame piggybacked = null;
+        if (frame.payload().get("nextQuestion") instanceof Map<?, ?> next) {
+            @SuppressWarnings("unchecked")
+            Map<String, Object> question = (Map<String, Object>) next;
+            piggybacked = new Frame(QUESTION, question, frame.receivedNanos(), null);
+            prefetch(piggybacked);
+        }
+        if (answerSentNanos == 0) {
+            // Server-side deadline fired before we answered
+            metrics.increment("questionTimeouts");
+            if (piggybacked != null) {
+                show(code, piggybacked);
+            }
+            return;
+        }
+        if (!answerDropped) {
+            metrics.recordSince(LoadMetrics.ANSWER_RESULT, answerSentNanos, frame.receivedNanos());
+        }
+        answerSentNanos = 0;
+        answerDropped = false;
+
+        if (!Boolean.TRUE.equals(frame.payload().get("correct"))) {
+            metrics.increment("answersIncorrect");
+            gapStartNanos = frame.receivedNanos();
+            if (piggybacked != null) {
+                show(code, piggybacked);
+            } else if (nextQuestion != null) {
+                Frame question = nextQuestion;
+                nextQuestion = null;
+                show(code, question);
+            }
+            return;
+        }
+        metrics.increment("answersCorrect");
+        heldQuestion = frame.string("sealedNextQuestion");
+
+        double roll = random.nextDouble();
+        if (roll < scenario.hackRate() && !classmates.isEmpty()) {
+            send("/app/session/" + code + "/reward", Map.of("rewardType", "HACK"));
+            Thread.sleep(Math.min(thinkTime() / 2, MAX_THINK_MS));
+            hackSentNanos = System.nanoTime();
+            send("/app/session/" + code + "/hack", Map.of(
+                "targetPlayerId", classmates.get(random.nextInt(classmates.size())),
+                "guessedCode", String.format("%04d", random.nextInt(10_000))));
+            metrics.increment("hacksSent");
+        } else if (roll < scenario.hackRate() + scenario.shieldRate()) {
+            gapStartNanos = System.nanoTime();
+            send("/app/session/" + code + "/reward", Map.of("rewardType", "SHIELD"));
+            metrics.increment("shieldsChosen");
+        } else {
+            gapStartNanos = System.nanoTime();
+            send("/app/session/" + code + "/reward", Map.of("rewardType", "CREDITS"));
+            metrics.increment("creditsChosen");
+        }
+    }
+
+    /**
+     * Log-normal think time around the scenario median.
+     */
+    private long thinkTime() {
+        long ms = (long) (scenario.thinkMedianMs() * Math.exp(scenario.thinkSigma() * random.nextGaussian()));
+        return Math.max(200, Math.min(ms, MAX_THINK_MS));
+    }
+}
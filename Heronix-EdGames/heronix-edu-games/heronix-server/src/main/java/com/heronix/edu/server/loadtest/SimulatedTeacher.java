@@ -0,0 +1,93 @@
+package com.heronix.edu.server.loadtest;
+
+import org.springframework.messaging.simp.stomp.StompHeaders;
+import org.springframework.web.socket.messaging.WebSocketStompClient;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Teacher of one simulated class: creates the session, starts it once the
+ * players have joined, and ends it after the scenario duration.
+ */
+class SimulatedTeacher extends SimulatedClient {
+    private static final String SESSION_QUEUE = "/user/queue/session";
+
+    private final Classroom classroom;
+
+    SimulatedTeacher(WebSocketStompClient stompClient, LoadScenario scenario, LoadMetrics metrics,
+                     Classroom classroom) {
+        super(stompClient, scenario, metrics, "teacher-" + classroom.index);
+        this.classroom = classroom;
+    }
+
+    @Override
+    protected void script() throws Exception {
+        try {
+            if (!connect(new StompHeaders())) {
+                return;
+            }
+            subscribe(SESSION_QUEUE);
+            settleSubscriptions();
+
+            Map<String, Object> create = new HashMap<>();
+            create.put("gameType", "CODE_BREAKER");
+            create.put("questionSetId", scenario.questionSetId());
+            create.put("timeLimitMinutes", scenario.durationSeconds() / 60 + 1);
+            send("/app/session/create", create);
+
+            Frame created = await(SESSION_QUEUE, 30_000);
+            String code = created != null ? created.string("sessionCode") : null;
+            if (code == null) {
+                metrics.increment("sessionCreateFailures");
+                return;
+            }
+            classroom.sessionCode.complete(code);
+
+            // Start with whoever made it in
+            long joinWindowMs = scenario.rampSeconds() * 1000L + 30_000;
+            if (classroom.joined.await(joinWindowMs, TimeUnit.MILLISECONDS)) {
+                metrics.recordSince(LoadMetrics.ALL_JOINED, classroom.firstJoinSentNanos.get(),
+                    classroom.lastJoinedNanos.get());
+            } else {
+                metrics.increment("sessionsStartedShort");
+            }
+            classroom.startSentNanos = System.nanoTime();
+            send("/app/session/" + code + "/start", Map.of());
+            metrics.increment("sessionsStarted");
+
+            Thread.sleep(scenario.durationSeconds() * 1000L);
+
+            send("/app/session/" + code + "/end", Map.of());
+            if (await(SESSION_QUEUE, 30_000) != null) {
+                metrics.increment("sessionsEnded");
+            }
+        } finally {
+            // Players waiting for a code give up instead of hanging
+            classroom.sessionCode.complete(null);
+        }
+    }
+
+    /**
+     * State shared by the teacher and players of one simulated class.
+     */
+    static class Classroom {
+        final int index;
+        final CompletableFuture<String> sessionCode = new CompletableFuture<>();
+        final CountDownLatch joined;
+        final Map<String, Long> joinSentNanos = new ConcurrentHashMap<>();  // studentName -> join SEND time
+        final AtomicLong firstJoinSentNanos = new AtomicLong(Long.MAX_VALUE);
+        final AtomicLong lastJoinedNanos = new AtomicLong();
+        volatile long startSentNanos;
+
+        Classroom(int index, int players) {
+            this.index = index;
+            this.joined = new CountDownLatch(players);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.heronix.edu.server.repository;
+
+import com.heronix.edu.common.model.GameScore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * JDBC batch writer for uploaded scores.
+ *
+ * Score IDs are assigned by devices, so GameScoreRepository.saveAll merges
+ * every entity and Hibernate SELECTs each row before inserting it. This writer
+ * skips the entity layer: one prepared MERGE, executed in JDBC batches of
+ * {@code heronix.sync.write-batch-size} rows, inserts each score whose score_id
+ * is not stored yet. A score that is already there (a retried write, or two
+ * uploads racing with the same score) is left as it is, the same rule duplicate
+ * detection applies.
+ *
+ * Runs in the caller's transaction.
+ */
+@Repository
+public class GameScoreBatchWriter {
+    private static final Logger logger = LoggerFactory.getLogger(GameScoreBatchWriter.class);
+
+    private static final String MERGE_SQL =
+        "MERGE INTO game_scores s USING (VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)) " +
+        "AS v(score_id, student_id, game_id, score, max_score, time_seconds, correct_answers, " +
+        "incorrect_answers, completion_percentage, completed, difficulty_level, played_at, device_id, " +
+        "synced, synced_at, metadata) " +
+        "ON s.score_id = v.score_id " +
+        "WHEN NOT MATCHED THEN INSERT (score_id, student_id, game_id, score, max_score, time_seconds, " +
+        "correct_answers, incorrect_answers, completion_percentage, completed, difficulty_level, played_at, " +
+        "device_id, synced, synced_at, metadata) " +
+        "VALUES (v.score_id, v.student_id, v.game_id, v.score, v.max_score, v.time_seconds, v.correct_answers, " +
+        "v.incorrect_answers, v.completion_percentage, v.completed, v.difficulty_level, v.played_at, " +
+        "v.device_id, v.synced, v.synced_at, v.metadata)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int batchSize;
+
+    public GameScoreBatchWriter(JdbcTemplate jdbcTemplate,
+                                @Value("${heronix.sync.write-batch-size:500}") int batchSize) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Insert the scores that are not stored yet, marked synced at
+     * {@code syncedAt}.
+     *
+     * @return those of {@code scores} that were inserted; the rest were
+     *         already stored
+     */
+    public List<GameScore> insertNew(List<GameScore> scores, LocalDateTime syncedAt) {
+        Timestamp syncedAtTimestamp = Timestamp.valueOf(syncedAt);
+        int[][] counts = jdbcTemplate.batchUpdate(MERGE_SQL, scores, batchSize, (ps, score) -> {
+            ps.setString(1, score.getScoreId());
+            ps.setString(2, score.getStudentId());
+            ps.setString(3, score.getGameId());
+            ps.setInt(4, score.getScore());
+            ps.setInt(5, score.getMaxScore());
+            ps.setInt(6, score.getTimeSeconds());
+            ps.setInt(7, score.getCorrectAnswers());
+            ps.setInt(8, score.getIncorrectAnswers());
+            ps.setInt(9, score.getCompletionPercentage());
+            ps.setBoolean(10, score.isCompleted());
+            ps.setString(11, score.getDifficultyLevel());
+            ps.setTimestamp(12, score.getPlayedAt() != null ? Timestamp.valueOf(score.getPlayedAt()) : null);
+            ps.setString(13, score.getDeviceId());
+            ps.setBoolean(14, true);
+            ps.setTimestamp(15, syncedAtTimestamp);
+            if (score.getMetadata() != null) {
+                ps.setString(16, score.getMetadata());
+            } else {
+                ps.setNull(16, Types.CLOB);
+            }
+        });
+
+        List<GameScore> inserted = new ArrayList<>(scores.size());
+        int index = 0;
+        for (int[] batch : counts) {
+            for (int count : batch) {
+                GameScore score = scores.get(index++);
+                // Drivers that cannot tell report SUCCESS_NO_INFO (-2); count those as written
+                if (count != 0) {
+                    inserted.add(score);
+                }
+            }
+        }
+
+        if (inserted.size() < scores.size()) {
+            logger.debug("{} of {} scores were already stored", scores.size() - inserted.size(), scores.size());
+        }
+        return inserted;
+    }
+}
@@ -7,8 +7,10 @@ import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * Repository for GameScore entities.
@@ -19,6 +21,12 @@ public interface GameScoreRepository extends JpaRepository<GameScoreEntity, Stri
 
     Optional<GameScoreEntity> findByScoreId(String scoreId);
 
+    @Query("SELECT s.scoreId FROM GameScoreEntity s WHERE s.scoreId IN :scoreIds")
+    List<String> findExistingScoreIds(@Param("scoreIds") Collection<String> scoreIds);
+
+    @Query("SELECT s.scoreId FROM GameScoreEntity s")
+    Stream<String> streamAllScoreIds();
+
     List<GameScoreEntity> findByStudentId(String studentId);
 
     List<GameScoreEntity> findByStudentIdAndGameId(String studentId, String gameId);
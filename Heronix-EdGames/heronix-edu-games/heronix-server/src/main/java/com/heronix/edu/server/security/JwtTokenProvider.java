@@ -70,16 +70,22 @@ public class JwtTokenProvider {
     }
 
     /**
-     * Validate JWT token
+     * Validate JWT token. Only device tokens pass: tokens with an audience
+     * (such as game resume tokens) or without a device ID are rejected.
      */
     public boolean validateToken(String token) {
         try {
-            SecretKey key = Keys.hmacShaKeyFor(jwtSecret.getBytes(StandardCharsets.UTF_8));
-
-            Jwts.parser()
-                    .verifyWith(key)
-                    .build()
-                    .parseSignedClaims(token);
+            Claims claims = getAllClaimsFromToken(token);
+
+            if (claims.getAudience() != null && !claims.getAudience().isEmpty()) {
+                logger.warn("Rejected JWT token for audience {}", claims.getAudience());
+                return false;
+            }
+            String deviceId = claims.get("deviceId", String.class);
+            if (deviceId == null || deviceId.isBlank()) {
+                logger.warn("Rejected JWT token without a device ID");
+                return false;
+            }
 
             return true;
         } catch (MalformedJwtException ex) {
@@ -0,0 +1,91 @@
+package com.heronix.edu.server.security;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.Keys;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.crypto.Mac;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.util.Date;
+
+/**
+ * Signed resume tokens for game connections.
+ *
+ * A player is given one when they join a session. Presented in the CONNECT
+ * headers of a later connection, it binds that connection to the same player
+ * id, so a dropped socket does not turn the student into a new player.
+ */
+@Component
+public class ResumeTokenProvider {
+    private static final Logger logger = LoggerFactory.getLogger(ResumeTokenProvider.class);
+
+    private static final String AUDIENCE = "heronix-game-resume";
+
+    private final SecretKey key;
+    private final long ttlMs;
+
+    public ResumeTokenProvider(@Value("${jwt.secret}") String secret,
+                               @Value("${heronix.game.resume.token-ttl-ms:43200000}") long ttlMs) {
+        this.key = deriveKey(secret);
+        this.ttlMs = ttlMs;
+    }
+
+    private static SecretKey deriveKey(String secret) {
+        try {
+            Mac mac = Mac.getInstance("HmacSHA256");
+            mac.init(new SecretKeySpec(secret.getBytes(StandardCharsets.UTF_8), "HmacSHA256"));
+            return Keys.hmacShaKeyFor(mac.doFinal(AUDIENCE.getBytes(StandardCharsets.UTF_8)));
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException("Cannot derive resume token key", e);
+        }
+    }
+
+    /**
+     * Issue a token for a player who has just joined a session.
+     */
+    public String issue(String sessionCode, String playerId, String studentId, String studentName) {
+        Date now = new Date();
+        return Jwts.builder()
+            .subject(playerId)
+            .audience().add(AUDIENCE).and()
+            .claim("sessionCode", sessionCode)
+            .claim("studentId", studentId)
+            .claim("studentName", studentName)
+            .issuedAt(now)
+            .expiration(new Date(now.getTime() + ttlMs))
+            .signWith(key)
+            .compact();
+    }
+
+    /**
+     * The player a token was issued to, or null if it is forged, expired or not a resume token.
+     */
+    public ResumeClaims verify(String token) {
+        try {
+            Claims claims = Jwts.parser()
+                .verifyWith(key)
+                .requireAudience(AUDIENCE)
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+            return new ResumeClaims(claims.getSubject(), claims.get("sessionCode", String.class),
+                claims.get("studentId", String.class), claims.get("studentName", String.class));
+        } catch (JwtException | IllegalArgumentException e) {
+            logger.debug("Rejected resume token: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Who a resume token identifies.
+     */
+    public record ResumeClaims(String playerId, String sessionCode, String studentId, String studentName) {}
+}
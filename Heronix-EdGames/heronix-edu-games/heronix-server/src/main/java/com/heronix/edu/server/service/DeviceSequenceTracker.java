@@ -0,0 +1,292 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.server.entity.DeviceEntity;
+import com.heronix.edu.server.exception.ResourceNotFoundException;
+import com.heronix.edu.server.repository.DeviceRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-device high-water marks of score sequence numbers, so a retried upload
+ * is recognised from (device, seq) in memory instead of by looking its score
+ * ids up in game_scores.
+ *
+ * A device numbers its scores 1, 2, 3, ... within an epoch; a fresh local
+ * database starts a new epoch, announced with {@link #resume} before the
+ * device uploads. Each score carries its epoch, and a seq only counts under
+ * the epoch the server tracks for the device; any other score is checked by
+ * score id. The high-water mark is the highest seq such that every seq up to
+ * it is in game_scores (saved, or found already stored); seqs stored out of
+ * order above it are kept in a bitmap of {@code max-ahead} bits. A seq at or
+ * below the mark, or in the bitmap, is settled: sending that score again
+ * cannot change game_scores. A rejected score is not settled, so it is judged
+ * again when resent.
+ *
+ * Seqs count only once the transaction that judged them commits, so a
+ * rolled-back upload is judged again when it is retried. The mark is saved
+ * on the device row in the same transaction and read back after a restart;
+ * the bitmap is not, so until those seqs arrive again they are checked by
+ * score id as before.
+ */
+@Component
+public class DeviceSequenceTracker {
+    private static final Logger logger = LoggerFactory.getLogger(DeviceSequenceTracker.class);
+
+    private final DeviceRepository deviceRepository;
+    private final int maxAhead;
+    private final ConcurrentHashMap<String, DeviceSequence> devices = new ConcurrentHashMap<>();
+
+    public DeviceSequenceTracker(DeviceRepository deviceRepository,
+                                 @Value("${heronix.sync.sequence.max-ahead:8192}") int maxAhead) {
+        this.deviceRepository = deviceRepository;
+        this.maxAhead = maxAhead;
+    }
+
+    /**
+     * Start judging the scores of one transaction.
+     */
+    public Batch begin() {
+        return new Batch();
+    }
+
+    /**
+     * Tell a device where to resume. The device names its epoch and the
+     * highest seq below which it holds every score as synced; that is taken as
+     * settled too, since the device will not send those scores again. A new
+     * epoch starts over from there. Call within a transaction.
+     *
+     * @return every seq of the epoch the server has settled
+     */
+    public Position resume(String deviceId, String epoch, long syncedThrough) {
+        DeviceEntity device = deviceRepository.findByDeviceId(deviceId)
+                .orElseThrow(() -> new ResourceNotFoundException("Device", deviceId));
+        DeviceSequence sequence = sequence(deviceId);
+        if (!Objects.equals(epoch, sequence.epoch)) {
+            logger.info("Device {} started score sequence epoch {} (was {}), synced through {}",
+                    deviceId, epoch, sequence.epoch, syncedThrough);
+            // Batches still holding the old epoch's sequence record into it harmlessly
+            sequence = new DeviceSequence(epoch, Math.max(0, syncedThrough), maxAhead);
+            devices.put(deviceId, sequence);
+            device.setScoreSeqEpoch(epoch);
+            device.setScoreSeqHighWater(sequence.highWater());
+            deviceRepository.save(device);
+        } else {
+            sequence.advanceTo(syncedThrough);
+            long highWater = sequence.highWater();
+            if (device.getScoreSeqHighWater() == null || device.getScoreSeqHighWater() < highWater) {
+                device.setScoreSeqHighWater(highWater);
+                deviceRepository.save(device);
+            }
+        }
+        return sequence.position();
+    }
+
+    /**
+     * Current position of a device's sequence.
+     */
+    public Position getPosition(String deviceId) {
+        return sequence(deviceId).position();
+    }
+
+    private DeviceSequence sequence(String deviceId) {
+        DeviceSequence sequence = devices.get(deviceId);
+        if (sequence != null) {
+            return sequence;
+        }
+        // First time this device is seen since startup
+        DeviceSequence loaded = deviceRepository.findByDeviceId(deviceId)
+                .map(device -> new DeviceSequence(device.getScoreSeqEpoch(),
+                        device.getScoreSeqHighWater() != null ? device.getScoreSeqHighWater() : 0, maxAhead))
+                .orElseGet(() -> new DeviceSequence(null, 0, maxAhead));
+        DeviceSequence raced = devices.putIfAbsent(deviceId, loaded);
+        return raced != null ? raced : loaded;
+    }
+
+    private static boolean numbered(String epoch, Long seq) {
+        return epoch != null && seq != null && seq > 0;
+    }
+
+    /**
+     * Where a device's sequence stands: the high-water mark, and the seqs
+     * above it already received.
+     */
+    public record Position(String epoch, long highWaterMark, List<Long> receivedAbove) {
+    }
+
+    /**
+     * Seqs stored in one transaction, recorded once it commits.
+     */
+    public final class Batch {
+        private final Map<String, DeviceSequence> sequences = new HashMap<>();
+        private final Map<String, SortedSet<Long>> stored = new HashMap<>();
+
+        private Batch() {
+        }
+
+        /**
+         * Whether a score is already stored, before this transaction or
+         * earlier in it. Scores without a seq, or from an epoch other than
+         * the device's current one, never are.
+         */
+        public boolean isSettled(String deviceId, String epoch, Long seq) {
+            if (!numbered(epoch, seq)) {
+                return false;
+            }
+            DeviceSequence sequence = sequenceOf(deviceId);
+            if (!epoch.equals(sequence.epoch)) {
+                return false;
+            }
+            SortedSet<Long> seqs = stored.get(deviceId);
+            return (seqs != null && seqs.contains(seq)) || sequence.contains(seq);
+        }
+
+        /**
+         * Record that a score was saved, or found already in game_scores, in
+         * this transaction. Seqs of another epoch are ignored.
+         */
+        public void record(String deviceId, String epoch, Long seq) {
+            if (numbered(epoch, seq) && epoch.equals(sequenceOf(deviceId).epoch)) {
+                stored.computeIfAbsent(deviceId, id -> new TreeSet<>()).add(seq);
+            }
+        }
+
+        /**
+         * Save the devices' new high-water marks in the current transaction
+         * and record the seqs in memory once it commits. Outside a
+         * transaction they are recorded at once.
+         */
+        public void finish() {
+            if (stored.isEmpty()) {
+                return;
+            }
+            for (Map.Entry<String, SortedSet<Long>> entry : stored.entrySet()) {
+                DeviceSequence sequence = sequenceOf(entry.getKey());
+                long highWater = sequence.highWaterWith(entry.getValue());
+                if (highWater > 0) {
+                    deviceRepository.findByDeviceId(entry.getKey())
+                            .filter(device -> Objects.equals(device.getScoreSeqEpoch(), sequence.epoch))
+                            .filter(device -> device.getScoreSeqHighWater() == null
+                                    || device.getScoreSeqHighWater() < highWater)
+                            .ifPresent(device -> {
+                                device.setScoreSeqHighWater(highWater);
+                                deviceRepository.save(device);
+                            });
+                }
+            }
+
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCommit() {
+                        apply();
+                    }
+                });
+            } else {
+                apply();
+            }
+        }
+
+        private void apply() {
+            stored.forEach((deviceId, seqs) -> sequenceOf(deviceId).addAll(seqs));
+        }
+
+        private DeviceSequence sequenceOf(String deviceId) {
+            // The same epoch for the whole transaction, even if the device resumes meanwhile
+            return sequences.computeIfAbsent(deviceId, DeviceSequenceTracker.this::sequence);
+        }
+    }
+
+    /**
+     * One device's high-water mark and the bitmap above it: bit i is seq
+     * highWater + 1 + i.
+     */
+    static final class DeviceSequence {
+        private final String epoch;
+        private final int maxAhead;
+        private long highWater;
+        private BitSet ahead = new BitSet();
+
+        DeviceSequence(String epoch, long highWater, int maxAhead) {
+            this.epoch = epoch;
+            this.highWater = highWater;
+            this.maxAhead = maxAhead;
+        }
+
+        synchronized boolean contains(long seq) {
+            if (seq <= highWater) {
+                return true;
+            }
+            long offset = seq - highWater - 1;
+            return offset < maxAhead && ahead.get((int) offset);
+        }
+
+        /**
+         * Add seqs, taken in ascending order so a long in-order run moves
+         * the mark along instead of overflowing the bitmap.
+         */
+        synchronized void addAll(SortedSet<Long> seqs) {
+            for (long seq : seqs) {
+                long offset = seq - highWater - 1;
+                // Too far ahead to remember; it is checked by score id instead
+                if (offset >= 0 && offset < maxAhead) {
+                    ahead.set((int) offset);
+                    compact();
+                }
+            }
+        }
+
+        synchronized void advanceTo(long mark) {
+            if (mark <= highWater) {
+                return;
+            }
+            long shift = mark - highWater;
+            ahead = shift >= ahead.length() ? new BitSet() : ahead.get((int) shift, ahead.length());
+            highWater = mark;
+            compact();
+        }
+
+        synchronized long highWater() {
+            return highWater;
+        }
+
+        /**
+         * The high-water mark there would be with these seqs added.
+         */
+        synchronized long highWaterWith(SortedSet<Long> seqs) {
+            DeviceSequence copy = new DeviceSequence(epoch, highWater, maxAhead);
+            copy.ahead = (BitSet) ahead.clone();
+            copy.addAll(seqs);
+            return copy.highWater;
+        }
+
+        synchronized Position position() {
+            List<Long> receivedAbove = new ArrayList<>(ahead.cardinality());
+            for (int i = ahead.nextSetBit(0); i >= 0; i = ahead.nextSetBit(i + 1)) {
+                receivedAbove.add(highWater + 1 + i);
+            }
+            return new Position(epoch, highWater, receivedAbove);
+        }
+
+        private void compact() {
+            int run = ahead.nextClearBit(0);
+            if (run > 0) {
+                highWater += run;
+                ahead = ahead.get(run, Math.max(run, ahead.length()));
+            }
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.heronix.edu.server.service;
 
 import com.heronix.edu.common.model.GameScore;
 import com.heronix.edu.server.entity.GameScoreEntity;
+import com.heronix.edu.server.repository.GameScoreBatchWriter;
 import com.heronix.edu.server.repository.GameScoreRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -10,8 +11,11 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 /**
@@ -22,9 +26,18 @@ public class GameScoreService {
 
     private static final Logger logger = LoggerFactory.getLogger(GameScoreService.class);
 
+    // Score ids per IN query, well under the bind-parameter limits of the databases we run on
+    private static final int LOOKUP_CHUNK = 1000;
+
     @Autowired
     private GameScoreRepository gameScoreRepository;
 
+    @Autowired
+    private GameScoreBatchWriter gameScoreBatchWriter;
+
+    @Autowired
+    private ScoreIdFilter scoreIdFilter;
+
     /**
      * Save a single game score
      */
@@ -37,31 +50,31 @@ public class GameScoreService {
         entity.setSyncedAt(LocalDateTime.now());
 
         GameScoreEntity saved = gameScoreRepository.save(entity);
+        scoreIdFilter.add(saved.getScoreId());
 
         return saved.toModel();
     }
 
     /**
-     * Save multiple game scores in a batch
+     * Save multiple game scores in a batch. Scores whose ID is already stored
+     * are left as stored and not returned.
      */
     @Transactional
     public List<GameScore> saveScores(List<GameScore> scores) {
         logger.info("Batch saving {} scores", scores.size());
 
-        List<GameScoreEntity> entities = scores.stream()
+        LocalDateTime syncedAt = LocalDateTime.now();
+        List<GameScore> inserted = gameScoreBatchWriter.insertNew(scores, syncedAt);
+        inserted.forEach(score -> scoreIdFilter.add(score.getScoreId()));
+
+        return inserted.stream()
                 .map(score -> {
                     GameScoreEntity entity = GameScoreEntity.fromModel(score);
                     entity.setSynced(true);
-                    entity.setSyncedAt(LocalDateTime.now());
-                    return entity;
+                    entity.setSyncedAt(syncedAt);
+                    return entity.toModel();
                 })
                 .collect(Collectors.toList());
-
-        List<GameScoreEntity> saved = gameScoreRepository.saveAll(entities);
-
-        return saved.stream()
-                .map(GameScoreEntity::toModel)
-                .collect(Collectors.toList());
     }
 
     /**
@@ -104,6 +117,33 @@ public class GameScoreService {
      */
     @Transactional(readOnly = true)
     public boolean scoreExists(String scoreId) {
-        return gameScoreRepository.findByScoreId(scoreId).isPresent();
+        if (!scoreIdFilter.mightExist(scoreId)) {
+            return false;
+        }
+        boolean exists = gameScoreRepository.findByScoreId(scoreId).isPresent();
+        scoreIdFilter.recordLookup(1, exists ? 1 : 0);
+        return exists;
+    }
+
+    /**
+     * Which of these score ids are already stored (for duplicate detection of a
+     * whole upload). Ids the score id filter rules out are not looked up; the
+     * rest are checked with one IN query per {@value #LOOKUP_CHUNK} ids.
+     */
+    @Transactional(readOnly = true)
+    public Set<String> findExistingScoreIds(Collection<String> scoreIds) {
+        List<String> candidates = scoreIds.stream()
+                .distinct()
+                .filter(scoreIdFilter::mightExist)
+                .collect(Collectors.toList());
+
+        Set<String> existing = new HashSet<>();
+        for (int from = 0; from < candidates.size(); from += LOOKUP_CHUNK) {
+            List<String> chunk = candidates.subList(from, Math.min(from + LOOKUP_CHUNK, candidates.size()));
+            existing.addAll(gameScoreRepository.findExistingScoreIds(chunk));
+        }
+        scoreIdFilter.recordLookup(candidates.size(), existing.size());
+
+        return existing;
     }
 }
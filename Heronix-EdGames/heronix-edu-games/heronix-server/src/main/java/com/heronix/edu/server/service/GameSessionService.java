@@ -1,22 +1,38 @@
 package com.heronix.edu.server.service;
 
 import com.heronix.edu.server.dto.game.*;
+import com.heronix.edu.server.engine.*;
 import com.heronix.edu.server.entity.*;
 import com.heronix.edu.server.repository.*;
+import com.heronix.edu.server.websocket.SessionEventRecorder;
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.security.SecureRandom;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
 
 /**
  * Service for managing multiplayer game sessions.
  * Handles session creation, player management, game logic, and real-time updates.
+ *
+ * Methods that read or mutate a live session must run on that session's event loop;
+ * callers outside the loop go through {@link #executeInSession}. Those run as plain
+ * calls on the loop thread, not through the Spring proxy, so they are not
+ * {@code @Transactional}: each repository call behind {@code databaseGate} is its
+ * own transaction.
  */
 @Service
 public class GameSessionService {
@@ -25,30 +41,87 @@ public class GameSessionService {
     private final GameSessionRepository sessionRepository;
     private final GamePlayerRepository playerRepository;
     private final QuestionSetRepository questionSetRepository;
-    private final QuestionRepository questionRepository;
+    private final QuestionBankCache questionBankCache;
     private final SimpMessagingTemplate messagingTemplate;
+    private final SessionEngine sessionEngine;
+    private final PlayerStateWriteBehind playerStateWriter;
+    private final QuestionPayloadEncoder questionPayloadEncoder;
+    private final SessionJournal sessionJournal;
+    private final TimingWheel timingWheel;
+    private final SessionEventRecorder eventRecorder;
+    private final DatabaseGate databaseGate;
+    private final JoinAdmission joinAdmission;
+    private final TeacherFeed teacherFeed;
+    private final long questionDeadlineMs;
+    private final long idleTimeoutMs;
+    private final int largeSessionThreshold;
+    private final int leaderboardTopN;
+    private final int leaderboardNeighbours;
 
     // In-memory active session state for performance
     private final Map<String, ActiveGameSession> activeSessions = new ConcurrentHashMap<>();
 
-    // Track failed hack attempts: sessionId -> (hackerId -> (targetId -> failCount))
-    private final Map<String, Map<String, Map<String, Integer>>> hackAttemptTracker = new ConcurrentHashMap<>();
-
     private static final String SESSION_CODE_CHARS = "ABCDEFGHJKLMNPQRSTUVWXYZ23456789";
     private static final int SESSION_CODE_LENGTH = 6;
     private static final int BASE_CREDITS_PER_CORRECT = 50;
     private static final double HACK_STEAL_PERCENTAGE = 0.25;  // Steal 25% of target's credits
+    private static final int SHIELD_SECONDS = 30;
 
     public GameSessionService(GameSessionRepository sessionRepository,
                                GamePlayerRepository playerRepository,
                                QuestionSetRepository questionSetRepository,
-                               QuestionRepository questionRepository,
-                               SimpMessagingTemplate messagingTemplate) {
+                               QuestionBankCache questionBankCache,
+                               SimpMessagingTemplate messagingTemplate,
+                               SessionEngine sessionEngine,
+                               PlayerStateWriteBehind playerStateWriter,
+                               QuestionPayloadEncoder questionPayloadEncoder,
+                               SessionJournal sessionJournal,
+                               TimingWheel timingWheel,
+                               SessionEventRecorder eventRecorder,
+                               DatabaseGate databaseGate,
+                               JoinAdmission joinAdmission,
+                               TeacherFeed teacherFeed,
+                               @Value("${heronix.game.timers.question-grace-ms:2000}") long questionGraceMs,
+                               @Value("${heronix.game.timers.idle-session-timeout-ms:1800000}") long idleTimeoutMs,
+                               @Value("${heronix.game.leaderboard.large-session-threshold:200}") int largeSessionThreshold,
+                               @Value("${heronix.game.leaderboard.top-n:10}") int leaderboardTopN,
+                               @Value("${heronix.game.leaderboard.neighbours:2}") int leaderboardNeighbours) {
         this.sessionRepository = sessionRepository;
         this.playerRepository = playerRepository;
         this.questionSetRepository = questionSetRepository;
-        this.questionRepository = questionRepository;
+        this.questionBankCache = questionBankCache;
         this.messagingTemplate = messagingTemplate;
+        this.sessionEngine = sessionEngine;
+        this.playerStateWriter = playerStateWriter;
+        this.questionPayloadEncoder = questionPayloadEncoder;
+        this.sessionJournal = sessionJournal;
+        this.timingWheel = timingWheel;
+        this.eventRecorder = eventRecorder;
+        this.databaseGate = databaseGate;
+        this.joinAdmission = joinAdmission;
+        this.teacherFeed = teacherFeed;
+        this.questionDeadlineMs = QuestionPayloadEncoder.QUESTION_TIME_LIMIT_SECONDS * 1000L + questionGraceMs;
+        this.idleTimeoutMs = idleTimeoutMs;
+        this.largeSessionThreshold = largeSessionThreshold;
+        this.leaderboardTopN = leaderboardTopN;
+        this.leaderboardNeighbours = leaderboardNeighbours;
+    }
+
+    /**
+     * Run an action on the event loop that owns the given session.
+     * If the session is not active the action runs on the caller's thread,
+     * where it will report the missing session itself.
+     */
+    public <T> CompletableFuture<T> executeInSession(String sessionCode, Supplier<T> action) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            try {
+                return CompletableFuture.completedFuture(action.get());
+            } catch (RuntimeException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+        }
+        return sessionEngine.submit(activeSession.getMailbox(), action);
     }
 
     /**
@@ -68,12 +141,17 @@ public class GameSessionService {
         session.setStatus(GameSessionStatus.WAITING);
         session.setCreatedAt(LocalDateTime.now());
 
-        sessionRepository.save(session);
+        databaseGate.run(() -> sessionRepository.save(session));
 
-        // Load questions into memory
-        List<QuestionEntity> questions = questionRepository.findByQuestionSetId(request.getQuestionSetId());
-        ActiveGameSession activeSession = new ActiveGameSession(session, questions);
+        // Shared, immutable questions; the session only gets its own shuffled order
+        QuestionBank questionBank = questionBankCache.get(request.getQuestionSetId());
+        ActiveGameSession activeSession = new ActiveGameSession(session, questionBank,
+            sessionEngine.openMailbox(sessionCode));
+        eventRecorder.open(sessionCode);
         activeSessions.put(sessionCode, activeSession);
+        snapshotToJournal(activeSession);
+        activeSession.touch(timingWheel.now());
+        scheduleIdleCheck(activeSession, idleTimeoutMs);
 
         logger.info("Created game session {} for teacher {}", sessionCode, teacherId);
 
@@ -81,54 +159,134 @@ public class GameSessionService {
     }
 
     /**
-     * Join an existing session.
+     * Join an existing session with a new player id.
      */
-    @Transactional
     public JoinSessionResponse joinSession(String sessionCode, JoinSessionRequest request) {
-        ActiveGameSession activeSession = activeSessions.get(sessionCode);
-        if (activeSession == null) {
-            return JoinSessionResponse.error("Session not found");
-        }
+        return joinSession(sessionCode, UUID.randomUUID().toString(), request);
+    }
 
-        if (activeSession.getStatus() != GameSessionStatus.WAITING) {
-            return JoinSessionResponse.error("Game has already started");
+    /**
+     * Join an existing session as {@code playerId}. Over STOMP this is the
+     * connection's principal, so /user destinations reach the player.
+     */
+    public JoinSessionResponse joinSession(String sessionCode, String playerId, JoinSessionRequest request) {
+        PendingJoin join = new PendingJoin(playerId, request);
+        applyJoin(sessionCode, join);
+        // joinPlayers answers every join before it returns, or throws
+        return join.response().getNow(JoinSessionResponse.error("Could not join session"));
+    }
+
+    /**
+     * Join through admission control, for joins arriving over STOMP.
+     *
+     * A join over the session's or the server's rate is answered at once with a
+     * retry-after hint. An admitted one waits on the session's loop for the
+     * current batch: the first join after a quiet spell is applied straight
+     * away, joins right behind it are applied together when the batch window
+     * closes or the batch is full.
+     */
+    public CompletableFuture<JoinSessionResponse> requestJoin(String sessionCode, String playerId,
+                                                              JoinSessionRequest request) {
+        if (!joinAdmission.isEnabled() || !activeSessions.containsKey(sessionCode)) {
+            PendingJoin join = new PendingJoin(playerId, request);
+            executeInSession(sessionCode, () -> {
+                applyJoin(sessionCode, join);
+                return null;
+            }).exceptionally(e -> {
+                join.response().completeExceptionally(e);
+                return null;
+            });
+            return join.response();
         }
 
-        // Check if player already in session
-        if (activeSession.hasPlayer(request.getStudentId())) {
-            return JoinSessionResponse.error("Already joined this session");
+        long retryAfterMs = joinAdmission.tryAdmit(sessionCode);
+        if (retryAfterMs > 0) {
+            return CompletableFuture.completedFuture(
+                JoinSessionResponse.retryLater("Too many players joining, try again shortly", retryAfterMs));
         }
 
-        // Create player
-        String playerId = UUID.randomUUID().toString();
-        GamePlayerEntity player = new GamePlayerEntity(playerId, request.getStudentId(), request.getStudentName());
-        player.setSecretCode(request.getSecretCode());
-        player.setAvatarId(request.getAvatarId() != null ? request.getAvatarId() : "ROOKIE_ROBOT");
-        player.setSession(activeSession.getSessionEntity());
+        PendingJoin join = new PendingJoin(playerId, request);
+        executeInSession(sessionCode, () -> {
+            queueJoin(sessionCode, join);
+            return null;
+        }).exceptionally(e -> {
+            join.response().complete(JoinSessionResponse.retryLater("Session is busy, try again shortly",
+                joinAdmission.getBatchWindowMs()));
+            return null;
+        });
+        return join.response();
+    }
 
-        playerRepository.save(player);
-        activeSession.addPlayer(player);
+    /**
+     * Bring a player back after a dropped connection: mark them connected and
+     * collect the session events they missed after {@code lastSeq}.
+     *
+     * If some of those events have already left the session's event log, none are
+     * replayed; the player's current question is sent again instead (if they have
+     * not answered it yet) and the client rebuilds the rest from current state.
+     */
+    public ReplayBatch resumePlayer(String sessionCode, String playerId, long lastSeq) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            return new ReplayBatch(false, 0, GameSessionStatus.ENDED.name(), List.of());
+        }
 
-        // Notify other players and teacher
-        GameEvent joinEvent = GameEvent.playerJoined(sessionCode, playerId, request.getStudentName());
-        broadcastToSession(sessionCode, joinEvent);
-        notifyTeacher(sessionCode, joinEvent);
+        int slot = activeSession.getSlot(playerId);
+        GamePlayerEntity player = activeSession.getPlayer(slot);
+        if (player == null) {
+            throw new IllegalArgumentException("Player not in session");
+        }
+        activeSession.touch(timingWheel.now());
+        if (!Boolean.TRUE.equals(player.getConnected())) {
+            player.setConnected(true);
+            playerStateWriter.markDirty(player);
+            notifyTeacher(sessionCode, GameEvent.playerConnection(sessionCode, playerId, player.getStudentName(), true));
+        }
 
-        // Get list of other players
-        List<PlayerDto> otherPlayers = activeSession.getPlayers().stream()
-            .filter(p -> !p.getPlayerId().equals(playerId))
-            .map(this::toPlayerDto)
-            .toList();
+        SessionEventLog.Replay replay = eventRecorder.replay(sessionCode, playerId, lastSeq);
+        List<ReplayBatch.ReplayEvent> events = new ArrayList<>();
+        if (replay.complete()) {
+            for (SessionEventLog.Entry event : replay.events()) {
+                events.add(new ReplayBatch.ReplayEvent(event.seq(), event.destination(),
+                    new String(event.payload(), StandardCharsets.UTF_8)));
+            }
+        } else if (activeSession.getStatus() == GameSessionStatus.ACTIVE && activeSession.hasQuestionTimer(slot)) {
+            // Deadline left as it was
+            sendQuestion(activeSession, playerId, activeSession.getCurrentQuestion(slot),
+                activeSession.getQuestionNumber(slot));
+        }
+
+        // Own rank goes out again on the next tick; the client asks for a leaderboard snapshot itself
+        activeSession.clearStanding(slot);
+        activeSession.markLeaderboardDirty();
 
-        logger.info("Player {} joined session {}", request.getStudentName(), sessionCode);
+        logger.info("Player {} resumed session {} from seq {}: {} events replayed{}", playerId, sessionCode,
+            lastSeq, events.size(), replay.complete() ? "" : " (log overrun, resynchronising)");
+        return new ReplayBatch(replay.complete(), replay.lastSeq(), activeSession.getStatus().name(), events);
+    }
 
-        return JoinSessionResponse.success(playerId, sessionCode, activeSession.getGameType(), otherPlayers);
+    /**
+     * The player's connection closed. They stay in the game, marked disconnected,
+     * until they resume or the session ends.
+     */
+    public void handlePlayerDisconnect(String sessionCode, String playerId) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            return;
+        }
+        GamePlayerEntity player = activeSession.getPlayer(playerId);
+        if (player == null || Boolean.FALSE.equals(player.getConnected())) {
+            return;
+        }
+        player.setConnected(false);
+        playerStateWriter.markDirty(player);
+        notifyTeacher(sessionCode, GameEvent.playerConnection(sessionCode, playerId, player.getStudentName(), false));
+        logger.info("Player {} disconnected from session {}", playerId, sessionCode);
     }
 
     /**
      * Start the game.
      */
-    @Transactional
     public void startGame(String sessionCode, String teacherId) {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null) {
@@ -143,14 +301,19 @@ public class GameSessionService {
             throw new IllegalStateException("Game has already started");
         }
 
+        // Joins admitted before the start still get in
+        flushJoins(activeSession);
+
         activeSession.setStatus(GameSessionStatus.ACTIVE);
         activeSession.setStartedAt(LocalDateTime.now());
+        activeSession.touch(timingWheel.now());
 
         // Update database
         GameSessionEntity entity = activeSession.getSessionEntity();
         entity.setStatus(GameSessionStatus.ACTIVE);
         entity.setStartedAt(LocalDateTime.now());
-        sessionRepository.save(entity);
+        databaseGate.run(() -> sessionRepository.save(entity));
+        journal(activeSession, new JournalEvent.Started(System.currentTimeMillis()));
 
         // Broadcast game start
         GameEvent startEvent = GameEvent.gameStarted(sessionCode, activeSession.getTimeLimitSeconds());
@@ -166,29 +329,35 @@ public class GameSessionService {
 
     /**
      * Process an answer submission.
+     * Player state is persisted by the write-behind, not here.
      */
-    @Transactional
     public AnswerResult processAnswer(String sessionCode, String playerId, AnswerRequest request) {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null || activeSession.getStatus() != GameSessionStatus.ACTIVE) {
             return AnswerResult.incorrect("Session not active", null);
         }
 
-        GamePlayerEntity player = activeSession.getPlayer(playerId);
+        int slot = activeSession.getSlot(playerId);
+        GamePlayerEntity player = activeSession.getPlayer(slot);
         if (player == null) {
             return AnswerResult.incorrect("Player not found", null);
         }
 
-        QuestionEntity question = activeSession.getCurrentQuestion(playerId);
+        BankQuestion question = activeSession.getCurrentQuestion(slot);
         if (question == null || !question.getQuestionId().equals(request.getQuestionId())) {
             return AnswerResult.incorrect("Invalid question", null);
         }
+        long responseMs = responseTime(activeSession, slot);
+        activeSession.cancelQuestionTimer(slot);
+        activeSession.touch(timingWheel.now());
+        activeSession.setPiggybacking(slot, Boolean.TRUE.equals(request.getPiggybackNext()));
 
-        boolean isCorrect = question.getCorrectAnswer().equalsIgnoreCase(request.getAnswer().trim());
+        boolean isCorrect = question.isCorrect(request.getAnswer());
+        journal(activeSession, new JournalEvent.Answered(playerId, question.getQuestionId(), isCorrect));
 
         if (isCorrect) {
             player.incrementCorrectAnswers();
-            playerRepository.save(player);
+            playerStateWriter.markDirty(player);
 
             // Create reward options
             List<RewardOption> options = Arrays.asList(
@@ -198,43 +367,51 @@ public class GameSessionService {
             );
 
             // Notify teacher
-            notifyTeacherOfAnswer(sessionCode, player, true);
+            notifyTeacherOfAnswer(activeSession, player, question, true, false, responseMs);
 
-            return AnswerResult.correct(options);
+            AnswerResult result = AnswerResult.correct(options);
+            handOutNextQuestion(activeSession, slot, playerId, result);
+            return result;
         } else {
             player.incrementIncorrectAnswers();
-            playerRepository.save(player);
+            playerStateWriter.markDirty(player);
 
             // Notify teacher
-            notifyTeacherOfAnswer(sessionCode, player, false);
+            notifyTeacherOfAnswer(activeSession, player, question, false, false, responseMs);
 
             // Move to next question
-            sendNextQuestion(sessionCode, playerId);
-
-            return AnswerResult.incorrect(question.getCorrectAnswer(), question.getExplanation());
+            AnswerResult result = AnswerResult.incorrect(question.getCorrectAnswer(), question.getExplanation());
+            sendNextQuestion(activeSession, slot, playerId, result);
+            return result;
         }
     }
 
     /**
      * Process reward selection after correct answer.
      */
-    @Transactional
     public void processRewardSelection(String sessionCode, String playerId, String rewardType) {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null) return;
 
         GamePlayerEntity player = activeSession.getPlayer(playerId);
         if (player == null) return;
+        activeSession.touch(timingWheel.now());
 
         switch (rewardType) {
             case "CREDITS" -> {
                 int credits = getAvatarCreditBonus(player.getAvatarId());
                 player.addCredits(BASE_CREDITS_PER_CORRECT + credits);
-                playerRepository.save(player);
+                activeSession.updateRanking(player);
+                journal(activeSession, new JournalEvent.Rewarded(playerId, rewardType,
+                    BASE_CREDITS_PER_CORRECT + credits, null));
+                playerStateWriter.markDirty(player);
                 sendNextQuestion(sessionCode, playerId);
             }
             case "SHIELD" -> {
-                activeSession.setPlayerShield(playerId, 30);  // 30 second shield
+                long shieldUntil = timingWheel.now() + SHIELD_SECONDS * 1000L;
+                activeSession.setShieldUntil(playerId, shieldUntil);
+                scheduleShieldExpiry(activeSession, playerId, shieldUntil);
+                journal(activeSession, new JournalEvent.Rewarded(playerId, rewardType, 0, shieldUntil));
                 sendNextQuestion(sessionCode, playerId);
             }
             case "HACK" -> {
@@ -243,14 +420,13 @@ public class GameSessionService {
             }
         }
 
-        // Update leaderboard
-        broadcastLeaderboard(sessionCode);
+        // Leaderboard goes out on the next broadcast tick
+        activeSession.markLeaderboardDirty();
     }
 
     /**
      * Process a hack attempt.
      */
-    @Transactional
     public HackResult processHack(String sessionCode, String hackerId, HackRequest request) {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null) {
@@ -263,6 +439,7 @@ public class GameSessionService {
         if (hacker == null || target == null) {
             return HackResult.failure("Player not found", 0);
         }
+        activeSession.touch(timingWheel.now());
 
         // Check if target has shield
         if (activeSession.hasShield(target.getPlayerId())) {
@@ -294,12 +471,15 @@ public class GameSessionService {
             target.recordCreditsLost(stolen);
             hacker.addCredits(stolen);
             hacker.recordCreditsStolen(stolen);
+            activeSession.updateRanking(target);
+            activeSession.updateRanking(hacker);
+            journal(activeSession, new JournalEvent.Hacked(hackerId, target.getPlayerId(), true, stolen));
 
-            playerRepository.save(hacker);
-            playerRepository.save(target);
+            playerStateWriter.markDirty(hacker);
+            playerStateWriter.markDirty(target);
 
             // Clear hack attempt tracker for this target
-            clearHackAttempts(sessionCode, hackerId, target.getPlayerId());
+            activeSession.clearHackAttempts(hackerId, target.getPlayerId());
 
             // Notify the hacked player
             notifyPlayerHacked(sessionCode, target.getPlayerId(), hacker.getStudentName(), stolen);
@@ -310,8 +490,8 @@ public class GameSessionService {
             broadcastToSession(sessionCode, hackEvent);
             notifyTeacher(sessionCode, hackEvent);
 
-            // Update leaderboard
-            broadcastLeaderboard(sessionCode);
+            // Leaderboard goes out on the next broadcast tick
+            activeSession.markLeaderboardDirty();
 
             // Move hacker to next question
             sendNextQuestion(sessionCode, hackerId);
@@ -319,8 +499,9 @@ public class GameSessionService {
             return HackResult.success(target.getStudentName(), stolen, hacker.getCredits());
         } else {
             // Track failed attempt
-            int failedAttempts = recordFailedHackAttempt(sessionCode, hackerId, target.getPlayerId());
-            playerRepository.save(hacker);
+            int failedAttempts = activeSession.recordFailedHackAttempt(hackerId, target.getPlayerId());
+            journal(activeSession, new JournalEvent.Hacked(hackerId, target.getPlayerId(), false, 0));
+            playerStateWriter.markDirty(hacker);
 
             // Generate hint after 2 failed attempts
             String hint = null;
@@ -338,7 +519,6 @@ public class GameSessionService {
     /**
      * End the game session.
      */
-    @Transactional
     public GameSessionDto endGame(String sessionCode, String teacherId) {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null) {
@@ -349,28 +529,7 @@ public class GameSessionService {
             throw new SecurityException("Only the session creator can end the game");
         }
 
-        activeSession.setStatus(GameSessionStatus.ENDED);
-
-        // Update database
-        GameSessionEntity entity = activeSession.getSessionEntity();
-        entity.setStatus(GameSessionStatus.ENDED);
-        entity.setEndedAt(LocalDateTime.now());
-        sessionRepository.save(entity);
-
-        // Get final results
-        List<PlayerDto> finalLeaderboard = getLeaderboard(sessionCode);
-
-        // Broadcast game end
-        GameEvent endEvent = GameEvent.gameEnded(sessionCode, finalLeaderboard);
-        broadcastToSession(sessionCode, endEvent);
-
-        // Clean up
-        activeSessions.remove(sessionCode);
-        hackAttemptTracker.remove(sessionCode);
-
-        logger.info("Game ended for session {}", sessionCode);
-
-        return toDto(entity);
+        return finishSession(activeSession);
     }
 
     /**
@@ -382,11 +541,9 @@ public class GameSessionService {
             return Collections.emptyList();
         }
 
-        List<GamePlayerEntity> players = activeSession.getPlayers().stream()
-            .sorted((a, b) -> b.getCredits().compareTo(a.getCredits()))
-            .toList();
+        List<GamePlayerEntity> players = activeSession.getRankedPlayers();
 
-        List<PlayerDto> leaderboard = new ArrayList<>();
+        List<PlayerDto> leaderboard = new ArrayList<>(players.size());
         int rank = 1;
         for (GamePlayerEntity player : players) {
             PlayerDto dto = toPlayerDto(player);
@@ -397,6 +554,128 @@ public class GameSessionService {
         return leaderboard;
     }
 
+    /**
+     * Full copy of the last broadcast leaderboard with its version, for clients
+     * that joined late or missed a delta.
+     */
+    public LeaderboardUpdate getLeaderboardSnapshot(String sessionCode) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            return LeaderboardUpdate.snapshot(0, Collections.emptyList());
+        }
+        return activeSession.getLeaderboardTracker().snapshot();
+    }
+
+    /**
+     * Broadcast tick: publish at most one leaderboard delta per changed session,
+     * however many credit changes happened since the last tick.
+     */
+    @Scheduled(fixedDelayString = "${heronix.game.leaderboard.broadcast-interval-ms:250}")
+    public void publishDirtyLeaderboards() {
+        for (ActiveGameSession activeSession : activeSessions.values()) {
+            if (activeSession.takeLeaderboardDirty()) {
+                String sessionCode = activeSession.getSessionCode();
+                executeInSession(sessionCode, () -> {
+                    publishLeaderboard(sessionCode);
+                    return null;
+                }).exceptionally(e -> {
+                    activeSession.markLeaderboardDirty();  // mailbox busy, retry next tick
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Teacher feed tick: one answer summary per session that had answers since
+     * the last tick, however many there were.
+     */
+    @Scheduled(fixedDelayString = "${heronix.game.teacher-feed.interval-ms:1000}")
+    public void publishTeacherFeeds() {
+        if (!teacherFeed.isEnabled()) {
+            return;
+        }
+        for (ActiveGameSession activeSession : activeSessions.values()) {
+            AnswerFeed feed = activeSession.getAnswerFeed();
+            if (feed != null && feed.takeDirty()) {
+                executeInSession(activeSession.getSessionCode(), () -> {
+                    publishAnswerSummary(activeSession);
+                    return null;
+                }).exceptionally(e -> {
+                    feed.markDirty();  // mailbox busy, retry next tick
+                    return null;
+                });
+            }
+        }
+    }
+
+    /**
+     * Rebuild sessions that were live when the server stopped, from their journals.
+     * Recovered players are re-saved by the write-behind, since the database may
+     * lag the journal by up to one flush interval.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void recoverSessions() {
+        long start = System.nanoTime();
+        int recovered = 0;
+
+        for (Map.Entry<String, List<JournalEvent>> journal : sessionJournal.readAll().entrySet()) {
+            String sessionCode = journal.getKey();
+            if (activeSessions.containsKey(sessionCode)) {
+                continue;
+            }
+
+            SessionMailbox mailbox = sessionEngine.openMailbox(sessionCode);
+            ActiveGameSession activeSession;
+            try {
+                activeSession = SessionRecovery.restore(journal.getValue(), questionBankCache::get, mailbox);
+            } catch (RuntimeException e) {
+                logger.error("Cannot replay journal of session {}", sessionCode, e);
+                activeSession = null;
+            }
+            if (activeSession == null) {
+                // Ended or unreadable: nothing to resume
+                mailbox.close();
+                sessionJournal.remove(sessionCode);
+                continue;
+            }
+
+            // Shields that ran out while the server was down are dropped
+            long now = timingWheel.now();
+            for (GamePlayerEntity player : activeSession.getPlayers()) {
+                Long shieldUntil = activeSession.getShieldUntil(player.getPlayerId());
+                if (shieldUntil != null && shieldUntil <= now) {
+                    activeSession.removeShield(player.getPlayerId());
+                } else if (shieldUntil != null) {
+                    scheduleShieldExpiry(activeSession, player.getPlayerId(), shieldUntil);
+                }
+            }
+            activeSession.touch(now);
+            scheduleIdleCheck(activeSession, idleTimeoutMs);
+
+            // Compact so the next crash replays from here
+            snapshotToJournal(activeSession);
+            for (GamePlayerEntity player : activeSession.getPlayers()) {
+                playerStateWriter.markDirty(player);
+            }
+            activeSession.markLeaderboardDirty();
+            eventRecorder.open(sessionCode);
+            for (GamePlayerEntity player : activeSession.getPlayers()) {
+                eventRecorder.register(sessionCode, player.getPlayerId());
+            }
+            activeSessions.put(sessionCode, activeSession);
+            recovered++;
+
+            logger.info("Recovered session {} ({}, {} players)", sessionCode,
+                activeSession.getStatus(), activeSession.getPlayers().size());
+        }
+
+        if (recovered > 0) {
+            logger.info("Recovered {} live sessions from the journal in {} ms",
+                recovered, (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
     /**
      * Get session info.
      */
@@ -406,7 +685,7 @@ public class GameSessionService {
             return toDto(activeSession.getSessionEntity());
         }
 
-        return sessionRepository.findById(sessionCode)
+        return databaseGate.call(() -> sessionRepository.findById(sessionCode))
             .map(this::toDto)
             .orElse(null);
     }
@@ -415,14 +694,219 @@ public class GameSessionService {
      * Get teacher's sessions.
      */
     public List<GameSessionDto> getTeacherSessions(String teacherId) {
-        return sessionRepository.findByTeacherIdOrderByCreatedAtDesc(teacherId)
+        return databaseGate.call(() -> sessionRepository.findByTeacherIdOrderByCreatedAtDesc(teacherId))
             .stream()
             .map(this::toDto)
             .toList();
     }
 
+    /**
+     * Let queued session actions finish, then write out their player state.
+     */
+    @PreDestroy
+    public void shutdown() {
+        sessionEngine.shutdown();
+        playerStateWriter.flush();
+        sessionJournal.flush();
+    }
+
     // Private helper methods
 
+    /**
+     * End a session, whether the teacher ended it or it timed out.
+     */
+    private GameSessionDto finishSession(ActiveGameSession activeSession) {
+        String sessionCode = activeSession.getSessionCode();
+        activeSession.setStatus(GameSessionStatus.ENDED);
+        activeSession.cancelTimers();
+        for (PendingJoin join : activeSession.takePendingJoins(timingWheel.now())) {
+            join.response().complete(JoinSessionResponse.error("Session not found"));
+        }
+
+        // Update database
+        GameSessionEntity entity = activeSession.getSessionEntity();
+        entity.setStatus(GameSessionStatus.ENDED);
+        entity.setEndedAt(LocalDateTime.now());
+        databaseGate.run(() -> sessionRepository.save(entity));
+        journal(activeSession, new JournalEvent.Ended(System.currentTimeMillis()));
+
+        // Answers since the last feed tick still reach the teacher
+        AnswerFeed feed = activeSession.getAnswerFeed();
+        if (feed != null && feed.getPendingAnswers() > 0) {
+            publishAnswerSummary(activeSession);
+        }
+
+        // Get final results
+        List<PlayerDto> finalLeaderboard = getLeaderboard(sessionCode);
+
+        // Broadcast game end
+        GameEvent endEvent = GameEvent.gameEnded(sessionCode, finalLeaderboard);
+        broadcastToSession(sessionCode, endEvent);
+
+        // Persist final player state before the session leaves memory. Unwritten
+        // snapshots stay queued for the timer, so a failure must not keep the
+        // session from being torn down.
+        try {
+            playerStateWriter.flush(activeSession.getPlayers().stream()
+                .map(GamePlayerEntity::getPlayerId)
+                .toList());
+        } catch (RuntimeException e) {
+            logger.error("Could not write final player state for session {}, will retry", sessionCode, e);
+        }
+        sessionJournal.remove(sessionCode);
+
+        // Clean up
+        activeSessions.remove(sessionCode);
+        eventRecorder.close(sessionCode);
+        joinAdmission.forget(sessionCode);
+        activeSession.getMailbox().close();
+
+        logger.info("Game ended for session {}", sessionCode);
+
+        return toDto(entity);
+    }
+
+    /**
+     * Apply one join straight away, without batching.
+     */
+    private void applyJoin(String sessionCode, PendingJoin join) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            join.response().complete(JoinSessionResponse.error("Session not found"));
+            return;
+        }
+        joinPlayers(activeSession, List.of(join));
+    }
+
+    /**
+     * Add an admitted join to the session's batch. The batch is applied now if it
+     * is full or is the first join since the last batch window; otherwise when
+     * the window closes.
+     */
+    private void queueJoin(String sessionCode, PendingJoin join) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            join.response().complete(JoinSessionResponse.error("Session not found"));
+            return;
+        }
+
+        int waiting = activeSession.queueJoin(join);
+        long sinceLastBatch = timingWheel.now() - activeSession.getLastJoinBatchAt();
+        if (waiting >= joinAdmission.getMaxBatch()
+                || (waiting == 1 && sinceLastBatch >= joinAdmission.getBatchWindowMs())) {
+            flushJoins(activeSession);
+        } else if (!activeSession.hasJoinTimer()) {
+            activeSession.setJoinTimer(timingWheel.schedule(joinAdmission.getBatchWindowMs(),
+                timer -> runTimer(sessionCode, () -> {
+                    if (activeSessions.get(sessionCode) == activeSession) {
+                        flushJoins(activeSession);
+                    }
+                })));
+        }
+    }
+
+    private void flushJoins(ActiveGameSession activeSession) {
+        List<PendingJoin> batch = activeSession.takePendingJoins(timingWheel.now());
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            joinPlayers(activeSession, batch);
+        } catch (RuntimeException e) {
+            logger.error("Join batch of {} for session {} failed", batch.size(), activeSession.getSessionCode(), e);
+            for (PendingJoin join : batch) {
+                join.response().complete(JoinSessionResponse.error("Could not join the session"));
+            }
+        }
+    }
+
+    /**
+     * Apply a batch of joins: one save for all the new players, one announcement
+     * to the session and to the teacher, then each join's response.
+     */
+    private void joinPlayers(ActiveGameSession activeSession, List<PendingJoin> joins) {
+        String sessionCode = activeSession.getSessionCode();
+        List<PendingJoin> accepted = new ArrayList<>(joins.size());
+        List<GamePlayerEntity> players = new ArrayList<>(joins.size());
+        Set<String> studentIds = new HashSet<>();
+
+        for (PendingJoin join : joins) {
+            JoinSessionRequest request = join.request();
+            if (activeSession.getStatus() != GameSessionStatus.WAITING) {
+                join.response().complete(JoinSessionResponse.error("Game has already started"));
+            } else if (activeSession.hasPlayer(request.getStudentId()) || !studentIds.add(request.getStudentId())) {
+                // Already in the session, or joining twice in this batch
+                join.response().complete(JoinSessionResponse.error("Already joined this session"));
+            } else {
+                GamePlayerEntity player = new GamePlayerEntity(join.playerId(), request.getStudentId(),
+                    request.getStudentName());
+                player.setSecretCode(request.getSecretCode());
+                player.setAvatarId(request.getAvatarId() != null ? request.getAvatarId() : "ROOKIE_ROBOT");
+                player.setSession(activeSession.getSessionEntity());
+                accepted.add(join);
+                players.add(player);
+            }
+        }
+        if (players.isEmpty()) {
+            return;
+        }
+
+        try {
+            databaseGate.run(() -> {
+                if (players.size() == 1) {
+                    playerRepository.save(players.get(0));
+                } else {
+                    playerRepository.saveAll(players);
+                }
+            });
+        } catch (RuntimeException e) {
+            logger.warn("Could not save {} joining players in session {}: {}", players.size(), sessionCode,
+                e.getMessage());
+            for (PendingJoin join : accepted) {
+                join.response().complete(JoinSessionResponse.retryLater("Could not join right now, try again shortly",
+                    joinAdmission.getBatchWindowMs()));
+            }
+            return;
+        }
+
+        activeSession.touch(timingWheel.now());
+        List<GameEvent.JoinedPlayer> joined = new ArrayList<>(players.size());
+        for (GamePlayerEntity player : players) {
+            activeSession.addPlayer(player);
+            eventRecorder.register(sessionCode, player.getPlayerId());
+            journal(activeSession, new JournalEvent.Joined(player.getPlayerId(), player.getStudentId(),
+                player.getStudentName(), player.getSecretCode(), player.getAvatarId(), System.currentTimeMillis()));
+            joined.add(new GameEvent.JoinedPlayer(player.getPlayerId(), player.getStudentName(), player.getAvatarId()));
+        }
+        activeSession.markLeaderboardDirty();
+        joinAdmission.recordBatch(players.size());
+
+        // Notify other players and teacher, once for the whole batch
+        GamePlayerEntity first = players.get(0);
+        GameEvent joinEvent = players.size() == 1
+            ? GameEvent.playerJoined(sessionCode, first.getPlayerId(), first.getStudentName())
+            : GameEvent.playersJoined(sessionCode, joined, activeSession.getPlayerCount());
+        broadcastToSession(sessionCode, joinEvent);
+        notifyTeacher(sessionCode, joinEvent);
+
+        // Each new player gets everyone else in the session
+        List<PlayerDto> roster = activeSession.getPlayers().stream().map(this::toPlayerDto).toList();
+        for (int i = 0; i < players.size(); i++) {
+            String playerId = players.get(i).getPlayerId();
+            List<PlayerDto> otherPlayers = roster.stream()
+                .filter(p -> !p.getPlayerId().equals(playerId))
+                .toList();
+            accepted.get(i).response().complete(JoinSessionResponse.success(playerId, sessionCode,
+                activeSession.getGameType(), otherPlayers));
+        }
+
+        if (players.size() == 1) {
+            logger.info("Player {} joined session {}", first.getStudentName(), sessionCode);
+        } else {
+            logger.info("{} players joined session {} in one batch", players.size(), sessionCode);
+        }
+    }
+
     private String generateSessionCode() {
         SecureRandom random = new SecureRandom();
         StringBuilder code = new StringBuilder(SESSION_CODE_LENGTH);
@@ -436,26 +920,192 @@ public class GameSessionService {
         ActiveGameSession activeSession = activeSessions.get(sessionCode);
         if (activeSession == null) return;
 
-        QuestionEntity question = activeSession.getNextQuestion(playerId);
+        sendNextQuestion(activeSession, activeSession.getSlot(playerId), playerId);
+    }
+
+    private void sendNextQuestion(ActiveGameSession activeSession, int slot, String playerId) {
+        sendNextQuestion(activeSession, slot, playerId, null);
+    }
+
+    /**
+     * Move the player on to their next question and start its deadline.
+     *
+     * A client that takes piggybacked questions gets it inside {@code result}
+     * when there is one, or as a short reveal if it was handed out with the last
+     * answer result; anyone else gets the full question on /queue/question.
+     */
+    private void sendNextQuestion(ActiveGameSession activeSession, int slot, String playerId, AnswerResult result) {
+        String sessionCode = activeSession.getSessionCode();
+        BankQuestion question = activeSession.getNextQuestion(slot);
         if (question == null) {
             // No more questions - cycle back
-            activeSession.resetQuestionIndex(playerId);
-            question = activeSession.getNextQuestion(playerId);
+            activeSession.resetQuestionIndex(slot);
+            question = activeSession.getNextQuestion(slot);
         }
 
         if (question != null) {
-            QuestionDto dto = new QuestionDto();
-            dto.setQuestionId(question.getQuestionId());
-            dto.setQuestionText(question.getQuestionText());
-            dto.setAnswers(Arrays.asList(question.getAllAnswers()));
-            dto.setDifficulty(question.getDifficulty());
-            dto.setImageUrl(question.getImageUrl());
-            dto.setTimeLimitSeconds(15);  // 15 seconds per question
+            int questionNumber = activeSession.getQuestionNumber(slot);
+            journal(activeSession, new JournalEvent.QuestionSent(playerId, questionNumber));
+
+            String key = activeSession.takeHandedOut(slot, questionNumber);
+            if (result != null && activeSession.isPiggybacking(slot)) {
+                result.setNextQuestion(questionJson(activeSession, playerId, question, questionNumber));
+            } else if (key != null) {
+                messagingTemplate.send(userDestination(playerId, "/queue/question"), questionPayloadEncoder.toMessage(
+                    questionPayloadEncoder.reveal(questionNumber, playerId, question.getQuestionId(), key)));
+            } else {
+                sendQuestion(activeSession, playerId, question, questionNumber);
+            }
+
+            // Server-side deadline; the client's own timer normally answers first
+            activeSession.setQuestionTimer(slot, timingWheel.schedule(questionDeadlineMs,
+                timer -> runTimer(sessionCode, () -> expireQuestion(sessionCode, playerId, timer))));
+        }
+    }
+
+    /**
+     * After a correct answer, give a piggybacking client the question it will get
+     * once it has picked its reward, sealed until then. Nothing moves on yet: the
+     * reward or the hack that follows sends the key as a reveal and starts the
+     * deadline, so the question cannot be read while no clock is running.
+     */
+    private void handOutNextQuestion(ActiveGameSession activeSession, int slot, String playerId,
+                                     AnswerResult result) {
+        if (!activeSession.isPiggybacking(slot)) {
+            return;
+        }
+        BankQuestion next = activeSession.peekNextQuestion(slot);
+        if (next != null) {
+            int questionNumber = activeSession.peekNextQuestionNumber(slot);
+            QuestionPayloadEncoder.SealedQuestion sealed =
+                questionPayloadEncoder.seal(questionPayload(activeSession, playerId, next, questionNumber));
+            result.setSealedNextQuestion(sealed.payload());
+            activeSession.setHandedOut(slot, questionNumber, sealed.key());
+        }
+    }
+
+    private void sendQuestion(ActiveGameSession activeSession, String playerId, BankQuestion question,
+                              int questionNumber) {
+        messagingTemplate.send(userDestination(playerId, "/queue/question"),
+            questionPayloadEncoder.toMessage(questionPayload(activeSession, playerId, question, questionNumber)));
+    }
+
+    private byte[] questionPayload(ActiveGameSession activeSession, String playerId, BankQuestion question,
+                                   int questionNumber) {
+        // Same encoded body for every player in the session; only the envelope differs
+        byte[] body = activeSession.getQuestionPayload(question, q -> questionPayloadEncoder.encodeBody(q,
+            activeSession.getUpcomingQuestions(q, questionPayloadEncoder.getPrefetchAhead())));
+        return questionPayloadEncoder.withEnvelope(body, questionNumber, playerId);
+    }
+
+    private String questionJson(ActiveGameSession activeSession, String playerId, BankQuestion question,
+                                int questionNumber) {
+        return new String(questionPayload(activeSession, playerId, question, questionNumber), StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Hand a fired timer to the session's event loop.
+     */
+    private void runTimer(String sessionCode, Runnable action) {
+        executeInSession(sessionCode, () -> {
+            action.run();
+            return null;
+        }).exceptionally(e -> {
+            logger.warn("Timer for session {} dropped: {}", sessionCode, e.getMessage());
+            return null;
+        });
+    }
+
+    private void scheduleShieldExpiry(ActiveGameSession activeSession, String playerId, long shieldUntil) {
+        activeSession.setShieldTimer(playerId, timingWheel.schedule(shieldUntil - timingWheel.now(),
+            timer -> runTimer(activeSession.getSessionCode(), () -> activeSession.expireShield(playerId, timer))));
+    }
 
-            messagingTemplate.convertAndSendToUser(playerId, "/queue/question", dto);
+    /**
+     * The player let the question run out: count it as a wrong answer and move on.
+     */
+    private void expireQuestion(String sessionCode, String playerId, TimingWheel.Timeout timer) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null || activeSession.getStatus() != GameSessionStatus.ACTIVE
+                || !activeSession.takeQuestionTimer(playerId, timer)) {
+            return;
+        }
+
+        GamePlayerEntity player = activeSession.getPlayer(playerId);
+        BankQuestion question = activeSession.getCurrentQuestion(playerId);
+        if (player == null || question == null) {
+            return;
+        }
+
+        player.incrementIncorrectAnswers();
+        playerStateWriter.markDirty(player);
+        journal(activeSession, new JournalEvent.Answered(playerId, question.getQuestionId(), false));
+        notifyTeacherOfAnswer(activeSession, player, question, false, true, questionDeadlineMs);
+
+        AnswerResult result = AnswerResult.incorrect(question.getCorrectAnswer(), question.getExplanation());
+        int slot = activeSession.getSlot(playerId);
+        if (activeSession.isPiggybacking(slot)) {
+            sendNextQuestion(activeSession, slot, playerId, result);
+            messagingTemplate.convertAndSendToUser(playerId, "/queue/answer-result", result);
+        } else {
+            messagingTemplate.convertAndSendToUser(playerId, "/queue/answer-result", result);
+            sendNextQuestion(activeSession, slot, playerId);
         }
     }
 
+    private void scheduleIdleCheck(ActiveGameSession activeSession, long delayMs) {
+        String sessionCode = activeSession.getSessionCode();
+        activeSession.setIdleTimer(timingWheel.schedule(delayMs,
+            timer -> runTimer(sessionCode, () -> checkIdle(sessionCode))));
+    }
+
+    /**
+     * End a session nobody has touched for the idle timeout, otherwise check again
+     * when it could next run out.
+     */
+    private void checkIdle(String sessionCode) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) {
+            return;
+        }
+
+        long idle = timingWheel.now() - activeSession.getLastActivityAt();
+        if (idle < idleTimeoutMs) {
+            scheduleIdleCheck(activeSession, idleTimeoutMs - idle);
+            return;
+        }
+
+        logger.info("Session {} idle for {} minutes, ending it", sessionCode, idle / 60_000);
+        finishSession(activeSession);
+    }
+
+    /**
+     * Record a state change; every {@code snapshot-every} events the journal is
+     * compacted into a snapshot.
+     */
+    private void journal(ActiveGameSession activeSession, JournalEvent event) {
+        if (!sessionJournal.isEnabled()) {
+            return;
+        }
+        sessionJournal.append(activeSession.getSessionCode(), event);
+        if (activeSession.countJournalEvent() >= sessionJournal.getSnapshotEvery()
+                || sessionJournal.takeSnapshotRequest(activeSession.getSessionCode())) {
+            snapshotToJournal(activeSession);
+        }
+    }
+
+    private void snapshotToJournal(ActiveGameSession activeSession) {
+        if (sessionJournal.isEnabled()) {
+            sessionJournal.snapshot(activeSession.getSessionCode(), SessionRecovery.snapshot(activeSession));
+            activeSession.resetJournalCount();
+        }
+    }
+
+    private static String userDestination(String user, String destination) {
+        // Same encoding SimpMessagingTemplate.convertAndSendToUser applies
+        return "/user/" + user.replace("/", "%2F") + destination;
+    }
+
     private void broadcastToSession(String sessionCode, Object message) {
         messagingTemplate.convertAndSend("/topic/session/" + sessionCode, message);
     }
@@ -471,7 +1121,22 @@ public class GameSessionService {
         }
     }
 
-    private void notifyTeacherOfAnswer(String sessionCode, GamePlayerEntity player, boolean correct) {
+    /**
+     * Tell the teacher about an answer: straight away, or gathered into the
+     * session's next answer summary when the teacher feed is on.
+     */
+    private void notifyTeacherOfAnswer(ActiveGameSession activeSession, GamePlayerEntity player,
+                                       BankQuestion question, boolean correct, boolean expired, long responseMs) {
+        if (teacherFeed.isEnabled()) {
+            AnswerFeed feed = activeSession.getAnswerFeed();
+            if (feed == null) {
+                feed = teacherFeed.newFeed();
+                activeSession.setAnswerFeed(feed);
+            }
+            feed.record(player, question.getQuestionId(), correct, expired, responseMs);
+            return;
+        }
+
         Map<String, Object> data = new HashMap<>();
         data.put("type", correct ? "ANSWER_CORRECT" : "ANSWER_INCORRECT");
         data.put("playerId", player.getPlayerId());
@@ -480,7 +1145,46 @@ public class GameSessionService {
         data.put("incorrectAnswers", player.getIncorrectAnswers());
         data.put("accuracy", player.getAccuracy());
 
-        notifyTeacher(sessionCode, data);
+        notifyTeacher(activeSession.getSessionCode(), data);
+        teacherFeed.recordMessage(1, 0);
+    }
+
+    /**
+     * Send the teacher what the session's feed gathered since the last summary,
+     * with the players who have sat on a question for longer than an interval.
+     */
+    private void publishAnswerSummary(ActiveGameSession activeSession) {
+        AnswerFeed feed = activeSession.getAnswerFeed();
+        if (feed == null) {
+            return;
+        }
+        AnswerSummary summary = feed.summarize(activeSession.getSessionCode(), activeSession.getPlayerCount());
+
+        long now = timingWheel.now();
+        List<AnswerSummary.WaitingPlayer> waiting = new ArrayList<>();
+        for (int slot = 0; slot < activeSession.getPlayerCount(); slot++) {
+            long deadline = activeSession.getQuestionDeadline(slot);
+            long waitingMs = now - (deadline - questionDeadlineMs);
+            if (deadline > 0 && waitingMs >= teacherFeed.getIntervalMs()) {
+                GamePlayerEntity player = activeSession.getPlayer(slot);
+                waiting.add(new AnswerSummary.WaitingPlayer(player.getPlayerId(), player.getStudentName(), waitingMs));
+            }
+        }
+        waiting.sort((a, b) -> Long.compare(b.waitingMs, a.waitingMs));
+        summary.setWaitingCount(waiting.size());
+        summary.setWaiting(new ArrayList<>(waiting.subList(0, Math.min(teacherFeed.getMaxWaiting(), waiting.size()))));
+
+        notifyTeacher(activeSession.getSessionCode(), summary);
+        teacherFeed.recordMessage(summary.getAnswers(), summary.getEventsDropped());
+    }
+
+    /**
+     * How long the player has had their open question, or -1 if it was sent
+     * before a restart and has no deadline to go by.
+     */
+    private long responseTime(ActiveGameSession activeSession, int slot) {
+        long deadline = activeSession.getQuestionDeadline(slot);
+        return deadline > 0 ? Math.max(0, timingWheel.now() - (deadline - questionDeadlineMs)) : -1;
     }
 
     private void notifyPlayerHacked(String sessionCode, String playerId, String hackerName, int creditsLost) {
@@ -493,41 +1197,79 @@ public class GameSessionService {
         messagingTemplate.convertAndSendToUser(playerId, "/queue/hacked", data);
     }
 
-    private void broadcastLeaderboard(String sessionCode) {
-        List<LeaderboardEntry> leaderboard = getLeaderboard(sessionCode).stream()
-            .map(p -> {
-                LeaderboardEntry entry = new LeaderboardEntry();
-                entry.setRank(p.getRank());
-                entry.setPlayerId(p.getPlayerId());
-                entry.setStudentName(p.getStudentName());
-                entry.setAvatarId(p.getAvatarId());
-                entry.setCredits(p.getCredits());
-                entry.setCorrectAnswers(p.getCorrectAnswers());
-                entry.setSuccessfulHacks(p.getSuccessfulHacks());
-                return entry;
-            })
-            .toList();
+    /**
+     * Publish the leaderboard delta for one session. Above the large-session
+     * threshold the topic carries only the top of the board, and each player is
+     * sent their own rank and nearest neighbours instead, so a tick costs
+     * O(players) bytes rather than O(players^2).
+     */
+    private void publishLeaderboard(String sessionCode) {
+        ActiveGameSession activeSession = activeSessions.get(sessionCode);
+        if (activeSession == null) return;
 
-        broadcastToSession(sessionCode, Map.of("type", "LEADERBOARD_UPDATE", "leaderboard", leaderboard));
-    }
+        List<GamePlayerEntity> ranked = activeSession.getRankedPlayers();
+        List<LeaderboardEntry> leaderboard = new ArrayList<>(ranked.size());
+        for (int i = 0; i < ranked.size(); i++) {
+            leaderboard.add(toLeaderboardEntry(ranked.get(i), i + 1));
+        }
 
-    private int recordFailedHackAttempt(String sessionCode, String hackerId, String targetId) {
-        return hackAttemptTracker
-            .computeIfAbsent(sessionCode, k -> new ConcurrentHashMap<>())
-            .computeIfAbsent(hackerId, k -> new ConcurrentHashMap<>())
-            .merge(targetId, 1, Integer::sum);
+        LeaderboardDeltaTracker tracker = activeSession.getLeaderboardTracker();
+        if (ranked.size() <= largeSessionThreshold) {
+            LeaderboardUpdate delta = tracker.nextDelta(leaderboard);
+            if (delta != null) {
+                broadcastToSession(sessionCode, delta);
+            }
+            return;
+        }
+
+        List<LeaderboardEntry> top = leaderboard.subList(0, Math.min(leaderboardTopN, leaderboard.size()));
+        LeaderboardUpdate delta = tracker.nextDelta(new ArrayList<>(top), ranked.size());
+        if (delta != null) {
+            broadcastToSession(sessionCode, delta);
+        }
+        publishStandings(activeSession, leaderboard, tracker.getVersion());
     }
 
-    private void clearHackAttempts(String sessionCode, String hackerId, String targetId) {
-        Map<String, Map<String, Integer>> sessionAttempts = hackAttemptTracker.get(sessionCode);
-        if (sessionAttempts != null) {
-            Map<String, Integer> hackerAttempts = sessionAttempts.get(hackerId);
-            if (hackerAttempts != null) {
-                hackerAttempts.remove(targetId);
+    /**
+     * Send each player whose rank, credits or neighbours changed since their
+     * last push their own slice of the ranked board.
+     */
+    private void publishStandings(ActiveGameSession activeSession, List<LeaderboardEntry> leaderboard,
+                                  long version) {
+        int total = leaderboard.size();
+        for (int i = 0; i < total; i++) {
+            LeaderboardEntry entry = leaderboard.get(i);
+            int from = Math.max(0, i - leaderboardNeighbours);
+            int to = Math.min(total, i + leaderboardNeighbours + 1);
+
+            long signature = i;
+            for (int j = from; j < to; j++) {
+                LeaderboardEntry row = leaderboard.get(j);
+                signature = signature * 0x9E3779B97F4A7C15L + row.getPlayerId().hashCode();
+                signature = signature * 31 + Objects.hashCode(row.getCredits());
+                signature = signature * 31 + Objects.hashCode(row.getCorrectAnswers());
+            }
+            int slot = activeSession.getSlot(entry.getPlayerId());
+            if (activeSession.takeStandingChange(slot, signature == 0 ? 1 : signature)) {
+                RankUpdate standing = new RankUpdate(version, i + 1, entry.getCredits(), total,
+                    new ArrayList<>(leaderboard.subList(from, to)));
+                messagingTemplate.convertAndSendToUser(entry.getPlayerId(), "/queue/rank", standing);
             }
         }
     }
 
+    private LeaderboardEntry toLeaderboardEntry(GamePlayerEntity player, int rank) {
+        LeaderboardEntry entry = new LeaderboardEntry();
+        entry.setRank(rank);
+        entry.setPlayerId(player.getPlayerId());
+        entry.setStudentName(player.getStudentName());
+        entry.setAvatarId(player.getAvatarId());
+        entry.setCredits(player.getCredits());
+        entry.setCorrectAnswers(player.getCorrectAnswers());
+        entry.setSuccessfulHacks(player.getSuccessfulHacks());
+        return entry;
+    }
+
     private String generateHint(String secretCode, int revealCount) {
         if (secretCode == null || secretCode.isEmpty()) return null;
 
@@ -605,110 +1347,4 @@ public class GameSessionService {
         dto.setJoinedAt(entity.getJoinedAt());
         return dto;
     }
-
-    /**
-     * Inner class to track active session state in memory.
-     */
-    private static class ActiveGameSession {
-        private final GameSessionEntity sessionEntity;
-        private final List<QuestionEntity> questions;
-        private final Map<String, GamePlayerEntity> players = new ConcurrentHashMap<>();
-        private final Map<String, Integer> playerQuestionIndex = new ConcurrentHashMap<>();
-        private final Map<String, Long> playerShields = new ConcurrentHashMap<>();  // playerId -> shield expiry time
-        private GameSessionStatus status;
-        private LocalDateTime startedAt;
-
-        public ActiveGameSession(GameSessionEntity entity, List<QuestionEntity> questions) {
-            this.sessionEntity = entity;
-            this.questions = new ArrayList<>(questions);
-            Collections.shuffle(this.questions);  // Randomize question order
-            this.status = entity.getStatus();
-        }
-
-        public GameSessionEntity getSessionEntity() {
-            return sessionEntity;
-        }
-
-        public String getTeacherId() {
-            return sessionEntity.getTeacherId();
-        }
-
-        public String getGameType() {
-            return sessionEntity.getGameType();
-        }
-
-        public GameSessionStatus getStatus() {
-            return status;
-        }
-
-        public void setStatus(GameSessionStatus status) {
-            this.status = status;
-            sessionEntity.setStatus(status);
-        }
-
-        public Integer getTimeLimitSeconds() {
-            return sessionEntity.getTimeLimitSeconds();
-        }
-
-        public LocalDateTime getStartedAt() {
-            return startedAt;
-        }
-
-        public void setStartedAt(LocalDateTime startedAt) {
-            this.startedAt = startedAt;
-        }
-
-        public void addPlayer(GamePlayerEntity player) {
-            players.put(player.getPlayerId(), player);
-            playerQuestionIndex.put(player.getPlayerId(), 0);
-        }
-
-        public boolean hasPlayer(String studentId) {
-            return players.values().stream()
-                .anyMatch(p -> p.getStudentId().equals(studentId));
-        }
-
-        public GamePlayerEntity getPlayer(String playerId) {
-            return players.get(playerId);
-        }
-
-        public Collection<GamePlayerEntity> getPlayers() {
-            return players.values();
-        }
-
-        public QuestionEntity getCurrentQuestion(String playerId) {
-            int index = playerQuestionIndex.getOrDefault(playerId, 0);
-            if (index < questions.size()) {
-                return questions.get(index);
-            }
-            return null;
-        }
-
-        public QuestionEntity getNextQuestion(String playerId) {
-            int index = playerQuestionIndex.merge(playerId, 1, Integer::sum) - 1;
-            if (index < questions.size()) {
-                return questions.get(index);
-            }
-            return null;
-        }
-
-        public void resetQuestionIndex(String playerId) {
-            playerQuestionIndex.put(playerId, 0);
-        }
-
-        public void setPlayerShield(String playerId, int durationSeconds) {
-            long expiryTime = System.currentTimeMillis() + (durationSeconds * 1000L);
-            playerShields.put(playerId, expiryTime);
-        }
-
-        public boolean hasShield(String playerId) {
-            Long expiry = playerShields.get(playerId);
-            if (expiry == null) return false;
-            if (System.currentTimeMillis() > expiry) {
-                playerShields.remove(playerId);
-                return false;
-            }
-            return true;
-        }
-    }
 }
@@ -0,0 +1,18 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.common.model.GameScore;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * A score upload accepted into the ingest log and waiting to be written to
+ * game_scores.
+ */
+public record QueuedUpload(
+        String syncId,
+        String deviceId,
+        List<GameScore> scores,
+        LocalDateTime receivedAt
+) {
+}
@@ -0,0 +1,119 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.server.repository.GameScoreRepository;
+import com.heronix.edu.server.util.BloomFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Bloom filter of every score id in game_scores, so duplicate detection for
+ * uploads only asks the database about ids that may already be there.
+ *
+ * Offline devices upload mostly new scores, whose ids the filter rules out
+ * without a query; retried uploads and the filter's false positives are looked
+ * up as before. The filter is loaded from the table once the application is up
+ * and every score saved through {@link GameScoreService} is added to it; until
+ * loading finishes every id counts as possibly present.
+ *
+ * Scores written to game_scores by anything else (another server instance, a
+ * manual import) are not seen, so turn the filter off
+ * ({@code heronix.sync.score-filter.enabled}) in such setups.
+ */
+@Component
+public class ScoreIdFilter {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreIdFilter.class);
+
+    private final GameScoreRepository gameScoreRepository;
+    private final boolean enabled;
+    private final BloomFilter filter;
+    private volatile boolean loaded;
+
+    private final AtomicLong checked = new AtomicLong();
+    private final AtomicLong ruledOut = new AtomicLong();
+    private final AtomicLong lookedUp = new AtomicLong();
+    private final AtomicLong found = new AtomicLong();
+
+    @Autowired
+    public ScoreIdFilter(GameScoreRepository gameScoreRepository,
+                         @Value("${heronix.sync.score-filter.enabled:true}") boolean enabled,
+                         @Value("${heronix.sync.score-filter.expected-scores:1000000}") long expectedScores,
+                         @Value("${heronix.sync.score-filter.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.gameScoreRepository = gameScoreRepository;
+        this.enabled = enabled;
+        this.filter = enabled ? new BloomFilter(expectedScores, falsePositiveRate) : null;
+    }
+
+    /**
+     * Add every stored score id. Ids saved meanwhile are added by the service,
+     * so the filter is complete once this returns.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional(readOnly = true)
+    public void load() {
+        if (!enabled) {
+            return;
+        }
+        long start = System.nanoTime();
+        long before = filter.getAddedCount();
+        try (Stream<String> scoreIds = gameScoreRepository.streamAllScoreIds()) {
+            scoreIds.forEach(filter::add);
+        }
+        loaded = true;
+        logger.info("Score id filter loaded with {} ids in {}ms ({} bits, {} hashes)",
+            filter.getAddedCount() - before,
+            (System.nanoTime() - start) / 1_000_000, filter.getBitCount(), filter.getHashCount());
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * False if no score with this id has been stored; true if one may have been.
+     */
+    public boolean mightExist(String scoreId) {
+        checked.incrementAndGet();
+        if (!enabled || !loaded || filter.mightContain(scoreId)) {
+            return true;
+        }
+        ruledOut.incrementAndGet();
+        return false;
+    }
+
+    public void add(String scoreId) {
+        if (enabled) {
+            filter.add(scoreId);
+        }
+    }
+
+    /**
+     * Count a database lookup of ids the filter could not rule out.
+     */
+    public void recordLookup(int ids, int existing) {
+        lookedUp.addAndGet(ids);
+        found.addAndGet(existing);
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("loaded", loaded);
+        stats.put("ids", enabled ? filter.getAddedCount() : 0);
+        stats.put("checked", checked.get());
+        stats.put("ruledOut", ruledOut.get());
+        stats.put("lookedUp", lookedUp.get());
+        stats.put("found", found.get());
+        return stats;
+    }
+}
@@ -0,0 +1,442 @@
+package com.heronix.edu.server.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.dto.response.SyncStatusResponse;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+/**
+ * Append-only log of queued score uploads, kept until each upload is in
+ * game_scores.
+ *
+ * An UPLOAD line holds the whole upload; a DONE line, written once it has been
+ * saved, holds its result. Appends are serialized by the caller and written by
+ * a single thread that fsyncs once per batch (group commit, as in
+ * SessionJournal); {@link #append} completes only after the fsync, so an
+ * upload acknowledged to a device survives a crash.
+ *
+ * Lines go to numbered segment files, rolled at {@code segment-bytes}. The
+ * oldest segments are deleted once every upload in them is done; a DONE line
+ * is never in an older segment than its UPLOAD, so deleting in order never
+ * resurrects a finished upload. On startup the segments are read back:
+ * uploads without a DONE line are handed to {@link ScoreIngestService} again
+ * and appends go to a fresh segment, never after a torn last line. For the
+ * same reason a failed write is cut back to the last fsync before anything
+ * else is appended.
+ */
+@Component
+public class ScoreIngestLog {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreIngestLog.class);
+
+    private static final String PREFIX = "ingest-";
+    private static final String SUFFIX = ".log";
+    private static final int MAX_BATCH = 4096;
+
+    private final ObjectMapper objectMapper;
+    private final Path directory;
+    private final long syncIntervalMs;
+    private final long segmentBytes;
+    private final Recovery recovery;
+
+    private final BlockingQueue<Command> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private volatile boolean running = true;
+
+    // Writer thread only, after the constructor
+    private final TreeMap<Long, Integer> openUploads = new TreeMap<>();
+    private final Map<String, Long> segmentOf = new HashMap<>();
+    private FileChannel active;
+    private long activeSegment;
+    private long activeBytes;
+
+    public ScoreIngestLog(ObjectMapper objectMapper,
+                          @Value("${heronix.sync.ingest.directory:./data/ingest}") String directory,
+                          @Value("${heronix.sync.ingest.sync-interval-ms:5}") long syncIntervalMs,
+                          @Value("${heronix.sync.ingest.segment-bytes:67108864}") long segmentBytes) {
+        this.objectMapper = objectMapper;
+        this.directory = Paths.get(directory);
+        this.syncIntervalMs = syncIntervalMs;
+        this.segmentBytes = segmentBytes;
+
+        try {
+            Files.createDirectories(this.directory);
+            this.recovery = recover();
+            openSegment(openUploads.isEmpty() ? 1 : openUploads.lastKey() + 1);
+            deleteFinishedSegments();
+        } catch (IOException e) {
+            throw new IllegalStateException("Cannot open score ingest log in " + directory, e);
+        }
+
+        this.writer = new Thread(this::runWriter, "score-ingest-log");
+        writer.setDaemon(true);
+        writer.start();
+        logger.info("Score ingest log at {} (sync every {}ms, {} uploads to resume)",
+            this.directory.toAbsolutePath(), syncIntervalMs, recovery.pending().size());
+    }
+
+    /**
+     * What was on disk at startup.
+     */
+    public Recovery recovered() {
+        return recovery;
+    }
+
+    /**
+     * Queue an upload for the log.
+     *
+     * @return completes once the upload is written and fsynced
+     */
+    public CompletableFuture<Void> append(QueuedUpload upload) {
+        CompletableFuture<Void> durable = new CompletableFuture<>();
+        if (!running) {
+            durable.completeExceptionally(new IOException("Score ingest log is closed"));
+            return durable;
+        }
+        queue.add(new Command(CommandType.UPLOAD, upload.syncId(), encode(new Entry("UPLOAD", upload, null, null)),
+            durable));
+        return durable;
+    }
+
+    /**
+     * Record that an upload has been saved, so it is not replayed.
+     */
+    public void complete(String syncId, SyncResponse result) {
+        if (running) {
+            queue.add(new Command(CommandType.DONE, syncId, encode(new Entry("DONE", null, syncId, result)), null));
+        }
+    }
+
+    /**
+     * Wait until everything queued so far is written and fsynced.
+     */
+    public void flush() {
+        if (!running) {
+            return;
+        }
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        queue.add(new Command(CommandType.SYNC, null, null, done));
+        try {
+            done.get(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException | TimeoutException e) {
+            logger.error("Score ingest log flush failed", e);
+        }
+    }
+
+    /**
+     * Stop after writing and syncing everything queued.
+     */
+    @PreDestroy
+    public void shutdown() {
+        if (!running) {
+            return;
+        }
+        flush();
+        halt();
+        logger.info("Score ingest log closed");
+    }
+
+    /**
+     * Stop the writer immediately, dropping anything not yet written, as a crash would.
+     */
+    public void halt() {
+        running = false;
+        writer.interrupt();
+        try {
+            writer.join(5000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        closeQuietly(active);
+        for (Command command : queue) {
+            if (command.durable != null) {
+                command.durable.completeExceptionally(new IOException("Score ingest log is closed"));
+            }
+        }
+        queue.clear();
+    }
+
+    /**
+     * Number of segment files on disk.
+     */
+    public int getSegmentCount() {
+        return segments().size();
+    }
+
+    private Recovery recover() throws IOException {
+        Map<String, QueuedUpload> pending = new LinkedHashMap<>();
+        Map<String, QueuedUpload> uploads = new HashMap<>();
+        List<SyncStatusResponse> completed = new ArrayList<>();
+
+        for (Map.Entry<Long, Path> segment : segments().entrySet()) {
+            openUploads.put(segment.getKey(), 0);
+            try (BufferedReader reader = Files.newBufferedReader(segment.getValue(), StandardCharsets.UTF_8)) {
+                String line;
+                int lineNo = 0;
+                while ((line = reader.readLine()) != null) {
+                    lineNo++;
+                    if (line.isBlank()) {
+                        continue;
+                    }
+                    Entry entry;
+                    try {
+                        entry = objectMapper.readValue(line, Entry.class);
+                    } catch (JsonProcessingException e) {
+                        // Only an unacknowledged append can be torn
+                        logger.warn("Ingest log {} line {} is unreadable, ignoring the rest",
+                            segment.getValue().getFileName(), lineNo);
+                        break;
+                    }
+                    if ("UPLOAD".equals(entry.type()) && entry.upload() != null) {
+                        pending.put(entry.upload().syncId(), entry.upload());
+                        uploads.put(entry.upload().syncId(), entry.upload());
+                        segmentOf.put(entry.upload().syncId(), segment.getKey());
+                        openUploads.merge(segment.getKey(), 1, Integer::sum);
+                    } else if ("DONE".equals(entry.type()) && pending.remove(entry.syncId()) != null) {
+                        openUploads.merge(segmentOf.remove(entry.syncId()), -1, Integer::sum);
+                        QueuedUpload upload = uploads.get(entry.syncId());
+                        completed.add(SyncStatusResponse.queued(upload.syncId(), upload.deviceId(),
+                            upload.scores().size(), upload.receivedAt()).finish(entry.result()));
+                    }
+                }
+            }
+        }
+        return new Recovery(List.copyOf(pending.values()), completed);
+    }
+
+    private SortedMap<Long, Path> segments() {
+        SortedMap<Long, Path> segments = new TreeMap<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                String name = file.getFileName().toString();
+                if (name.startsWith(PREFIX) && name.endsWith(SUFFIX)) {
+                    try {
+                        segments.put(Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length())),
+                            file);
+                    } catch (NumberFormatException ignored) {
+                        // not a segment
+                    }
+                }
+            });
+        } catch (IOException e) {
+            logger.error("Cannot list score ingest log segments in {}", directory, e);
+        }
+        return segments;
+    }
+
+    private byte[] encode(Entry entry) {
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(entry);
+            byte[] line = Arrays.copyOf(json, json.length + 1);
+            line[json.length] = '\n';
+            return line;
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot encode ingest log entry for " + entry.syncId(), e);
+        }
+    }
+
+    private void runWriter() {
+        List<Command> batch = new ArrayList<>();
+
+        while (running) {
+            try {
+                batch.add(queue.take());
+                // Let concurrent appends pile up so they share one fsync
+                if (syncIntervalMs > 0) {
+                    Thread.sleep(syncIntervalMs);
+                }
+                queue.drainTo(batch, MAX_BATCH);
+            } catch (InterruptedException e) {
+                break;
+            }
+
+            // Commands before synced are fsynced; those before written are accounted for
+            int synced = 0;
+            int written = 0;
+            long mark = activeBytes;
+            Map<String, Long> doneIn = new HashMap<>();
+            try {
+                for (Command command : batch) {
+                    switch (command.type) {
+                        case UPLOAD -> {
+                            if (activeBytes >= segmentBytes) {
+                                active.force(false);
+                                settle(batch.subList(synced, written));
+                                synced = written;
+                                closeQuietly(active);
+                                openSegment(activeSegment + 1);
+                                mark = 0;
+                            }
+                            write(command.line);
+                            segmentOf.put(command.syncId, activeSegment);
+                            openUploads.merge(activeSegment, 1, Integer::sum);
+                        }
+                        case DONE -> {
+                            write(command.line);
+                            Long segment = segmentOf.remove(command.syncId);
+                            if (segment != null) {
+                                openUploads.merge(segment, -1, Integer::sum);
+                                doneIn.put(command.syncId, segment);
+                            }
+                        }
+                        case SYNC -> {
+                            // completed with the batch below
+                        }
+                    }
+                    written++;
+                }
+                active.force(false);
+                if (!doneIn.isEmpty()) {
+                    deleteFinishedSegments();
+                }
+                settle(batch.subList(synced, batch.size()));
+                batch.clear();
+            } catch (IOException e) {
+                logger.error("Score ingest log write failed", e);
+                List<Command> failed = batch.subList(synced, batch.size());
+                for (int i = 0; i < failed.size(); i++) {
+                    if (synced + i < written) {
+                        unaccount(failed.get(i), doneIn);
+                    }
+                }
+                discardTail(mark);
+                // Uploads are answered with a failure; completions are kept for the next batch
+                List<Command> retry = new ArrayList<>();
+                for (Command command : failed) {
+                    if (command.durable != null) {
+                        command.durable.completeExceptionally(e);
+                    } else if (command.type == CommandType.DONE) {
+                        retry.add(command);
+                    }
+                }
+                batch.clear();
+                batch.addAll(retry);
+            }
+        }
+    }
+
+    private static void settle(List<Command> commands) {
+        for (Command command : commands) {
+            if (command.durable != null) {
+                command.durable.complete(null);
+            }
+        }
+    }
+
+    /**
+     * Undo the segment bookkeeping of a command whose line may not be on disk.
+     */
+    private void unaccount(Command command, Map<String, Long> doneIn) {
+        if (command.type == CommandType.UPLOAD) {
+            Long segment = segmentOf.remove(command.syncId);
+            if (segment != null) {
+                openUploads.merge(segment, -1, Integer::sum);
+            }
+        } else if (command.type == CommandType.DONE) {
+            Long segment = doneIn.get(command.syncId);
+            if (segment != null) {
+                segmentOf.put(command.syncId, segment);
+                openUploads.merge(segment, 1, Integer::sum);
+            }
+        }
+    }
+
+    /**
+     * Cut the active segment back to its last fsynced length after a failed
+     * write, so no later append lands behind a torn line, which recovery
+     * would stop at. If that fails too, continue in a new segment.
+     */
+    private void discardTail(long mark) {
+        try {
+            active.truncate(mark);
+            active.force(false);
+            activeBytes = mark;
+        } catch (IOException e) {
+            logger.warn("Cannot truncate ingest log segment {}, starting a new one", activeSegment, e);
+            closeQuietly(active);
+            try {
+                openSegment(activeSegment + 1);
+            } catch (IOException again) {
+                logger.error("Cannot open a new ingest log segment after {}", activeSegment, again);
+            }
+        }
+    }
+
+    /**
+     * Append one line to the active segment. Overridden by tests to fail a write.
+     */
+    void write(byte[] line) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(line);
+        while (buffer.hasRemaining()) {
+            active.write(buffer);
+        }
+        activeBytes += line.length;
+    }
+
+    private void openSegment(long segment) throws IOException {
+        active = FileChannel.open(directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX)),
+            StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        activeSegment = segment;
+        activeBytes = 0;
+        openUploads.put(segment, 0);
+    }
+
+    private void deleteFinishedSegments() {
+        while (!openUploads.isEmpty() && openUploads.firstKey() < activeSegment
+                && openUploads.firstEntry().getValue() == 0) {
+            long segment = openUploads.firstKey();
+            try {
+                Files.deleteIfExists(directory.resolve(String.format("%s%06d%s", PREFIX, segment, SUFFIX)));
+            } catch (IOException e) {
+                // Tried again after the next completion
+                logger.warn("Cannot delete finished ingest log segment {}", segment, e);
+                return;
+            }
+            openUploads.pollFirstEntry();
+            logger.debug("Deleted finished ingest log segment {}", segment);
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        try {
+            if (channel != null) {
+                channel.close();
+            }
+        } catch (IOException ignored) {
+            // closing after a failure or on shutdown
+        }
+    }
+
+    /**
+     * Uploads found on disk at startup: those still to be saved, in the order
+     * they were received, and those already finished.
+     */
+    public record Recovery(List<QueuedUpload> pending, List<SyncStatusResponse> completed) {
+    }
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    private record Entry(String type, QueuedUpload upload, String syncId, SyncResponse result) {
+    }
+
+    private enum CommandType { UPLOAD, DONE, SYNC }
+
+    private record Command(CommandType type, String syncId, byte[] line, CompletableFuture<Void> durable) {
+    }
+}
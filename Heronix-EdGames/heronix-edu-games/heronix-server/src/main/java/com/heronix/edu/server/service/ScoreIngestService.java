@@ -0,0 +1,310 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.dto.response.ConflictInfo;
+import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.dto.response.SyncStatusResponse;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.UUID;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Asynchronous score uploads (POST /api/sync/upload/async).
+ *
+ * {@link #submit} only checks the device, appends the upload to the
+ * {@link ScoreIngestLog} and waits for its fsync, then the request returns 202
+ * with a sync id. A pool of writer workers drains the log into game_scores:
+ * each takes up to {@code batch-scores} scores' worth of queued uploads and
+ * saves them with {@link SyncService#uploadQueued} in one transaction, then
+ * marks them done in the log. Uploads are assigned to workers by device, so a
+ * device's uploads are saved in the order received and never race each other.
+ *
+ * A batch that fails is retried one upload at a time, each up to
+ * {@code heronix.sync.max-retries} times with backoff; an upload that still
+ * fails is reported FAILED so the device resends it. Uploads left in the log
+ * by a crash are queued again on startup. Devices poll {@link #getStatus}
+ * for the result.
+ *
+ * Queued uploads are held in memory until saved, so the queue is bounded by
+ * scores rather than uploads: past {@code max-pending-scores} new uploads are
+ * refused and the device is told to retry later (503).
+ */
+@Service
+public class ScoreIngestService {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreIngestService.class);
+
+    private static final long RETRY_BACKOFF_MS = 200;
+    private static final long POLL_MS = 250;
+
+    private final ScoreIngestLog ingestLog;
+    private final SyncService syncService;
+    private final DeviceService deviceService;
+    private final AuditService auditService;
+    private final int batchScores;
+    private final int maxPendingScores;
+    private final int maxRetries;
+    private final int statusCapacity;
+    private final long appendTimeoutMs;
+
+    private final List<BlockingQueue<QueuedUpload>> workerQueues = new ArrayList<>();
+    private final List<Thread> workers = new ArrayList<>();
+    private final Map<String, SyncStatusResponse> statuses = new ConcurrentHashMap<>();
+    private final Queue<String> finishedOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger finishedCount = new AtomicInteger();
+    private final AtomicInteger pending = new AtomicInteger();
+    private final AtomicLong pendingScores = new AtomicLong();
+    private volatile boolean running = true;
+
+    public ScoreIngestService(ScoreIngestLog ingestLog,
+                              SyncService syncService,
+                              DeviceService deviceService,
+                              AuditService auditService,
+                              @Value("${heronix.sync.ingest.workers:2}") int workerCount,
+                              @Value("${heronix.sync.ingest.batch-scores:2000}") int batchScores,
+                              @Value("${heronix.sync.ingest.max-pending-scores:200000}") int maxPendingScores,
+                              @Value("${heronix.sync.max-retries:3}") int maxRetries,
+                              @Value("${heronix.sync.ingest.status-capacity:50000}") int statusCapacity,
+                              @Value("${heronix.sync.ingest.append-timeout-ms:10000}") long appendTimeoutMs) {
+        this.ingestLog = ingestLog;
+        this.syncService = syncService;
+        this.deviceService = deviceService;
+        this.auditService = auditService;
+        this.batchScores = Math.max(1, batchScores);
+        this.maxPendingScores = maxPendingScores;
+        this.maxRetries = Math.max(1, maxRetries);
+        this.statusCapacity = statusCapacity;
+        this.appendTimeoutMs = appendTimeoutMs;
+
+        for (int i = 0; i < Math.max(1, workerCount); i++) {
+            BlockingQueue<QueuedUpload> queue = new LinkedBlockingQueue<>();
+            workerQueues.add(queue);
+            Thread worker = new Thread(() -> runWorker(queue), "score-ingest-" + i);
+            worker.setDaemon(true);
+            workers.add(worker);
+        }
+    }
+
+    /**
+     * Queue what the log still holds from before a restart, then start the workers.
+     */
+    @PostConstruct
+    public void start() {
+        ScoreIngestLog.Recovery recovery = ingestLog.recovered();
+        recovery.completed().forEach(this::remember);
+        for (QueuedUpload upload : recovery.pending()) {
+            enqueue(upload);
+        }
+        workers.forEach(Thread::start);
+        logger.info("Score ingest started: {} workers, batches of {} scores, {} uploads resumed",
+            workers.size(), batchScores, recovery.pending().size());
+    }
+
+    /**
+     * Make an upload durable and queue it.
+     *
+     * @return the QUEUED status, or a FAILED one if the device is not approved
+     * @throws RejectedExecutionException if too many scores are waiting or
+     *                                    the log cannot take it; nothing was queued
+     */
+    public SyncStatusResponse submit(String deviceId, List<GameScore> scores) {
+        String syncId = UUID.randomUUID().toString();
+        LocalDateTime receivedAt = LocalDateTime.now();
+        SyncStatusResponse queued = SyncStatusResponse.queued(syncId, deviceId, scores.size(), receivedAt);
+
+        if (!deviceService.isDeviceApproved(deviceId)) {
+            logger.warn("Async upload rejected - device not approved: {}", deviceId);
+            auditService.logScoreSync(deviceId, 0, "FAILURE");
+            return queued.finish(new SyncResponse(false, 0, 0, scores.size(),
+                List.of(new ConflictInfo(null, ConflictType.DEVICE_NOT_AUTHORIZED, "REJECTED",
+                    "Device is not approved for sync")),
+                syncId, LocalDateTime.now()));
+        }
+
+        if (pendingScores.addAndGet(scores.size()) > maxPendingScores) {
+            pendingScores.addAndGet(-scores.size());
+            throw new RejectedExecutionException("Score ingest queue is full");
+        }
+        pending.incrementAndGet();
+
+        QueuedUpload upload = new QueuedUpload(syncId, deviceId, List.copyOf(scores), receivedAt);
+        try {
+            ingestLog.append(upload).get(appendTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            release(upload);
+            Thread.currentThread().interrupt();
+            throw new RejectedExecutionException("Interrupted while queueing upload", e);
+        } catch (ExecutionException | TimeoutException e) {
+            release(upload);
+            logger.error("Cannot queue upload from device {}", deviceId, e);
+            throw new RejectedExecutionException("Upload could not be made durable", e);
+        }
+
+        statuses.put(syncId, queued);
+        workerQueues.get(Math.floorMod(deviceId.hashCode(), workerQueues.size())).add(upload);
+        logger.debug("Queued upload {} from device {} ({} scores)", syncId, deviceId, scores.size());
+        return queued;
+    }
+
+    /**
+     * Status of an upload, while queued and for a while after it finishes.
+     */
+    public Optional<SyncStatusResponse> getStatus(String syncId) {
+        return Optional.ofNullable(statuses.get(syncId));
+    }
+
+    /**
+     * Uploads durable but not yet saved.
+     */
+    public int getPendingCount() {
+        return pending.get();
+    }
+
+    /**
+     * Scores in the uploads durable but not yet saved.
+     */
+    public long getPendingScores() {
+        return pendingScores.get();
+    }
+
+    /**
+     * Stop the workers after their current batch. Whatever is still queued
+     * stays in the log and is resumed on the next start.
+     */
+    @PreDestroy
+    public void shutdown() {
+        // Not interrupted: an interrupt inside a transaction would close H2's file channel
+        running = false;
+        for (Thread worker : workers) {
+            try {
+                worker.join(10_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        logger.info("Score ingest stopped with {} uploads still queued", pending.get());
+    }
+
+    private void enqueue(QueuedUpload upload) {
+        // Resumed uploads are taken even past the bound; they are already durable
+        pending.incrementAndGet();
+        pendingScores.addAndGet(upload.scores().size());
+        statuses.put(upload.syncId(), SyncStatusResponse.queued(upload.syncId(), upload.deviceId(),
+            upload.scores().size(), upload.receivedAt()));
+        workerQueues.get(Math.floorMod(upload.deviceId().hashCode(), workerQueues.size())).add(upload);
+    }
+
+    private void runWorker(BlockingQueue<QueuedUpload> queue) {
+        List<QueuedUpload> batch = new ArrayList<>();
+        while (running) {
+            try {
+                QueuedUpload first = queue.poll(POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+            } catch (InterruptedException e) {
+                break;
+            }
+            // Only this worker takes from its queue, so peeking first is safe
+            int scores = batch.get(0).scores().size();
+            QueuedUpload next;
+            while ((next = queue.peek()) != null && scores + next.scores().size() <= batchScores) {
+                batch.add(queue.poll());
+                scores += next.scores().size();
+            }
+
+            save(batch);
+            batch.clear();
+        }
+    }
+
+    private void save(List<QueuedUpload> batch) {
+        try {
+            List<SyncResponse> responses = syncService.uploadQueued(batch);
+            for (int i = 0; i < batch.size(); i++) {
+                finish(batch.get(i), responses.get(i));
+            }
+            return;
+        } catch (RuntimeException e) {
+            logger.warn("Saving {} queued uploads failed, retrying one at a time: {}", batch.size(), e.getMessage());
+        }
+
+        for (QueuedUpload upload : batch) {
+            saveAlone(upload);
+        }
+    }
+
+    private void saveAlone(QueuedUpload upload) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                finish(upload, syncService.uploadQueued(List.of(upload)).get(0));
+                return;
+            } catch (RuntimeException e) {
+                if (!running) {
+                    // Left in the log for the next start
+                    logger.warn("Upload {} not saved before shutdown: {}", upload.syncId(), e.getMessage());
+                    return;
+                }
+                if (attempt >= maxRetries) {
+                    logger.error("Giving up on upload {} from device {} after {} attempts",
+                        upload.syncId(), upload.deviceId(), attempt, e);
+                    auditService.logScoreSync(upload.deviceId(), 0, "ERROR");
+                    finish(upload, new SyncResponse(false, upload.scores().size(), 0, upload.scores().size(),
+                        List.of(new ConflictInfo(null, ConflictType.VALIDATION_ERROR, "RETRY",
+                            "Failed to save scores")),
+                        upload.syncId(), LocalDateTime.now()));
+                    return;
+                }
+                try {
+                    Thread.sleep(RETRY_BACKOFF_MS << (attempt - 1));
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+
+    private void finish(QueuedUpload upload, SyncResponse response) {
+        ingestLog.complete(upload.syncId(), response);
+        // Released before the status shows it finished, so a poller never sees it still counted
+        release(upload);
+        SyncStatusResponse status = statuses.get(upload.syncId());
+        remember(status != null ? status.finish(response)
+            : SyncStatusResponse.queued(upload.syncId(), upload.deviceId(), upload.scores().size(),
+                upload.receivedAt()).finish(response));
+    }
+
+    private void release(QueuedUpload upload) {
+        pending.decrementAndGet();
+        pendingScores.addAndGet(-upload.scores().size());
+    }
+
+    private void remember(SyncStatusResponse finished) {
+        statuses.put(finished.syncId(), finished);
+        finishedOrder.add(finished.syncId());
+        // Forget the oldest results once over capacity
+        if (finishedCount.incrementAndGet() > statusCapacity) {
+            String oldest = finishedOrder.poll();
+            if (oldest != null) {
+                finishedCount.decrementAndGet();
+                statuses.remove(oldest);
+            }
+        }
+    }
+}
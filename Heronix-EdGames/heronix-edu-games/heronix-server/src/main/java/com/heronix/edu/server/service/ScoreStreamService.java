@@ -0,0 +1,183 @@
+package com.heronix.edu.server.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.dto.response.ConflictInfo;
+import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.ScoreResult;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import jakarta.persistence.EntityManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Ingests score uploads streamed as NDJSON, one GameScore object per line, and
+ * answers in NDJSON as it goes.
+ *
+ * Scores are parsed one at a time and handed to {@link SyncService#uploadChunk}
+ * every {@code heronix.sync.batch-size} scores, so each chunk is checked and
+ * committed in its own transaction and at most one chunk is held in memory
+ * however long the upload. A chunk's {@link ScoreResult} lines are written and
+ * flushed as soon as it commits; the last line is the {@link SyncResponse} for
+ * the whole stream.
+ *
+ * If the body cannot be read to the end (malformed line, truncated gzip,
+ * dropped connection) the scores read so far are still saved and the summary
+ * says where reading stopped. A device resends the scores it got no result
+ * for; the ones already saved come back as duplicates.
+ */
+@Service
+public class ScoreStreamService {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreStreamService.class);
+
+    private final SyncService syncService;
+    private final DeviceService deviceService;
+    private final AuditService auditService;
+    private final ObjectMapper objectMapper;
+    private final EntityManager entityManager;
+    private final int batchSize;
+
+    @Autowired
+    public ScoreStreamService(SyncService syncService,
+                              DeviceService deviceService,
+                              AuditService auditService,
+                              ObjectMapper objectMapper,
+                              EntityManager entityManager,
+                              @Value("${heronix.sync.batch-size:500}") int batchSize) {
+        this.syncService = syncService;
+        this.deviceService = deviceService;
+        this.auditService = auditService;
+        this.objectMapper = objectMapper;
+        this.entityManager = entityManager;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Read scores from {@code body} until it ends, writing results to
+     * {@code out}.
+     *
+     * @return the summary, also written as the last line
+     * @throws IOException if the results cannot be written
+     */
+    public SyncResponse ingest(String deviceId, InputStream body, OutputStream out) throws IOException {
+        if (!deviceService.isDeviceApproved(deviceId)) {
+            logger.warn("Stream upload rejected - device not approved: {}", deviceId);
+            auditService.logScoreSync(deviceId, 0, "FAILURE");
+
+            SyncResponse response = new SyncResponse(
+                    false,
+                    0,
+                    0,
+                    0,
+                    List.of(new ConflictInfo(
+                            null,
+                            ConflictType.DEVICE_NOT_AUTHORIZED,
+                            "REJECTED",
+                            "Device is not approved for sync"
+                    )),
+                    UUID.randomUUID().toString(),
+                    LocalDateTime.now()
+            );
+            writeLine(out, response);
+            out.flush();
+            return response;
+        }
+
+        logger.info("Processing score stream from device: {} (chunks of {})", deviceId, batchSize);
+
+        Set<String> uploadedScoreIds = new HashSet<>();
+        List<GameScore> chunk = new ArrayList<>(batchSize);
+        int scoresProcessed = 0;
+        int scoresAccepted = 0;
+        ConflictInfo failure = null;
+
+        try {
+            MappingIterator<GameScore> scores = objectMapper.readerFor(GameScore.class).readValues(body);
+            while (scores.hasNextValue()) {
+                chunk.add(scores.nextValue());
+                if (chunk.size() == batchSize) {
+                    scoresAccepted += uploadChunk(deviceId, chunk, uploadedScoreIds, out);
+                    scoresProcessed += chunk.size();
+                    chunk.clear();
+                }
+            }
+        } catch (IOException e) {
+            String reason = e instanceof JsonProcessingException json ? json.getOriginalMessage() : e.getMessage();
+            logger.warn("Score stream from device {} stopped after {} scores: {}",
+                    deviceId, scoresProcessed + chunk.size(), reason);
+            failure = new ConflictInfo(
+                    null,
+                    ConflictType.VALIDATION_ERROR,
+                    "REJECTED",
+                    "Upload unreadable after " + (scoresProcessed + chunk.size()) + " scores: " + reason
+            );
+        } catch (RuntimeException e) {
+            logger.error("Error saving score stream from device {}", deviceId, e);
+            failure = new ConflictInfo(null, ConflictType.VALIDATION_ERROR, "REJECTED", "Failed to save scores");
+            chunk.clear();
+        }
+
+        // Scores read before the end or a bad line are still saved
+        if (!chunk.isEmpty()) {
+            try {
+                scoresAccepted += uploadChunk(deviceId, chunk, uploadedScoreIds, out);
+                scoresProcessed += chunk.size();
+            } catch (RuntimeException e) {
+                logger.error("Error saving score stream from device {}", deviceId, e);
+                failure = new ConflictInfo(null, ConflictType.VALIDATION_ERROR, "REJECTED", "Failed to save scores");
+            }
+        }
+
+        SyncResponse response = syncService.completeStream(deviceId, scoresProcessed, scoresAccepted, failure);
+        writeLine(out, response);
+        out.flush();
+        return response;
+    }
+
+    public int getBatchSize() {
+        return batchSize;
+    }
+
+    /**
+     * Commit a chunk and stream back its results.
+     *
+     * @return how many of its scores were accepted
+     */
+    private int uploadChunk(String deviceId, List<GameScore> chunk, Set<String> uploadedScoreIds,
+                            OutputStream out) throws IOException {
+        List<ScoreResult> results = syncService.uploadChunk(deviceId, chunk, uploadedScoreIds);
+        // Open-in-view keeps one persistence context for the whole request, so
+        // without this every commit would dirty-check all earlier chunks again
+        entityManager.clear();
+
+        int accepted = 0;
+        for (ScoreResult result : results) {
+            if (result.accepted()) {
+                accepted++;
+            }
+            writeLine(out, result);
+        }
+        out.flush();
+        return accepted;
+    }
+
+    private void writeLine(OutputStream out, Object value) throws IOException {
+        out.write(objectMapper.writeValueAsBytes(value));
+        out.write('\n');
+    }
+}
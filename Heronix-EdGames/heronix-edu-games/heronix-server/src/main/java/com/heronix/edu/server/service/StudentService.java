@@ -10,7 +10,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.stream.Collectors;
 
 /**
@@ -43,6 +47,23 @@ public class StudentService {
         return entity.toModel();
     }
 
+    /**
+     * Get every student of those asked for that exists, in one query, keyed by ID.
+     * Missing students are left out.
+     */
+    @Transactional(readOnly = true)
+    public Map<String, Student> getStudents(Collection<String> studentIds) {
+        logger.debug("Fetching {} students", studentIds.size());
+
+        Map<String, Student> students = new HashMap<>();
+        for (StudentEntity entity : studentRepository.findAllById(new HashSet<>(studentIds))) {
+            students.put(entity.getStudentId(), entity.toModel());
+            auditService.logStudentDataAccess("SYSTEM", entity.getStudentId(), "READ");
+        }
+
+        return students;
+    }
+
     /**
      * Check if student can participate (active, consented, not opted out)
      */
@@ -1,20 +1,26 @@
 package com.heronix.edu.server.service;
 
 import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.common.model.Student;
 import com.heronix.edu.server.dto.response.ConflictInfo;
 import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.ScoreResult;
 import com.heronix.edu.server.dto.response.SyncResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
+import java.util.stream.Collectors;
 
 /**
  * Service for score synchronization.
@@ -37,8 +43,8 @@ public class SyncService {
     @Autowired
     private AuditService auditService;
 
-    @Value("${heronix.sync.batch-size:100}")
-    private int batchSize;
+    @Autowired
+    private DeviceSequenceTracker sequenceTracker;
 
     /**
      * Upload and process game scores from device
@@ -75,34 +81,24 @@ public class SyncService {
             );
         }
 
+        // Resolve every student and score the upload refers to up front, in a
+        // few set queries rather than several per score. Scores whose seq was
+        // judged before are retries and need neither
+        DeviceSequenceTracker.Batch sequences = sequenceTracker.begin();
+        List<GameScore> unsettled = unsettled(deviceId, scores, sequences);
+        Map<String, Student> students = findStudents(unsettled);
+        Set<String> existingScoreIds = findExistingScoreIds(unsettled);
+        Set<String> uploadedScoreIds = new HashSet<>();
+
         // Process each score
         for (GameScore score : scores) {
             scoresProcessed++;
 
-            // Validate score
-            ValidationResult validation = validateScore(score, deviceId);
-            if (!validation.isValid()) {
-                scoresRejected++;
-                conflicts.add(new ConflictInfo(
-                        score.getScoreId(),
-                        ConflictType.VALIDATION_ERROR,
-                        "REJECTED",
-                        validation.message()
-                ));
-                logger.debug("Score validation failed: {} - {}", score.getScoreId(), validation.message());
-                continue;
-            }
-
-            // Check for duplicate score
-            if (gameScoreService.scoreExists(score.getScoreId())) {
+            ConflictInfo conflict = checkScore(score, deviceId, students, existingScoreIds, uploadedScoreIds,
+                    sequences);
+            if (conflict != null) {
                 scoresRejected++;
-                conflicts.add(new ConflictInfo(
-                        score.getScoreId(),
-                        ConflictType.DUPLICATE_SCORE,
-                        "SERVER_KEPT",
-                        "Score already exists on server"
-                ));
-                logger.debug("Duplicate score detected: {}", score.getScoreId());
+                conflicts.add(conflict);
                 continue;
             }
 
@@ -125,6 +121,7 @@ public class SyncService {
 
         // Update device last sync time
         deviceService.updateLastSync(deviceId, LocalDateTime.now());
+        sequences.finish();
 
         // Log audit event
         auditService.logScoreSync(deviceId, scoresAccepted, "SUCCESS");
@@ -145,6 +142,146 @@ public class SyncService {
         );
     }
 
+    /**
+     * Check and save queued uploads together in one transaction, with one
+     * student query, one score id lookup and one insert batch for all of them.
+     * Each upload is still checked, audited and answered on its own; a score
+     * that an earlier upload in the batch saved is a duplicate, as it would be
+     * had they been processed one after another.
+     *
+     * @return one response per upload, in order, carrying the upload's sync id
+     */
+    @Transactional
+    public List<SyncResponse> uploadQueued(List<QueuedUpload> uploads) {
+        DeviceSequenceTracker.Batch sequences = sequenceTracker.begin();
+        List<GameScore> allScores = new ArrayList<>();
+        List<GameScore> unsettled = new ArrayList<>();
+        for (QueuedUpload upload : uploads) {
+            allScores.addAll(upload.scores());
+            unsettled.addAll(unsettled(upload.deviceId(), upload.scores(), sequences));
+        }
+        Map<String, Student> students = findStudents(unsettled);
+        Set<String> existingScoreIds = new HashSet<>(findExistingScoreIds(unsettled));
+        Map<String, Boolean> approved = new HashMap<>();
+
+        List<SyncResponse> responses = new ArrayList<>(uploads.size());
+        List<GameScore> validScores = new ArrayList<>();
+        for (QueuedUpload upload : uploads) {
+            String deviceId = upload.deviceId();
+            int scores = upload.scores().size();
+
+            // The device may have been revoked while the upload was queued
+            if (!approved.computeIfAbsent(deviceId, deviceService::isDeviceApproved)) {
+                auditService.logScoreSync(deviceId, 0, "FAILURE");
+                responses.add(new SyncResponse(false, scores, 0, scores,
+                        List.of(new ConflictInfo(null, ConflictType.DEVICE_NOT_AUTHORIZED, "REJECTED",
+                                "Device is not approved for sync")),
+                        upload.syncId(), LocalDateTime.now()));
+                continue;
+            }
+
+            List<ConflictInfo> conflicts = new ArrayList<>();
+            Set<String> uploadedScoreIds = new HashSet<>();
+            for (GameScore score : upload.scores()) {
+                ConflictInfo conflict = checkScore(score, deviceId, students, existingScoreIds, uploadedScoreIds,
+                        sequences);
+                if (conflict != null) {
+                    conflicts.add(conflict);
+                } else {
+                    validScores.add(score);
+                }
+            }
+            existingScoreIds.addAll(uploadedScoreIds);
+
+            int accepted = scores - conflicts.size();
+            auditService.logScoreSync(deviceId, accepted, "SUCCESS");
+            responses.add(new SyncResponse(true, scores, accepted, conflicts.size(), conflicts,
+                    upload.syncId(), LocalDateTime.now()));
+        }
+
+        if (!validScores.isEmpty()) {
+            gameScoreService.saveScores(validScores);
+        }
+
+        LocalDateTime now = LocalDateTime.now();
+        approved.forEach((deviceId, ok) -> {
+            if (ok) {
+                deviceService.updateLastSync(deviceId, now);
+            }
+        });
+        sequences.finish();
+
+        logger.info("Saved {} queued uploads: {} of {} scores accepted",
+                uploads.size(), validScores.size(), allScores.size());
+        return responses;
+    }
+
+    /**
+     * Check and save one chunk of a streamed upload in its own transaction.
+     * The caller checks the device once for the whole stream.
+     *
+     * @param uploadedScoreIds score IDs accepted earlier in the stream; this
+     *                         chunk's accepted IDs are added to it
+     * @return one result per score, in upload order
+     */
+    @Transactional
+    public List<ScoreResult> uploadChunk(String deviceId, List<GameScore> scores, Set<String> uploadedScoreIds) {
+        DeviceSequenceTracker.Batch sequences = sequenceTracker.begin();
+        List<GameScore> unsettled = unsettled(deviceId, scores, sequences);
+        Map<String, Student> students = findStudents(unsettled);
+        Set<String> existingScoreIds = findExistingScoreIds(unsettled);
+
+        List<ScoreResult> results = new ArrayList<>(scores.size());
+        List<GameScore> validScores = new ArrayList<>();
+        for (GameScore score : scores) {
+            ConflictInfo conflict = checkScore(score, deviceId, students, existingScoreIds, uploadedScoreIds,
+                    sequences);
+            if (conflict != null) {
+                results.add(ScoreResult.rejected(conflict));
+            } else {
+                validScores.add(score);
+                results.add(ScoreResult.accepted(score.getScoreId()));
+            }
+        }
+
+        if (!validScores.isEmpty()) {
+            gameScoreService.saveScores(validScores);
+        }
+        sequences.finish();
+        logger.debug("Stream chunk from device {}: {} of {} scores saved", deviceId, validScores.size(), scores.size());
+        return results;
+    }
+
+    /**
+     * Record the end of a streamed upload whose chunks are already committed.
+     * Per-score conflicts were streamed with each chunk, so only the final
+     * problem, if any, is listed.
+     *
+     * @param failure why the stream stopped early, or null if it was read to the end
+     */
+    @Transactional
+    public SyncResponse completeStream(String deviceId, int scoresProcessed, int scoresAccepted,
+                                       ConflictInfo failure) {
+        if (failure == null) {
+            deviceService.updateLastSync(deviceId, LocalDateTime.now());
+        }
+        auditService.logScoreSync(deviceId, scoresAccepted, failure == null ? "SUCCESS" : "ERROR");
+
+        logger.info("Stream sync {} for device: {} - Processed: {}, Accepted: {}, Rejected: {}",
+                failure == null ? "completed" : "stopped", deviceId,
+                scoresProcessed, scoresAccepted, scoresProcessed - scoresAccepted);
+
+        return new SyncResponse(
+                failure == null,
+                scoresProcessed,
+                scoresAccepted,
+                scoresProcessed - scoresAccepted,
+                failure == null ? List.of() : List.of(failure),
+                UUID.randomUUID().toString(),
+                LocalDateTime.now()
+        );
+    }
+
     /**
      * Get last sync timestamp for a device
      */
@@ -166,10 +303,118 @@ public class SyncService {
         deviceService.updateLastSync(deviceId, LocalDateTime.now());
     }
 
+    /**
+     * Tell a device where its score sequence stands before it uploads
+     *
+     * @param epoch         the device's current sequence numbering
+     * @param syncedThrough the device holds every score up to this seq as synced
+     */
+    @Transactional
+    public DeviceSequenceTracker.Position resumeSequence(String deviceId, String epoch, long syncedThrough) {
+        DeviceSequenceTracker.Position position = sequenceTracker.resume(deviceId, epoch, syncedThrough);
+        logger.debug("Device {} resumes after seq {} ({} received above)",
+                deviceId, position.highWaterMark(), position.receivedAbove().size());
+        return position;
+    }
+
+    private static List<GameScore> unsettled(String deviceId, List<GameScore> scores,
+                                             DeviceSequenceTracker.Batch sequences) {
+        return scores.stream()
+                .filter(score -> !sequences.isSettled(deviceId, score.getSeqEpoch(), score.getSeq()))
+                .collect(Collectors.toList());
+    }
+
+    private Map<String, Student> findStudents(List<GameScore> scores) {
+        return studentService.getStudents(scores.stream()
+                .map(GameScore::getStudentId)
+                .filter(id -> id != null && !id.isBlank())
+                .collect(Collectors.toSet()));
+    }
+
+    private Set<String> findExistingScoreIds(List<GameScore> scores) {
+        return gameScoreService.findExistingScoreIds(scores.stream()
+                .map(GameScore::getScoreId)
+                .filter(id -> id != null && !id.isBlank())
+                .collect(Collectors.toList()));
+    }
+
+    /**
+     * Check one score of an upload
+     *
+     * @param uploadedScoreIds IDs accepted earlier in the upload; the score's
+     *                         ID is added to it if accepted
+     * @param sequences        seqs stored so far; the score's seq is added to
+     *                         it if the score is accepted or already stored
+     * @return the conflict that rejects the score, or null if it is accepted
+     */
+    private ConflictInfo checkScore(GameScore score, String deviceId, Map<String, Student> students,
+                                    Set<String> existingScoreIds, Set<String> uploadedScoreIds,
+                                    DeviceSequenceTracker.Batch sequences) {
+        // A retry of a score already stored
+        if (sequences.isSettled(deviceId, score.getSeqEpoch(), score.getSeq())) {
+            logger.debug("Score {} (seq {}) already received from device {}", score.getScoreId(), score.getSeq(),
+                    deviceId);
+            return new ConflictInfo(
+                    score.getScoreId(),
+                    ConflictType.DUPLICATE_SCORE,
+                    "SERVER_KEPT",
+                    "Score already received from this device"
+            );
+        }
+
+        ConflictInfo conflict = judgeScore(score, deviceId, students, existingScoreIds, uploadedScoreIds);
+        // A rejected score is judged again when resent: its student or game may be fixed by then
+        if (conflict == null || existingScoreIds.contains(score.getScoreId())) {
+            sequences.record(deviceId, score.getSeqEpoch(), score.getSeq());
+        }
+        return conflict;
+    }
+
+    private ConflictInfo judgeScore(GameScore score, String deviceId, Map<String, Student> students,
+                                    Set<String> existingScoreIds, Set<String> uploadedScoreIds) {
+        // Validate score
+        ValidationResult validation = validateScore(score, deviceId, students);
+        if (!validation.isValid()) {
+            logger.debug("Score validation failed: {} - {}", score.getScoreId(), validation.message());
+            return new ConflictInfo(
+                    score.getScoreId(),
+                    ConflictType.VALIDATION_ERROR,
+                    "REJECTED",
+                    validation.message()
+            );
+        }
+
+        // Check for duplicate score
+        if (existingScoreIds.contains(score.getScoreId())) {
+            logger.debug("Duplicate score detected: {}", score.getScoreId());
+            return new ConflictInfo(
+                    score.getScoreId(),
+                    ConflictType.DUPLICATE_SCORE,
+                    "SERVER_KEPT",
+                    "Score already exists on server"
+            );
+        }
+
+        // Only the first copy of a score sent twice in one upload is saved
+        if (!uploadedScoreIds.add(score.getScoreId())) {
+            logger.debug("Score repeated within upload: {}", score.getScoreId());
+            return new ConflictInfo(
+                    score.getScoreId(),
+                    ConflictType.DUPLICATE_SCORE,
+                    "REJECTED",
+                    "Score appears more than once in this upload"
+            );
+        }
+
+        return null;
+    }
+
     /**
      * Validate a game score
+     *
+     * @param students the upload's students that exist, by ID
      */
-    private ValidationResult validateScore(GameScore score, String deviceId) {
+    private ValidationResult validateScore(GameScore score, String deviceId, Map<String, Student> students) {
         // Check score has required fields
         if (score.getScoreId() == null || score.getScoreId().isBlank()) {
             return new ValidationResult(false, "Score ID is required");
@@ -190,11 +435,12 @@ public class SyncService {
         }
 
         // Validate student exists and can participate
-        if (!studentService.studentExists(score.getStudentId())) {
+        Student student = students.get(score.getStudentId());
+        if (student == null) {
             return new ValidationResult(false, "Student not found: " + score.getStudentId());
         }
 
-        if (!studentService.canParticipate(score.getStudentId())) {
+        if (!student.canParticipate()) {
             return new ValidationResult(false, "Student not eligible to participate");
         }
 
@@ -0,0 +1,100 @@
+package com.heronix.edu.server.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Concurrent Bloom filter of strings.
+ *
+ * Sized from the number of keys expected and the false-positive rate wanted at
+ * that count: about 9.6 bits per key for 1%, so a million keys take 1.2 MB.
+ * Past the expected count it keeps working, with more false positives. A key
+ * that was added is always reported as maybe present; a key reported absent
+ * was never added.
+ *
+ * Each key is hashed once (64-bit FNV-1a over its UTF-8 bytes, then mixed) and
+ * the probe positions derived by double hashing. Adding sets bits with atomic
+ * ORs, so adds and lookups need no lock.
+ */
+public class BloomFilter {
+    private final AtomicLongArray words;
+    private final long bits;
+    private final int hashes;
+    private final AtomicLong added = new AtomicLong();
+
+    public BloomFilter(long expectedKeys, double falsePositiveRate) {
+        if (expectedKeys <= 0 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("Need expectedKeys > 0 and 0 < falsePositiveRate < 1");
+        }
+        long wanted = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (Math.log(2) * Math.log(2)));
+        // Probe positions are non-negative ints, so 2^31 bits (256 MB) at most
+        int wordCount = (int) Math.min(1 << 25, (wanted + 63) / 64);
+        this.words = new AtomicLongArray(wordCount);
+        this.bits = wordCount * 64L;
+        this.hashes = Math.max(1, (int) Math.round((double) bits / expectedKeys * Math.log(2)));
+    }
+
+    public void add(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            int word = (int) (bit >>> 6);
+            long mask = 1L << bit;
+            if ((words.get(word) & mask) == 0) {
+                words.getAndAccumulate(word, mask, (current, m) -> current | m);
+            }
+        }
+        added.incrementAndGet();
+    }
+
+    /**
+     * False means the key was never added; true means it probably was.
+     */
+    public boolean mightContain(String key) {
+        long hash = hash(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int i = 1; i <= hashes; i++) {
+            long bit = index(h1 + i * h2);
+            if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keys added so far, counting repeats.
+     */
+    public long getAddedCount() {
+        return added.get();
+    }
+
+    public long getBitCount() {
+        return bits;
+    }
+
+    public int getHashCount() {
+        return hashes;
+    }
+
+    private long index(int combined) {
+        // Flip negative combinations so every bit is reachable
+        return (combined < 0 ? ~combined : combined) % bits;
+    }
+
+    private static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        // Finalizer from SplitMix64, so both halves are well mixed
+        h = (h ^ (h >>> 30)) * 0xbf58476d1ce4e5b9L;
+        h = (h ^ (h >>> 27)) * 0x94d049bb133111ebL;
+        return h ^ (h >>> 31);
+    }
+}
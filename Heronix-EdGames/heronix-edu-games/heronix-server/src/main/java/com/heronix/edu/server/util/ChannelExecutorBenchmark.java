@@ -0,0 +1,166 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.heronix.edu.server.HeronixServerApplication;
+import com.heronix.edu.server.dto.game.CreateSessionRequest;
+import com.heronix.edu.server.service.GameSessionService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.boot.web.servlet.context.ServletWebServerApplicationContext;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Benchmark comparing platform-thread and virtual-thread STOMP channel
+ * executors ({@code heronix.websocket.executor.mode}) under the
+ * {@link WebSocketLoadTester} connect-and-join load.
+ *
+ * For each mode and connection count, a fresh in-process server (in-memory H2,
+ * journal off, random port) gets one session per 50 connections. The tester
+ * then connects and joins every client, and runs three rounds in which every
+ * client requests the leaderboard at once. Reported per run:
+ *   joins/s, join-ack p99   - connect + join phase
+ *   replies/s, reply p99    - request rounds, inbound -> session loop -> outbound
+ *   heap MB, threads        - after GC with all clients connected, and peak platform threads
+ *
+ * Clients share the server's JVM and are identical in both modes, so the heap
+ * and thread differences between modes come from the server. Virtual mode needs
+ * Java 21+; on an older runtime it falls back to platform threads and the report
+ * says so. A 200-connection warm-up runs first so neither mode pays for JIT.
+ *
+ * Usage:
+ *   java -Xmx2g -cp heronix-server.jar com.heronix.edu.server.util.ChannelExecutorBenchmark [connections...]
+ * Defaults to 1000 and 5000 connections; results also go to channel-executor-report.json.
+ */
+public class ChannelExecutorBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ChannelExecutorBenchmark.class);
+
+    private static final int PLAYERS_PER_SESSION = 50;
+    private static final int REQUEST_ROUNDS = 3;
+    private static final String QUESTION_SET = "math-35-operations";
+
+    /**
+     * Start a server in the given mode, load it, stop it.
+     */
+    public Map<String, Object> run(String mode, int connections) throws InterruptedException {
+        // As arguments, so they override application.yml
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HeronixServerApplication.class)
+            .run("--server.port=0",
+                "--server.tomcat.max-connections=" + (connections + 500),
+                "--spring.datasource.url=jdbc:h2:mem:channel-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--heronix.websocket.executor.mode=" + mode,
+                "--heronix.game.journal.enabled=false",
+                "--heronix.sis.enabled=false",
+                "--logging.level.com.heronix.edu.server.websocket=WARN",
+                "--logging.level.org.springframework.web.socket=WARN");
+        try {
+            int port = ((ServletWebServerApplicationContext) context).getWebServer().getPort();
+            GameSessionService sessions = context.getBean(GameSessionService.class);
+            List<String> codes = new ArrayList<>();
+            for (int i = 0; i < (connections + PLAYERS_PER_SESSION - 1) / PLAYERS_PER_SESSION; i++) {
+                CreateSessionRequest request = new CreateSessionRequest();
+                request.setQuestionSetId(QUESTION_SET);
+                codes.add(sessions.createSession(request, "bench-teacher").getSessionCode());
+            }
+
+            MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+            ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            long heapBefore = usedHeapAfterGc(memory);
+            threads.resetPeakThreadCount();
+
+            WebSocketLoadTester tester = new WebSocketLoadTester("http://localhost:" + port);
+            try {
+                WebSocketLoadTester.LoadTestResult load = tester.runLoadTest(connections, codes);
+                WebSocketLoadTester.RoundTripResult rounds = tester.measureRoundTrips(REQUEST_ROUNDS, 30_000);
+                long heapLoaded = usedHeapAfterGc(memory);
+
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("mode", mode);
+                result.put("threads", "virtual".equals(mode) && !VirtualThreads.isSupported()
+                    ? "platform (no virtual threads before Java 21)" : mode);
+                result.put("connections", connections);
+                result.put("connected", load.successfulConnections());
+                result.put("joinAcks", load.joinAcks());
+                result.put("joinsPerSecond", round(load.durationMs() > 0
+                    ? load.joinAcks() * 1000.0 / load.durationMs() : 0));
+                result.put("joinP99Ms", round(load.joinP99Ms()));
+                result.put("repliesPerSecond", round(rounds.repliesPerSecond()));
+                result.put("replyP50Ms", round(rounds.p50Ms()));
+                result.put("replyP99Ms", round(rounds.p99Ms()));
+                result.put("heapDeltaMb", round((heapLoaded - heapBefore) / (1024.0 * 1024.0)));
+                result.put("platformThreads", threads.getThreadCount());
+                result.put("peakPlatformThreads", threads.getPeakThreadCount());
+                return result;
+            } finally {
+                tester.disconnectAll();
+            }
+        } finally {
+            context.close();
+        }
+    }
+
+    private static long usedHeapAfterGc(MemoryMXBean memory) throws InterruptedException {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+            Thread.sleep(200);
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private static double round(double value) {
+        return Math.round(value * 10) / 10.0;
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            sizes.add(Integer.parseInt(arg));
+        }
+        if (sizes.isEmpty()) {
+            sizes = List.of(1000, 5000);
+        }
+
+        ChannelExecutorBenchmark benchmark = new ChannelExecutorBenchmark();
+        logger.info("=== Channel Executor Benchmark: {} connections ===", sizes);
+        logger.info("Warm-up: {}", benchmark.run("platform", 200));
+
+        List<Map<String, Object>> results = new ArrayList<>();
+        for (int connections : sizes) {
+            for (String mode : new String[] {"platform", "virtual"}) {
+                Map<String, Object> result = benchmark.run(mode, connections);
+                logger.info("{}", result);
+                results.add(result);
+            }
+        }
+
+        logger.info(String.format("%-9s %6s %9s %9s %10s %10s %10s %8s %8s",
+            "mode", "conns", "joins/s", "join p99", "replies/s", "reply p99", "heap MB", "threads", "peak"));
+        for (Map<String, Object> r : results) {
+            logger.info(String.format("%-9s %6d %9.1f %9.1f %10.1f %10.1f %10.1f %8d %8d",
+                r.get("mode"), r.get("connections"), r.get("joinsPerSecond"), r.get("joinP99Ms"),
+                r.get("repliesPerSecond"), r.get("replyP99Ms"), r.get("heapDeltaMb"),
+                r.get("platformThreads"), r.get("peakPlatformThreads")));
+        }
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("javaVersion", System.getProperty("java.version"));
+        report.put("availableProcessors", Runtime.getRuntime().availableProcessors());
+        report.put("results", results);
+        new ObjectMapper().enable(SerializationFeature.INDENT_OUTPUT)
+            .writeValue(new File("channel-executor-report.json"), report);
+        logger.info("Report written to channel-executor-report.json");
+    }
+}
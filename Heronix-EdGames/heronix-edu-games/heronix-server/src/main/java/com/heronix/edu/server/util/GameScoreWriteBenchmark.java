@@ -0,0 +1,174 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.HeronixServerApplication;
+import com.heronix.edu.server.entity.GameScoreEntity;
+import com.heronix.edu.server.repository.GameScoreRepository;
+import com.heronix.edu.server.service.GameScoreService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures writing uploaded scores to game_scores: {@value #ROUNDS} uploads of
+ * 10,000 scores (or the size given) against an in-process server on in-memory
+ * H2, each on top of the ones before.
+ *
+ * Two write paths are compared, each on a fresh server:
+ *   save-all    - the old GameScoreService.saveScores: entities through
+ *                 GameScoreRepository.saveAll, which SELECTs every assigned id
+ *                 before a (Hibernate-batched) INSERT
+ *   jdbc-merge  - GameScoreService.saveScores through GameScoreBatchWriter,
+ *                 one MERGE per score in JDBC batches of write-batch-size rows
+ *
+ * After the new uploads the last one is written again, as a retry racing past
+ * duplicate detection would be. Reported per upload: wall time, rows/sec and
+ * rows written; Hibernate's prepared statement count shows the SELECTs of the
+ * old path (the JDBC path prepares outside Hibernate and counts none).
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.GameScoreWriteBenchmark [scores] [write-batch-size]
+ */
+public class GameScoreWriteBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(GameScoreWriteBenchmark.class);
+
+    private static final int ROUNDS = 5;
+    private static final int STUDENTS = 30;
+
+    private final Random random = new Random(23);
+
+    /**
+     * Start a server, write each round and the retry, stop it.
+     */
+    public List<BenchmarkResult> run(String strategy, int size, int writeBatchSize) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HeronixServerApplication.class)
+            .run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:score-write-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--heronix.sync.write-batch-size=" + writeBatchSize,
+                "--heronix.game.journal.enabled=false",
+                "--heronix.sis.enabled=false",
+                "--logging.level.root=WARN");
+        try {
+            Writer writer = new Writer(context, strategy);
+
+            // Warm up statements and JIT
+            writer.write(scores(1000));
+
+            List<BenchmarkResult> results = new ArrayList<>();
+            List<GameScore> scores = null;
+            for (int round = 1; round <= ROUNDS; round++) {
+                scores = scores(size);
+                results.add(writer.measure("new-" + round, scores));
+            }
+            results.add(writer.measure("retry", scores));
+            return results;
+        } finally {
+            context.close();
+        }
+    }
+
+    private List<GameScore> scores(int count) {
+        List<GameScore> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameScore score = new GameScore(String.format("bench-student-%03d", random.nextInt(STUDENTS)),
+                "math-sprint", random.nextInt(101));
+            score.setDeviceId("bench-device");
+            score.setTimeSeconds(30 + random.nextInt(300));
+            score.setCorrectAnswers(random.nextInt(20));
+            score.setIncorrectAnswers(random.nextInt(5));
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    /**
+     * Writes scores one way and counts their statements.
+     */
+    private static class Writer {
+        private final String strategy;
+        private final Statistics statistics;
+        private final TransactionTemplate transaction;
+        private final GameScoreService gameScoreService;
+        private final GameScoreRepository gameScoreRepository;
+
+        Writer(ConfigurableApplicationContext context, String strategy) {
+            this.strategy = strategy;
+            this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            this.transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            this.gameScoreService = context.getBean(GameScoreService.class);
+            this.gameScoreRepository = context.getBean(GameScoreRepository.class);
+        }
+
+        BenchmarkResult measure(String upload, List<GameScore> scores) {
+            long statementsBefore = statistics.getPrepareStatementCount();
+            long start = System.nanoTime();
+            int written = write(scores);
+            long nanos = System.nanoTime() - start;
+            return new BenchmarkResult(strategy, upload, scores.size(), written, nanos,
+                statistics.getPrepareStatementCount() - statementsBefore);
+        }
+
+        int write(List<GameScore> scores) {
+            if ("jdbc-merge".equals(strategy)) {
+                return gameScoreService.saveScores(scores).size();
+            }
+            // GameScoreService.saveScores before the batch writer
+            Integer written = transaction.execute(status -> {
+                List<GameScoreEntity> entities = new ArrayList<>(scores.size());
+                for (GameScore score : scores) {
+                    GameScoreEntity entity = GameScoreEntity.fromModel(score);
+                    entity.setSynced(true);
+                    entity.setSyncedAt(LocalDateTime.now());
+                    entities.add(entity);
+                }
+                return gameScoreRepository.saveAll(entities).size();
+            });
+            return written != null ? written : 0;
+        }
+    }
+
+    /**
+     * One upload's results.
+     */
+    public record BenchmarkResult(String strategy, String upload, int scores, int written, long nanos,
+                                  long statements) {
+        public double rowsPerSecond() {
+            return scores / (nanos / 1e9);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-10s %-6s scores=%-6d written=%-6d time=%8.1fms rows/sec=%9.0f statements=%d",
+                strategy, upload, scores, written, nanos / 1e6, rowsPerSecond(), statements);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int writeBatchSize = args.length > 1 ? Integer.parseInt(args[1]) : 500;
+
+        logger.info("=== Game Score Write Benchmark ===");
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String strategy : new String[] {"save-all", "jdbc-merge"}) {
+            results.addAll(new GameScoreWriteBenchmark().run(strategy, size, writeBatchSize));
+        }
+        for (BenchmarkResult result : results) {
+            logger.info("{}", result);
+        }
+    }
+}
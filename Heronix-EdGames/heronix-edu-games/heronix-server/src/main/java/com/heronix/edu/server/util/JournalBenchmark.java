@@ -0,0 +1,134 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.engine.JournalEvent;
+import com.heronix.edu.server.engine.SessionJournal;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * Cost of journaling answers.
+ *
+ *   append         - time the session loop spends per answer (serialize + enqueue)
+ *   group-commit   - answers per second until all are fsynced, batched by the writer thread
+ *   sync-each      - answers per second when every answer waits for its own fsync
+ *
+ * Each answer is journaled as an ANSWERED plus a REWARDED event, as in a real game.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.JournalBenchmark [sessions] [answers] [directory]
+ */
+public class JournalBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(JournalBenchmark.class);
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int sessions;
+    private final int answers;
+    private final Path directory;
+
+    public JournalBenchmark(int sessions, int answers, Path directory) {
+        this.sessions = sessions;
+        this.answers = answers;
+        this.directory = directory;
+    }
+
+    public BenchmarkResult runGroupCommit(long syncIntervalMs) {
+        SessionJournal journal = newJournal(syncIntervalMs);
+        try {
+            long appendNanos = 0;
+            long start = System.nanoTime();
+            for (int i = 0; i < answers; i++) {
+                long t = System.nanoTime();
+                appendAnswer(journal, i);
+                appendNanos += System.nanoTime() - t;
+            }
+            journal.flush();
+            long elapsed = System.nanoTime() - start;
+            return new BenchmarkResult("group-commit-" + syncIntervalMs + "ms", answers,
+                (double) appendNanos / answers, answers * 1_000_000_000.0 / elapsed);
+        } finally {
+            journal.shutdown();
+        }
+    }
+
+    public BenchmarkResult runSyncEach() {
+        SessionJournal journal = newJournal(0);
+        try {
+            // fsync per answer is slow; a sample is enough
+            int count = Math.min(answers, 2_000);
+            long start = System.nanoTime();
+            for (int i = 0; i < count; i++) {
+                appendAnswer(journal, i);
+                journal.flush();
+            }
+            long elapsed = System.nanoTime() - start;
+            return new BenchmarkResult("sync-each", count, (double) elapsed / count,
+                count * 1_000_000_000.0 / elapsed);
+        } finally {
+            journal.shutdown();
+        }
+    }
+
+    private void appendAnswer(SessionJournal journal, int i) {
+        String session = sessionCode(i % sessions);
+        String player = "player-" + (i % 30);
+        journal.append(session, new JournalEvent.Answered(player, "question-" + (i % 20), true));
+        journal.append(session, new JournalEvent.Rewarded(player, "CREDITS", 50, null));
+    }
+
+    private SessionJournal newJournal(long syncIntervalMs) {
+        SessionJournal journal = new SessionJournal(objectMapper, true, directory.toString(),
+            syncIntervalMs, Integer.MAX_VALUE);
+        for (int s = 0; s < sessions; s++) {
+            journal.remove(sessionCode(s));
+        }
+        journal.flush();
+        return journal;
+    }
+
+    private static String sessionCode(int index) {
+        return String.format("S%05d", index);
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int answers, double nanosPerAnswer, double answersPerSecond) {
+        @Override
+        public String toString() {
+            return String.format("%-18s answers=%-7d loop cost=%.0f ns/answer durable throughput=%.0f answers/s",
+                strategy, answers, nanosPerAnswer, answersPerSecond);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws IOException {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int answers = args.length > 1 ? Integer.parseInt(args[1]) : 200_000;
+        Path directory = args.length > 2 ? Path.of(args[2]) : Files.createTempDirectory("journal-bench");
+
+        logger.info("=== Session Journal Benchmark ({} sessions, {}) ===", sessions, directory);
+        JournalBenchmark benchmark = new JournalBenchmark(sessions, answers, directory);
+
+        // Warm-up pass so JIT compilation does not skew the first strategy
+        benchmark.runGroupCommit(0);
+
+        logger.info("{}", benchmark.runGroupCommit(0));
+        logger.info("{}", benchmark.runGroupCommit(20));
+        logger.info("{}", benchmark.runSyncEach());
+
+        if (args.length <= 2) {
+            try (Stream<Path> files = Files.walk(directory)) {
+                files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+            }
+        }
+    }
+}
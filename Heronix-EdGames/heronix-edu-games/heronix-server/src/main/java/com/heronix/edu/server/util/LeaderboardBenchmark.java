@@ -0,0 +1,164 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.server.engine.RankedLeaderboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Microbenchmark of leaderboard maintenance: the full sort getLeaderboard used to do on
+ * every reward/hack versus the incremental {@link RankedLeaderboard}.
+ *
+ * Each operation changes one player's credits and then reads the whole board (what
+ * broadcastLeaderboard needs), the top 10 and one player's rank.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.LeaderboardBenchmark [operations]
+ */
+public class LeaderboardBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardBenchmark.class);
+
+    private static final int[] PLAYER_COUNTS = {30, 300, 3000};
+    private static final int TOP_K = 10;
+
+    private final int players;
+    private final int operations;
+
+    public LeaderboardBenchmark(int players, int operations) {
+        this.players = players;
+        this.operations = operations;
+    }
+
+    /**
+     * Current approach: stream + sort all players for every read.
+     */
+    public BenchmarkResult runFullSort() {
+        Random random = new Random(7);
+        List<SimulatedPlayer> roster = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            roster.add(new SimulatedPlayer("p" + i));
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int op = 0; op < operations; op++) {
+            SimulatedPlayer player = roster.get(random.nextInt(players));
+            player.credits += random.nextInt(100);
+
+            List<SimulatedPlayer> sorted = roster.stream()
+                .sorted((a, b) -> Integer.compare(b.credits, a.credits))
+                .toList();
+            sink += sorted.get(0).credits;
+            sink += sorted.subList(0, Math.min(TOP_K, players)).size();
+            sink += sorted.indexOf(player) + 1;
+        }
+        long elapsed = System.nanoTime() - start;
+        return new BenchmarkResult("full-sort", players, operations, elapsed, sink);
+    }
+
+    /**
+     * Incremental skip list: O(log n) update, O(n) full read, O(k) top-k, O(log n) rank.
+     */
+    public BenchmarkResult runRanked() {
+        Random random = new Random(7);
+        RankedLeaderboard board = new RankedLeaderboard();
+        String[] ids = new String[players];
+        int[] credits = new int[players];
+        for (int i = 0; i < players; i++) {
+            ids[i] = "p" + i;
+            board.add(ids[i], 0);
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int op = 0; op < operations; op++) {
+            int player = random.nextInt(players);
+            credits[player] += random.nextInt(100);
+            board.update(ids[player], credits[player]);
+
+            sink += board.top(players).size();
+            sink += board.top(TOP_K).size();
+            sink += board.rank(ids[player]);
+        }
+        long elapsed = System.nanoTime() - start;
+        return new BenchmarkResult("ranked-skiplist", players, operations, elapsed, sink);
+    }
+
+    /**
+     * Incremental skip list without the full read, i.e. the cost once broadcasts only
+     * carry the top of the board.
+     */
+    public BenchmarkResult runRankedTopK() {
+        Random random = new Random(7);
+        RankedLeaderboard board = new RankedLeaderboard();
+        String[] ids = new String[players];
+        int[] credits = new int[players];
+        for (int i = 0; i < players; i++) {
+            ids[i] = "p" + i;
+            board.add(ids[i], 0);
+        }
+
+        long sink = 0;
+        long start = System.nanoTime();
+        for (int op = 0; op < operations; op++) {
+            int player = random.nextInt(players);
+            credits[player] += random.nextInt(100);
+            board.update(ids[player], credits[player]);
+
+            sink += board.top(TOP_K).size();
+            sink += board.rank(ids[player]);
+        }
+        long elapsed = System.nanoTime() - start;
+        return new BenchmarkResult("ranked-topk-only", players, operations, elapsed, sink);
+    }
+
+    private static class SimulatedPlayer {
+        final String id;
+        int credits;
+
+        SimulatedPlayer(String id) {
+            this.id = id;
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int players, int operations, long elapsedNanos, long sink) {
+        public double nanosPerOperation() {
+            return (double) elapsedNanos / operations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-17s players=%-5d ops=%d %.2fus/op",
+                strategy, players, operations, nanosPerOperation() / 1000.0);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) {
+        int operations = args.length > 0 ? Integer.parseInt(args[0]) : 20_000;
+
+        logger.info("=== Leaderboard Benchmark ===");
+        for (int players : PLAYER_COUNTS) {
+            // Fewer operations for the big board so the sort run stays short
+            int ops = Math.max(1000, operations * 30 / Math.max(30, players));
+            LeaderboardBenchmark benchmark = new LeaderboardBenchmark(players, ops);
+
+            // Warm-up pass so JIT compilation does not skew the first strategy
+            benchmark.runFullSort();
+            benchmark.runRanked();
+            benchmark.runRankedTopK();
+
+            logger.info("{}", benchmark.runFullSort());
+            logger.info("{}", benchmark.runRanked());
+            logger.info("{}", benchmark.runRankedTopK());
+        }
+    }
+}
@@ -0,0 +1,249 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.dto.game.LeaderboardEntry;
+import com.heronix.edu.server.dto.game.LeaderboardUpdate;
+import com.heronix.edu.server.dto.game.RankUpdate;
+import com.heronix.edu.server.engine.LeaderboardDeltaTracker;
+import com.heronix.edu.server.engine.RankedLeaderboard;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures outbound leaderboard traffic for one session on a simulated clock.
+ *
+ * Every player answers and collects credits at a fixed average rate. Three broadcast
+ * strategies are compared:
+ *   per-change     - the full leaderboard is published after every credit change (old behaviour)
+ *   coalesced      - changes mark the board dirty; one versioned delta per tick
+ *   large-session  - one delta of the top rows per tick, plus a rank message to each
+ *                    player whose rank, credits or neighbours changed
+ *
+ * Bytes are the JSON payload size times the number of topic subscribers (players + teacher),
+ * plus each per-user payload once. Tick time is building and serializing one tick's messages,
+ * which is how long the last subscriber waits behind the first.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.LeaderboardBroadcastBenchmark [players] [seconds] [tickMs]
+ */
+public class LeaderboardBroadcastBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(LeaderboardBroadcastBenchmark.class);
+
+    // Roughly one reward every 4 seconds per player during a busy round
+    private static final double REWARDS_PER_PLAYER_PER_SECOND = 0.25;
+
+    private static final int TOP_N = 10;
+    private static final int NEIGHBOURS = 2;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final int players;
+    private final int seconds;
+    private final int tickMs;
+
+    public LeaderboardBroadcastBenchmark(int players, int seconds, int tickMs) {
+        this.players = players;
+        this.seconds = seconds;
+        this.tickMs = tickMs;
+    }
+
+    public BenchmarkResult runPerChange() throws Exception {
+        Board board = new Board(players);
+        Random random = new Random(11);
+        long changes = Math.round(players * REWARDS_PER_PLAYER_PER_SECOND * seconds);
+
+        long messages = 0;
+        long bytes = 0;
+        for (long i = 0; i < changes; i++) {
+            board.reward(random.nextInt(players));
+            byte[] payload = objectMapper.writeValueAsBytes(
+                Map.of("type", "LEADERBOARD_UPDATE", "leaderboard", board.entries()));
+            messages += subscribers();
+            bytes += (long) payload.length * subscribers();
+        }
+        return new BenchmarkResult("per-change", players, seconds, messages, bytes, null);
+    }
+
+    public BenchmarkResult runCoalesced() throws Exception {
+        Board board = new Board(players);
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+        Random random = new Random(11);
+        long changes = Math.round(players * REWARDS_PER_PLAYER_PER_SECOND * seconds);
+        int ticks = seconds * 1000 / tickMs;
+        double changesPerTick = (double) changes / ticks;
+
+        LatencyHistogram tickNanos = new LatencyHistogram();
+        long messages = 0;
+        long bytes = 0;
+        double carry = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            carry += changesPerTick;
+            boolean dirty = false;
+            while (carry >= 1) {
+                board.reward(random.nextInt(players));
+                carry -= 1;
+                dirty = true;
+            }
+            if (!dirty && tick > 0) {
+                continue;
+            }
+            long start = System.nanoTime();
+            LeaderboardUpdate delta = tracker.nextDelta(board.entries());
+            if (delta != null) {
+                byte[] payload = objectMapper.writeValueAsBytes(delta);
+                messages += subscribers();
+                bytes += (long) payload.length * subscribers();
+            }
+            tickNanos.record(System.nanoTime() - start);
+        }
+        return new BenchmarkResult("coalesced-" + tickMs + "ms", players, seconds, messages, bytes, tickNanos);
+    }
+
+    /**
+     * Same ticks as {@link #runCoalesced}, split the way GameSessionService does
+     * above its large-session threshold.
+     */
+    public BenchmarkResult runLargeSession() throws Exception {
+        Board board = new Board(players);
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+        long[] standingSent = new long[players];
+        Random random = new Random(11);
+        long changes = Math.round(players * REWARDS_PER_PLAYER_PER_SECOND * seconds);
+        int ticks = seconds * 1000 / tickMs;
+        double changesPerTick = (double) changes / ticks;
+
+        LatencyHistogram tickNanos = new LatencyHistogram();
+        long messages = 0;
+        long bytes = 0;
+        double carry = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            carry += changesPerTick;
+            boolean dirty = false;
+            while (carry >= 1) {
+                board.reward(random.nextInt(players));
+                carry -= 1;
+                dirty = true;
+            }
+            if (!dirty && tick > 0) {
+                continue;
+            }
+            long start = System.nanoTime();
+            List<LeaderboardEntry> entries = board.entries();
+            LeaderboardUpdate delta = tracker.nextDelta(
+                new ArrayList<>(entries.subList(0, Math.min(TOP_N, entries.size()))), entries.size());
+            if (delta != null) {
+                byte[] payload = objectMapper.writeValueAsBytes(delta);
+                messages += subscribers();
+                bytes += (long) payload.length * subscribers();
+            }
+            for (int i = 0; i < entries.size(); i++) {
+                int from = Math.max(0, i - NEIGHBOURS);
+                int to = Math.min(entries.size(), i + NEIGHBOURS + 1);
+                long signature = i;
+                for (int j = from; j < to; j++) {
+                    LeaderboardEntry row = entries.get(j);
+                    signature = signature * 0x9E3779B97F4A7C15L + row.getPlayerId().hashCode();
+                    signature = signature * 31 + row.getCredits();
+                    signature = signature * 31 + row.getCorrectAnswers();
+                }
+                int player = Integer.parseInt(entries.get(i).getPlayerId().substring("player-".length()));
+                if (standingSent[player] != signature) {
+                    standingSent[player] = signature;
+                    byte[] payload = objectMapper.writeValueAsBytes(new RankUpdate(tracker.getVersion(), i + 1,
+                        entries.get(i).getCredits(), entries.size(), new ArrayList<>(entries.subList(from, to))));
+                    messages++;
+                    bytes += payload.length;
+                }
+            }
+            tickNanos.record(System.nanoTime() - start);
+        }
+        return new BenchmarkResult("large-session", players, seconds, messages, bytes, tickNanos);
+    }
+
+    private int subscribers() {
+        return players + 1;
+    }
+
+    /**
+     * Session leaderboard stand-in built on the real ranking structure.
+     */
+    private static class Board {
+        private final RankedLeaderboard ranking = new RankedLeaderboard();
+        private final int[] credits;
+        private final int[] correct;
+
+        Board(int players) {
+            credits = new int[players];
+            correct = new int[players];
+            for (int i = 0; i < players; i++) {
+                ranking.add("player-" + i, 0);
+            }
+        }
+
+        void reward(int player) {
+            credits[player] += 50;
+            correct[player]++;
+            ranking.update("player-" + player, credits[player]);
+        }
+
+        List<LeaderboardEntry> entries() {
+            List<String> ids = ranking.top(ranking.size());
+            List<LeaderboardEntry> entries = new ArrayList<>(ids.size());
+            int rank = 1;
+            for (String id : ids) {
+                int index = Integer.parseInt(id.substring("player-".length()));
+                LeaderboardEntry entry = new LeaderboardEntry(rank++, id, "Student " + index, "ROOKIE_ROBOT", credits[index]);
+                entry.setCorrectAnswers(correct[index]);
+                entry.setSuccessfulHacks(0);
+                entries.add(entry);
+            }
+            return entries;
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int players, int seconds, long messages, long bytes,
+                                  LatencyHistogram tickNanos) {
+        @Override
+        public String toString() {
+            String summary = String.format("%-16s players=%-4d msgs/s=%.0f bytes/s=%.0f (%.1f KB/s)",
+                strategy, players, (double) messages / seconds, (double) bytes / seconds,
+                bytes / 1024.0 / seconds);
+            if (tickNanos == null) {
+                return summary;
+            }
+            return summary + String.format(" tick p50=%.2fms p99=%.2fms",
+                tickNanos.getValueAtPercentile(50) / 1e6, tickNanos.getValueAtPercentile(99) / 1e6);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 60;
+        int tickMs = args.length > 2 ? Integer.parseInt(args[2]) : 250;
+        int[] playerCounts = args.length > 0 ? new int[]{Integer.parseInt(args[0])} : new int[]{30, 300, 1000};
+
+        logger.info("=== Leaderboard Broadcast Benchmark ===");
+
+        // Warm up serialization and the ranking structure
+        new LeaderboardBroadcastBenchmark(300, 10, tickMs).runCoalesced();
+        new LeaderboardBroadcastBenchmark(300, 10, tickMs).runLargeSession();
+
+        for (int players : playerCounts) {
+            LeaderboardBroadcastBenchmark benchmark = new LeaderboardBroadcastBenchmark(players, seconds, tickMs);
+            if (players <= 300) {
+                logger.info("{}", benchmark.runPerChange());
+            }
+            logger.info("{}", benchmark.runCoalesced());
+            logger.info("{}", benchmark.runLargeSession());
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.server.engine.SessionEngine;
+import com.heronix.edu.server.websocket.MessagingMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Cost per message of {@link MessagingMetrics}, against the same calls with
+ * metrics turned off.
+ *
+ * One request is what an answer costs the metrics:
+ *   inbound   - SEND /app/session/{code}/answer stamped, then timed on the handler
+ *   reply     - ANSWER_RESULT picking up the trace on the broker channel, and
+ *               counted and timed on the outbound channel
+ *   broadcast - one topic frame to another player, counted
+ * That is four messages through the channels (in, reply, and its broker hop, out).
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.MessagingMetricsBenchmark [iterations] [threads]
+ */
+public class MessagingMetricsBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(MessagingMetricsBenchmark.class);
+
+    private static final int MESSAGES_PER_REQUEST = 4;
+
+    private final int iterations;
+    private final int threads;
+    private final MessageHandler handler;
+
+    public MessagingMetricsBenchmark(int iterations, int threads) {
+        this.iterations = iterations;
+        this.threads = threads;
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        this.handler = new SimpAnnotationMethodMessageHandler(channel, channel, new SimpMessagingTemplate(channel));
+    }
+
+    public BenchmarkResult run(boolean enabled) throws InterruptedException {
+        SessionEngine engine = new SessionEngine(1, 16);
+        try {
+            MessagingMetrics metrics = new MessagingMetrics(engine, enabled);
+            List<Worker> workers = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                workers.add(new Worker(metrics, "session-" + t));
+            }
+            for (Worker worker : workers) {
+                worker.loop(iterations / 4);  // warm-up
+            }
+
+            CountDownLatch done = new CountDownLatch(threads);
+            long start = System.nanoTime();
+            for (Worker worker : workers) {
+                new Thread(() -> {
+                    worker.loop(iterations);
+                    done.countDown();
+                }, "metrics-bench").start();
+            }
+            done.await();
+            long elapsed = System.nanoTime() - start;
+            long requests = (long) iterations * threads;
+            return new BenchmarkResult(enabled ? "metrics on" : "metrics off", threads,
+                (double) elapsed / requests, requests * 1e9 / elapsed);
+        } finally {
+            engine.shutdown();
+        }
+    }
+
+    /**
+     * One connection's messages, built once and sent through the interceptors repeatedly.
+     */
+    private final class Worker {
+        private final ExecutorChannelInterceptor inbound;
+        private final ExecutorChannelInterceptor broker;
+        private final ExecutorChannelInterceptor outbound;
+        private final Message<?> answer;
+        private final Message<?> reply;
+        private final Message<?> broadcast;
+        private long sink;
+
+        Worker(MessagingMetrics metrics, String sessionId) {
+            this.inbound = metrics.inbound();
+            this.broker = metrics.broker();
+            this.outbound = metrics.outbound();
+
+            StompHeaderAccessor send = StompHeaderAccessor.create(StompCommand.SEND);
+            send.setDestination("/app/session/ABC123/answer");
+            send.setSessionId(sessionId);
+            send.setLeaveMutable(true);
+            this.answer = MessageBuilder.createMessage(
+                "{\"questionId\":\"q-17\",\"answer\":\"56\"}".getBytes(StandardCharsets.UTF_8), send.getMessageHeaders());
+
+            SimpMessageHeaderAccessor result = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            result.setDestination("/queue/answer-result-user" + sessionId);
+            result.setSessionId(sessionId);
+            result.setSubscriptionId("sub-3");
+            result.setNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, "/user/queue/answer-result");
+            this.reply = MessageBuilder.createMessage(
+                "{\"type\":\"ANSWER_RESULT\",\"correct\":true}".getBytes(StandardCharsets.UTF_8), result.getMessageHeaders());
+
+            SimpMessageHeaderAccessor topic = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            topic.setDestination("/topic/session/ABC123");
+            topic.setSessionId(sessionId + "-other");
+            topic.setSubscriptionId("sub-0");
+            this.broadcast = MessageBuilder.createMessage(
+                "{\"eventType\":\"PLAYER_ANSWERED\"}".getBytes(StandardCharsets.UTF_8), topic.getMessageHeaders());
+        }
+
+        void loop(int count) {
+            for (int i = 0; i < count; i++) {
+                Message<?> received = inbound.preSend(answer, null);
+                inbound.beforeHandle(received, null, handler);
+                Message<?> traced = broker.preSend(reply, null);
+                sink += outbound.beforeHandle(traced, null, null).getHeaders().size();
+                inbound.afterMessageHandled(received, null, handler, null);
+                sink += outbound.beforeHandle(broadcast, null, null).getHeaders().size();
+            }
+        }
+    }
+
+    public record BenchmarkResult(String mode, int threads, double nsPerRequest, double requestsPerSecond) {
+        @Override
+        public String toString() {
+            return String.format("%-12s threads=%d  %7.0f ns/request  %7.0f ns/message  %,10.0f requests/s",
+                mode, threads, nsPerRequest, nsPerRequest / MESSAGES_PER_REQUEST, requestsPerSecond);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 2_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : 1;
+        MessagingMetricsBenchmark benchmark = new MessagingMetricsBenchmark(iterations, threads);
+        logger.info("=== Messaging Metrics Benchmark: {} requests per thread, {} threads ===", iterations, threads);
+
+        BenchmarkResult off = null;
+        BenchmarkResult on = null;
+        for (int round = 0; round < 3; round++) {
+            off = benchmark.run(false);
+            on = benchmark.run(true);
+            logger.info("{}", off);
+            logger.info("{}", on);
+        }
+        // Busy threads beyond the core count only share the same CPU time
+        int busy = Math.min(threads, Runtime.getRuntime().availableProcessors());
+        double overhead = (on.nsPerRequest() - off.nsPerRequest()) * busy / MESSAGES_PER_REQUEST;
+        logger.info("Metrics overhead: {} ns of CPU per message (last round)", Math.round(overhead));
+    }
+}
@@ -0,0 +1,329 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.server.engine.ActiveGameSession;
+import com.heronix.edu.server.engine.BankQuestion;
+import com.heronix.edu.server.engine.QuestionBank;
+import com.heronix.edu.server.engine.RankedLeaderboard;
+import com.heronix.edu.server.engine.TimingWheel;
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import com.heronix.edu.server.entity.GameSessionEntity;
+import com.heronix.edu.server.entity.QuestionEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Supplier;
+
+/**
+ * Per-player session state: slot-indexed arrays in {@link ActiveGameSession}
+ * against the previous layout of one map per field, keyed by player id.
+ *
+ *   memory - retained heap per session with every player holding a question
+ *            index, an answer deadline, some shields and failed hacks
+ *   answer - the session work of processAnswer and the next question: look up
+ *            the player and current question, cancel and replace the deadline
+ *   hack   - the shield check and failed-attempt count of a hack
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.PlayerStateBenchmark [players] [sessions]
+ */
+public class PlayerStateBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(PlayerStateBenchmark.class);
+
+    private static final int OPERATIONS = 2_000_000;
+
+    private final int players;
+    private final int sessions;
+    private final QuestionBank bank = questionBank(40);
+    private final List<GamePlayerEntity> roster = new ArrayList<>();
+    private final TimingWheel.Timeout timer = new TimingWheel(100, 8, () -> 0L).schedule(0, t -> { });
+
+    public PlayerStateBenchmark(int players, int sessions) {
+        this.players = players;
+        this.sessions = sessions;
+        for (int i = 0; i < players; i++) {
+            roster.add(new GamePlayerEntity("player-" + i + "-" + Long.toHexString(i * 0x9E3779B97F4AL),
+                "student-" + i, "Student " + i));
+        }
+    }
+
+    public BenchmarkResult runSlots() {
+        long bytes = retainedPerSession(this::slotSession);
+        ActiveGameSession session = slotSession();
+        String[] ids = ids();
+        Random random = new Random(9);
+
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            String playerId = ids[random.nextInt(ids.length)];
+            int slot = session.getSlot(playerId);
+            GamePlayerEntity player = session.getPlayer(slot);
+            BankQuestion current = session.getCurrentQuestion(slot);
+            session.cancelQuestionTimer(slot);
+            if (session.getNextQuestion(slot) == null) {
+                session.resetQuestionIndex(slot);
+            }
+            session.setQuestionTimer(slot, timer);
+            checksum += player.getCredits() + session.getQuestionNumber(slot) + (current != null ? 1 : 0);
+        }
+        double answerNanos = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String hackerId = ids[random.nextInt(ids.length)];
+            String targetId = ids[random.nextInt(ids.length)];
+            if (!session.hasShield(targetId)) {
+                checksum += session.recordFailedHackAttempt(hackerId, targetId);
+            }
+        }
+        double hackNanos = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        return new BenchmarkResult("slot-arrays", players, bytes, answerNanos, hackNanos, checksum);
+    }
+
+    public BenchmarkResult runMaps() {
+        long bytes = retainedPerSession(this::mapSession);
+        MapPlayerState session = mapSession();
+        String[] ids = ids();
+        Random random = new Random(9);
+
+        long start = System.nanoTime();
+        long checksum = 0;
+        for (int i = 0; i < OPERATIONS; i++) {
+            String playerId = ids[random.nextInt(ids.length)];
+            GamePlayerEntity player = session.getPlayer(playerId);
+            BankQuestion current = session.getCurrentQuestion(playerId);
+            session.cancelQuestionTimer(playerId);
+            if (session.getNextQuestion(playerId) == null) {
+                session.resetQuestionIndex(playerId);
+            }
+            session.setQuestionTimer(playerId, timer);
+            checksum += player.getCredits() + session.getQuestionNumber(playerId) + (current != null ? 1 : 0);
+        }
+        double answerNanos = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        start = System.nanoTime();
+        for (int i = 0; i < OPERATIONS; i++) {
+            String hackerId = ids[random.nextInt(ids.length)];
+            String targetId = ids[random.nextInt(ids.length)];
+            if (!session.hasShield(targetId)) {
+                checksum += session.recordFailedHackAttempt(hackerId, targetId);
+            }
+        }
+        double hackNanos = (double) (System.nanoTime() - start) / OPERATIONS;
+
+        return new BenchmarkResult("per-field-maps", players, bytes, answerNanos, hackNanos, checksum);
+    }
+
+    private ActiveGameSession slotSession() {
+        ActiveGameSession session = new ActiveGameSession(
+            new GameSessionEntity("BENCH1", "teacher", "CODE_BREAKER"), bank, null);
+        for (int i = 0; i < players; i++) {
+            GamePlayerEntity player = roster.get(i);
+            String playerId = player.getPlayerId();
+            if (!session.hasPlayer(player.getStudentId())) {
+                session.addPlayer(player);
+            }
+            session.setQuestionNumber(playerId, i % 20);
+            session.setQuestionTimer(playerId, timer);
+            if (i % 3 == 0) {
+                session.setShieldUntil(playerId, 1_700_000_000_000L + i);
+            }
+        }
+        for (int i = 0; i < players; i++) {
+            session.recordFailedHackAttempt(roster.get(i).getPlayerId(), roster.get((i + 1) % players).getPlayerId());
+            session.recordFailedHackAttempt(roster.get(i).getPlayerId(), roster.get((i + 7) % players).getPlayerId());
+        }
+        return session;
+    }
+
+    private MapPlayerState mapSession() {
+        MapPlayerState session = new MapPlayerState(bank);
+        for (int i = 0; i < players; i++) {
+            GamePlayerEntity player = roster.get(i);
+            String playerId = player.getPlayerId();
+            if (!session.hasPlayer(player.getStudentId())) {
+                session.addPlayer(player);
+            }
+            session.playerQuestionIndex.put(playerId, i % 20);
+            session.setQuestionTimer(playerId, timer);
+            if (i % 3 == 0) {
+                session.playerShields.put(playerId, 1_700_000_000_000L + i);
+            }
+        }
+        for (int i = 0; i < players; i++) {
+            session.recordFailedHackAttempt(roster.get(i).getPlayerId(), roster.get((i + 1) % players).getPlayerId());
+            session.recordFailedHackAttempt(roster.get(i).getPlayerId(), roster.get((i + 7) % players).getPlayerId());
+        }
+        return session;
+    }
+
+    private long retainedPerSession(Supplier<Object> factory) {
+        MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+        Object[] held = new Object[sessions];
+        long before = usedHeap(memory);
+        for (int i = 0; i < sessions; i++) {
+            held[i] = factory.get();
+        }
+        long after = usedHeap(memory);
+        if (held[sessions - 1] == null) {
+            throw new IllegalStateException();
+        }
+        return (after - before) / sessions;
+    }
+
+    private static long usedHeap(MemoryMXBean memory) {
+        for (int i = 0; i < 3; i++) {
+            System.gc();
+        }
+        return memory.getHeapMemoryUsage().getUsed();
+    }
+
+    private String[] ids() {
+        // Copies, so lookups hash and compare like ids parsed from a STOMP frame
+        String[] ids = new String[players];
+        for (int i = 0; i < players; i++) {
+            ids[i] = new String(roster.get(i).getPlayerId());
+        }
+        return ids;
+    }
+
+    private static QuestionBank questionBank(int size) {
+        List<QuestionEntity> questions = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            QuestionEntity q = new QuestionEntity();
+            q.setQuestionId("q-" + i);
+            q.setQuestionText("What is " + i + " + " + i + "?");
+            q.setCorrectAnswer(String.valueOf(i * 2));
+            q.setWrongAnswer1(String.valueOf(i * 2 + 1));
+            q.setWrongAnswer2(String.valueOf(i * 2 - 1));
+            q.setWrongAnswer3(String.valueOf(i * 3));
+            questions.add(q);
+        }
+        return new QuestionBank("bench", questions);
+    }
+
+    /**
+     * The previous per-player layout of ActiveGameSession: one map per field.
+     */
+    static final class MapPlayerState {
+        private final QuestionBank questionBank;
+        private final int[] questionOrder;
+        private final Map<String, GamePlayerEntity> players = new LinkedHashMap<>();
+        private final Map<String, Integer> playerQuestionIndex = new HashMap<>();
+        private final Map<String, Long> playerShields = new HashMap<>();
+        private final Map<String, TimingWheel.Timeout> shieldTimers = new HashMap<>();
+        private final Map<String, TimingWheel.Timeout> questionTimers = new HashMap<>();
+        private final Map<String, Map<String, Integer>> hackAttemptTracker = new HashMap<>();
+        private final RankedLeaderboard leaderboard = new RankedLeaderboard();
+
+        MapPlayerState(QuestionBank questionBank) {
+            this.questionBank = questionBank;
+            this.questionOrder = questionBank.shuffledOrder();
+        }
+
+        void addPlayer(GamePlayerEntity player) {
+            players.put(player.getPlayerId(), player);
+            playerQuestionIndex.put(player.getPlayerId(), 0);
+            leaderboard.add(player.getPlayerId(), player.getCredits());
+        }
+
+        boolean hasPlayer(String studentId) {
+            return players.values().stream().anyMatch(p -> p.getStudentId().equals(studentId));
+        }
+
+        GamePlayerEntity getPlayer(String playerId) {
+            return players.get(playerId);
+        }
+
+        BankQuestion getCurrentQuestion(String playerId) {
+            int index = playerQuestionIndex.getOrDefault(playerId, 0) - 1;
+            if (index >= 0 && index < questionOrder.length) {
+                return questionBank.get(questionOrder[index]);
+            }
+            return null;
+        }
+
+        BankQuestion getNextQuestion(String playerId) {
+            int index = playerQuestionIndex.getOrDefault(playerId, 0);
+            playerQuestionIndex.put(playerId, index + 1);
+            if (index < questionOrder.length) {
+                return questionBank.get(questionOrder[index]);
+            }
+            return null;
+        }
+
+        int getQuestionNumber(String playerId) {
+            return playerQuestionIndex.getOrDefault(playerId, 0);
+        }
+
+        void resetQuestionIndex(String playerId) {
+            playerQuestionIndex.put(playerId, 0);
+        }
+
+        boolean hasShield(String playerId) {
+            return playerShields.containsKey(playerId);
+        }
+
+        void setQuestionTimer(String playerId, TimingWheel.Timeout timer) {
+            TimingWheel.Timeout previous = questionTimers.put(playerId, timer);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+
+        void cancelQuestionTimer(String playerId) {
+            TimingWheel.Timeout previous = questionTimers.remove(playerId);
+            if (previous != null) {
+                previous.cancel();
+            }
+        }
+
+        int recordFailedHackAttempt(String hackerId, String targetId) {
+            return hackAttemptTracker.computeIfAbsent(hackerId, k -> new HashMap<>())
+                .merge(targetId, 1, Integer::sum);
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String layout, int players, long bytesPerSession,
+                                  double answerNanos, double hackNanos, long checksum) {
+        @Override
+        public String toString() {
+            return String.format("%-15s players=%-5d retained=%,d B/session (%d B/player) answer=%.0f ns hack=%.0f ns",
+                layout, players, bytesPerSession, bytesPerSession / players, answerNanos, hackNanos);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) {
+        int players = args.length > 0 ? Integer.parseInt(args[0]) : 30;
+        int sessions = args.length > 1 ? Integer.parseInt(args[1]) : 2_000;
+
+        logger.info("=== Player State Benchmark ===");
+
+        // Warm-up pass so JIT compilation does not skew the first layout
+        new PlayerStateBenchmark(30, 100).runSlots();
+        new PlayerStateBenchmark(30, 100).runMaps();
+
+        PlayerStateBenchmark benchmark = new PlayerStateBenchmark(players, sessions);
+        logger.info("{}", benchmark.runMaps());
+        logger.info("{}", benchmark.runSlots());
+
+        PlayerStateBenchmark large = new PlayerStateBenchmark(players * 10, Math.max(1, sessions / 10));
+        logger.info("{}", large.runMaps());
+        logger.info("{}", large.runSlots());
+    }
+}
@@ -0,0 +1,157 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.dto.game.QuestionDto;
+import com.heronix.edu.server.engine.BankQuestion;
+import com.heronix.edu.server.engine.QuestionBank;
+import com.heronix.edu.server.engine.QuestionPayloadEncoder;
+import com.heronix.edu.server.entity.QuestionEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Allocation and throughput of question fan-out: every player in a session receives
+ * every question once.
+ *
+ *   per-player-dto   - build a QuestionDto and serialize it for each delivery (old sendNextQuestion)
+ *   pre-encoded      - encode each question once per session, then splice the player envelope
+ *
+ * Allocation is measured with the HotSpot per-thread allocation counter.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.QuestionFanoutBenchmark [questions] [rounds]
+ */
+public class QuestionFanoutBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(QuestionFanoutBenchmark.class);
+
+    private static final int[] PLAYER_COUNTS = {30, 300};
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final QuestionPayloadEncoder encoder = new QuestionPayloadEncoder(objectMapper);
+    private final QuestionBank bank;
+    private final String[] playerIds;
+    private final int rounds;
+
+    public QuestionFanoutBenchmark(int players, int questions, int rounds) {
+        this.bank = new QuestionBank("bench", sampleQuestions(questions));
+        this.playerIds = new String[players];
+        for (int i = 0; i < players; i++) {
+            playerIds[i] = java.util.UUID.randomUUID().toString();
+        }
+        this.rounds = rounds;
+    }
+
+    public BenchmarkResult runPerPlayerDto() throws Exception {
+        long sink = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int r = 0; r < rounds; r++) {
+            for (BankQuestion question : bank.getQuestions()) {
+                for (String playerId : playerIds) {
+                    QuestionDto dto = new QuestionDto();
+                    dto.setQuestionId(question.getQuestionId());
+                    dto.setQuestionText(question.getQuestionText());
+                    dto.setAnswers(question.shuffledAnswers());
+                    dto.setDifficulty(question.getDifficulty());
+                    dto.setImageUrl(question.getImageUrl());
+                    dto.setTimeLimitSeconds(15);
+                    sink += objectMapper.writeValueAsBytes(dto).length;
+                }
+            }
+        }
+
+        return result("per-player-dto", start, allocatedBefore, sink);
+    }
+
+    public BenchmarkResult runPreEncoded() {
+        long sink = 0;
+        long allocatedBefore = allocatedBytes();
+        long start = System.nanoTime();
+
+        for (int r = 0; r < rounds; r++) {
+            // One cache per session, i.e. per round
+            Map<String, byte[]> cache = new HashMap<>();
+            int questionNumber = 0;
+            for (BankQuestion question : bank.getQuestions()) {
+                questionNumber++;
+                byte[] body = cache.computeIfAbsent(question.getQuestionId(), id -> encoder.encodeBody(question));
+                for (String playerId : playerIds) {
+                    sink += encoder.withEnvelope(body, questionNumber, playerId).length;
+                }
+            }
+        }
+
+        return result("pre-encoded", start, allocatedBefore, sink);
+    }
+
+    private BenchmarkResult result(String strategy, long start, long allocatedBefore, long sink) {
+        long elapsed = System.nanoTime() - start;
+        long allocated = allocatedBytes() - allocatedBefore;
+        long deliveries = (long) rounds * bank.size() * playerIds.length;
+        return new BenchmarkResult(strategy, playerIds.length, deliveries,
+            deliveries * 1_000_000_000.0 / elapsed, (double) allocated / deliveries, sink);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean hotspot) {
+            return hotspot.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0;
+    }
+
+    private static List<QuestionEntity> sampleQuestions(int count) {
+        List<QuestionEntity> questions = new ArrayList<>(count);
+        for (int i = 1; i <= count; i++) {
+            QuestionEntity q = new QuestionEntity();
+            q.setQuestionId(java.util.UUID.randomUUID().toString());
+            q.setQuestionText("Which planet is number " + i + " in the sequence shown on the board?");
+            q.setCorrectAnswer("Answer " + i);
+            q.setWrongAnswer1("Option A" + i);
+            q.setWrongAnswer2("Option B" + i);
+            q.setWrongAnswer3("Option C" + i);
+            q.setDifficulty(1 + i % 5);
+            questions.add(q);
+        }
+        return questions;
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int players, long deliveries,
+                                  double deliveriesPerSecond, double bytesAllocatedPerDelivery, long sink) {
+        @Override
+        public String toString() {
+            return String.format("%-15s players=%-4d deliveries=%d throughput=%.0f/s allocated=%.0f B/delivery",
+                strategy, players, deliveries, deliveriesPerSecond, bytesAllocatedPerDelivery);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int questions = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 50;
+
+        logger.info("=== Question Fan-out Benchmark ===");
+        for (int players : PLAYER_COUNTS) {
+            QuestionFanoutBenchmark benchmark = new QuestionFanoutBenchmark(players, questions, rounds);
+
+            // Warm-up pass so JIT compilation does not skew the first strategy
+            benchmark.runPerPlayerDto();
+            benchmark.runPreEncoded();
+
+            logger.info("{}", benchmark.runPerPlayerDto());
+            logger.info("{}", benchmark.runPreEncoded());
+        }
+    }
+}
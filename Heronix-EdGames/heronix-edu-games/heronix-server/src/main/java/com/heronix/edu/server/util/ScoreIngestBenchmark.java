@@ -0,0 +1,225 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.common.model.Device;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.HeronixServerApplication;
+import com.heronix.edu.server.dto.response.SyncState;
+import com.heronix.edu.server.entity.DeviceEntity;
+import com.heronix.edu.server.entity.StudentEntity;
+import com.heronix.edu.server.repository.DeviceRepository;
+import com.heronix.edu.server.repository.GameScoreRepository;
+import com.heronix.edu.server.repository.StudentRepository;
+import com.heronix.edu.server.service.ScoreIngestService;
+import com.heronix.edu.server.service.SyncService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Measures a morning sync storm: {@value #DEVICES} devices (or the number
+ * given) each uploading one batch of scores at the same moment, against an
+ * in-process server on in-memory H2 with the ingest log in a temporary
+ * directory (real fsyncs).
+ *
+ * Two ways of uploading are compared, each on a fresh server:
+ *   sync   - SyncService.uploadScores, what POST /api/sync/upload does: the
+ *            request thread waits for validation, audit rows and the commit
+ *   async  - ScoreIngestService.submit, what POST /api/sync/upload/async
+ *            does: the request thread waits for the log fsync, then 202
+ *
+ * One thread per device stands in for its Tomcat request thread. Reported:
+ * request latency (how long each device holds a request thread) at p50, p99
+ * and max, the request-thread seconds they add up to, the time until every
+ * score is in game_scores, and scores saved per second over that time.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.ScoreIngestBenchmark [devices] [scores-per-upload]
+ */
+public class ScoreIngestBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(ScoreIngestBenchmark.class);
+
+    private static final int DEVICES = 500;
+    private static final int STUDENTS = 30;
+
+    private final Random random = new Random(23);
+
+    /**
+     * Start a server, run a warm-up storm and a measured one, stop it.
+     */
+    public BenchmarkResult run(String mode, int devices, int scoresPerUpload) throws Exception {
+        Path ingestDirectory = Files.createTempDirectory("ingest-bench");
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HeronixServerApplication.class)
+            .run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:ingest-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--heronix.sync.ingest.directory=" + ingestDirectory,
+                "--heronix.game.journal.enabled=false",
+                "--heronix.sis.enabled=false",
+                "--logging.level.root=WARN");
+        try {
+            seed(context, devices);
+            storm(context, "async".equals(mode), Math.min(devices, 50), scoresPerUpload);
+            return storm(context, "async".equals(mode), devices, scoresPerUpload).withMode(mode);
+        } finally {
+            context.close();
+            deleteRecursively(ingestDirectory);
+        }
+    }
+
+    private BenchmarkResult storm(ConfigurableApplicationContext context, boolean async, int devices,
+                                  int scoresPerUpload) throws Exception {
+        SyncService syncService = context.getBean(SyncService.class);
+        ScoreIngestService ingestService = context.getBean(ScoreIngestService.class);
+        GameScoreRepository gameScores = context.getBean(GameScoreRepository.class);
+        long storedBefore = gameScores.count();
+
+        List<List<GameScore>> uploads = new ArrayList<>(devices);
+        for (int d = 0; d < devices; d++) {
+            uploads.add(scores(deviceId(d), scoresPerUpload));
+        }
+
+        LatencyHistogram latency = new LatencyHistogram();
+        List<String> syncIds = new ArrayList<>();
+        CountDownLatch ready = new CountDownLatch(devices);
+        CountDownLatch go = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>(devices);
+        for (int d = 0; d < devices; d++) {
+            String deviceId = deviceId(d);
+            List<GameScore> scores = uploads.get(d);
+            Thread thread = new Thread(() -> {
+                ready.countDown();
+                try {
+                    go.await();
+                    long start = System.nanoTime();
+                    if (async) {
+                        String syncId = ingestService.submit(deviceId, scores).syncId();
+                        synchronized (syncIds) {
+                            syncIds.add(syncId);
+                        }
+                    } else {
+                        syncService.uploadScores(deviceId, scores);
+                    }
+                    latency.record(System.nanoTime() - start);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException e) {
+                    logger.warn("Upload from {} failed: {}", deviceId, e.getMessage());
+                }
+            }, "device-" + d);
+            threads.add(thread);
+            thread.start();
+        }
+
+        ready.await();
+        long start = System.nanoTime();
+        go.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long requestsDone = System.nanoTime() - start;
+
+        // Async uploads are only durable so far; wait for the workers
+        for (String syncId : syncIds) {
+            while (ingestService.getStatus(syncId).map(status -> status.state() == SyncState.QUEUED).orElse(false)) {
+                Thread.sleep(5);
+            }
+        }
+        long allSaved = System.nanoTime() - start;
+
+        return new BenchmarkResult(null, devices, scoresPerUpload, latency, requestsDone, allSaved,
+            gameScores.count() - storedBefore);
+    }
+
+    private void seed(ConfigurableApplicationContext context, int devices) {
+        StudentRepository students = context.getBean(StudentRepository.class);
+        for (int i = 0; i < STUDENTS; i++) {
+            StudentEntity student = new StudentEntity(studentId(i), "Student", "B", "4");
+            student.setConsentGiven(true);
+            students.save(student);
+        }
+        DeviceRepository deviceRepository = context.getBean(DeviceRepository.class);
+        for (int d = 0; d < devices; d++) {
+            DeviceEntity device = new DeviceEntity(deviceId(d), studentId(d % STUDENTS), "Bench tablet",
+                Device.DeviceType.TABLET);
+            device.setStatus(Device.DeviceStatus.APPROVED);
+            device.setActive(true);
+            deviceRepository.save(device);
+        }
+    }
+
+    private List<GameScore> scores(String deviceId, int count) {
+        List<GameScore> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameScore score = new GameScore(studentId(random.nextInt(STUDENTS)), "math-sprint", random.nextInt(101));
+            score.setDeviceId(deviceId);
+            score.setTimeSeconds(30 + random.nextInt(300));
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    private static String deviceId(int d) {
+        return String.format("bench-device-%04d", d);
+    }
+
+    private static String studentId(int i) {
+        return String.format("bench-student-%03d", i);
+    }
+
+    private static void deleteRecursively(Path directory) throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    /**
+     * One storm's results.
+     */
+    public record BenchmarkResult(String mode, int devices, int scoresPerUpload, LatencyHistogram latency,
+                                  long requestsNanos, long savedNanos, long scoresSaved) {
+        BenchmarkResult withMode(String mode) {
+            return new BenchmarkResult(mode, devices, scoresPerUpload, latency, requestsNanos, savedNanos,
+                scoresSaved);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%-5s devices=%d x %d scores  request p50=%6.1fms p99=%7.1fms max=%7.1fms "
+                    + "thread-seconds=%6.1f  all requests=%7.1fms all saved=%7.1fms saved=%d (%.0f scores/sec)",
+                mode, devices, scoresPerUpload,
+                latency.getValueAtPercentile(50) / 1e6, latency.getValueAtPercentile(99) / 1e6,
+                latency.getMax() / 1e6, latency.getMean() * latency.getCount() / 1e9,
+                requestsNanos / 1e6, savedNanos / 1e6, scoresSaved, scoresSaved / (savedNanos / 1e9));
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int devices = args.length > 0 ? Integer.parseInt(args[0]) : DEVICES;
+        int scoresPerUpload = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+
+        logger.info("=== Score Ingest Benchmark ===");
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String mode : new String[] {"sync", "async"}) {
+            results.add(new ScoreIngestBenchmark().run(mode, devices, scoresPerUpload));
+        }
+        for (BenchmarkResult result : results) {
+            logger.info("{}", result);
+        }
+    }
+}
@@ -0,0 +1,205 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.server.engine.SessionEngine;
+import com.heronix.edu.server.engine.SessionMailbox;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Benchmark comparing session mutation throughput and latency with and without
+ * the single-writer {@link SessionEngine}.
+ *
+ * Each simulated answer updates one player's counters and re-ranks the session,
+ * roughly the in-memory work done by processAnswer + broadcastLeaderboard.
+ * Three dispatch strategies are measured:
+ *   shared-pool         - actions run on a pool sized like the STOMP inbound channel (racy, like today)
+ *   shared-pool+lock    - same pool, but each action locks its session
+ *   session-engine      - actions are queued to the session's event loop
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.SessionEngineBenchmark [sessions] [players] [answersPerPlayer]
+ */
+public class SessionEngineBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SessionEngineBenchmark.class);
+
+    private static final int CALLER_THREADS = 16;
+
+    private final int sessions;
+    private final int playersPerSession;
+    private final int answersPerPlayer;
+
+    public SessionEngineBenchmark(int sessions, int playersPerSession, int answersPerPlayer) {
+        this.sessions = sessions;
+        this.playersPerSession = playersPerSession;
+        this.answersPerPlayer = answersPerPlayer;
+    }
+
+    /**
+     * Run one strategy and return its statistics.
+     */
+    public BenchmarkResult run(String strategy) throws InterruptedException {
+        SimulatedSession[] state = new SimulatedSession[sessions];
+        for (int i = 0; i < sessions; i++) {
+            state[i] = new SimulatedSession(playersPerSession);
+        }
+
+        ThreadPoolExecutor sharedPool = null;
+        SessionEngine engine = null;
+        SessionMailbox[] mailboxes = null;
+
+        if (strategy.startsWith("shared-pool")) {
+            // Same sizing as WebSocketConfig.configureClientInboundChannel
+            sharedPool = new ThreadPoolExecutor(20, 100, 60, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(500), new ThreadPoolExecutor.CallerRunsPolicy());
+        } else {
+            engine = new SessionEngine(0, 4096);
+            mailboxes = new SessionMailbox[sessions];
+            for (int i = 0; i < sessions; i++) {
+                mailboxes[i] = engine.openMailbox("BENCH" + i);
+            }
+        }
+
+        int totalActions = sessions * playersPerSession * answersPerPlayer;
+        long[] latencies = new long[totalActions];
+        AtomicInteger latencyIndex = new AtomicInteger(0);
+        CountDownLatch done = new CountDownLatch(totalActions);
+        boolean lock = strategy.endsWith("+lock");
+
+        ExecutorService callers = Executors.newFixedThreadPool(CALLER_THREADS);
+        long start = System.nanoTime();
+
+        for (int c = 0; c < CALLER_THREADS; c++) {
+            final int callerId = c;
+            final ThreadPoolExecutor pool = sharedPool;
+            final SessionEngine eng = engine;
+            final SessionMailbox[] boxes = mailboxes;
+            callers.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int n = callerId; n < totalActions; n += CALLER_THREADS) {
+                    int sessionIdx = random.nextInt(sessions);
+                    int player = random.nextInt(playersPerSession);
+                    SimulatedSession session = state[sessionIdx];
+                    long submitted = System.nanoTime();
+
+                    Runnable action = () -> {
+                        if (lock) {
+                            synchronized (session) {
+                                session.answer(player);
+                            }
+                        } else {
+                            session.answer(player);
+                        }
+                        latencies[latencyIndex.getAndIncrement()] = System.nanoTime() - submitted;
+                        done.countDown();
+                    };
+
+                    if (pool != null) {
+                        pool.execute(action);
+                    } else {
+                        eng.submit(boxes[sessionIdx], () -> {
+                            action.run();
+                            return null;
+                        }).exceptionally(rejected -> {
+                            done.countDown();  // mailbox full - counted as a lost update
+                            return null;
+                        });
+                    }
+                }
+            });
+        }
+
+        done.await(5, TimeUnit.MINUTES);
+        long elapsedNanos = System.nanoTime() - start;
+
+        callers.shutdown();
+        if (sharedPool != null) {
+            sharedPool.shutdown();
+        }
+        if (engine != null) {
+            engine.shutdown();
+        }
+
+        long applied = Arrays.stream(state).mapToLong(SimulatedSession::totalAnswers).sum();
+        long[] recorded = Arrays.copyOf(latencies, latencyIndex.get());
+        Arrays.sort(recorded);
+
+        return new BenchmarkResult(strategy, totalActions, totalActions - applied,
+            totalActions * 1_000_000_000.0 / elapsedNanos,
+            percentileMicros(recorded, 50), percentileMicros(recorded, 99));
+    }
+
+    private static double percentileMicros(long[] sorted, double percentile) {
+        if (sorted.length == 0) return 0;
+        int idx = (int) Math.ceil(percentile / 100.0 * sorted.length) - 1;
+        return sorted[Math.max(0, idx)] / 1000.0;
+    }
+
+    /**
+     * Minimal stand-in for ActiveGameSession: counters plus a re-rank per answer.
+     */
+    private static class SimulatedSession {
+        private final int[] credits;
+        private final int[] answers;
+        private final Integer[] order;
+
+        SimulatedSession(int players) {
+            credits = new int[players];
+            answers = new int[players];
+            order = new Integer[players];
+            for (int i = 0; i < players; i++) {
+                order[i] = i;
+            }
+        }
+
+        void answer(int player) {
+            answers[player]++;
+            credits[player] += 50;
+            Arrays.sort(order, (a, b) -> Integer.compare(credits[b], credits[a]));
+        }
+
+        long totalAnswers() {
+            long total = 0;
+            for (int a : answers) total += a;
+            return total;
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int actions, long lostUpdates,
+                                  double actionsPerSecond, double p50Micros, double p99Micros) {
+        @Override
+        public String toString() {
+            return String.format("%-18s actions=%d lostUpdates=%d throughput=%.0f/s p50=%.1fus p99=%.1fus",
+                strategy, actions, lostUpdates, actionsPerSecond, p50Micros, p99Micros);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 50;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+        int answers = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+
+        logger.info("=== Session Engine Benchmark ===");
+        logger.info("Sessions: {}, players/session: {}, answers/player: {}", sessions, players, answers);
+
+        SessionEngineBenchmark benchmark = new SessionEngineBenchmark(sessions, players, answers);
+        String[] strategies = {"shared-pool", "shared-pool+lock", "session-engine"};
+
+        // Warm-up pass so JIT compilation does not skew the first strategy
+        for (String strategy : strategies) {
+            benchmark.run(strategy);
+        }
+        for (String strategy : strategies) {
+            logger.info("{}", benchmark.run(strategy));
+        }
+    }
+}
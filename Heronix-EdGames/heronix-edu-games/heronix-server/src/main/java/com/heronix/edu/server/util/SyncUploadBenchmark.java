@@ -0,0 +1,223 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.common.model.Device;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.HeronixServerApplication;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.entity.DeviceEntity;
+import com.heronix.edu.server.entity.StudentEntity;
+import com.heronix.edu.server.repository.DeviceRepository;
+import com.heronix.edu.server.repository.GameScoreRepository;
+import com.heronix.edu.server.repository.StudentRepository;
+import com.heronix.edu.server.service.AuditService;
+import com.heronix.edu.server.service.DeviceService;
+import com.heronix.edu.server.service.GameScoreService;
+import com.heronix.edu.server.service.ScoreIdFilter;
+import com.heronix.edu.server.service.StudentService;
+import com.heronix.edu.server.service.SyncService;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures score uploads ({@code POST /api/sync/upload}) of 50, 500 and 5,000
+ * scores against an in-process server on in-memory H2 that already holds
+ * {@value #STORED_SCORES} scores.
+ *
+ * Three ways of checking an upload are compared, each on a fresh server:
+ *   per-score  - the old loop: studentExists, canParticipate (a read and an
+ *                audit row) and findByScoreId for every score
+ *   batched    - SyncService with one student query and IN lookups of score ids
+ *   filtered   - batched, with the score id Bloom filter ruling out new ids
+ *
+ * Each size is uploaded twice: new scores, then the same upload again as a
+ * device would retry it, where every score is a duplicate. Reported per upload:
+ * wall time and JDBC statements prepared (Hibernate statistics), which include
+ * saving the accepted scores.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.SyncUploadBenchmark [sizes...]
+ */
+public class SyncUploadBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(SyncUploadBenchmark.class);
+
+    private static final int STUDENTS = 30;
+    private static final int STORED_SCORES = 10_000;
+    private static final String DEVICE_ID = "bench-device";
+
+    private final Random random = new Random(23);
+
+    /**
+     * Start a server, upload each size new and again, stop it.
+     */
+    public List<BenchmarkResult> run(String strategy, int[] sizes) {
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(HeronixServerApplication.class)
+            .run("--server.port=0",
+                "--spring.datasource.url=jdbc:h2:mem:sync-bench-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1",
+                "--spring.jpa.properties.hibernate.generate_statistics=true",
+                "--heronix.sync.score-filter.enabled=" + "filtered".equals(strategy),
+                "--heronix.game.journal.enabled=false",
+                "--heronix.sis.enabled=false",
+                "--logging.level.root=WARN");
+        try {
+            Uploader uploader = new Uploader(context, strategy);
+            seed(context);
+
+            // Warm up queries and JIT
+            uploader.upload(scores(50));
+
+            List<BenchmarkResult> results = new ArrayList<>();
+            for (int size : sizes) {
+                List<GameScore> scores = scores(size);
+                results.add(uploader.measure("new", scores));
+                results.add(uploader.measure("retry", scores));
+            }
+            logger.info("{} filter: {}", strategy, context.getBean(ScoreIdFilter.class).getStats());
+            return results;
+        } finally {
+            context.close();
+        }
+    }
+
+    private void seed(ConfigurableApplicationContext context) {
+        StudentRepository students = context.getBean(StudentRepository.class);
+        for (int i = 0; i < STUDENTS; i++) {
+            StudentEntity student = new StudentEntity(studentId(i), "Student", "B", "4");
+            student.setConsentGiven(true);
+            students.save(student);
+        }
+        DeviceEntity device = new DeviceEntity(DEVICE_ID, studentId(0), "Bench tablet", Device.DeviceType.TABLET);
+        device.setStatus(Device.DeviceStatus.APPROVED);
+        device.setActive(true);
+        context.getBean(DeviceRepository.class).save(device);
+
+        GameScoreService gameScores = context.getBean(GameScoreService.class);
+        for (int stored = 0; stored < STORED_SCORES; stored += 1000) {
+            gameScores.saveScores(scores(1000));
+        }
+    }
+
+    private List<GameScore> scores(int count) {
+        List<GameScore> scores = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            GameScore score = new GameScore(studentId(random.nextInt(STUDENTS)), "math-sprint", random.nextInt(101));
+            score.setDeviceId(DEVICE_ID);
+            score.setTimeSeconds(30 + random.nextInt(300));
+            scores.add(score);
+        }
+        return scores;
+    }
+
+    private static String studentId(int i) {
+        return String.format("bench-student-%03d", i);
+    }
+
+    /**
+     * Runs uploads one way and counts their statements.
+     */
+    private static class Uploader {
+        private final String strategy;
+        private final Statistics statistics;
+        private final TransactionTemplate transaction;
+        private final SyncService syncService;
+        private final DeviceService deviceService;
+        private final StudentService studentService;
+        private final GameScoreService gameScoreService;
+        private final GameScoreRepository gameScoreRepository;
+        private final AuditService auditService;
+
+        Uploader(ConfigurableApplicationContext context, String strategy) {
+            this.strategy = strategy;
+            this.statistics = context.getBean(EntityManagerFactory.class).unwrap(SessionFactory.class).getStatistics();
+            this.transaction = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+            this.syncService = context.getBean(SyncService.class);
+            this.deviceService = context.getBean(DeviceService.class);
+            this.studentService = context.getBean(StudentService.class);
+            this.gameScoreService = context.getBean(GameScoreService.class);
+            this.gameScoreRepository = context.getBean(GameScoreRepository.class);
+            this.auditService = context.getBean(AuditService.class);
+        }
+
+        BenchmarkResult measure(String upload, List<GameScore> scores) {
+            long statementsBefore = statistics.getPrepareStatementCount();
+            long start = System.nanoTime();
+            int accepted = upload(scores);
+            long nanos = System.nanoTime() - start;
+            return new BenchmarkResult(strategy, upload, scores.size(), accepted, nanos,
+                statistics.getPrepareStatementCount() - statementsBefore);
+        }
+
+        int upload(List<GameScore> scores) {
+            if (!"per-score".equals(strategy)) {
+                SyncResponse response = syncService.uploadScores(DEVICE_ID, scores);
+                return response.scoresAccepted();
+            }
+            // SyncService.uploadScores before batch validation
+            Integer accepted = transaction.execute(status -> {
+                if (!deviceService.isDeviceApproved(DEVICE_ID)) {
+                    throw new IllegalStateException("Bench device not approved");
+                }
+                List<GameScore> valid = new ArrayList<>();
+                for (GameScore score : scores) {
+                    if (!studentService.studentExists(score.getStudentId())
+                            || !studentService.canParticipate(score.getStudentId())) {
+                        continue;
+                    }
+                    if (gameScoreRepository.findByScoreId(score.getScoreId()).isPresent()) {
+                        continue;
+                    }
+                    valid.add(score);
+                }
+                if (!valid.isEmpty()) {
+                    gameScoreService.saveScores(valid);
+                }
+                deviceService.updateLastSync(DEVICE_ID, LocalDateTime.now());
+                auditService.logScoreSync(DEVICE_ID, valid.size(), "SUCCESS");
+                return valid.size();
+            });
+            return accepted != null ? accepted : 0;
+        }
+    }
+
+    /**
+     * One upload's results.
+     */
+    public record BenchmarkResult(String strategy, String upload, int scores, int accepted, long nanos,
+                                  long statements) {
+        @Override
+        public String toString() {
+            return String.format("%-10s %-6s scores=%-5d accepted=%-5d time=%8.1fms statements=%-6d per score=%.2f",
+                strategy, upload, scores, accepted, nanos / 1e6, statements, (double) statements / scores);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) {
+        int[] sizes = args.length > 0
+            ? Arrays.stream(args).mapToInt(Integer::parseInt).toArray()
+            : new int[] {50, 500, 5000};
+
+        logger.info("=== Sync Upload Benchmark ===");
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (String strategy : new String[] {"per-score", "batched", "filtered"}) {
+            results.addAll(new SyncUploadBenchmark().run(strategy, sizes));
+        }
+        for (BenchmarkResult result : results) {
+            logger.info("{}", result);
+        }
+    }
+}
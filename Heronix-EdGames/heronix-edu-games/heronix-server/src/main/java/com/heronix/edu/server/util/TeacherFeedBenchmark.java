@@ -0,0 +1,249 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.dto.game.AnswerSummary;
+import com.heronix.edu.server.engine.AnswerFeed;
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Measures the answer traffic to teachers for several classes on a simulated clock.
+ *
+ * Every player answers at a fixed average rate. Two strategies are compared:
+ *   per-answer - one ANSWER_CORRECT / ANSWER_INCORRECT map per answer (old behaviour)
+ *   summary    - answers gathered in an {@link AnswerFeed}, one ANSWER_SUMMARY per class per tick
+ *
+ * Server time is building and serializing the teacher messages. Teacher time is
+ * CPU spent by a stand-in dashboard, one per class: parse each message, update
+ * its per-student table and recompute the class accuracy it shows, which it has
+ * to do on every message in per-answer mode and once per summary otherwise.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.TeacherFeedBenchmark [classes] [players] [seconds] [intervalMs]
+ */
+public class TeacherFeedBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(TeacherFeedBenchmark.class);
+
+    // One answer every 5 seconds per player during a busy round
+    private static final double ANSWERS_PER_PLAYER_PER_SECOND = 0.2;
+    private static final int QUESTIONS = 20;
+    private static final int MAX_EVENTS = 200;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final int classes;
+    private final int players;
+    private final int seconds;
+    private final int intervalMs;
+
+    public TeacherFeedBenchmark(int classes, int players, int seconds, int intervalMs) {
+        this.classes = classes;
+        this.players = players;
+        this.seconds = seconds;
+        this.intervalMs = intervalMs;
+    }
+
+    public BenchmarkResult runPerAnswer() throws Exception {
+        GamePlayerEntity[][] rosters = rosters();
+        Dashboard[] dashboards = dashboards();
+        Random random = new Random(17);
+        long answers = Math.round((double) classes * players * ANSWERS_PER_PLAYER_PER_SECOND * seconds);
+
+        long messages = 0;
+        long bytes = 0;
+        long serverNanos = 0;
+        long teacherNanos = 0;
+        for (long i = 0; i < answers; i++) {
+            int c = random.nextInt(classes);
+            GamePlayerEntity player = rosters[c][random.nextInt(players)];
+            boolean correct = answer(player, random);
+
+            long start = threads.getCurrentThreadCpuTime();
+            Map<String, Object> data = new HashMap<>();
+            data.put("type", correct ? "ANSWER_CORRECT" : "ANSWER_INCORRECT");
+            data.put("playerId", player.getPlayerId());
+            data.put("playerName", player.getStudentName());
+            data.put("correctAnswers", player.getCorrectAnswers());
+            data.put("incorrectAnswers", player.getIncorrectAnswers());
+            data.put("accuracy", player.getAccuracy());
+            byte[] payload = objectMapper.writeValueAsBytes(data);
+            long serialized = threads.getCurrentThreadCpuTime();
+            dashboards[c].onMessage(payload);
+            long received = threads.getCurrentThreadCpuTime();
+
+            serverNanos += serialized - start;
+            teacherNanos += received - serialized;
+            messages++;
+            bytes += payload.length;
+        }
+        return new BenchmarkResult("per-answer", classes, players, seconds, answers, messages, bytes,
+            serverNanos, teacherNanos);
+    }
+
+    public BenchmarkResult runSummary() throws Exception {
+        GamePlayerEntity[][] rosters = rosters();
+        Dashboard[] dashboards = dashboards();
+        AnswerFeed[] feeds = new AnswerFeed[classes];
+        for (int c = 0; c < classes; c++) {
+            feeds[c] = new AnswerFeed(MAX_EVENTS);
+        }
+        Random random = new Random(17);
+        long answers = Math.round((double) classes * players * ANSWERS_PER_PLAYER_PER_SECOND * seconds);
+        int ticks = seconds * 1000 / intervalMs;
+        double answersPerTick = (double) answers / ticks;
+
+        long messages = 0;
+        long bytes = 0;
+        long serverNanos = 0;
+        long teacherNanos = 0;
+        double carry = 0;
+        for (int tick = 0; tick < ticks; tick++) {
+            carry += answersPerTick;
+            long start = threads.getCurrentThreadCpuTime();
+            while (carry >= 1) {
+                int c = random.nextInt(classes);
+                GamePlayerEntity player = rosters[c][random.nextInt(players)];
+                boolean correct = answer(player, random);
+                feeds[c].record(player, "q-" + random.nextInt(QUESTIONS), correct, false,
+                    random.nextInt(15_000));
+                carry -= 1;
+            }
+            serverNanos += threads.getCurrentThreadCpuTime() - start;
+
+            for (int c = 0; c < classes; c++) {
+                if (!feeds[c].takeDirty()) {
+                    continue;
+                }
+                start = threads.getCurrentThreadCpuTime();
+                AnswerSummary summary = feeds[c].summarize("class-" + c, players);
+                byte[] payload = objectMapper.writeValueAsBytes(summary);
+                long serialized = threads.getCurrentThreadCpuTime();
+                dashboards[c].onMessage(payload);
+                long received = threads.getCurrentThreadCpuTime();
+
+                serverNanos += serialized - start;
+                teacherNanos += received - serialized;
+                messages++;
+                bytes += payload.length;
+            }
+        }
+        return new BenchmarkResult("summary-" + intervalMs + "ms", classes, players, seconds, answers, messages,
+            bytes, serverNanos, teacherNanos);
+    }
+
+    private GamePlayerEntity[][] rosters() {
+        GamePlayerEntity[][] rosters = new GamePlayerEntity[classes][players];
+        for (int c = 0; c < classes; c++) {
+            for (int p = 0; p < players; p++) {
+                GamePlayerEntity player = new GamePlayerEntity();
+                player.setPlayerId("class-" + c + "-player-" + p);
+                player.setStudentName("Student " + p);
+                rosters[c][p] = player;
+            }
+        }
+        return rosters;
+    }
+
+    private Dashboard[] dashboards() {
+        Dashboard[] dashboards = new Dashboard[classes];
+        for (int c = 0; c < classes; c++) {
+            dashboards[c] = new Dashboard(objectMapper);
+        }
+        return dashboards;
+    }
+
+    private static boolean answer(GamePlayerEntity player, Random random) {
+        boolean correct = random.nextBoolean();
+        if (correct) {
+            player.incrementCorrectAnswers();
+        } else {
+            player.incrementIncorrectAnswers();
+        }
+        return correct;
+    }
+
+    /**
+     * Teacher dashboard stand-in: the per-student table and the class accuracy it shows.
+     */
+    private static class Dashboard {
+        private final ObjectMapper objectMapper;
+        private final Map<String, int[]> students = new HashMap<>();
+        private double classAccuracy;
+
+        Dashboard(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        void onMessage(byte[] payload) throws Exception {
+            JsonNode message = objectMapper.readTree(payload);
+            if ("ANSWER_SUMMARY".equals(message.path("type").asText())) {
+                for (JsonNode event : message.path("events")) {
+                    update(event);
+                }
+            } else {
+                update(message);
+            }
+            redraw();
+        }
+
+        private void update(JsonNode event) {
+            int[] row = students.computeIfAbsent(event.path("playerId").asText(), id -> new int[2]);
+            row[0] = event.path("correctAnswers").asInt();
+            row[1] = event.path("incorrectAnswers").asInt();
+        }
+
+        private void redraw() {
+            long correct = 0;
+            long total = 0;
+            for (int[] row : students.values()) {
+                correct += row[0];
+                total += row[0] + row[1];
+            }
+            classAccuracy = total > 0 ? 100.0 * correct / total : 0;
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int classes, int players, int seconds, long answers,
+                                  long messages, long bytes, long serverNanos, long teacherNanos) {
+        @Override
+        public String toString() {
+            return String.format("%-14s classes=%-3d players=%-4d answers/s=%.0f msgs/s=%.1f KB/s=%.1f "
+                    + "server=%.1fms/s teacher=%.2fms/s per class",
+                strategy, classes, players, (double) answers / seconds, (double) messages / seconds,
+                bytes / 1024.0 / seconds, serverNanos / 1e6 / seconds, teacherNanos / 1e6 / seconds / classes);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int classes = args.length > 0 ? Integer.parseInt(args[0]) : 10;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+        int intervalMs = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+        int[] playerCounts = args.length > 1 ? new int[]{Integer.parseInt(args[1])} : new int[]{30, 300};
+
+        logger.info("=== Teacher Feed Benchmark ===");
+
+        // Warm up serialization and parsing
+        new TeacherFeedBenchmark(classes, 30, 20, intervalMs).runPerAnswer();
+        new TeacherFeedBenchmark(classes, 30, 20, intervalMs).runSummary();
+
+        for (int players : playerCounts) {
+            TeacherFeedBenchmark benchmark = new TeacherFeedBenchmark(classes, players, seconds, intervalMs);
+            logger.info("{}", benchmark.runPerAnswer());
+            logger.info("{}", benchmark.runSummary());
+        }
+    }
+}
@@ -0,0 +1,144 @@
+package com.heronix.edu.server.util;
+
+import com.heronix.edu.server.engine.TimingWheel;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timer cost with many pending timers, as with shields and question deadlines
+ * across thousands of sessions.
+ *
+ *   schedule/cancel - cost per operation with {@code timers} already pending
+ *                     (the typical question deadline is cancelled by an answer)
+ *   expiry          - lateness of {@code timers} short timers firing over two seconds
+ *
+ * Compared against a ScheduledThreadPoolExecutor, whose heap makes both
+ * operations O(log n) and, with removeOnCancel, cancel O(n) to find the entry.
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.TimerBenchmark [timers]
+ */
+public class TimerBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(TimerBenchmark.class);
+
+    private static final long TICK_MS = 10;
+
+    private final int timers;
+
+    public TimerBenchmark(int timers) {
+        this.timers = timers;
+    }
+
+    public BenchmarkResult runWheel() throws InterruptedException {
+        TimingWheel wheel = new TimingWheel(TICK_MS, 512, System::currentTimeMillis);
+        wheel.start();
+        try {
+            Random random = new Random(5);
+            TimingWheel.Timeout[] pending = new TimingWheel.Timeout[timers];
+            for (int i = 0; i < timers; i++) {
+                pending[i] = wheel.schedule(60_000 + random.nextInt(60_000), t -> { });
+            }
+
+            // Each operation runs against a full set of pending timers
+            long start = System.nanoTime();
+            for (int i = 0; i < timers; i++) {
+                pending[i].cancel();
+                pending[i] = wheel.schedule(60_000 + random.nextInt(60_000), t -> { });
+            }
+            double nanosPerOp = (double) (System.nanoTime() - start) / timers / 2;
+
+            long[] lateness = new long[timers];
+            CountDownLatch fired = new CountDownLatch(timers);
+            for (int i = 0; i < timers; i++) {
+                int index = i;
+                long due = System.currentTimeMillis() + random.nextInt(2_000);
+                wheel.schedule(due - System.currentTimeMillis(), t -> {
+                    lateness[index] = System.currentTimeMillis() - due;
+                    fired.countDown();
+                });
+            }
+            fired.await(30, TimeUnit.SECONDS);
+
+            return new BenchmarkResult("timing-wheel-" + TICK_MS + "ms", timers, nanosPerOp, lateness);
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    public BenchmarkResult runExecutor(boolean removeOnCancel) throws InterruptedException {
+        ScheduledThreadPoolExecutor executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(removeOnCancel);
+        try {
+            Random random = new Random(5);
+            Runnable noop = () -> { };
+            ScheduledFuture<?>[] pending = new ScheduledFuture<?>[timers];
+            for (int i = 0; i < timers; i++) {
+                pending[i] = executor.schedule(noop, 60_000 + random.nextInt(60_000), TimeUnit.MILLISECONDS);
+            }
+
+            // removeOnCancel searches the heap linearly, so sample fewer operations
+            int ops = removeOnCancel ? Math.min(timers, 5_000) : timers;
+            long start = System.nanoTime();
+            for (int i = 0; i < ops; i++) {
+                pending[i].cancel(false);
+                pending[i] = executor.schedule(noop, 60_000 + random.nextInt(60_000), TimeUnit.MILLISECONDS);
+            }
+            double nanosPerOp = (double) (System.nanoTime() - start) / ops / 2;
+
+            long[] lateness = new long[timers];
+            CountDownLatch fired = new CountDownLatch(timers);
+            for (int i = 0; i < timers; i++) {
+                int index = i;
+                long due = System.currentTimeMillis() + random.nextInt(2_000);
+                executor.schedule(() -> {
+                    lateness[index] = System.currentTimeMillis() - due;
+                    fired.countDown();
+                }, due - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            }
+            fired.await(30, TimeUnit.SECONDS);
+
+            return new BenchmarkResult(removeOnCancel ? "stpe-remove-on-cancel" : "stpe", timers, nanosPerOp, lateness);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Benchmark results.
+     */
+    public record BenchmarkResult(String strategy, int timers, double nanosPerOp, long[] lateness) {
+        @Override
+        public String toString() {
+            long[] sorted = lateness.clone();
+            Arrays.sort(sorted);
+            return String.format("%-22s pending=%d schedule/cancel=%.0f ns/op lateness p50=%dms p99=%dms max=%dms",
+                strategy, timers, nanosPerOp, sorted[sorted.length / 2],
+                sorted[(int) (sorted.length * 0.99)], sorted[sorted.length - 1]);
+        }
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws InterruptedException {
+        int timers = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+        logger.info("=== Timer Benchmark ===");
+        TimerBenchmark benchmark = new TimerBenchmark(timers);
+
+        // Warm-up pass so JIT compilation does not skew the first strategy
+        new TimerBenchmark(10_000).runWheel();
+        new TimerBenchmark(10_000).runExecutor(false);
+
+        logger.info("{}", benchmark.runWheel());
+        logger.info("{}", benchmark.runExecutor(false));
+        logger.info("{}", benchmark.runExecutor(true));
+    }
+}
@@ -0,0 +1,250 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.websocket.CompactWireFormat;
+import com.heronix.edu.server.websocket.OutboundBackpressure;
+import com.heronix.edu.server.websocket.SessionTopicFanout;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.StompSubProtocolHandler;
+import org.springframework.web.socket.messaging.SubProtocolWebSocketHandler;
+
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Allocation and CPU per session topic broadcast, with and without
+ * {@link SessionTopicFanout}, for 30, 300 and 3,000 subscribers.
+ *
+ * Runs Spring's real outbound path in-process: simple broker, STOMP
+ * sub-protocol handler and the per-connection outbound queues, with every
+ * subscriber connected and subscribed over STOMP frames. Only the socket is
+ * replaced, by a session that counts the bytes it is asked to write. Channels
+ * have no executor, so a broadcast is fully queued when send returns; one
+ * writer thread drains the queues.
+ *
+ * Allocation and CPU are summed over all threads (the sender and the writer)
+ * from the JVM's per-thread counters, and reported per broadcast:
+ *   per-subscriber - the STOMP handler encodes every subscriber's frame
+ *   encode-once    - the shared frame is encoded once and handed to every queue
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.TopicFanoutBenchmark [subscribers...]
+ */
+public class TopicFanoutBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(TopicFanoutBenchmark.class);
+
+    private static final String TOPIC = "/topic/session/BENCH1";
+    // Enough frames per run that per-broadcast figures settle
+    private static final long FRAMES_PER_RUN = 600_000;
+
+    private final com.sun.management.ThreadMXBean threads =
+        (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final byte[] payload;
+
+    public TopicFanoutBenchmark(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public BenchmarkResult run(String strategy, int subscribers) throws Exception {
+        boolean encodeOnce = "encode-once".equals(strategy);
+        ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+
+        SimpleBrokerMessageHandler broker = new SimpleBrokerMessageHandler(
+            clientInbound, clientOutbound, brokerChannel, List.of("/topic"));
+        SubProtocolWebSocketHandler webSocketHandler = new SubProtocolWebSocketHandler(clientInbound, clientOutbound);
+        webSocketHandler.addProtocolHandler(new StompSubProtocolHandler());
+        OutboundBackpressure backpressure = new OutboundBackpressure(10_000, 64L << 20, 60_000, 1);
+        if (encodeOnce) {
+            SessionTopicFanout fanout = new SessionTopicFanout(backpressure, new CompactWireFormat(backpressure, false));
+            brokerChannel.addInterceptor(fanout);
+            clientOutbound.addInterceptor(fanout);
+        }
+        broker.start();
+        webSocketHandler.start();
+
+        AtomicLong framesWritten = new AtomicLong();
+        AtomicLong bytesWritten = new AtomicLong();
+        WebSocketHandler handler = backpressure.decorate(webSocketHandler);
+        try {
+            for (int i = 0; i < subscribers; i++) {
+                WebSocketSession socket = countingSession("s" + i, framesWritten, bytesWritten);
+                handler.afterConnectionEstablished(socket);
+                handler.handleMessage(socket, new TextMessage("CONNECT\naccept-version:1.2\nhost:bench\n\n\0"));
+                handler.handleMessage(socket, new TextMessage(
+                    "SUBSCRIBE\nid:sub-2\ndestination:" + TOPIC + "\n\n\0"));
+            }
+            awaitFrames(framesWritten, subscribers);  // CONNECTED frames
+
+            int broadcasts = (int) Math.max(10, FRAMES_PER_RUN / subscribers);
+            for (int i = 0; i < broadcasts / 5; i++) {
+                broadcast(brokerChannel, framesWritten, subscribers);  // warm-up
+            }
+
+            long[] ids = threads.getAllThreadIds();
+            long allocatedBefore = sum(threads.getThreadAllocatedBytes(ids));
+            long cpuBefore = cpuNanos(ids);
+            long framesBefore = framesWritten.get();
+            long bytesBefore = bytesWritten.get();
+            long start = System.nanoTime();
+            for (int i = 0; i < broadcasts; i++) {
+                broadcast(brokerChannel, framesWritten, subscribers);
+            }
+            long elapsed = System.nanoTime() - start;
+            long allocated = sum(threads.getThreadAllocatedBytes(ids)) - allocatedBefore;
+            long cpu = cpuNanos(ids) - cpuBefore;
+
+            return new BenchmarkResult(strategy, subscribers, broadcasts, payload.length,
+                framesWritten.get() - framesBefore, (bytesWritten.get() - bytesBefore) / broadcasts / subscribers,
+                allocated / broadcasts, cpu / 1000.0 / broadcasts, elapsed / 1000.0 / broadcasts);
+        } finally {
+            webSocketHandler.stop();
+            broker.stop();
+            backpressure.shutdown();
+        }
+    }
+
+    private void broadcast(ExecutorSubscribableChannel brokerChannel, AtomicLong framesWritten,
+                           int subscribers) throws InterruptedException {
+        long target = framesWritten.get() + subscribers;
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(TOPIC);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        Message<byte[]> message = MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+        brokerChannel.send(message);
+        awaitFrames(framesWritten, target);
+    }
+
+    private static void awaitFrames(AtomicLong framesWritten, long target) throws InterruptedException {
+        long deadline = System.nanoTime() + 30_000_000_000L;
+        while (framesWritten.get() < target) {
+            if (System.nanoTime() > deadline) {
+                throw new IllegalStateException("Frames not written: " + framesWritten.get() + " of " + target);
+            }
+            Thread.onSpinWait();
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+    }
+
+    private long cpuNanos(long[] ids) {
+        long total = 0;
+        for (long id : ids) {
+            long cpu = threads.getThreadCpuTime(id);
+            total += Math.max(0, cpu);
+        }
+        return total;
+    }
+
+    private static long sum(long[] values) {
+        long total = 0;
+        for (long value : values) {
+            total += Math.max(0, value);
+        }
+        return total;
+    }
+
+    /**
+     * An open socket that takes the text it is given, as Tomcat would, and counts it.
+     */
+    private static WebSocketSession countingSession(String id, AtomicLong frames, AtomicLong bytes) {
+        Map<String, Object> attributes = new ConcurrentHashMap<>();
+        return (WebSocketSession) Proxy.newProxyInstance(WebSocketSession.class.getClassLoader(),
+            new Class<?>[]{WebSocketSession.class}, (proxy, method, args) -> switch (method.getName()) {
+                case "getId" -> id;
+                case "isOpen" -> true;
+                case "getAttributes" -> attributes;
+                case "getTextMessageSizeLimit", "getBinaryMessageSizeLimit" -> 128 * 1024;
+                case "sendMessage" -> {
+                    WebSocketMessage<?> message = (WebSocketMessage<?>) args[0];
+                    bytes.addAndGet(message instanceof TextMessage text
+                        ? text.getPayload().length() : message.getPayloadLength());
+                    frames.incrementAndGet();
+                    yield null;
+                }
+                case "hashCode" -> System.identityHashCode(proxy);
+                case "equals" -> proxy == args[0];
+                case "toString" -> "CountingSession[" + id + "]";
+                default -> null;
+            });
+    }
+
+    public record BenchmarkResult(String strategy, int subscribers, int broadcasts, int payloadBytes,
+                                  long frames, long frameBytes, long allocatedBytesPerBroadcast,
+                                  double cpuMicrosPerBroadcast, double wallMicrosPerBroadcast) {
+        @Override
+        public String toString() {
+            return String.format("%-14s %5d subscribers: %7.1f KB allocated/broadcast (%5d B/subscriber), "
+                    + "%8.1f us CPU/broadcast (%5.2f us/subscriber), %8.1f us wall, frame %d B",
+                strategy, subscribers, allocatedBytesPerBroadcast / 1024.0, allocatedBytesPerBroadcast / subscribers,
+                cpuMicrosPerBroadcast, cpuMicrosPerBroadcast / subscribers, wallMicrosPerBroadcast, frameBytes);
+        }
+    }
+
+    /**
+     * A leaderboard delta of the top ten, the most frequent session broadcast.
+     */
+    static byte[] leaderboardPayload() throws Exception {
+        List<Map<String, Object>> entries = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Map<String, Object> entry = new HashMap<>();
+            entry.put("playerId", "player-" + Integer.toHexString(0x1000000 + i * 7919));
+            entry.put("playerName", "Student " + i);
+            entry.put("avatarId", "ROOKIE_ROBOT");
+            entry.put("credits", 5000 - i * 137);
+            entry.put("rank", i + 1);
+            entries.add(entry);
+        }
+        Map<String, Object> delta = new HashMap<>();
+        delta.put("type", "LEADERBOARD_UPDATE");
+        delta.put("version", 42);
+        delta.put("baseVersion", 41);
+        delta.put("full", false);
+        delta.put("totalPlayers", 3000);
+        delta.put("changed", entries);
+        return new ObjectMapper().writeValueAsBytes(delta);
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        List<Integer> sizes = new ArrayList<>();
+        for (String arg : args) {
+            sizes.add(Integer.parseInt(arg));
+        }
+        if (sizes.isEmpty()) {
+            sizes = List.of(30, 300, 3000);
+        }
+
+        TopicFanoutBenchmark benchmark = new TopicFanoutBenchmark(leaderboardPayload());
+        logger.info("=== Topic Fan-out Benchmark: {} byte payload ===", benchmark.payload.length);
+        benchmark.run("per-subscriber", 300);
+        benchmark.run("encode-once", 300);
+
+        for (int subscribers : sizes) {
+            logger.info("{}", benchmark.run("per-subscriber", subscribers));
+            logger.info("{}", benchmark.run("encode-once", subscribers));
+        }
+    }
+}
@@ -1,9 +1,13 @@
 package com.heronix.edu.server.util;
 
+import jakarta.websocket.ContainerProvider;
+import jakarta.websocket.WebSocketContainer;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.converter.MappingJackson2MessageConverter;
 import org.springframework.messaging.simp.stomp.*;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.web.socket.WebSocketHttpHeaders;
 import org.springframework.web.socket.client.standard.StandardWebSocketClient;
 import org.springframework.web.socket.messaging.WebSocketStompClient;
 import org.springframework.web.socket.sockjs.client.SockJsClient;
@@ -24,18 +28,45 @@ import java.util.concurrent.atomic.AtomicInteger;
  * Usage (from main method or test):
  *   WebSocketLoadTester tester = new WebSocketLoadTester("ws://localhost:8081");
  *   tester.runLoadTest(500, "TEST123"); // 500 connections to session TEST123
+ *
+ * Connect and join-ack latencies are recorded, and {@link #measureRoundTrips}
+ * times a request from every connection at once. For whole game flows, see
+ * {@link com.heronix.edu.server.loadtest.LoadGenerator}.
  */
 public class WebSocketLoadTester {
     private static final Logger logger = LoggerFactory.getLogger(WebSocketLoadTester.class);
 
+    // Matches the server's STOMP message size limit
+    private static final int INBOUND_LIMIT = 128 * 1024;
+
     private final String serverUrl;
     private final List<StompSession> activeSessions = new CopyOnWriteArrayList<>();
     private final AtomicInteger successfulConnections = new AtomicInteger(0);
     private final AtomicInteger failedConnections = new AtomicInteger(0);
     private final AtomicInteger messagesReceived = new AtomicInteger(0);
+    private final LatencyHistogram connectLatency = new LatencyHistogram();
+    private final LatencyHistogram joinLatency = new LatencyHistogram();
+    private final List<LoadTestSessionHandler> handlers = new CopyOnWriteArrayList<>();
+    private final WebSocketStompClient stompClient;
 
     public WebSocketLoadTester(String serverUrl) {
         this.serverUrl = serverUrl;
+
+        // One client for all connections; each connect still opens its own socket.
+        // Join replies and leaderboards outgrow the container's 8KB text buffer.
+        WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+        container.setDefaultMaxTextMessageBufferSize(INBOUND_LIMIT);
+        List<Transport> transports = new ArrayList<>();
+        transports.add(new WebSocketTransport(new StandardWebSocketClient(container)));
+        this.stompClient = new WebSocketStompClient(new SockJsClient(transports));
+        stompClient.setMessageConverter(new MappingJackson2MessageConverter());
+        stompClient.setInboundMessageSizeLimit(INBOUND_LIMIT);
+        stompClient.setDefaultHeartbeat(new long[]{10000, 10000});
+        ThreadPoolTaskScheduler heartbeats = new ThreadPoolTaskScheduler();
+        heartbeats.setPoolSize(2);
+        heartbeats.setThreadNamePrefix("loadtest-heartbeat-");
+        heartbeats.initialize();
+        stompClient.setTaskScheduler(heartbeats);
     }
 
     /**
@@ -46,7 +77,14 @@ public class WebSocketLoadTester {
      * @return LoadTestResult with statistics
      */
     public LoadTestResult runLoadTest(int numConnections, String sessionCode) {
-        logger.info("Starting load test with {} connections to session {}", numConnections, sessionCode);
+        return runLoadTest(numConnections, List.of(sessionCode));
+    }
+
+    /**
+     * Run a load test with connections spread evenly over several sessions.
+     */
+    public LoadTestResult runLoadTest(int numConnections, List<String> sessionCodes) {
+        logger.info("Starting load test with {} connections to sessions {}", numConnections, sessionCodes);
 
         long startTime = System.currentTimeMillis();
         ExecutorService executor = Executors.newFixedThreadPool(Math.min(numConnections, 100));
@@ -56,7 +94,7 @@ public class WebSocketLoadTester {
             final int clientId = i;
             executor.submit(() -> {
                 try {
-                    createConnection(clientId, sessionCode);
+                    createConnection(clientId, sessionCodes.get(clientId % sessionCodes.size()));
                 } finally {
                     latch.countDown();
                 }
@@ -78,12 +116,28 @@ public class WebSocketLoadTester {
 
         executor.shutdown();
 
+        // Joins are answered asynchronously; give the last acks time to land
+        long ackDeadline = System.currentTimeMillis() + 30_000;
+        while (joinLatency.getCount() < successfulConnections.get() && System.currentTimeMillis() < ackDeadline) {
+            try {
+                Thread.sleep(100);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+
         LoadTestResult result = new LoadTestResult(
             numConnections,
             successfulConnections.get(),
             failedConnections.get(),
             duration,
-            activeSessions.size()
+            activeSessions.size(),
+            joinLatency.getCount(),
+            toMillis(connectLatency.getValueAtPercentile(50)),
+            toMillis(connectLatency.getValueAtPercentile(99)),
+            toMillis(joinLatency.getValueAtPercentile(50)),
+            toMillis(joinLatency.getValueAtPercentile(99))
         );
 
         logger.info("Load test completed: {}", result);
@@ -92,15 +146,6 @@ public class WebSocketLoadTester {
 
     private void createConnection(int clientId, String sessionCode) {
         try {
-            // Create WebSocket client
-            List<Transport> transports = new ArrayList<>();
-            transports.add(new WebSocketTransport(new StandardWebSocketClient()));
-            SockJsClient sockJsClient = new SockJsClient(transports);
-
-            WebSocketStompClient stompClient = new WebSocketStompClient(sockJsClient);
-            stompClient.setMessageConverter(new MappingJackson2MessageConverter());
-            stompClient.setDefaultHeartbeat(new long[]{10000, 10000});
-
             String wsUrl = serverUrl + "/ws/game";
 
             StompHeaders connectHeaders = new StompHeaders();
@@ -108,13 +153,17 @@ public class WebSocketLoadTester {
             connectHeaders.add("studentId", "loadtest-" + clientId);
             connectHeaders.add("studentName", "LoadTestStudent" + clientId);
 
+            LoadTestSessionHandler handler = new LoadTestSessionHandler(clientId, sessionCode);
+            long start = System.nanoTime();
             CompletableFuture<StompSession> future = stompClient.connectAsync(
-                wsUrl, new LoadTestSessionHandler(clientId, sessionCode));
+                wsUrl, new WebSocketHttpHeaders(), connectHeaders, handler);
 
             StompSession session = future.get(30, TimeUnit.SECONDS);
 
             if (session != null && session.isConnected()) {
+                connectLatency.record(System.nanoTime() - start);
                 activeSessions.add(session);
+                handlers.add(handler);
                 successfulConnections.incrementAndGet();
                 logger.debug("Client {} connected successfully", clientId);
             } else {
@@ -128,6 +177,36 @@ public class WebSocketLoadTester {
         }
     }
 
+    /**
+     * Every connected client asks for the leaderboard at once, {@code rounds}
+     * times; each request is timed until its reply on /user/queue/leaderboard.
+     */
+    public RoundTripResult measureRoundTrips(int rounds, long timeoutMs) throws InterruptedException {
+        LatencyHistogram latency = new LatencyHistogram();
+        int sent = 0;
+        long start = System.nanoTime();
+        for (int round = 0; round < rounds; round++) {
+            CountDownLatch replies = new CountDownLatch(handlers.size());
+            for (LoadTestSessionHandler handler : handlers) {
+                if (handler.requestLeaderboard(latency, replies)) {
+                    sent++;
+                } else {
+                    replies.countDown();
+                }
+            }
+            if (!replies.await(timeoutMs, TimeUnit.MILLISECONDS)) {
+                logger.warn("Round {}: {} replies missing after {}ms", round, replies.getCount(), timeoutMs);
+            }
+        }
+        long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        RoundTripResult result = new RoundTripResult(sent, latency.getCount(), durationMs,
+            toMillis(latency.getValueAtPercentile(50)), toMillis(latency.getValueAtPercentile(99)),
+            toMillis(latency.getMax()));
+        logger.info("Round trips: {}", result);
+        return result;
+    }
+
     /**
      * Send test messages from all connected clients.
      */
@@ -163,6 +242,9 @@ public class WebSocketLoadTester {
         }
 
         activeSessions.clear();
+        handlers.clear();
+        connectLatency.reset();
+        joinLatency.reset();
         successfulConnections.set(0);
         failedConnections.set(0);
         messagesReceived.set(0);
@@ -186,6 +268,12 @@ public class WebSocketLoadTester {
     private class LoadTestSessionHandler extends StompSessionHandlerAdapter {
         private final int clientId;
         private final String sessionCode;
+        private volatile StompSession session;
+        private volatile long joinSentNanos;
+        // The request in flight: sent at, where to record it, who to tell
+        private volatile long requestSentNanos;
+        private volatile LatencyHistogram requestLatency;
+        private volatile CountDownLatch requestDone;
 
         public LoadTestSessionHandler(int clientId, String sessionCode) {
             this.clientId = clientId;
@@ -194,6 +282,17 @@ public class WebSocketLoadTester {
 
         @Override
         public void afterConnected(StompSession session, StompHeaders connectedHeaders) {
+            this.session = session;
+            subscribeReply(session, "/user/queue/joined", () -> joinLatency.record(System.nanoTime() - joinSentNanos));
+            subscribeReply(session, "/user/queue/leaderboard", () -> {
+                CountDownLatch done = requestDone;
+                if (done != null) {
+                    requestLatency.record(System.nanoTime() - requestSentNanos);
+                    requestDone = null;
+                    done.countDown();
+                }
+            });
+
             // Subscribe to session topic
             session.subscribe("/topic/session/" + sessionCode, new StompFrameHandler() {
                 @Override
@@ -215,9 +314,37 @@ public class WebSocketLoadTester {
                 "avatarId", "ROOKIE_ROBOT"
             );
 
+            joinSentNanos = System.nanoTime();
             session.send("/app/session/" + sessionCode + "/join", joinRequest);
         }
 
+        boolean requestLeaderboard(LatencyHistogram latency, CountDownLatch done) {
+            StompSession current = session;
+            if (current == null || !current.isConnected()) {
+                return false;
+            }
+            requestLatency = latency;
+            requestSentNanos = System.nanoTime();
+            requestDone = done;
+            current.send("/app/session/" + sessionCode + "/leaderboard", Map.of());
+            return true;
+        }
+
+        private void subscribeReply(StompSession session, String destination, Runnable onReply) {
+            session.subscribe(destination, new StompFrameHandler() {
+                @Override
+                public Type getPayloadType(StompHeaders headers) {
+                    return Object.class;
+                }
+
+                @Override
+                public void handleFrame(StompHeaders headers, Object payload) {
+                    messagesReceived.incrementAndGet();
+                    onReply.run();
+                }
+            });
+        }
+
         @Override
         public void handleException(StompSession session, StompCommand command,
                                     StompHeaders headers, byte[] payload, Throwable exception) {
@@ -238,7 +365,12 @@ public class WebSocketLoadTester {
         int successfulConnections,
         int failedConnections,
         long durationMs,
-        int activeConnectionsAtEnd
+        int activeConnectionsAtEnd,
+        long joinAcks,
+        double connectP50Ms,
+        double connectP99Ms,
+        double joinP50Ms,
+        double joinP99Ms
     ) {
         public double successRate() {
             return totalAttempted > 0 ? (successfulConnections * 100.0 / totalAttempted) : 0;
@@ -252,13 +384,42 @@ public class WebSocketLoadTester {
         public String toString() {
             return String.format(
                 "LoadTestResult{total=%d, successful=%d, failed=%d, " +
-                "successRate=%.1f%%, duration=%dms, connectionsPerSec=%.1f, activeAtEnd=%d}",
+                "successRate=%.1f%%, duration=%dms, connectionsPerSec=%.1f, activeAtEnd=%d, " +
+                "joinAcks=%d, connectP50=%.1fms, connectP99=%.1fms, joinP50=%.1fms, joinP99=%.1fms}",
                 totalAttempted, successfulConnections, failedConnections,
-                successRate(), durationMs, connectionsPerSecond(), activeConnectionsAtEnd
+                successRate(), durationMs, connectionsPerSecond(), activeConnectionsAtEnd,
+                joinAcks, connectP50Ms, connectP99Ms, joinP50Ms, joinP99Ms
             );
         }
     }
 
+    /**
+     * Request/reply round trip results.
+     */
+    public record RoundTripResult(
+        int requestsSent,
+        long repliesReceived,
+        long durationMs,
+        double p50Ms,
+        double p99Ms,
+        double maxMs
+    ) {
+        public double repliesPerSecond() {
+            return durationMs > 0 ? (repliesReceived * 1000.0 / durationMs) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("RoundTripResult{sent=%d, replies=%d, duration=%dms, repliesPerSec=%.1f, " +
+                "p50=%.1fms, p99=%.1fms, max=%.1fms}",
+                requestsSent, repliesReceived, durationMs, repliesPerSecond(), p50Ms, p99Ms, maxMs);
+        }
+    }
+
+    private static double toMillis(long nanos) {
+        return nanos / 1_000_000.0;
+    }
+
     /**
      * Main method for standalone testing.
      */
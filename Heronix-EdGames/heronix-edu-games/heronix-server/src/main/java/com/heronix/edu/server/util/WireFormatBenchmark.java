@@ -0,0 +1,157 @@
+package com.heronix.edu.server.util;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.heronix.edu.common.wire.CompactWireCodec;
+import com.heronix.edu.server.dto.game.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Bytes per message and encode/decode cost of the compact wire format against
+ * JSON, for the multiplayer message types.
+ *
+ * Per message type, in a single thread after warm-up:
+ *   JSON bytes, compact bytes  - message body; STOMP headers are the same in both
+ *   json encode / decode       - ObjectMapper to bytes, and bytes to a Map as the client reads it
+ *   compact encode             - objects straight to the compact form
+ *   transcode                  - JSON bytes to compact, what the server does per broadcast
+ *   compact decode             - compact bytes to the same Map
+ *
+ * Usage:
+ *   java -cp heronix-server.jar com.heronix.edu.server.util.WireFormatBenchmark [iterations]
+ */
+public class WireFormatBenchmark {
+    private static final Logger logger = LoggerFactory.getLogger(WireFormatBenchmark.class);
+
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final JavaType mapType = mapper.constructType(Map.class);
+    private final int iterations;
+    private long sink;
+
+    public WireFormatBenchmark(int iterations) {
+        this.iterations = iterations;
+    }
+
+    public BenchmarkResult run(String name, Object message) throws Exception {
+        byte[] json = mapper.writeValueAsBytes(message);
+        byte[] compact = CompactWireCodec.fromJson(json);
+        if (!mapper.readValue(json, Map.class).equals(CompactWireCodec.read(mapper, compact, mapType))) {
+            throw new IllegalStateException(name + " does not round-trip");
+        }
+
+        double jsonEncode = time(() -> mapper.writeValueAsBytes(message).length);
+        double jsonDecode = time(() -> mapper.readValue(json, Map.class).size());
+        double compactEncode = time(() -> CompactWireCodec.write(mapper, message).length);
+        double transcode = time(() -> CompactWireCodec.fromJson(json).length);
+        double compactDecode = time(() -> CompactWireCodec.<Map<?, ?>>read(mapper, compact, mapType).size());
+        return new BenchmarkResult(name, json.length, compact.length,
+            jsonEncode, jsonDecode, compactEncode, transcode, compactDecode);
+    }
+
+    private double time(Operation operation) throws Exception {
+        for (int i = 0; i < iterations / 4; i++) {
+            sink += operation.run();  // warm-up
+        }
+        long start = System.nanoTime();
+        for (int i = 0; i < iterations; i++) {
+            sink += operation.run();
+        }
+        return (System.nanoTime() - start) / (double) iterations;
+    }
+
+    @FunctionalInterface
+    private interface Operation {
+        int run() throws Exception;
+    }
+
+    public record BenchmarkResult(String message, int jsonBytes, int compactBytes, double jsonEncodeNs,
+                                  double jsonDecodeNs, double compactEncodeNs, double transcodeNs,
+                                  double compactDecodeNs) {
+        @Override
+        public String toString() {
+            return String.format("%-22s %6d %6d %5.0f%% %9.0f %9.0f %9.0f %9.0f %9.0f",
+                message, jsonBytes, compactBytes, 100.0 * compactBytes / jsonBytes,
+                jsonEncodeNs, jsonDecodeNs, compactEncodeNs, transcodeNs, compactDecodeNs);
+        }
+    }
+
+    /**
+     * One of each message type, with the sizes a 30-player session sends.
+     */
+    static Map<String, Object> sampleMessages() {
+        Map<String, Object> messages = new LinkedHashMap<>();
+
+        QuestionDto question = new QuestionDto("q-math-35-17", "What is 7 x 8?", List.of("54", "56", "63", "48"));
+        question.setDifficulty(2);
+        question.setTimeLimitSeconds(20);
+        messages.put("QUESTION", question);
+
+        AnswerResult answer = AnswerResult.correct(List.of(RewardOption.earnCredits(100),
+            RewardOption.hackAttempt(), RewardOption.shield(30), RewardOption.doubleNext()));
+        answer.setNewTotalCredits(1_450);
+        messages.put("ANSWER_RESULT", answer);
+        messages.put("HACK_RESULT", HackResult.success("Student 12", 150, 1_600));
+
+        GameEvent event = new GameEvent(GameEvent.ANSWER_CORRECT, "ABC123");
+        event.setPlayerId("player-1a2b3c4d");
+        event.setPlayerName("Student 3");
+        event.setTimestamp(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000));
+        event.setData(Map.of("correctAnswers", 12, "incorrectAnswers", 3, "accuracy", 0.8));
+        messages.put("GAME_EVENT", event);
+
+        messages.put("LEADERBOARD_UPDATE", LeaderboardUpdate.delta(41, 42, 30, entries(10), List.of()));
+        messages.put("LEADERBOARD_SNAPSHOT", LeaderboardUpdate.snapshot(42, entries(30)));
+        messages.put("RANK_UPDATE", new RankUpdate(42, 118, 2_350, 3_000, entries(5)));
+        return messages;
+    }
+
+    private static List<LeaderboardEntry> entries(int players) {
+        String[] avatars = {"ROOKIE_ROBOT", "CYBER_FOX", "PIXEL_OWL"};
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            LeaderboardEntry entry = new LeaderboardEntry(i + 1, "player-" + Integer.toHexString(0x1000000 + i * 7919),
+                "Student " + i, avatars[i % avatars.length], 5_000 - i * 137);
+            entry.setCorrectAnswers(40 - i);
+            entry.setSuccessfulHacks(i % 4);
+            entries.add(entry);
+        }
+        return entries;
+    }
+
+    /**
+     * Main method for standalone benchmarking.
+     */
+    public static void main(String[] args) throws Exception {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 200_000;
+        WireFormatBenchmark benchmark = new WireFormatBenchmark(iterations);
+        logger.info("=== Wire Format Benchmark: {} iterations per measurement ===", iterations);
+
+        List<BenchmarkResult> results = new ArrayList<>();
+        for (Map.Entry<String, Object> message : sampleMessages().entrySet()) {
+            results.add(benchmark.run(message.getKey(), message.getValue()));
+        }
+
+        logger.info(String.format("%-22s %6s %6s %6s %9s %9s %9s %9s %9s", "message", "json B", "cmp B", "size",
+            "json enc", "json dec", "cmp enc", "transcode", "cmp dec"));
+        long jsonTotal = 0;
+        long compactTotal = 0;
+        for (BenchmarkResult result : results) {
+            logger.info("{}", result);
+            jsonTotal += result.jsonBytes();
+            compactTotal += result.compactBytes();
+        }
+        logger.info("All types: {} JSON bytes, {} compact ({}%); times in ns per message (sink {})",
+            jsonTotal, compactTotal, Math.round(100.0 * compactTotal / jsonTotal), benchmark.sink);
+    }
+}
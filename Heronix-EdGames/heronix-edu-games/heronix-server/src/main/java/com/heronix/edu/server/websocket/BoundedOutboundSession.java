@@ -0,0 +1,354 @@
+package com.heronix.edu.server.websocket;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketSessionDecorator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+/**
+ * One connection's outbound frames, queued so that a slow reader never holds a
+ * broker or outbound-channel thread.
+ *
+ * {@link #sendMessage} only enqueues; a writer thread drains the queue in order.
+ * The queue is bounded by frame count and bytes, and what happens at the bound
+ * depends on the frame:
+ *
+ *   leaderboard deltas - dropped while over the bound. The client sees the gap in
+ *                        versions and asks for one snapshot, which stands in for
+ *                        every delta it missed.
+ *   latest-only frames - own rank and leaderboard snapshots: a newer one replaces
+ *                        the one still queued for the same destination, always.
+ *   everything else    - questions, answer results, session events: never dropped.
+ *
+ * A connection that stays over the bound is disconnected by
+ * {@link OutboundBackpressure}; one that reaches twice the bound is disconnected
+ * at once, so a stalled reader cannot hold unbounded memory.
+ */
+public class BoundedOutboundSession extends WebSocketSessionDecorator {
+    private static final Logger logger = LoggerFactory.getLogger(BoundedOutboundSession.class);
+
+    static final CloseStatus SLOW_CONSUMER = CloseStatus.SESSION_NOT_RELIABLE.withReason("Slow consumer");
+
+    // Frames written per turn on a writer thread, so one busy connection cannot starve the others
+    private static final int DRAIN_BATCH = 64;
+    // STOMP headers plus the start of the JSON body
+    private static final int CLASSIFY_PREFIX = 512;
+    private static final String LEADERBOARD_UPDATE = "{\"type\":\"LEADERBOARD_UPDATE\"";
+    private static final byte[] LEADERBOARD_UPDATE_BYTES = LEADERBOARD_UPDATE.getBytes(StandardCharsets.UTF_8);
+
+    enum FrameClass { LEADERBOARD_DELTA, LATEST_ONLY, RELIABLE }
+
+    private final Executor writer;
+    private final int maxMessages;
+    private final long maxBytes;
+    private final LongSupplier clock;
+
+    // Guarded by this
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private long queuedBytes;
+    private boolean draining;
+    private boolean closed;
+    private CloseStatus closeStatus;  // close requested, applied once the queue is written
+    private long overLimitSince;  // clock millis when the queue went over the bound, 0 = within
+    private long droppedFrames;
+    private long replacedFrames;
+    private long sentFrames;
+
+    public BoundedOutboundSession(WebSocketSession delegate, Executor writer, int maxMessages, long maxBytes,
+                                  LongSupplier clock) {
+        super(delegate);
+        this.writer = writer;
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.clock = clock;
+    }
+
+    @Override
+    public void sendMessage(WebSocketMessage<?> message) throws IOException {
+        String prefix = prefixOf(message);
+        FrameClass frameClass = classify(prefix);
+        enqueue(message, frameClass, frameClass == FrameClass.RELIABLE ? null : destinationOf(prefix));
+    }
+
+    /**
+     * Queue a frame classified by the caller, such as a topic frame shared by
+     * every subscriber, without looking into it again.
+     */
+    void enqueue(WebSocketMessage<?> message, FrameClass frameClass, String destination) {
+        Pending pending = new Pending(message, frameClass, destination, message.getPayloadLength());
+
+        boolean startDrain;
+        boolean overflow = false;
+        synchronized (this) {
+            if (closed || closeStatus != null) {
+                return;
+            }
+            if (frameClass == FrameClass.LATEST_ONLY && replaceQueued(pending)) {
+                return;
+            }
+            if (frameClass == FrameClass.LEADERBOARD_DELTA && isOverLimit()) {
+                droppedFrames++;
+                return;
+            }
+
+            queue.add(pending);
+            queuedBytes += pending.bytes;
+            updateOverLimit();
+            if (queue.size() >= 2 * maxMessages || queuedBytes >= 2 * maxBytes) {
+                overflow = true;
+            }
+            startDrain = !draining && !overflow;
+            if (startDrain) {
+                draining = true;
+            }
+        }
+
+        if (overflow) {
+            logger.warn("Closing {}: outbound queue overflow", getId());
+            closeSlowConsumer();
+        } else if (startDrain) {
+            writer.execute(this::drain);
+        }
+    }
+
+    /**
+     * True if the queue has been over its bound for at least {@code slowConsumerMs}.
+     */
+    public synchronized boolean isSlowConsumer(long slowConsumerMs) {
+        return overLimitSince != 0 && clock.getAsLong() - overLimitSince >= slowConsumerMs;
+    }
+
+    /**
+     * Drop the queue and close the connection as not keeping up.
+     */
+    public void closeSlowConsumer() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            droppedFrames += queue.size();
+            queue.clear();
+            queuedBytes = 0;
+            overLimitSince = 0;
+        }
+        closeQuietly(SLOW_CONSUMER);
+    }
+
+    /**
+     * Close after the frames already queued, such as a final ERROR frame, are written.
+     */
+    @Override
+    public void close(CloseStatus status) throws IOException {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            if (draining) {
+                closeStatus = status;
+                return;
+            }
+            closed = true;
+        }
+        super.close(status);
+    }
+
+    public synchronized int getQueuedMessages() {
+        return queue.size();
+    }
+
+    public synchronized long getQueuedBytes() {
+        return queuedBytes;
+    }
+
+    public synchronized long getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    public synchronized long getReplacedFrames() {
+        return replacedFrames;
+    }
+
+    public synchronized long getSentFrames() {
+        return sentFrames;
+    }
+
+    /**
+     * Clock millis since the queue has been over its bound, 0 if within it.
+     */
+    public synchronized long getOverLimitSince() {
+        return overLimitSince;
+    }
+
+    private void drain() {
+        for (int written = 0; ; written++) {
+            Pending next;
+            CloseStatus closeNow = null;
+            synchronized (this) {
+                if (written == DRAIN_BATCH && !queue.isEmpty()) {
+                    break;  // yield the writer thread, continue below
+                }
+                next = closed ? null : queue.poll();
+                if (next != null) {
+                    queuedBytes -= next.bytes;
+                    updateOverLimit();
+                } else {
+                    draining = false;
+                    if (closeStatus != null && !closed) {
+                        closed = true;
+                        closeNow = closeStatus;
+                    }
+                }
+            }
+            if (next == null) {
+                if (closeNow != null) {
+                    closeQuietly(closeNow);
+                }
+                return;
+            }
+
+            try {
+                getDelegate().sendMessage(next.message);
+                synchronized (this) {
+                    sentFrames++;
+                }
+            } catch (IOException | RuntimeException e) {
+                logger.debug("Send to {} failed, closing: {}", getId(), e.getMessage());
+                closeSlowConsumer();
+                synchronized (this) {
+                    draining = false;
+                }
+                return;
+            }
+        }
+        writer.execute(this::drain);
+    }
+
+    private void closeQuietly(CloseStatus status) {
+        try {
+            getDelegate().close(status);
+        } catch (IOException e) {
+            logger.debug("Failed to close {}: {}", getId(), e.getMessage());
+        }
+    }
+
+    /**
+     * Put a latest-only frame in place of a queued one for the same destination.
+     */
+    private boolean replaceQueued(Pending pending) {
+        for (Pending queued : queue) {
+            if (queued.frameClass == FrameClass.LATEST_ONLY && queued.destination.equals(pending.destination)) {
+                queued.message = pending.message;
+                queuedBytes += pending.bytes - queued.bytes;
+                queued.bytes = pending.bytes;
+                replacedFrames++;
+                updateOverLimit();
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isOverLimit() {
+        return queue.size() >= maxMessages || queuedBytes >= maxBytes;
+    }
+
+    private void updateOverLimit() {
+        if (!isOverLimit()) {
+            overLimitSince = 0;
+        } else if (overLimitSince == 0) {
+            overLimitSince = clock.getAsLong();
+        }
+    }
+
+    static FrameClass classify(String prefix) {
+        int headersEnd = prefix.indexOf("\n\n");
+        if (!prefix.startsWith("MESSAGE\n") || headersEnd < 0) {
+            return FrameClass.RELIABLE;  // heartbeats, receipts, errors
+        }
+        String destination = header(prefix, headersEnd, "destination");
+        if (destination == null) {
+            return FrameClass.RELIABLE;
+        }
+        return classify(destination, prefix.startsWith(LEADERBOARD_UPDATE, headersEnd + 2));
+    }
+
+    /**
+     * The class of a MESSAGE frame, from its destination and JSON body.
+     */
+    static FrameClass classify(String destination, byte[] json) {
+        byte[] prefix = LEADERBOARD_UPDATE_BYTES;
+        boolean leaderboardUpdate = json.length >= prefix.length
+            && Arrays.equals(json, 0, prefix.length, prefix, 0, prefix.length);
+        return classify(destination, leaderboardUpdate);
+    }
+
+    private static FrameClass classify(String destination, boolean leaderboardUpdate) {
+        if (destination.endsWith("/queue/rank") || destination.endsWith("/queue/leaderboard-snapshot")) {
+            return FrameClass.LATEST_ONLY;
+        }
+        if (destination.startsWith("/topic/session/") && leaderboardUpdate) {
+            return FrameClass.LEADERBOARD_DELTA;
+        }
+        return FrameClass.RELIABLE;
+    }
+
+    private static String destinationOf(String prefix) {
+        int headersEnd = prefix.indexOf("\n\n");
+        return headersEnd < 0 ? "" : String.valueOf(header(prefix, headersEnd, "destination"));
+    }
+
+    private static String header(String frame, int headersEnd, String name) {
+        String key = "\n" + name + ":";
+        int start = frame.indexOf(key);
+        if (start < 0 || start >= headersEnd) {
+            return null;
+        }
+        start += key.length();
+        int end = frame.indexOf('\n', start);
+        return frame.substring(start, end);
+    }
+
+    static String prefixOf(WebSocketMessage<?> message) {
+        if (message instanceof TextMessage text) {
+            String payload = text.getPayload();
+            return payload.length() > CLASSIFY_PREFIX ? payload.substring(0, CLASSIFY_PREFIX) : payload;
+        }
+        if (message instanceof BinaryMessage binary) {
+            ByteBuffer payload = binary.getPayload().duplicate();
+            byte[] bytes = new byte[Math.min(payload.remaining(), CLASSIFY_PREFIX)];
+            payload.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        return "";
+    }
+
+    /**
+     * A queued frame. Latest-only frames are updated in place when superseded.
+     */
+    private static final class Pending {
+        WebSocketMessage<?> message;
+        final FrameClass frameClass;
+        final String destination;
+        int bytes;
+
+        Pending(WebSocketMessage<?> message, FrameClass frameClass, String destination, int bytes) {
+            this.message = message;
+            this.frameClass = frameClass;
+            this.destination = destination;
+            this.bytes = bytes;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.common.wire.CompactWireCodec;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Negotiated compact binary frames for players on a plain WebSocket.
+ *
+ * A client asks for the format with a {@code wire-format} CONNECT header naming
+ * {@link CompactWireCodec#MIME_TYPE}. SockJS only carries text, so the request
+ * is ignored on a SockJS connection, as it is when the format is turned off
+ * ({@code heronix.websocket.compact-wire.enabled}); the client then keeps
+ * getting JSON, as every other client does.
+ *
+ * Messages are still converted to JSON on their way to the broker. For a
+ * compact connection this interceptor re-encodes each MESSAGE on the outbound
+ * channel as a binary STOMP frame with the compact body, and queues it on the
+ * connection in place of the STOMP handler's text frame. Session topic frames
+ * are re-encoded once per broadcast by {@link SessionTopicFanout}.
+ */
+@Component
+public class CompactWireFormat implements ExecutorChannelInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(CompactWireFormat.class);
+
+    public static final String CONNECT_HEADER = "wire-format";
+    public static final MimeType MIME_TYPE = MimeType.valueOf(CompactWireCodec.MIME_TYPE);
+
+    private final OutboundBackpressure outboundBackpressure;
+    private final boolean enabled;
+    private final StompEncoder encoder = new StompEncoder();
+    private final Set<String> compactSessions = ConcurrentHashMap.newKeySet();
+    private final AtomicLong messageIds = new AtomicLong();
+    private final AtomicLong framesEncoded = new AtomicLong();
+    private final AtomicLong jsonBytes = new AtomicLong();
+    private final AtomicLong compactBytes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    public CompactWireFormat(OutboundBackpressure outboundBackpressure,
+                             @Value("${heronix.websocket.compact-wire.enabled:true}") boolean enabled) {
+        this.outboundBackpressure = outboundBackpressure;
+        this.enabled = enabled;
+    }
+
+    @EventListener
+    public void handleConnect(SessionConnectEvent event) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
+        if (!CompactWireCodec.MIME_TYPE.equals(accessor.getFirstNativeHeader(CONNECT_HEADER))) {
+            return;
+        }
+        BoundedOutboundSession session = outboundBackpressure.find(accessor.getSessionId());
+        if (!enabled || session == null || session.getDelegate() instanceof SockJsSession) {
+            logger.debug("Compact frames not available to {}, sending JSON", accessor.getSessionId());
+            return;
+        }
+        compactSessions.add(accessor.getSessionId());
+    }
+
+    @EventListener
+    public void handleDisconnect(SessionDisconnectEvent event) {
+        compactSessions.remove(event.getSessionId());
+    }
+
+    /**
+     * True if this connection negotiated compact frames.
+     */
+    public boolean isCompact(String sessionId) {
+        return sessionId != null && compactSessions.contains(sessionId);
+    }
+
+    /**
+     * Outbound channel: queue a compact frame in place of the JSON one.
+     */
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        MessageHeaders headers = message.getHeaders();
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (!isCompact(sessionId)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        BoundedOutboundSession session = outboundBackpressure.find(sessionId);
+        if (session == null || !isJson(accessor.getContentType()) || accessor.getSubscriptionId() == null) {
+            return message;
+        }
+
+        // The handler would send the destination the client subscribed to, /user/queue/...
+        Map<String, List<String>> nativeHeaders = new LinkedHashMap<>(accessor.toNativeHeaderMap());
+        List<String> original = nativeHeaders.remove(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION);
+        String destination = original != null && !original.isEmpty() ? original.get(0) : accessor.getDestination();
+        if (destination == null) {
+            return message;
+        }
+        StompHeaderAccessor stompHeaders = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        nativeHeaders.forEach(stompHeaders::setNativeHeaderValues);
+        stompHeaders.setDestination(destination);
+        stompHeaders.setSubscriptionId(accessor.getSubscriptionId());
+        stompHeaders.setMessageId("c-" + messageIds.incrementAndGet());
+
+        BinaryMessage frame = encode(stompHeaders, json);
+        if (frame == null) {
+            return message;
+        }
+        session.enqueue(frame, BoundedOutboundSession.classify(destination, json), destination);
+        return SessionTopicFanout.handled(message);
+    }
+
+    /**
+     * A binary MESSAGE frame with the given headers and the compact form of a
+     * JSON body, or null if the body cannot be re-encoded.
+     */
+    BinaryMessage encode(StompHeaderAccessor headers, byte[] json) {
+        byte[] compact = toCompact(json);
+        return compact != null ? encodeCompact(headers, compact, json.length) : null;
+    }
+
+    /**
+     * As {@link #encode}, for a body already re-encoded by {@link #toCompact}.
+     */
+    BinaryMessage encodeCompact(StompHeaderAccessor headers, byte[] compact, int jsonLength) {
+        headers.setContentType(MIME_TYPE);
+        framesEncoded.incrementAndGet();
+        jsonBytes.addAndGet(jsonLength);
+        compactBytes.addAndGet(compact.length);
+        return new BinaryMessage(encoder.encode(headers.getMessageHeaders(), compact));
+    }
+
+    /**
+     * The compact form of a JSON body, or null (logged) if it is not JSON.
+     */
+    byte[] toCompact(byte[] json) {
+        try {
+            return CompactWireCodec.fromJson(json);
+        } catch (IOException e) {
+            failures.incrementAndGet();
+            logger.warn("Sending JSON, body could not be re-encoded: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    static boolean isJson(MimeType contentType) {
+        return contentType != null && MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(contentType);
+    }
+
+    /**
+     * Connection and body size counts, for the monitor endpoint.
+     */
+    public Map<String, Object> getStats() {
+        long json = jsonBytes.get();
+        long compact = compactBytes.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("compactConnections", compactSessions.size());
+        stats.put("framesEncoded", framesEncoded.get());
+        stats.put("jsonBodyBytes", json);
+        stats.put("compactBodyBytes", compact);
+        stats.put("bodySizeRatio", json > 0 ? Math.round(compact * 1000.0 / json) / 1000.0 : 0);
+        stats.put("failures", failures.get());
+        return stats;
+    }
+}
@@ -0,0 +1,73 @@
+package com.heronix.edu.server.websocket;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.wire.CompactWireCodec;
+import org.springframework.core.GenericTypeResolver;
+import org.springframework.core.MethodParameter;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.converter.AbstractMessageConverter;
+import org.springframework.messaging.converter.MessageConversionException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+
+/**
+ * Binds {@link CompactWireCodec} bodies sent by compact clients as the JSON
+ * converter binds JSON, with the same ObjectMapper.
+ *
+ * Only used for messages whose content-type names the compact format; anything
+ * without a content-type is left to the JSON converter.
+ */
+public class CompactWireMessageConverter extends AbstractMessageConverter {
+
+    private final ObjectMapper objectMapper;
+
+    public CompactWireMessageConverter(ObjectMapper objectMapper) {
+        super(CompactWireFormat.MIME_TYPE);
+        this.objectMapper = objectMapper;
+        setStrictContentTypeMatch(true);
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return true;
+    }
+
+    @Override
+    protected Object convertFromInternal(Message<?> message, Class<?> targetClass, Object conversionHint) {
+        if (!(message.getPayload() instanceof byte[] payload)) {
+            return null;
+        }
+        JavaType javaType = objectMapper.constructType(resolveType(targetClass, conversionHint));
+        try {
+            return CompactWireCodec.read(objectMapper, payload, javaType);
+        } catch (IOException e) {
+            throw new MessageConversionException(message, "Could not read compact message: " + e.getMessage(), e);
+        }
+    }
+
+    /**
+     * The generic type of a @MessageMapping parameter, such as a List of requests.
+     */
+    private static Type resolveType(Class<?> targetClass, Object conversionHint) {
+        if (conversionHint instanceof MethodParameter parameter) {
+            MethodParameter nested = parameter.nestedIfOptional();
+            if (Message.class.isAssignableFrom(nested.getParameterType())) {
+                nested = nested.nested();
+            }
+            return GenericTypeResolver.resolveType(nested.getNestedGenericParameterType(), nested.getContainingClass());
+        }
+        return targetClass;
+    }
+
+    @Override
+    protected Object convertToInternal(Object payload, MessageHeaders headers, Object conversionHint) {
+        try {
+            return CompactWireCodec.write(objectMapper, payload);
+        } catch (IOException e) {
+            throw new MessageConversionException("Could not write compact message: " + e.getMessage(), e);
+        }
+    }
+}
@@ -1,5 +1,6 @@
 package com.heronix.edu.server.websocket;
 
+import com.heronix.edu.server.security.ResumeTokenProvider;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.messaging.Message;
@@ -20,7 +21,8 @@ import java.util.concurrent.atomic.AtomicInteger;
  * STOMP channel interceptor for game session authentication and connection tracking.
  *
  * This interceptor:
- * - Assigns a unique player ID to each connection (no JWT required)
+ * - Assigns a unique player ID to each connection (no JWT required), or the
+ *   player ID of a valid resume token, so a reconnecting player stays the same player
  * - Tracks active connections for monitoring
  * - Handles session code validation at connect time
  * - Logs connection/disconnection events for debugging
@@ -33,6 +35,12 @@ public class GameSessionChannelInterceptor implements ChannelInterceptor {
     private final Map<String, ConnectionInfo> activeConnections = new ConcurrentHashMap<>();
     private final AtomicInteger connectionCounter = new AtomicInteger(0);
 
+    private final ResumeTokenProvider resumeTokenProvider;
+
+    public GameSessionChannelInterceptor(ResumeTokenProvider resumeTokenProvider) {
+        this.resumeTokenProvider = resumeTokenProvider;
+    }
+
     @Override
     public Message<?> preSend(Message<?> message, MessageChannel channel) {
         StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
@@ -58,14 +66,31 @@ public class GameSessionChannelInterceptor implements ChannelInterceptor {
     }
 
     private void handleConnect(StompHeaderAccessor accessor) {
-        // Generate unique player ID for this connection
-        String playerId = generatePlayerId();
-
         // Get session code from headers if provided
         String sessionCode = accessor.getFirstNativeHeader("sessionCode");
         String studentName = accessor.getFirstNativeHeader("studentName");
         String studentId = accessor.getFirstNativeHeader("studentId");
 
+        // A player reconnecting with the token from their join keeps their player ID
+        String playerId = null;
+        String resumeToken = accessor.getFirstNativeHeader("resumeToken");
+        if (resumeToken != null) {
+            ResumeTokenProvider.ResumeClaims claims = resumeTokenProvider.verify(resumeToken);
+            if (claims != null) {
+                playerId = claims.playerId();
+                sessionCode = claims.sessionCode();
+                studentName = claims.studentName();
+                studentId = claims.studentId();
+            } else {
+                logger.warn("Ignoring invalid resume token: sessionCode={}, studentName={}", sessionCode, studentName);
+            }
+        }
+        boolean resumed = playerId != null;
+        if (!resumed) {
+            // Generate unique player ID for this connection
+            playerId = generatePlayerId();
+        }
+
         // Create a simple principal for the connection
         GamePlayerPrincipal principal = new GamePlayerPrincipal(playerId, sessionCode, studentName, studentId);
         accessor.setUser(principal);
@@ -76,8 +101,8 @@ public class GameSessionChannelInterceptor implements ChannelInterceptor {
         activeConnections.put(sessionId, info);
 
         int totalConnections = connectionCounter.incrementAndGet();
-        logger.info("WebSocket CONNECT: playerId={}, sessionCode={}, studentName={}, totalConnections={}",
-            playerId, sessionCode, studentName, totalConnections);
+        logger.info("WebSocket CONNECT: playerId={}, sessionCode={}, studentName={}, resumed={}, totalConnections={}",
+            playerId, sessionCode, studentName, resumed, totalConnections);
     }
 
     private void handleDisconnect(StompHeaderAccessor accessor) {
@@ -0,0 +1,373 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.server.engine.SessionEngine;
+import com.heronix.edu.server.util.LatencyHistogram;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.handler.invocation.AbstractMethodMessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Message rates and latencies per STOMP destination, for the monitor endpoint.
+ *
+ * Destinations are counted by pattern, with the session code and user suffix
+ * taken out: SEND /app/session/{code}/answer, MESSAGE /user/queue/answer-result.
+ * For each inbound pattern to the application (/app) three latencies are kept:
+ *   queue wait - handed to the inbound channel until a channel thread picks it up
+ *   handler    - the @MessageMapping method and what it runs inline
+ *   reply      - handed to the inbound channel until a message to the same
+ *                connection reaches the outbound channel, such as an answer's
+ *                ANSWER_RESULT queued on the session loop and sent on completion
+ *
+ * The reply is matched without a lookup: the inbound message's trace rides on the
+ * channel thread, on session loop actions queued from it, and from there on the
+ * headers of whatever they send. Recording is counters and {@link LatencyHistogram}s,
+ * no locks; see MessagingMetricsBenchmark for the cost per message.
+ */
+@Component
+public class MessagingMetrics {
+
+    public static final String RECEIVED_HEADER = "heronixReceivedNanos";
+    public static final String TRACE_HEADER = "heronixTrace";
+
+    private static final String SESSION_SEGMENT = "/session/";
+    private static final String USER_SUFFIX = "-user";
+    private static final String OTHER = "(other)";
+    // Patterns are a fixed set; a cap keeps a stray id in a destination from growing the maps
+    private static final int MAX_DESTINATIONS = 256;
+
+    private static final ThreadLocal<Trace> CURRENT = new ThreadLocal<>();
+
+    private final boolean enabled;
+    private final Map<StompCommand, Map<String, InboundStats>> inbound = new EnumMap<>(StompCommand.class);
+    private final Map<SimpMessageType, Map<String, OutboundStats>> outbound = new EnumMap<>(SimpMessageType.class);
+    private final AtomicInteger destinations = new AtomicInteger();
+    private final LongAdder untyped = new LongAdder();
+    private final long startedAt = System.nanoTime();
+
+    private final ExecutorChannelInterceptor inboundInterceptor = new InboundInterceptor();
+    private final ExecutorChannelInterceptor brokerInterceptor = new BrokerInterceptor();
+    private final ExecutorChannelInterceptor outboundInterceptor = new OutboundInterceptor();
+
+    public MessagingMetrics(SessionEngine sessionEngine,
+                            @Value("${heronix.websocket.metrics.enabled:true}") boolean enabled) {
+        this.enabled = enabled;
+        for (StompCommand command : StompCommand.values()) {
+            inbound.put(command, new ConcurrentHashMap<>());
+        }
+        for (SimpMessageType type : SimpMessageType.values()) {
+            outbound.put(type, new ConcurrentHashMap<>());
+        }
+        if (enabled) {
+            sessionEngine.setTaskDecorator(MessagingMetrics::propagate);
+        }
+    }
+
+    /**
+     * Inbound channel: stamp each message as it is received and time its handling.
+     */
+    public ExecutorChannelInterceptor inbound() {
+        return inboundInterceptor;
+    }
+
+    /**
+     * Broker channel: carry the trace of the message being handled onto what it sends.
+     */
+    public ExecutorChannelInterceptor broker() {
+        return brokerInterceptor;
+    }
+
+    /**
+     * Outbound channel: count each message, and time replies against their trace.
+     * Ahead of interceptors that hand messages straight to the connection.
+     */
+    public ExecutorChannelInterceptor outbound() {
+        return outboundInterceptor;
+    }
+
+    /**
+     * Run an action queued from a channel thread under that thread's trace.
+     */
+    static Runnable propagate(Runnable action) {
+        Trace trace = CURRENT.get();
+        if (trace == null) {
+            return action;
+        }
+        return () -> {
+            Trace previous = CURRENT.get();
+            CURRENT.set(trace);
+            try {
+                action.run();
+            } finally {
+                CURRENT.set(previous);
+            }
+        };
+    }
+
+    private final class InboundInterceptor implements ExecutorChannelInterceptor {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            if (!enabled) {
+                return message;
+            }
+            Received received = new Received(inboundStats(message.getHeaders()), System.nanoTime());
+            received.stats.count.increment();
+            MessageHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, MessageHeaderAccessor.class);
+            if (accessor != null && accessor.isMutable()) {
+                accessor.setHeader(RECEIVED_HEADER, received);
+                return message;
+            }
+            return MessageBuilder.fromMessage(message).setHeader(RECEIVED_HEADER, received).build();
+        }
+
+        /**
+         * Each subscriber of the channel gets its own task; only the application's
+         * handler, the one for /app destinations, is timed.
+         */
+        @Override
+        public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+            if (handler instanceof AbstractMethodMessageHandler<?>
+                    && message.getHeaders().get(RECEIVED_HEADER) instanceof Received received) {
+                long now = System.nanoTime();
+                received.stats.queueWait.record(now - received.nanos);
+                CURRENT.set(new Trace(received.stats, SimpMessageHeaderAccessor.getSessionId(message.getHeaders()),
+                    received.nanos, now));
+            }
+            return message;
+        }
+
+        @Override
+        public void afterMessageHandled(Message<?> message, MessageChannel channel, MessageHandler handler,
+                                        Exception ex) {
+            Trace trace = CURRENT.get();
+            if (trace != null) {
+                CURRENT.remove();
+                trace.stats.handler.record(System.nanoTime() - trace.handlerStart);
+            }
+        }
+    }
+
+    private final class BrokerInterceptor implements ExecutorChannelInterceptor {
+        @Override
+        public Message<?> preSend(Message<?> message, MessageChannel channel) {
+            Trace trace = CURRENT.get();
+            MessageHeaders headers = message.getHeaders();
+            if (trace == null || trace.sessionId == null || headers.containsKey(TRACE_HEADER)
+                    || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE) {
+                return message;
+            }
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+            accessor.setHeader(TRACE_HEADER, trace);
+            return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+        }
+    }
+
+    private final class OutboundInterceptor implements ExecutorChannelInterceptor {
+        @Override
+        public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+            if (!enabled) {
+                return message;
+            }
+            MessageHeaders headers = message.getHeaders();
+            OutboundStats stats = outboundStats(headers);
+            stats.count.increment();
+            if (message.getPayload() instanceof byte[] payload) {
+                stats.bytes.add(payload.length);
+            }
+            // The broker copies the trace to every subscriber; only the requester's copy is its reply
+            if (headers.get(TRACE_HEADER) instanceof Trace trace
+                    && trace.sessionId.equals(SimpMessageHeaderAccessor.getSessionId(headers))) {
+                trace.stats.reply.record(System.nanoTime() - trace.receivedAt);
+            }
+            return message;
+        }
+    }
+
+    private InboundStats inboundStats(MessageHeaders headers) {
+        StompCommand command = StompHeaderAccessor.getCommand(headers);
+        if (command == null) {
+            untyped.increment();
+            command = StompCommand.SEND;
+        }
+        return lookup(inbound.get(command), SimpMessageHeaderAccessor.getDestination(headers), InboundStats::new);
+    }
+
+    private OutboundStats outboundStats(MessageHeaders headers) {
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        if (type == null) {
+            untyped.increment();
+            type = SimpMessageType.OTHER;
+        }
+        // A user queue message carries the destination the client subscribed to
+        String destination = NativeMessageHeaderAccessor.getFirstNativeHeader(
+            SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, headers);
+        if (destination == null) {
+            destination = SimpMessageHeaderAccessor.getDestination(headers);
+        }
+        return lookup(outbound.get(type), destination, OutboundStats::new);
+    }
+
+    private <S> S lookup(Map<String, S> byDestination, String destination, Supplier<S> create) {
+        String pattern = destinationPattern(destination);
+        S stats = byDestination.get(pattern);
+        if (stats != null) {
+            return stats;
+        }
+        if (destinations.get() >= MAX_DESTINATIONS) {
+            pattern = OTHER;
+        }
+        return byDestination.computeIfAbsent(pattern, key -> {
+            destinations.incrementAndGet();
+            return create.get();
+        });
+    }
+
+    /**
+     * A destination without its session code or user suffix:
+     * /topic/session/ABC123 is /topic/session/{code}, and
+     * /queue/rank-user1a2b3c is /queue/rank. Fixed names such as
+     * /app/session/create stay as they are.
+     */
+    static String destinationPattern(String destination) {
+        if (destination == null) {
+            return "";
+        }
+        int start = destination.indexOf(SESSION_SEGMENT);
+        if (start >= 0) {
+            start += SESSION_SEGMENT.length();
+            int end = destination.indexOf('/', start);
+            if (end < 0) {
+                end = destination.length();
+            }
+            if (isSessionCode(destination, start, end)) {
+                return destination.substring(0, start) + "{code}" + destination.substring(end);
+            }
+            return destination;
+        }
+        int user = destination.lastIndexOf(USER_SUFFIX);
+        return user > 0 && destination.startsWith("/queue/") ? destination.substring(0, user) : destination;
+    }
+
+    // Session codes are upper case and digits; action names are lower case
+    private static boolean isSessionCode(String destination, int start, int end) {
+        for (int i = start; i < end; i++) {
+            char c = destination.charAt(i);
+            if (c >= 'a' && c <= 'z' || c == '-') {
+                return false;
+            }
+        }
+        return end > start;
+    }
+
+    /**
+     * Counts and latency percentiles per destination pattern.
+     */
+    public Map<String, Object> getStats() {
+        double seconds = Math.max(1e-9, (System.nanoTime() - startedAt) / 1e9);
+        Map<String, Object> inboundStats = new TreeMap<>();
+        inbound.forEach((command, byDestination) -> byDestination.forEach((destination, stats) ->
+            inboundStats.put(label(command.name(), destination), stats.toMap(seconds))));
+        Map<String, Object> outboundStats = new TreeMap<>();
+        outbound.forEach((type, byDestination) -> byDestination.forEach((destination, stats) ->
+            outboundStats.put(label(type.name(), destination), stats.toMap(seconds))));
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", enabled);
+        result.put("uptimeSeconds", Math.round(seconds));
+        result.put("inbound", inboundStats);
+        result.put("outbound", outboundStats);
+        result.put("untyped", untyped.sum());
+        return result;
+    }
+
+    private static String label(String type, String destination) {
+        return destination.isEmpty() ? type : type + " " + destination;
+    }
+
+    /**
+     * When an inbound message was handed to the channel, and its destination's counts.
+     */
+    record Received(InboundStats stats, long nanos) {
+        @Override
+        public String toString() {
+            return "Received[" + nanos + "]";
+        }
+    }
+
+    /**
+     * The message being handled on a channel thread, and the actions it queued.
+     */
+    record Trace(InboundStats stats, String sessionId, long receivedAt, long handlerStart) {
+        @Override
+        public String toString() {
+            return "Trace[" + sessionId + "]";  // not the histograms
+        }
+    }
+
+    static final class InboundStats {
+        final LongAdder count = new LongAdder();
+        final LatencyHistogram queueWait = new LatencyHistogram();
+        final LatencyHistogram handler = new LatencyHistogram();
+        final LatencyHistogram reply = new LatencyHistogram();
+
+        Map<String, Object> toMap(double seconds) {
+            long n = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", n);
+            map.put("perSecond", Math.round(n / seconds * 10) / 10.0);
+            if (queueWait.getCount() > 0) {
+                map.put("queueWaitMicros", micros(queueWait));
+                map.put("handlerMicros", micros(handler));
+            }
+            if (reply.getCount() > 0) {
+                map.put("replies", reply.getCount());
+                map.put("replyMicros", micros(reply));
+            }
+            return map;
+        }
+    }
+
+    static final class OutboundStats {
+        final LongAdder count = new LongAdder();
+        final LongAdder bytes = new LongAdder();
+
+        Map<String, Object> toMap(double seconds) {
+            long n = count.sum();
+            Map<String, Object> map = new LinkedHashMap<>();
+            map.put("count", n);
+            map.put("perSecond", Math.round(n / seconds * 10) / 10.0);
+            map.put("bytes", bytes.sum());
+            return map;
+        }
+    }
+
+    private static Map<String, Object> micros(LatencyHistogram histogram) {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("mean", Math.round(histogram.getMean() / 100) / 10.0);
+        map.put("p50", histogram.getValueAtPercentile(50) / 1_000);
+        map.put("p90", histogram.getValueAtPercentile(90) / 1_000);
+        map.put("p99", histogram.getValueAtPercentile(99) / 1_000);
+        map.put("max", histogram.getMax() / 1_000);
+        return map;
+    }
+}
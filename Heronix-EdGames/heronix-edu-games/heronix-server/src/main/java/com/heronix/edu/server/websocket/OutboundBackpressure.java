@@ -0,0 +1,199 @@
+package com.heronix.edu.server.websocket;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.adapter.NativeWebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-connection outbound queues for the STOMP endpoint.
+ *
+ * Every WebSocket session is wrapped in a {@link BoundedOutboundSession} before
+ * Spring's STOMP handler sees it, so broker and outbound-channel threads only
+ * enqueue; a small writer pool does the socket writes. A student on a bad link
+ * then delays only their own frames, and is disconnected if their queue stays
+ * over its bound for {@code slow-consumer-ms}.
+ */
+@Component
+public class OutboundBackpressure {
+    private static final Logger logger = LoggerFactory.getLogger(OutboundBackpressure.class);
+
+    private static final String BLOCKING_SEND_TIMEOUT = "org.apache.tomcat.websocket.BLOCKING_SEND_TIMEOUT";
+
+    private final int maxMessages;
+    private final long maxBytes;
+    private final long slowConsumerMs;
+    private final ExecutorService writers;
+    private final ScheduledExecutorService sweeper;
+    private final Map<String, BoundedOutboundSession> sessions = new ConcurrentHashMap<>();
+    private final AtomicLong slowConsumerDisconnects = new AtomicLong();
+
+    public OutboundBackpressure(@Value("${heronix.game.outbound.max-queued-messages:256}") int maxMessages,
+                                @Value("${heronix.game.outbound.max-queued-bytes:1048576}") long maxBytes,
+                                @Value("${heronix.game.outbound.slow-consumer-ms:10000}") long slowConsumerMs,
+                                @Value("${heronix.game.outbound.writer-threads:16}") int writerThreads) {
+        this.maxMessages = maxMessages;
+        this.maxBytes = maxBytes;
+        this.slowConsumerMs = slowConsumerMs;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(writerThreads, r -> {
+            Thread t = new Thread(r, "ws-writer-" + threadCount.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+        this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "ws-slow-consumer-sweep");
+            t.setDaemon(true);
+            return t;
+        });
+        long sweepMs = Math.max(100, slowConsumerMs / 4);
+        sweeper.scheduleWithFixedDelay(this::disconnectSlowConsumers, sweepMs, sweepMs, TimeUnit.MILLISECONDS);
+        logger.info("Outbound queues: {} frames / {} bytes per connection, slow consumers closed after {}ms, "
+            + "{} writer threads", maxMessages, maxBytes, slowConsumerMs, writerThreads);
+    }
+
+    /**
+     * Decorator factory for {@code WebSocketTransportRegistration#addDecoratorFactory}.
+     */
+    public WebSocketHandler decorate(WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(WebSocketSession session) throws Exception {
+                if (session instanceof NativeWebSocketSession ws
+                        && ws.getNativeSession() instanceof jakarta.websocket.Session nativeSession) {
+                    // Tomcat: give up on a write to a stalled socket rather than hold a writer thread indefinitely
+                    nativeSession.getUserProperties().put(BLOCKING_SEND_TIMEOUT, slowConsumerMs);
+                }
+                BoundedOutboundSession bounded = new BoundedOutboundSession(session, writers, maxMessages, maxBytes,
+                    System::currentTimeMillis);
+                sessions.put(session.getId(), bounded);
+                super.afterConnectionEstablished(bounded);
+            }
+
+            @Override
+            public void handleMessage(WebSocketSession session, WebSocketMessage<?> message) throws Exception {
+                super.handleMessage(bounded(session), message);
+            }
+
+            @Override
+            public void handleTransportError(WebSocketSession session, Throwable exception) throws Exception {
+                super.handleTransportError(bounded(session), exception);
+            }
+
+            @Override
+            public void afterConnectionClosed(WebSocketSession session, CloseStatus closeStatus) throws Exception {
+                WebSocketSession bounded = bounded(session);
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(bounded, closeStatus);
+            }
+        };
+    }
+
+    /**
+     * The open connection with this WebSocket (and STOMP) session id, or null.
+     */
+    public BoundedOutboundSession find(String sessionId) {
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    private WebSocketSession bounded(WebSocketSession session) {
+        BoundedOutboundSession bounded = sessions.get(session.getId());
+        return bounded != null ? bounded : session;
+    }
+
+    /**
+     * Close every connection whose queue has stayed over its bound too long.
+     *
+     * @return number of connections closed
+     */
+    public int disconnectSlowConsumers() {
+        int closed = 0;
+        for (BoundedOutboundSession session : sessions.values()) {
+            if (session.isSlowConsumer(slowConsumerMs)) {
+                logger.warn("Closing slow consumer {}: {} frames / {} bytes queued",
+                    session.getId(), session.getQueuedMessages(), session.getQueuedBytes());
+                session.closeSlowConsumer();
+                slowConsumerDisconnects.incrementAndGet();
+                closed++;
+            }
+        }
+        return closed;
+    }
+
+    /**
+     * Totals across connections, for the monitor endpoint.
+     */
+    public Map<String, Object> getStats() {
+        long queuedMessages = 0;
+        long queuedBytes = 0;
+        long dropped = 0;
+        long replaced = 0;
+        int overLimit = 0;
+        int deepest = 0;
+        for (BoundedOutboundSession session : sessions.values()) {
+            int depth = session.getQueuedMessages();
+            queuedMessages += depth;
+            queuedBytes += session.getQueuedBytes();
+            dropped += session.getDroppedFrames();
+            replaced += session.getReplacedFrames();
+            overLimit += session.getOverLimitSince() != 0 ? 1 : 0;
+            deepest = Math.max(deepest, depth);
+        }
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("connections", sessions.size());
+        stats.put("queuedMessages", queuedMessages);
+        stats.put("queuedBytes", queuedBytes);
+        stats.put("deepestQueue", deepest);
+        stats.put("connectionsOverLimit", overLimit);
+        stats.put("droppedFrames", dropped);
+        stats.put("replacedFrames", replaced);
+        stats.put("slowConsumerDisconnects", slowConsumerDisconnects.get());
+        return stats;
+    }
+
+    /**
+     * Queue depth per connection, deepest first.
+     */
+    public List<Map<String, Object>> getQueueDepths(int limit) {
+        long now = System.currentTimeMillis();
+        List<Map<String, Object>> depths = new ArrayList<>();
+        for (BoundedOutboundSession session : sessions.values()) {
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("sessionId", session.getId());
+            row.put("queuedMessages", session.getQueuedMessages());
+            row.put("queuedBytes", session.getQueuedBytes());
+            long overLimitSince = session.getOverLimitSince();
+            row.put("overLimitMs", overLimitSince != 0 ? now - overLimitSince : 0);
+            row.put("sentFrames", session.getSentFrames());
+            row.put("droppedFrames", session.getDroppedFrames());
+            row.put("replacedFrames", session.getReplacedFrames());
+            depths.add(row);
+        }
+        // Sorted on the copied values; the live ones keep changing
+        depths.sort(Comparator.comparingLong((Map<String, Object> row) -> (Long) row.get("queuedBytes")).reversed());
+        return depths.subList(0, Math.min(limit, depths.size()));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        sweeper.shutdownNow();
+        writers.shutdown();
+    }
+}
@@ -0,0 +1,172 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.server.engine.SessionEventLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Broker channel interceptor that numbers and keeps each session's game events
+ * for reconnecting players.
+ *
+ * Every message published to a session topic or to a player's event queues
+ * passes through here on its way to the broker, whether the service sent it or
+ * it is a controller's {@code @SendToUser} reply. It is appended to the session's
+ * {@link SessionEventLog} and sent on with its number in a {@code seq} header,
+ * which the client remembers and hands back when it resumes.
+ *
+ * Leaderboard deltas, rank updates, snapshots and session info are not kept:
+ * they describe current state, and a resuming client asks for them afresh.
+ */
+@Component
+public class SessionEventRecorder implements ChannelInterceptor {
+    private static final Logger logger = LoggerFactory.getLogger(SessionEventRecorder.class);
+
+    public static final String SEQ_HEADER = "seq";
+
+    private static final String TOPIC_PREFIX = "/topic/session/";
+    private static final String USER_PREFIX = "/user/";
+    private static final Set<String> REPLAYED_QUEUES = Set.of(
+        "/queue/question", "/queue/answer-result", "/queue/hack-result", "/queue/hacked");
+    private static final byte[] LEADERBOARD_UPDATE = "{\"type\":\"LEADERBOARD_UPDATE\"".getBytes(StandardCharsets.UTF_8);
+
+    private final int minEventsPerSession;
+    private final int eventsPerPlayer;
+    private final Map<String, SessionEventLog> logs = new ConcurrentHashMap<>();
+    private final Map<String, String> playerSessions = new ConcurrentHashMap<>();
+
+    public SessionEventRecorder(@Value("${heronix.game.resume.min-events-per-session:256}") int minEventsPerSession,
+                                @Value("${heronix.game.resume.events-per-player:32}") int eventsPerPlayer) {
+        this.minEventsPerSession = minEventsPerSession;
+        this.eventsPerPlayer = eventsPerPlayer;
+        logger.info("Session event logs: at least {} events, {} per player", minEventsPerSession, eventsPerPlayer);
+    }
+
+    /**
+     * Start keeping events for a session.
+     */
+    public void open(String sessionCode) {
+        logs.computeIfAbsent(sessionCode,
+            code -> new SessionEventLog(minEventsPerSession, eventsPerPlayer, System.currentTimeMillis() * 1000));
+    }
+
+    /**
+     * Keep the player's own events in their session's log from now on.
+     */
+    public void register(String sessionCode, String playerId) {
+        SessionEventLog log = logs.get(sessionCode);
+        if (log != null && playerSessions.put(playerId, sessionCode) == null) {
+            log.addPlayer();
+        }
+    }
+
+    /**
+     * Drop a finished session's log.
+     */
+    public void close(String sessionCode) {
+        if (logs.remove(sessionCode) != null) {
+            playerSessions.values().removeIf(sessionCode::equals);
+        }
+    }
+
+    /**
+     * What the player missed after {@code lastSeq}, or an incomplete empty replay
+     * if the session keeps no log.
+     */
+    public SessionEventLog.Replay replay(String sessionCode, String playerId, long lastSeq) {
+        SessionEventLog log = logs.get(sessionCode);
+        if (log == null) {
+            return new SessionEventLog.Replay(false, 0, List.of());
+        }
+        return log.since(playerId, lastSeq);
+    }
+
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        if (SimpMessageHeaderAccessor.getMessageType(message.getHeaders()) != SimpMessageType.MESSAGE
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(message.getHeaders());
+        if (destination == null) {
+            return message;
+        }
+
+        String sessionCode;
+        String playerId;
+        String clientDestination;
+        if (destination.startsWith(TOPIC_PREFIX)) {
+            if (startsWith(payload, LEADERBOARD_UPDATE)) {
+                return message;
+            }
+            sessionCode = destination.substring(TOPIC_PREFIX.length());
+            playerId = null;
+            clientDestination = destination;
+        } else if (destination.startsWith(USER_PREFIX)) {
+            // /user/{playerId}/queue/..., before the user destination handler resolves it
+            int queueStart = destination.indexOf('/', USER_PREFIX.length());
+            if (queueStart < 0 || !REPLAYED_QUEUES.contains(destination.substring(queueStart))) {
+                return message;
+            }
+            playerId = destination.substring(USER_PREFIX.length(), queueStart);
+            sessionCode = playerSessions.get(playerId);
+            clientDestination = "/user" + destination.substring(queueStart);
+        } else {
+            return message;
+        }
+
+        SessionEventLog log = sessionCode != null ? logs.get(sessionCode) : null;
+        if (log == null) {
+            return message;
+        }
+        long seq = log.append(playerId, clientDestination, payload);
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setNativeHeader(SEQ_HEADER, Long.toString(seq));
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Log sizes, for the monitor endpoint.
+     */
+    public Map<String, Object> getStats() {
+        long retained = 0;
+        long capacity = 0;
+        for (SessionEventLog log : logs.values()) {
+            retained += log.getRetained();
+            capacity += log.getCapacity();
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("sessions", logs.size());
+        stats.put("players", playerSessions.size());
+        stats.put("eventsRetained", retained);
+        stats.put("capacity", capacity);
+        return stats;
+    }
+
+    private static boolean startsWith(byte[] payload, byte[] prefix) {
+        if (payload.length < prefix.length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; i++) {
+            if (payload[i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
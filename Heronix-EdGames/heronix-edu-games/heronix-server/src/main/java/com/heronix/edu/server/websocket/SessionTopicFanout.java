@@ -0,0 +1,221 @@
+package com.heronix.edu.server.websocket;
+
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompEncoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Encode-once delivery of session topic broadcasts.
+ *
+ * The broker turns a broadcast to /topic/session/{code} into one message per
+ * subscriber, and Spring's STOMP handler then encodes each of them: headers and
+ * the whole JSON body copied into a new frame, and again into a String. A
+ * 3,000-player session paid for 3,000 copies of the same bytes per event.
+ *
+ * This interceptor sits on two channels:
+ *   broker channel   - a topic broadcast gets a {@link SharedFrame} header; the
+ *                      broker copies headers into every subscriber's message
+ *   outbound channel - each subscriber's message is written as the shared frame
+ *                      to the connection's outbound queue, skipping the STOMP handler
+ *
+ * The frame is encoded once per subscription id, which in practice is once: the
+ * clients subscribe in the same order and so get the same ids. Every connection
+ * is then handed the same immutable TextMessage.
+ *
+ * Connections on {@link CompactWireFormat} are handed a binary frame instead,
+ * likewise shared: the body is re-encoded once per broadcast, not per player.
+ *
+ * Subscription matching stays with the broker (a cached lookup per destination),
+ * as does its ordered hand-off per connection: topic events still reach a
+ * player in order with their own queues, which resume sequence numbers rely on.
+ */
+@Component
+public class SessionTopicFanout implements ExecutorChannelInterceptor {
+    public static final String FRAME_HEADER = "heronixSharedFrame";
+
+    private static final String TOPIC_PREFIX = "/topic/session/";
+
+    private final OutboundBackpressure outboundBackpressure;
+    private final CompactWireFormat compactWireFormat;
+    private final StompEncoder encoder = new StompEncoder();
+    private final AtomicLong broadcasts = new AtomicLong();
+    private final AtomicLong framesEncoded = new AtomicLong();
+    private final AtomicLong framesShared = new AtomicLong();
+    private final AtomicLong fallbacks = new AtomicLong();
+
+    public SessionTopicFanout(OutboundBackpressure outboundBackpressure, CompactWireFormat compactWireFormat) {
+        this.outboundBackpressure = outboundBackpressure;
+        this.compactWireFormat = compactWireFormat;
+    }
+
+    /**
+     * Broker channel: attach the shared frame to a session topic broadcast.
+     */
+    @Override
+    public Message<?> preSend(Message<?> message, MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        if (headers.containsKey(FRAME_HEADER)
+                || SimpMessageHeaderAccessor.getMessageType(headers) != SimpMessageType.MESSAGE
+                || SimpMessageHeaderAccessor.getSessionId(headers) != null  // already addressed to one connection
+                || !(message.getPayload() instanceof byte[] payload)) {
+            return message;
+        }
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        if (destination == null || !destination.startsWith(TOPIC_PREFIX)) {
+            return message;
+        }
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        MimeType contentType = accessor.getContentType();
+        if (contentType != null && MimeTypeUtils.APPLICATION_OCTET_STREAM.isCompatibleWith(contentType)) {
+            return message;  // binary frames are left to the STOMP handler
+        }
+        SharedFrame frame = new SharedFrame(destination, payload, contentType, accessor.toNativeHeaderMap(),
+            "b-" + broadcasts.incrementAndGet());
+        accessor.setHeader(FRAME_HEADER, frame);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    /**
+     * Outbound channel: write the shared frame and skip per-subscriber encoding.
+     */
+    @Override
+    public Message<?> beforeHandle(Message<?> message, MessageChannel channel, MessageHandler handler) {
+        MessageHeaders headers = message.getHeaders();
+        if (!(headers.get(FRAME_HEADER) instanceof SharedFrame frame)) {
+            return message;
+        }
+        BoundedOutboundSession session = outboundBackpressure.find(SimpMessageHeaderAccessor.getSessionId(headers));
+        String subscriptionId = SimpMessageHeaderAccessor.getSubscriptionId(headers);
+        if (session == null || subscriptionId == null) {
+            fallbacks.incrementAndGet();
+            return message;  // the STOMP handler encodes it as before
+        }
+        WebSocketMessage<?> shared = compactWireFormat.isCompact(session.getId())
+            ? frame.compactForSubscription(subscriptionId) : null;
+        session.enqueue(shared != null ? shared : frame.forSubscription(subscriptionId),
+            frame.frameClass, frame.destination);
+        framesShared.incrementAndGet();
+        return handled(message);
+    }
+
+    /**
+     * Skip the STOMP handler for a message already queued on its connection.
+     *
+     * The broker hands a connection its next message once this one is handled.
+     * Spring signals that only to interceptors ahead of one returning null, and
+     * the broker's callback is added after ours, so release the next one here.
+     */
+    static Message<?> handled(Message<?> message) {
+        Runnable nextMessage = OrderedMessageChannelDecorator.getNextMessageTask(message);
+        if (nextMessage != null) {
+            nextMessage.run();
+        }
+        return null;
+    }
+
+    /**
+     * Broadcast and frame counts, for the monitor endpoint.
+     */
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("broadcasts", broadcasts.get());
+        stats.put("framesEncoded", framesEncoded.get());
+        stats.put("framesShared", framesShared.get());
+        stats.put("fallbacks", fallbacks.get());
+        return stats;
+    }
+
+    /**
+     * One broadcast's payload and headers, and its encoded frames per subscription id.
+     */
+    final class SharedFrame {
+        private final String destination;
+        private final byte[] payload;
+        private final MimeType contentType;
+        private final Map<String, List<String>> nativeHeaders;
+        private final String messageId;
+        private final BoundedOutboundSession.FrameClass frameClass;
+        private final Map<String, TextMessage> frames = new ConcurrentHashMap<>(2);
+        private final Map<String, BinaryMessage> compactFrames = new ConcurrentHashMap<>(2);
+        private volatile byte[] compactPayload;
+
+        SharedFrame(String destination, byte[] payload, MimeType contentType,
+                    Map<String, List<String>> nativeHeaders, String messageId) {
+            this.destination = destination;
+            this.payload = payload;
+            this.contentType = contentType;
+            this.nativeHeaders = nativeHeaders;
+            this.messageId = messageId;
+            this.frameClass = BoundedOutboundSession.classify(destination, payload);
+        }
+
+        TextMessage forSubscription(String subscriptionId) {
+            TextMessage frame = frames.get(subscriptionId);
+            return frame != null ? frame : frames.computeIfAbsent(subscriptionId, this::encode);
+        }
+
+        /**
+         * The binary frame for a compact connection, or null to send it the text frame.
+         */
+        BinaryMessage compactForSubscription(String subscriptionId) {
+            if (!CompactWireFormat.isJson(contentType)) {
+                return null;
+            }
+            BinaryMessage frame = compactFrames.get(subscriptionId);
+            return frame != null ? frame : compactFrames.computeIfAbsent(subscriptionId, this::encodeCompact);
+        }
+
+        private TextMessage encode(String subscriptionId) {
+            TextMessage frame = new TextMessage(encoder.encode(headers(subscriptionId).getMessageHeaders(), payload));
+            framesEncoded.incrementAndGet();
+            return frame;
+        }
+
+        private BinaryMessage encodeCompact(String subscriptionId) {
+            byte[] compact = compactPayload;
+            if (compact == null) {
+                compact = compactWireFormat.toCompact(payload);
+                if (compact == null) {
+                    return null;  // not cached; each such subscriber gets the text frame
+                }
+                compactPayload = compact;
+            }
+            framesEncoded.incrementAndGet();
+            return compactWireFormat.encodeCompact(headers(subscriptionId), compact, payload.length);
+        }
+
+        private StompHeaderAccessor headers(String subscriptionId) {
+            StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+            nativeHeaders.forEach(accessor::setNativeHeaderValues);
+            accessor.setDestination(destination);
+            if (contentType != null) {
+                accessor.setContentType(contentType);
+            }
+            accessor.setSubscriptionId(subscriptionId);
+            accessor.setMessageId(messageId);
+            return accessor;
+        }
+    }
+}
@@ -5,7 +5,11 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.event.EventListener;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
 import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.simp.user.SimpUser;
+import org.springframework.messaging.simp.user.SimpUserRegistry;
 import org.springframework.stereotype.Component;
 import org.springframework.web.socket.messaging.SessionConnectedEvent;
 import org.springframework.web.socket.messaging.SessionDisconnectEvent;
@@ -33,6 +37,9 @@ public class WebSocketEventListener {
     @Autowired(required = false)
     private GameSessionService gameSessionService;
 
+    @Autowired
+    private SimpUserRegistry userRegistry;
+
     @EventListener
     public void handleWebSocketConnectListener(SessionConnectedEvent event) {
         StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
@@ -67,7 +74,7 @@ public class WebSocketEventListener {
 
             // Notify game session service about player disconnect
             if (user instanceof GameSessionChannelInterceptor.GamePlayerPrincipal gamePrincipal) {
-                handlePlayerDisconnect(gamePrincipal);
+                handlePlayerDisconnect(gamePrincipal, sessionId);
             }
         } else {
             logger.debug("WebSocket Disconnected: sessionId={}, totalConnections={}", sessionId, current);
@@ -76,29 +83,43 @@ public class WebSocketEventListener {
 
     @EventListener
     public void handleSubscribeEvent(SessionSubscribeEvent event) {
-        StompHeaderAccessor accessor = StompHeaderAccessor.wrap(event.getMessage());
-        String destination = accessor.getDestination();
-        String sessionId = accessor.getSessionId();
+        // Read the headers in place: with receive order preserved, the inbound channel may
+        // still be adding its own header to this message, and wrapping would copy the map
+        MessageHeaders headers = event.getMessage().getHeaders();
+        String destination = SimpMessageHeaderAccessor.getDestination(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
 
         logger.debug("WebSocket Subscribe: sessionId={}, destination={}", sessionId, destination);
     }
 
-    private void handlePlayerDisconnect(GameSessionChannelInterceptor.GamePlayerPrincipal principal) {
+    private void handlePlayerDisconnect(GameSessionChannelInterceptor.GamePlayerPrincipal principal,
+                                        String closedSessionId) {
         String sessionCode = principal.getSessionCode();
         String playerId = principal.getPlayerId();
 
         if (sessionCode != null && gameSessionService != null) {
-            try {
-                // Mark player as disconnected in game session
-                // The GameSessionService can handle reconnection logic
-                logger.info("Player {} disconnected from game session {}", playerId, sessionCode);
-                // TODO: Implement player disconnect handling in GameSessionService
-            } catch (Exception e) {
-                logger.error("Error handling player disconnect for {}", playerId, e);
+            // The player may already be back on a new connection with their resume token
+            if (hasOtherConnection(playerId, closedSessionId)) {
+                logger.debug("Player {} closed an old connection, still connected", playerId);
+                return;
             }
+            // Mark player as disconnected in game session; they keep their place until they resume
+            gameSessionService.executeInSession(sessionCode, () -> {
+                gameSessionService.handlePlayerDisconnect(sessionCode, playerId);
+                return null;
+            }).exceptionally(e -> {
+                logger.error("Error handling player disconnect for {}", playerId, e);
+                return null;
+            });
         }
     }
 
+    private boolean hasOtherConnection(String playerId, String closedSessionId) {
+        SimpUser simpUser = userRegistry.getUser(playerId);
+        return simpUser != null && simpUser.getSessions().stream()
+            .anyMatch(session -> !session.getId().equals(closedSessionId));
+    }
+
     /**
      * Get current connection count.
      */
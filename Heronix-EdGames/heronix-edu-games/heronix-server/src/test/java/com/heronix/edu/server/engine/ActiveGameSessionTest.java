@@ -0,0 +1,188 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import com.heronix.edu.server.entity.GameSessionEntity;
+import com.heronix.edu.server.entity.QuestionEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ActiveGameSession
+ */
+class ActiveGameSessionTest {
+
+    private final TimingWheel wheel = new TimingWheel(10, 8, () -> 0L);
+
+    @Test
+    @DisplayName("Should assign slots in join order and find players by id and student")
+    void shouldAssignSlotsInJoinOrder() {
+        ActiveGameSession session = newSession();
+        GamePlayerEntity ann = player("p-ann", "s-ann");
+        GamePlayerEntity bob = player("p-bob", "s-bob");
+
+        assertEquals(0, session.addPlayer(ann));
+        assertEquals(1, session.addPlayer(bob));
+
+        assertEquals(1, session.getSlot("p-bob"));
+        assertEquals(-1, session.getSlot("p-nobody"));
+        assertSame(bob, session.getPlayer("p-bob"));
+        assertNull(session.getPlayer("p-nobody"));
+        assertTrue(session.hasPlayer("s-ann"));
+        assertFalse(session.hasPlayer("s-nobody"));
+        assertEquals(List.of(ann, bob), session.getPlayers());
+    }
+
+    @Test
+    @DisplayName("Should keep per-player state when slots grow past the initial capacity")
+    void shouldKeepStateWhenGrowing() {
+        ActiveGameSession session = newSession();
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            String id = "p-" + i;
+            ids.add(id);
+            session.addPlayer(player(id, "s-" + i));
+            session.setQuestionNumber(id, i % 3);
+            if (i % 10 == 0) {
+                session.setShieldUntil(id, 1_000 + i);
+            }
+            if (i > 0) {
+                session.recordFailedHackAttempt(id, ids.get(0));
+            }
+        }
+        session.recordFailedHackAttempt("p-0", "p-99");
+
+        assertEquals(100, session.getPlayerCount());
+        for (int i = 0; i < 100; i++) {
+            String id = ids.get(i);
+            assertEquals(i % 3, session.getQuestionNumber(id));
+            assertEquals(i % 10 == 0, session.hasShield(id));
+        }
+        assertEquals(1_050L, session.getShieldUntil("p-50"));
+        assertEquals(Map.of("p-0", 1), session.getFailedHackAttempts("p-42"));
+        assertEquals(Map.of("p-99", 1), session.getFailedHackAttempts("p-0"));
+    }
+
+    @Test
+    @DisplayName("Should count failed hacks per target and clear them after a success")
+    void shouldTrackFailedHacks() {
+        ActiveGameSession session = newSession();
+        session.addPlayer(player("hacker", "s1"));
+        session.addPlayer(player("target", "s2"));
+        session.addPlayer(player("other", "s3"));
+
+        assertEquals(1, session.recordFailedHackAttempt("hacker", "target"));
+        assertEquals(2, session.recordFailedHackAttempt("hacker", "target"));
+        assertEquals(1, session.recordFailedHackAttempt("hacker", "other"));
+        assertEquals(Map.of("target", 2, "other", 1), session.getFailedHackAttempts("hacker"));
+
+        session.clearHackAttempts("hacker", "target");
+        assertEquals(Map.of("other", 1), session.getFailedHackAttempts("hacker"));
+        assertEquals(Map.of(), session.getFailedHackAttempts("target"));
+
+        ActiveGameSession restored = newSession();
+        restored.addPlayer(player("hacker", "s1"));
+        restored.addPlayer(player("target", "s2"));
+        restored.addPlayer(player("other", "s3"));
+        restored.setFailedHackAttempts("hacker", session.getFailedHackAttempts("hacker"));
+        assertEquals(2, restored.recordFailedHackAttempt("hacker", "other"));
+    }
+
+    @Test
+    @DisplayName("Only the current shield timer should lift a shield")
+    void shouldIgnoreStaleShieldTimers() {
+        ActiveGameSession session = newSession();
+        session.addPlayer(player("p1", "s1"));
+
+        TimingWheel.Timeout first = wheel.schedule(100, t -> { });
+        session.setShieldUntil("p1", 100);
+        session.setShieldTimer("p1", first);
+        TimingWheel.Timeout renewed = wheel.schedule(200, t -> { });
+        session.setShieldUntil("p1", 200);
+        session.setShieldTimer("p1", renewed);
+
+        assertTrue(first.isCancelled());
+        session.expireShield("p1", first);
+        assertTrue(session.hasShield("p1"));
+        session.expireShield("p1", renewed);
+        assertFalse(session.hasShield("p1"));
+        assertNull(session.getShieldUntil("p1"));
+    }
+
+    @Test
+    @DisplayName("Should walk the question order and cycle through it")
+    void shouldTrackQuestionIndexPerPlayer() {
+        ActiveGameSession session = newSession();
+        session.addPlayer(player("p1", "s1"));
+        session.addPlayer(player("p2", "s2"));
+
+        BankQuestion first = session.getNextQuestion("p1");
+        assertSame(first, session.getCurrentQuestion("p1"));
+        assertNull(session.getCurrentQuestion("p2"));
+        session.getNextQuestion("p1");
+        assertNull(session.getNextQuestion("p1"), "two questions in the set");
+
+        session.resetQuestionIndex("p1");
+        assertSame(first, session.getNextQuestion("p1"));
+        assertNull(session.getNextQuestion("p-nobody"));
+    }
+
+    @Test
+    @DisplayName("Should peek at the next question, wrapping round, without moving on")
+    void shouldPeekAtNextQuestion() {
+        ActiveGameSession session = newSession();
+        int slot = session.addPlayer(player("p1", "s1"));
+
+        BankQuestion first = session.peekNextQuestion(slot);
+        assertEquals(1, session.peekNextQuestionNumber(slot));
+        assertSame(first, session.getNextQuestion(slot));
+        BankQuestion second = session.peekNextQuestion(slot);
+        assertEquals(2, session.peekNextQuestionNumber(slot));
+        assertSame(second, session.getNextQuestion(slot));
+
+        assertSame(first, session.peekNextQuestion(slot), "wraps round after the last question");
+        assertEquals(1, session.peekNextQuestionNumber(slot));
+        assertEquals(List.of(second), session.getUpcomingQuestions(first, 3), "never the question itself");
+        assertEquals(List.of(first), session.getUpcomingQuestions(second, 3));
+    }
+
+    @Test
+    @DisplayName("A handed-out question should be claimed once, and only by its number")
+    void shouldClaimHandedOutQuestionOnce() {
+        ActiveGameSession session = newSession();
+        int slot = session.addPlayer(player("p1", "s1"));
+
+        session.setHandedOut(slot, 2, "key-2");
+        assertEquals("key-2", session.takeHandedOut(slot, 2));
+        assertNull(session.takeHandedOut(slot, 2));
+
+        session.setHandedOut(slot, 2, "key-2");
+        assertNull(session.takeHandedOut(slot, 1), "a different question was sent");
+        assertNull(session.takeHandedOut(slot, 2));
+    }
+
+    private ActiveGameSession newSession() {
+        List<QuestionEntity> questions = new ArrayList<>();
+        for (int i = 1; i <= 2; i++) {
+            QuestionEntity q = new QuestionEntity();
+            q.setQuestionId("q-" + i);
+            q.setQuestionText("Question " + i);
+            q.setCorrectAnswer("a");
+            q.setWrongAnswer1("b");
+            q.setWrongAnswer2("c");
+            q.setWrongAnswer3("d");
+            questions.add(q);
+        }
+        return new ActiveGameSession(new GameSessionEntity("ABC123", "teacher", "CODE_BREAKER"),
+            new QuestionBank("set", questions), null);
+    }
+
+    private static GamePlayerEntity player(String playerId, String studentId) {
+        return new GamePlayerEntity(playerId, studentId, "Student " + studentId);
+    }
+}
@@ -0,0 +1,89 @@
+package com.heronix.edu.server.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for DatabaseGate
+ */
+class DatabaseGateTest {
+
+    @Test
+    @DisplayName("Should never let more callers in than it has permits")
+    void shouldBoundConcurrentCallers() throws InterruptedException {
+        DatabaseGate gate = new DatabaseGate(3, 5_000);
+        AtomicInteger inside = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        int callers = 20;
+        CountDownLatch done = new CountDownLatch(callers);
+        ExecutorService executor = Executors.newFixedThreadPool(callers);
+        try {
+            for (int i = 0; i < callers; i++) {
+                executor.execute(() -> {
+                    gate.run(() -> {
+                        peak.accumulateAndGet(inside.incrementAndGet(), Math::max);
+                        sleep(20);
+                        inside.decrementAndGet();
+                    });
+                    done.countDown();
+                });
+            }
+            assertTrue(done.await(10, TimeUnit.SECONDS));
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertEquals(3, peak.get());
+        assertEquals(0, gate.getStats().get("inUse"));
+        assertTrue((Long) gate.getStats().get("waits") > 0);
+    }
+
+    @Test
+    @DisplayName("Should fail a caller that waits past the timeout, and release on exceptions")
+    void shouldTimeOutAndRelease() throws InterruptedException {
+        DatabaseGate gate = new DatabaseGate(1, 50);
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> gate.run(() -> {
+            holding.countDown();
+            await(release);
+        }));
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertThrows(TransientDataAccessResourceException.class, () -> gate.call(() -> "late"));
+        assertEquals(1L, gate.getStats().get("timeouts"));
+
+        release.countDown();
+        holder.join(5_000);
+        assertThrows(IllegalStateException.class, () -> gate.run(() -> {
+            throw new IllegalStateException("query failed");
+        }));
+        assertEquals("next", gate.call(() -> "next"));
+    }
+
+    private static void sleep(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
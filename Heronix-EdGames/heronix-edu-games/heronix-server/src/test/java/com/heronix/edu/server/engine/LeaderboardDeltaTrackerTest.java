@@ -0,0 +1,90 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.dto.game.LeaderboardEntry;
+import com.heronix.edu.server.dto.game.LeaderboardUpdate;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for LeaderboardDeltaTracker
+ */
+class LeaderboardDeltaTrackerTest {
+
+    @Test
+    @DisplayName("Should send only changed rows with consecutive versions")
+    void shouldSendOnlyChangedRows() {
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+
+        LeaderboardUpdate first = tracker.nextDelta(List.of(
+            new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100),
+            new LeaderboardEntry(2, "b", "Ben", "ROOKIE_ROBOT", 50),
+            new LeaderboardEntry(3, "c", "Cat", "ROOKIE_ROBOT", 0)));
+        assertEquals(0, first.getBaseVersion());
+        assertEquals(1, first.getVersion());
+        assertEquals(3, first.getEntries().size());
+
+        LeaderboardUpdate second = tracker.nextDelta(List.of(
+            new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100),
+            new LeaderboardEntry(2, "b", "Ben", "ROOKIE_ROBOT", 50),
+            new LeaderboardEntry(3, "c", "Cat", "ROOKIE_ROBOT", 20)));
+        assertEquals(1, second.getBaseVersion());
+        assertEquals(2, second.getVersion());
+        assertEquals(1, second.getEntries().size());
+        assertEquals("c", second.getEntries().get(0).getPlayerId());
+        assertTrue(second.getRemoved().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should return null when nothing changed")
+    void shouldSkipUnchangedBoard() {
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+        List<LeaderboardEntry> board = List.of(new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100));
+
+        assertNotNull(tracker.nextDelta(board));
+        assertNull(tracker.nextDelta(List.of(new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100))));
+        assertEquals(1, tracker.getVersion());
+    }
+
+    @Test
+    @DisplayName("Should report removed players and snapshot the published board")
+    void shouldReportRemovedPlayers() {
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+        tracker.nextDelta(List.of(
+            new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100),
+            new LeaderboardEntry(2, "b", "Ben", "ROOKIE_ROBOT", 50)));
+
+        LeaderboardUpdate delta = tracker.nextDelta(List.of(
+            new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100)));
+        assertEquals(List.of("b"), delta.getRemoved());
+        assertTrue(delta.getEntries().isEmpty());
+
+        LeaderboardUpdate snapshot = tracker.snapshot();
+        assertTrue(snapshot.isFull());
+        assertEquals(2, snapshot.getVersion());
+        assertEquals(1, snapshot.getEntries().size());
+    }
+
+    @Test
+    @DisplayName("Should publish a top-of-board cut with the whole session's player count")
+    void shouldTrackTopOfBoardCut() {
+        LeaderboardDeltaTracker tracker = new LeaderboardDeltaTracker();
+        List<LeaderboardEntry> top = List.of(
+            new LeaderboardEntry(1, "a", "Ann", "ROOKIE_ROBOT", 100),
+            new LeaderboardEntry(2, "b", "Ben", "ROOKIE_ROBOT", 50));
+
+        assertEquals(500, tracker.nextDelta(top, 500).getTotalPlayers());
+        // A player joined lower down: rows are unchanged but the count is not
+        LeaderboardUpdate delta = tracker.nextDelta(top, 501);
+        assertTrue(delta.getEntries().isEmpty());
+        assertEquals(501, delta.getTotalPlayers());
+        assertNull(tracker.nextDelta(top, 501));
+
+        LeaderboardUpdate snapshot = tracker.snapshot();
+        assertEquals(2, snapshot.getEntries().size());
+        assertEquals(501, snapshot.getTotalPlayers());
+    }
+}
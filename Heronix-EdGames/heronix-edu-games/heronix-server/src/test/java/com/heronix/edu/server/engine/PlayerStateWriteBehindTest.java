@@ -0,0 +1,152 @@
+package com.heronix.edu.server.engine;
+
+import com.heronix.edu.server.entity.GamePlayerEntity;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for PlayerStateWriteBehind against an in-memory H2 database
+ */
+class PlayerStateWriteBehindTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private PlayerStateWriteBehind writer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:writebehind-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE game_players (" +
+            "player_id VARCHAR(36) PRIMARY KEY, credits INT, correct_answers INT, incorrect_answers INT, " +
+            "hack_attempts INT, successful_hacks INT, times_hacked INT, credits_stolen INT, " +
+            "credits_lost INT, connected BOOLEAN, last_activity_at TIMESTAMP)");
+
+        // Long interval so only explicit flushes and shutdown write
+        writer = new PlayerStateWriteBehind(jdbcTemplate, new DatabaseGate(4, 1000), 60_000, 2, 1000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writer.shutdown();
+    }
+
+    @Test
+    @DisplayName("Should persist pending state on graceful shutdown")
+    void shouldPersistOnShutdown() {
+        GamePlayerEntity alice = insertPlayer("p1");
+        GamePlayerEntity bob = insertPlayer("p2");
+        GamePlayerEntity carol = insertPlayer("p3");
+
+        alice.addCredits(150);
+        alice.incrementCorrectAnswers();
+        bob.incrementIncorrectAnswers();
+        carol.setConnected(false);
+        writer.markDirty(alice);
+        writer.markDirty(bob);
+        writer.markDirty(carol);
+
+        assertEquals(0, readRow("p1").get("CREDITS"), "Nothing written before a flush");
+
+        writer.shutdown();
+
+        assertEquals(0, writer.getPendingCount());
+        Map<String, Object> row = readRow("p1");
+        assertEquals(150, row.get("CREDITS"));
+        assertEquals(1, row.get("CORRECT_ANSWERS"));
+        assertEquals(1, readRow("p2").get("INCORRECT_ANSWERS"));
+        assertEquals(false, readRow("p3").get("CONNECTED"));
+    }
+
+    @Test
+    @DisplayName("Should coalesce repeated changes into one row write")
+    void shouldCoalesceRepeatedChanges() {
+        GamePlayerEntity player = insertPlayer("p1");
+
+        for (int i = 0; i < 10; i++) {
+            player.addCredits(10);
+            writer.markDirty(player);
+        }
+
+        assertEquals(1, writer.getPendingCount());
+        assertEquals(1, writer.flush());
+        assertEquals(100, readRow("p1").get("CREDITS"));
+    }
+
+    @Test
+    @DisplayName("Should write the snapshot taken at markDirty time")
+    void shouldWriteSnapshotNotLiveEntity() {
+        GamePlayerEntity player = insertPlayer("p1");
+
+        player.addCredits(50);
+        writer.markDirty(player);
+        player.addCredits(500);  // not marked dirty yet
+
+        writer.flush();
+
+        assertEquals(50, readRow("p1").get("CREDITS"));
+    }
+
+    @Test
+    @DisplayName("Should flush only the given players and leave the rest pending")
+    void shouldFlushGivenPlayersOnly() {
+        GamePlayerEntity alice = insertPlayer("p1");
+        GamePlayerEntity bob = insertPlayer("p2");
+        alice.addCredits(20);
+        bob.addCredits(30);
+        writer.markDirty(alice);
+        writer.markDirty(bob);
+
+        assertEquals(1, writer.flush(List.of("p1", "p9")));
+
+        assertEquals(20, readRow("p1").get("CREDITS"));
+        assertEquals(0, readRow("p2").get("CREDITS"));
+        assertEquals(1, writer.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should keep pending state when a flush fails")
+    void shouldRequeueOnFailure() {
+        GamePlayerEntity player = insertPlayer("p1");
+        player.addCredits(75);
+        writer.markDirty(player);
+
+        jdbcTemplate.execute("ALTER TABLE game_players RENAME TO game_players_tmp");
+        assertThrows(RuntimeException.class, () -> writer.flush());
+        assertEquals(1, writer.getPendingCount());
+
+        jdbcTemplate.execute("ALTER TABLE game_players_tmp RENAME TO game_players");
+        assertEquals(1, writer.flush());
+        assertEquals(75, readRow("p1").get("CREDITS"));
+    }
+
+    private GamePlayerEntity insertPlayer(String playerId) {
+        jdbcTemplate.update("INSERT INTO game_players VALUES (?, 0, 0, 0, 0, 0, 0, 0, 0, TRUE, ?)",
+            playerId, LocalDateTime.now());
+        GamePlayerEntity player = new GamePlayerEntity();
+        player.setPlayerId(playerId);
+        player.setCredits(0);
+        player.setCorrectAnswers(0);
+        player.setIncorrectAnswers(0);
+        player.setHackAttempts(0);
+        player.setSuccessfulHacks(0);
+        player.setTimesHacked(0);
+        player.setCreditsStolen(0);
+        player.setCreditsLost(0);
+        player.setConnected(true);
+        player.setLastActivityAt(LocalDateTime.now());
+        return player;
+    }
+
+    private Map<String, Object> readRow(String playerId) {
+        return jdbcTemplate.queryForMap("SELECT * FROM game_players WHERE player_id = ?", playerId);
+    }
+}
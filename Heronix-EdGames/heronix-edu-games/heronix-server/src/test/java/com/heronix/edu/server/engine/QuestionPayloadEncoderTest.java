@@ -0,0 +1,106 @@
+package com.heronix.edu.server.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.server.entity.QuestionEntity;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for QuestionPayloadEncoder
+ */
+class QuestionPayloadEncoderTest {
+
+    private final ObjectMapper mapper = new ObjectMapper();
+    private final QuestionPayloadEncoder encoder = new QuestionPayloadEncoder(mapper);
+
+    @Test
+    @DisplayName("Envelope plus cached body should be valid question JSON")
+    void shouldProduceValidJson() throws Exception {
+        byte[] body = encoder.encodeBody(sampleQuestion());
+
+        Map<?, ?> payload = mapper.readValue(encoder.withEnvelope(body, 12, "player-1a2b3c4d"), Map.class);
+
+        assertEquals(12, payload.get("questionNumber"));
+        assertEquals("player-1a2b3c4d", payload.get("playerId"));
+        assertEquals("q-1", payload.get("questionId"));
+        assertEquals("Capital of France?", payload.get("questionText"));
+        assertEquals(15, payload.get("timeLimitSeconds"));
+        assertEquals(4, ((List<?>) payload.get("answers")).size());
+    }
+
+    @Test
+    @DisplayName("Should escape player ids that are not plain ASCII")
+    void shouldEscapeUnusualPlayerIds() throws Exception {
+        byte[] body = encoder.encodeBody(sampleQuestion());
+        String playerId = "stu\"dent\\é";
+
+        Map<?, ?> payload = mapper.readValue(encoder.withEnvelope(body, 1, playerId), Map.class);
+
+        assertEquals(playerId, payload.get("playerId"));
+        assertEquals("q-1", payload.get("questionId"));
+    }
+
+    @Test
+    @DisplayName("Should list the images of the upcoming questions once each")
+    void shouldListUpcomingImages() throws Exception {
+        List<BankQuestion> upcoming = List.of(
+            imageQuestion("q-2", "https://cdn.example/map.png"),
+            imageQuestion("q-3", null),
+            imageQuestion("q-4", "https://cdn.example/map.png"),
+            imageQuestion("q-5", "https://cdn.example/flag.png"));
+
+        Map<?, ?> withImages = mapper.readValue(
+            encoder.withEnvelope(encoder.encodeBody(sampleQuestion(), upcoming), 1, "player-1"), Map.class);
+        Map<?, ?> withoutImages = mapper.readValue(
+            encoder.withEnvelope(encoder.encodeBody(sampleQuestion()), 1, "player-1"), Map.class);
+
+        assertEquals(List.of("https://cdn.example/map.png", "https://cdn.example/flag.png"),
+            withImages.get("prefetch"));
+        assertNull(withoutImages.get("prefetch"));
+    }
+
+    @Test
+    @DisplayName("Reveal should carry the envelope, question id and key only")
+    void shouldEncodeReveal() throws Exception {
+        Map<?, ?> payload = mapper.readValue(encoder.reveal(4, "player-1", "q-7", "a2V5"), Map.class);
+
+        assertEquals(Map.of("questionNumber", 4, "playerId", "player-1", "questionId", "q-7", "revealed", true,
+            "key", "a2V5"), payload);
+    }
+
+    @Test
+    @DisplayName("Sealed question should open only with its own key")
+    void shouldSealUnderFreshKey() {
+        byte[] question = encoder.withEnvelope(encoder.encodeBody(sampleQuestion()), 2, "player-1");
+
+        QuestionPayloadEncoder.SealedQuestion sealed = encoder.seal(question);
+        QuestionPayloadEncoder.SealedQuestion again = encoder.seal(question);
+
+        assertFalse(new String(Base64.getDecoder().decode(sealed.payload()), StandardCharsets.ISO_8859_1)
+            .contains("questionText"));
+        assertNotEquals(sealed.key(), again.key());
+        assertArrayEquals(question, QuestionPayloadEncoder.open(sealed.payload(), sealed.key()));
+        assertThrows(IllegalArgumentException.class, () -> QuestionPayloadEncoder.open(sealed.payload(), again.key()));
+    }
+
+    private BankQuestion imageQuestion(String questionId, String imageUrl) {
+        QuestionEntity entity = new QuestionEntity(questionId, "Which country?", "France");
+        entity.setImageUrl(imageUrl);
+        return new QuestionBank("set", List.of(entity)).get(0);
+    }
+
+    private BankQuestion sampleQuestion() {
+        QuestionEntity entity = new QuestionEntity("q-1", "Capital of France?", "Paris");
+        entity.setWrongAnswer1("Rome");
+        entity.setWrongAnswer2("Berlin");
+        entity.setWrongAnswer3("Madrid");
+        return new QuestionBank("set", List.of(entity)).get(0);
+    }
+}
@@ -0,0 +1,93 @@
+package com.heronix.edu.server.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for RankedLeaderboard
+ */
+class RankedLeaderboardTest {
+
+    @Test
+    @DisplayName("Should order by credits and break ties by join order")
+    void shouldOrderByCreditsThenJoinOrder() {
+        RankedLeaderboard board = new RankedLeaderboard();
+        board.add("a", 100);
+        board.add("b", 200);
+        board.add("c", 100);
+        board.add("d", 0);
+
+        assertEquals(List.of("b", "a", "c", "d"), board.top(10));
+        assertEquals(1, board.rank("b"));
+        assertEquals(2, board.rank("a"));
+        assertEquals(3, board.rank("c"));
+        assertEquals(4, board.rank("d"));
+    }
+
+    @Test
+    @DisplayName("Should keep join order when a player returns to a tied score")
+    void shouldKeepJoinOrderAfterUpdate() {
+        RankedLeaderboard board = new RankedLeaderboard();
+        board.add("a", 0);
+        board.add("b", 0);
+
+        board.update("a", 50);
+        board.update("a", 0);
+
+        assertEquals(List.of("a", "b"), board.top(2));
+    }
+
+    @Test
+    @DisplayName("Should return ranges and handle unknown players")
+    void shouldReturnRanges() {
+        RankedLeaderboard board = new RankedLeaderboard();
+        for (int i = 0; i < 10; i++) {
+            board.add("p" + i, i * 10);
+        }
+
+        assertEquals(List.of("p7", "p6", "p5"), board.range(3, 3));
+        assertEquals(List.of("p0"), board.range(10, 5));
+        assertTrue(board.range(11, 1).isEmpty());
+        assertEquals(0, board.rank("missing"));
+
+        board.remove("p9");
+        assertEquals(9, board.size());
+        assertEquals(1, board.rank("p8"));
+    }
+
+    @Test
+    @DisplayName("Should match a full sort after random updates")
+    void shouldMatchFullSortAfterRandomUpdates() {
+        Random random = new Random(42);
+        RankedLeaderboard board = new RankedLeaderboard();
+        Map<String, Integer> credits = new LinkedHashMap<>();
+
+        for (int i = 0; i < 300; i++) {
+            String id = "p" + i;
+            credits.put(id, 0);
+            board.add(id, 0);
+        }
+
+        List<String> ids = new ArrayList<>(credits.keySet());
+        for (int step = 0; step < 5000; step++) {
+            String id = ids.get(random.nextInt(ids.size()));
+            int value = Math.max(0, credits.get(id) + random.nextInt(200) - 80);
+            credits.put(id, value);
+            board.update(id, value);
+        }
+
+        // Stable sort over join order is what getLeaderboard used to do
+        List<String> expected = new ArrayList<>(ids);
+        expected.sort((a, b) -> Integer.compare(credits.get(b), credits.get(a)));
+
+        assertEquals(expected, board.top(ids.size()));
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(i + 1, board.rank(expected.get(i)));
+        }
+        assertEquals(expected.subList(100, 110), board.range(101, 10));
+    }
+}
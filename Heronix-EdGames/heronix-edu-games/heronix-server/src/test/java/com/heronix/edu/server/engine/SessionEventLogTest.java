@@ -0,0 +1,102 @@
+package com.heronix.edu.server.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SessionEventLog
+ */
+class SessionEventLogTest {
+
+    private static final String TOPIC = "/topic/session/ABC123";
+
+    @Test
+    @DisplayName("Replay should hold later events for everyone and for the player only")
+    void shouldReplayEventsForPlayer() {
+        SessionEventLog log = new SessionEventLog(16, 4, 100);
+        long seen = log.append(null, TOPIC, bytes("joined"));
+        long own = log.append("p1", "/user/queue/question", bytes("q1"));
+        log.append("p2", "/user/queue/question", bytes("q1"));
+        long shared = log.append(null, TOPIC, bytes("started"));
+
+        SessionEventLog.Replay replay = log.since("p1", seen);
+
+        assertTrue(replay.complete());
+        assertEquals(shared, replay.lastSeq());
+        assertEquals(List.of(own, shared), replay.events().stream().map(SessionEventLog.Entry::seq).toList());
+        assertEquals("/user/queue/question", replay.events().get(0).destination());
+    }
+
+    @Test
+    @DisplayName("Client that is up to date should get an empty, complete replay")
+    void shouldReplayNothingWhenUpToDate() {
+        SessionEventLog log = new SessionEventLog(16, 4, 1);
+        long last = log.append(null, TOPIC, bytes("joined"));
+
+        SessionEventLog.Replay replay = log.since("p1", last);
+
+        assertTrue(replay.complete());
+        assertTrue(replay.events().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Client further behind than the ring should get an incomplete replay")
+    void shouldReportOverrun() {
+        SessionEventLog log = new SessionEventLog(4, 1, 1);
+        long seen = log.append(null, TOPIC, bytes("e1"));
+        for (int i = 2; i <= 6; i++) {
+            log.append(null, TOPIC, bytes("e" + i));
+        }
+
+        SessionEventLog.Replay replay = log.since("p1", seen);
+
+        assertFalse(replay.complete());
+        assertEquals(4, replay.events().size());
+        assertEquals(4, log.getRetained());
+
+        // Just inside the ring is still complete
+        assertTrue(log.since("p1", seen + 1).complete());
+    }
+
+    @Test
+    @DisplayName("Sequence ahead of the log, as after a restart, should be incomplete")
+    void shouldRejectSequenceFromEarlierLog() {
+        SessionEventLog earlier = new SessionEventLog(16, 4, 1_000);
+        long seen = earlier.append(null, TOPIC, bytes("e1"));
+
+        SessionEventLog restarted = new SessionEventLog(16, 4, 1);
+        restarted.append(null, TOPIC, bytes("e1"));
+
+        assertFalse(restarted.since("p1", seen).complete());
+    }
+
+    @Test
+    @DisplayName("Ring should grow with players and keep what it held")
+    void shouldGrowWithPlayers() {
+        SessionEventLog log = new SessionEventLog(4, 3, 1);
+        for (int i = 1; i <= 4; i++) {
+            log.append(null, TOPIC, bytes("e" + i));
+        }
+        log.addPlayer();
+        log.addPlayer();
+        assertEquals(8, log.getCapacity());
+
+        for (int i = 5; i <= 8; i++) {
+            log.append(null, TOPIC, bytes("e" + i));
+        }
+
+        SessionEventLog.Replay replay = log.since("p1", 0);
+        assertTrue(replay.complete());
+        assertEquals(8, replay.events().size());
+        assertEquals("e1", new String(replay.events().get(0).payload(), StandardCharsets.UTF_8));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,172 @@
+package com.heronix.edu.server.engine;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SessionJournal
+ */
+class SessionJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private SessionJournal journal;
+
+    @AfterEach
+    void tearDown() {
+        if (journal != null) {
+            journal.shutdown();
+        }
+    }
+
+    @Test
+    @DisplayName("Should read back appended events in order")
+    void shouldReadBackEventsInOrder() {
+        journal = newJournal();
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.append("ABC123", new JournalEvent.Joined("p1", "s1", "Ann", "1234", "ROOKIE_ROBOT", 1L));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-1", true));
+        journal.append("ABC123", new JournalEvent.Rewarded("p1", "CREDITS", 50, null));
+        journal.flush();
+
+        List<JournalEvent> events = newJournal().readAll().get("ABC123");
+
+        assertEquals(4, events.size());
+        assertInstanceOf(JournalEvent.Snapshot.class, events.get(0));
+        assertEquals(new JournalEvent.Answered("p1", "q-1", true), events.get(2));
+        assertEquals(new JournalEvent.Rewarded("p1", "CREDITS", 50, null), events.get(3));
+    }
+
+    @Test
+    @DisplayName("Snapshot should replace everything written before it")
+    void snapshotShouldReplaceEarlierEvents() {
+        journal = newJournal();
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-1", true));
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-2", false));
+        journal.flush();
+
+        List<JournalEvent> events = newJournal().readAll().get("ABC123");
+
+        assertEquals(2, events.size());
+        assertEquals(new JournalEvent.Answered("p1", "q-2", false), events.get(1));
+    }
+
+    @Test
+    @DisplayName("Should keep events before a torn final line")
+    void shouldIgnoreTornTail() throws Exception {
+        journal = newJournal();
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-1", true));
+        journal.flush();
+        journal.halt();
+
+        // Power loss in the middle of the next append
+        Files.writeString(directory.resolve("ABC123.journal"), "{\"type\":\"ANSWERED\",\"playerId\":\"p",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        List<JournalEvent> events = newJournal().readAll().get("ABC123");
+
+        assertEquals(2, events.size());
+        assertEquals(new JournalEvent.Answered("p1", "q-1", true), events.get(1));
+    }
+
+    @Test
+    @DisplayName("Remove should delete the session's journal")
+    void removeShouldDeleteTheJournal() {
+        journal = newJournal();
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.snapshot("XYZ789", snapshot("XYZ789"));
+        journal.remove("ABC123");
+        journal.flush();
+
+        Map<String, List<JournalEvent>> all = newJournal().readAll();
+
+        assertEquals(List.of("XYZ789"), List.copyOf(all.keySet()));
+        assertFalse(Files.exists(directory.resolve("ABC123.journal")));
+    }
+
+    @Test
+    @DisplayName("A failed write should cost only its own session, until a snapshot replaces its journal")
+    void failedWriteShouldOnlyAffectItsSession() {
+        AtomicBoolean failNext = new AtomicBoolean();
+        // A long sync interval puts everything queued below in one batch
+        journal = new SessionJournal(new ObjectMapper(), true, directory.toString(), 200, 200) {
+            @Override
+            FileChannel write(String sessionCode, byte[] line) throws IOException {
+                if (sessionCode.equals("ABC123") && failNext.getAndSet(false)) {
+                    // Disk full halfway through the line
+                    super.write(sessionCode, Arrays.copyOf(line, line.length / 2));
+                    throw new IOException("No space left on device");
+                }
+                return super.write(sessionCode, line);
+            }
+        };
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.snapshot("XYZ789", snapshot("XYZ789"));
+        journal.snapshot("OLD001", snapshot("OLD001"));
+        journal.flush();
+
+        failNext.set(true);
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-1", true));
+        journal.append("XYZ789", new JournalEvent.Answered("p2", "q-1", false));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-2", true));
+        journal.remove("OLD001");
+        journal.flush();
+
+        Map<String, List<JournalEvent>> all = newJournal().readAll();
+        assertEquals(List.of("ABC123", "XYZ789"), List.copyOf(all.keySet()));
+        assertEquals(1, all.get("ABC123").size(), "nothing after the torn line");
+        assertEquals(new JournalEvent.Answered("p2", "q-1", false), all.get("XYZ789").get(1));
+
+        assertTrue(journal.takeSnapshotRequest("ABC123"));
+        assertFalse(journal.takeSnapshotRequest("ABC123"));
+        assertFalse(journal.takeSnapshotRequest("XYZ789"));
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.append("ABC123", new JournalEvent.Answered("p1", "q-3", true));
+        journal.flush();
+
+        List<JournalEvent> events = newJournal().readAll().get("ABC123");
+        assertEquals(2, events.size());
+        assertEquals(new JournalEvent.Answered("p1", "q-3", true), events.get(1));
+    }
+
+    @Test
+    @DisplayName("Disabled journal should write nothing")
+    void disabledJournalShouldWriteNothing() throws Exception {
+        journal = new SessionJournal(new ObjectMapper(), false, directory.toString(), 0, 200);
+        journal.snapshot("ABC123", snapshot("ABC123"));
+        journal.flush();
+
+        try (var files = Files.list(directory)) {
+            assertEquals(0, files.count());
+        }
+    }
+
+    private SessionJournal newJournal() {
+        return new SessionJournal(new ObjectMapper(), true, directory.toString(), 0, 200);
+    }
+
+    private static JournalEvent.Snapshot snapshot(String code) {
+        return new JournalEvent.Snapshot(code, "teacher", "CODE_BREAKER", "set", "ACTIVE", 600, 1000,
+            1L, 2L, List.of("q-1", "q-2"), List.of());
+    }
+}
@@ -0,0 +1,142 @@
+package com.heronix.edu.server.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TimingWheel
+ */
+class TimingWheelTest {
+
+    private final AtomicLong clock = new AtomicLong(10_000);
+
+    @Test
+    @DisplayName("Should fire at the deadline, never before")
+    void shouldFireAtDeadline() {
+        TimingWheel wheel = new TimingWheel(10, 8, clock::get);
+        List<Long> firedAt = new ArrayList<>();
+        wheel.schedule(95, t -> firedAt.add(clock.get()));
+
+        advance(wheel, 90);
+        assertTrue(firedAt.isEmpty());
+
+        advance(wheel, 10);
+        assertEquals(List.of(10_100L), firedAt);
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should fire timers that span several revolutions")
+    void shouldHandleMultipleRevolutions() {
+        // 8 slots of 10ms: one revolution is 80ms
+        TimingWheel wheel = new TimingWheel(10, 8, clock::get);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(30, t -> fired.add("short"));
+        wheel.schedule(110, t -> fired.add("one-lap"));
+        wheel.schedule(350, t -> fired.add("four-laps"));
+
+        advance(wheel, 100);
+        assertEquals(List.of("short"), fired);
+        advance(wheel, 100);
+        assertEquals(List.of("short", "one-lap"), fired);
+        advance(wheel, 200);
+        assertEquals(List.of("short", "one-lap", "four-laps"), fired);
+    }
+
+    @Test
+    @DisplayName("Cancelled timers should not fire")
+    void cancelledTimersShouldNotFire() {
+        TimingWheel wheel = new TimingWheel(10, 8, clock::get);
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout before = wheel.schedule(50, t -> fired.add("before"));
+        TimingWheel.Timeout inSlot = wheel.schedule(50, t -> fired.add("in-slot"));
+        wheel.schedule(50, t -> fired.add("kept"));
+
+        // One cancelled before it reaches a slot, one after
+        assertTrue(before.cancel());
+        advance(wheel, 20);
+        assertTrue(inSlot.cancel());
+        assertFalse(inSlot.cancel());
+
+        advance(wheel, 100);
+        assertEquals(List.of("kept"), fired);
+        assertTrue(inSlot.isCancelled());
+        assertEquals(0, wheel.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should fire a timer in the past on the next tick")
+    void shouldFireOverdueTimersOnNextTick() {
+        TimingWheel wheel = new TimingWheel(10, 8, clock::get);
+        advance(wheel, 1_000);
+
+        List<String> fired = new ArrayList<>();
+        TimingWheel.Timeout timeout = wheel.schedule(0, t -> fired.add("now"));
+        advance(wheel, 10);
+
+        assertEquals(List.of("now"), fired);
+        assertTrue(timeout.isExpired());
+        assertFalse(timeout.cancel());
+    }
+
+    @Test
+    @DisplayName("A failing task should not stop other timers")
+    void failingTaskShouldNotStopWheel() {
+        TimingWheel wheel = new TimingWheel(10, 8, clock::get);
+        List<String> fired = new ArrayList<>();
+        wheel.schedule(20, t -> {
+            throw new IllegalStateException("boom");
+        });
+        wheel.schedule(20, t -> fired.add("after"));
+
+        advance(wheel, 50);
+        assertEquals(List.of("after"), fired);
+    }
+
+    @Test
+    @DisplayName("Should fire many random timers within one tick of their deadline")
+    void shouldFireManyTimersOnTime() {
+        TimingWheel wheel = new TimingWheel(10, 64, clock::get);
+        Random random = new Random(3);
+        long start = clock.get();
+        List<Long> lateness = new ArrayList<>();
+
+        for (int i = 0; i < 10_000; i++) {
+            long delay = random.nextInt(5_000);
+            wheel.schedule(delay, t -> lateness.add(clock.get() - t.getDeadline()));
+        }
+        while (clock.get() < start + 5_100) {
+            advance(wheel, 10);
+        }
+
+        assertEquals(10_000, lateness.size());
+        assertTrue(lateness.stream().allMatch(late -> late >= 0 && late <= 10), "fires within one tick");
+    }
+
+    @Test
+    @DisplayName("Ticker thread should fire timers on the system clock")
+    void tickerShouldFireTimers() throws Exception {
+        TimingWheel wheel = new TimingWheel(5, 16, System::currentTimeMillis);
+        wheel.start();
+        try {
+            CountDownLatch fired = new CountDownLatch(1);
+            wheel.schedule(20, t -> fired.countDown());
+            assertTrue(fired.await(2, TimeUnit.SECONDS));
+        } finally {
+            wheel.stop();
+        }
+    }
+
+    private void advance(TimingWheel wheel, long millis) {
+        wheel.advanceTo(clock.addAndGet(millis));
+    }
+}
@@ -0,0 +1,60 @@
+package com.heronix.edu.server.engine;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for TokenBucket
+ */
+class TokenBucketTest {
+
+    private static final long MS = 1_000_000;
+
+    private final AtomicLong clock = new AtomicLong(5_000 * MS);
+
+    @Test
+    @DisplayName("Should let a burst through, then refill at the rate")
+    void shouldAllowBurstThenRate() {
+        TokenBucket bucket = new TokenBucket(10, 3, clock::get);
+        for (int i = 0; i < 3; i++) {
+            assertEquals(0, bucket.tryTake());
+        }
+        assertTrue(bucket.tryTake() > 0);
+
+        clock.addAndGet(250 * MS);  // two and a half tokens
+        assertEquals(0, bucket.tryTake());
+        assertEquals(0, bucket.tryTake());
+        assertTrue(bucket.tryTake() > 0);
+
+        clock.addAndGet(10_000 * MS);  // never refills past capacity
+        assertEquals(3.0, bucket.getAvailable(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Callers turned away in a burst should be spread one token apart")
+    void shouldSpreadRetryHints() {
+        TokenBucket bucket = new TokenBucket(20, 1, clock::get);
+        assertEquals(0, bucket.tryTake());
+        assertEquals(50 * MS, bucket.tryTake(), 1);
+        assertEquals(100 * MS, bucket.tryTake(), 1);
+        assertEquals(150 * MS, bucket.tryTake(), 1);
+
+        // The first caller comes back when told to and gets in
+        clock.addAndGet(50 * MS);
+        assertEquals(0, bucket.tryTake());
+    }
+
+    @Test
+    @DisplayName("A returned token should be available again")
+    void shouldGiveTokenBack() {
+        TokenBucket bucket = new TokenBucket(1, 1, clock::get);
+        assertEquals(0, bucket.tryTake());
+        bucket.giveBack();
+        assertEquals(0, bucket.tryTake());
+        assertThrows(IllegalArgumentException.class, () -> new TokenBucket(0, 1, clock::get));
+    }
+}
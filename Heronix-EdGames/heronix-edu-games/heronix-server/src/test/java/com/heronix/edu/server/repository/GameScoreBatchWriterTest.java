@@ -0,0 +1,89 @@
+package com.heronix.edu.server.repository;
+
+import com.heronix.edu.common.model.GameScore;
+import org.junit.jupiter.api.*;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for GameScoreBatchWriter against an in-memory H2 database
+ */
+class GameScoreBatchWriterTest {
+
+    private static final LocalDateTime SYNCED_AT = LocalDateTime.of(2026, 3, 2, 10, 15);
+
+    private JdbcTemplate jdbcTemplate;
+    private GameScoreBatchWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+            "jdbc:h2:mem:score-writer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE game_scores (" +
+            "score_id VARCHAR(100) PRIMARY KEY, student_id VARCHAR(50) NOT NULL, game_id VARCHAR(50) NOT NULL, " +
+            "score INT, max_score INT, time_seconds INT, correct_answers INT, incorrect_answers INT, " +
+            "completion_percentage INT, completed BOOLEAN, difficulty_level VARCHAR(20), " +
+            "played_at TIMESTAMP NOT NULL, device_id VARCHAR(100), synced BOOLEAN, synced_at TIMESTAMP, " +
+            "metadata CLOB)");
+
+        writer = new GameScoreBatchWriter(jdbcTemplate, 2);
+    }
+
+    @Test
+    @DisplayName("Should insert every column across several JDBC batches")
+    void shouldInsertAcrossBatches() {
+        List<GameScore> scores = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            scores.add(score("score-" + i, 70 + i));
+        }
+        scores.get(0).setMetadata("{\"hints\":2}");
+
+        List<GameScore> inserted = writer.insertNew(scores, SYNCED_AT);
+
+        assertEquals(5, inserted.size());
+        assertEquals(5, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM game_scores", Integer.class));
+        Map<String, Object> row = jdbcTemplate.queryForMap("SELECT * FROM game_scores WHERE score_id = 'score-0'");
+        assertEquals("student-1", row.get("STUDENT_ID"));
+        assertEquals(70, row.get("SCORE"));
+        assertEquals(12, row.get("CORRECT_ANSWERS"));
+        assertEquals(true, row.get("COMPLETED"));
+        assertEquals(true, row.get("SYNCED"));
+        assertEquals(Timestamp.valueOf(SYNCED_AT), row.get("SYNCED_AT"));
+        assertEquals("{\"hints\":2}", jdbcTemplate.queryForObject(
+            "SELECT metadata FROM game_scores WHERE score_id = 'score-0'", String.class));
+        assertNull(jdbcTemplate.queryForObject(
+            "SELECT metadata FROM game_scores WHERE score_id = 'score-1'", String.class));
+    }
+
+    @Test
+    @DisplayName("Should leave already stored scores untouched and not report them")
+    void shouldSkipStoredScores() {
+        writer.insertNew(List.of(score("a", 50)), SYNCED_AT);
+
+        List<GameScore> inserted = writer.insertNew(List.of(score("a", 99), score("b", 60)), SYNCED_AT);
+
+        assertEquals(List.of("b"), inserted.stream().map(GameScore::getScoreId).toList());
+        assertEquals(50, jdbcTemplate.queryForObject("SELECT score FROM game_scores WHERE score_id = 'a'",
+            Integer.class));
+        assertEquals(2, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM game_scores", Integer.class));
+    }
+
+    private static GameScore score(String scoreId, int value) {
+        GameScore score = new GameScore("student-1", "math-sprint", value);
+        score.setScoreId(scoreId);
+        score.setDeviceId("device-1");
+        score.setCorrectAnswers(12);
+        score.setCompleted(true);
+        return score;
+    }
+}
@@ -0,0 +1,118 @@
+package com.heronix.edu.server.security;
+
+import com.heronix.edu.server.config.SecurityConfig;
+import com.heronix.edu.server.controller.SyncController;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.service.ScoreIngestService;
+import com.heronix.edu.server.service.ScoreStreamService;
+import com.heronix.edu.server.service.SyncService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.test.context.junit.jupiter.web.SpringJUnitWebConfig;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.context.WebApplicationContext;
+import org.springframework.web.servlet.config.annotation.EnableWebMvc;
+
+import java.util.List;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+import static org.springframework.security.test.web.servlet.setup.SecurityMockMvcConfigurers.springSecurity;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+/**
+ * Tests for JwtAuthenticationFilter against the real security configuration:
+ * only device tokens authenticate REST requests.
+ */
+@SpringJUnitWebConfig(JwtAuthenticationFilterTest.TestConfig.class)
+@TestPropertySource(properties = {
+    "jwt.secret=" + JwtAuthenticationFilterTest.SECRET,
+    "jwt.expiration=60000"
+})
+class JwtAuthenticationFilterTest {
+
+    static final String SECRET = "test-secret-that-is-long-enough-for-hmac-sha-256-keys";
+
+    private static final String UPLOAD = "{\"scores\":[{\"scoreId\":\"score-1\"}]}";
+
+    @Configuration
+    @EnableWebMvc
+    @Import({SecurityConfig.class, JwtAuthenticationFilter.class, JwtTokenProvider.class,
+            ResumeTokenProvider.class, SyncController.class})
+    static class TestConfig {
+    }
+
+    @Autowired
+    private WebApplicationContext context;
+
+    @Autowired
+    private JwtTokenProvider jwtTokenProvider;
+
+    @Autowired
+    private ResumeTokenProvider resumeTokenProvider;
+
+    @MockBean
+    private SyncService syncService;
+
+    @MockBean
+    private ScoreStreamService scoreStreamService;
+
+    @MockBean
+    private ScoreIngestService scoreIngestService;
+
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        mockMvc = MockMvcBuilders.webAppContextSetup(context).apply(springSecurity()).build();
+        when(syncService.uploadScores(eq("device-1"), any()))
+            .thenReturn(new SyncResponse(true, 1, 1, 0, List.of(), null, null));
+    }
+
+    @Test
+    @DisplayName("Device token should be accepted for score upload")
+    void shouldAcceptDeviceToken() throws Exception {
+        String token = jwtTokenProvider.generateToken("device-1", "student-1");
+
+        mockMvc.perform(post("/api/sync/upload")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(UPLOAD))
+            .andExpect(status().isOk());
+
+        verify(syncService).uploadScores(eq("device-1"), any());
+    }
+
+    @Test
+    @DisplayName("Game resume token should get 401 on score upload")
+    void shouldRejectResumeToken() throws Exception {
+        String token = resumeTokenProvider.issue("ABC123", "player-1a2b3c4d", "student-1", "Ada");
+
+        mockMvc.perform(post("/api/sync/upload")
+                .header("Authorization", "Bearer " + token)
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(UPLOAD))
+            .andExpect(status().isUnauthorized());
+
+        verifyNoInteractions(syncService);
+    }
+
+    @Test
+    @DisplayName("Request without a token should get 401")
+    void shouldRejectMissingToken() throws Exception {
+        mockMvc.perform(post("/api/sync/upload")
+                .contentType(MediaType.APPLICATION_JSON)
+                .content(UPLOAD))
+            .andExpect(status().isUnauthorized());
+    }
+}
@@ -0,0 +1,45 @@
+package com.heronix.edu.server.security;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for ResumeTokenProvider
+ */
+class ResumeTokenProviderTest {
+
+    private static final String SECRET = "test-secret-that-is-long-enough-for-hmac-sha-256-keys";
+
+    private final ResumeTokenProvider provider = new ResumeTokenProvider(SECRET, 60_000);
+
+    @Test
+    @DisplayName("Token should give back the player it was issued to")
+    void shouldVerifyIssuedToken() {
+        String token = provider.issue("ABC123", "player-1a2b3c4d", "student-7", "Ada");
+
+        ResumeTokenProvider.ResumeClaims claims = provider.verify(token);
+
+        assertNotNull(claims);
+        assertEquals("player-1a2b3c4d", claims.playerId());
+        assertEquals("ABC123", claims.sessionCode());
+        assertEquals("student-7", claims.studentId());
+        assertEquals("Ada", claims.studentName());
+    }
+
+    @Test
+    @DisplayName("Altered, foreign or expired tokens should be rejected")
+    void shouldRejectBadTokens() {
+        String token = provider.issue("ABC123", "player-1a2b3c4d", "student-7", "Ada");
+        String[] parts = token.split("\\.");
+        String otherPlayer = provider.issue("ABC123", "player-99999999", "student-8", "Bob").split("\\.")[1];
+
+        assertNull(provider.verify(parts[0] + "." + otherPlayer + "." + parts[2]));
+        assertNull(provider.verify(new ResumeTokenProvider(SECRET.replace('t', 'x'), 60_000)
+            .issue("ABC123", "player-1a2b3c4d", "student-7", "Ada")));
+        assertNull(provider.verify(new ResumeTokenProvider(SECRET, -1_000)
+            .issue("ABC123", "player-1a2b3c4d", "student-7", "Ada")));
+        assertNull(provider.verify("not-a-token"));
+    }
+}
@@ -0,0 +1,233 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.common.model.Device;
+import com.heronix.edu.server.entity.DeviceEntity;
+import com.heronix.edu.server.repository.DeviceRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+import java.util.TreeSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Property tests for DeviceSequenceTracker: random retried, reordered and
+ * duplicated batches, some rolled back, checked against a model of the seqs
+ * committed so far. Each property runs over many seeds; a failure names the
+ * seed that reproduces it.
+ */
+class DeviceSequenceTrackerTest {
+
+    private static final String DEVICE_ID = "device-1";
+    private static final String EPOCH = "epoch-1";
+    private static final int RUNS = 100;
+
+    private DeviceRepository deviceRepository;
+    private DeviceEntity device;
+
+    @BeforeEach
+    void setUp() {
+        device = new DeviceEntity(DEVICE_ID, "student-1", "Tablet", Device.DeviceType.TABLET);
+        deviceRepository = mock(DeviceRepository.class);
+        when(deviceRepository.findByDeviceId(DEVICE_ID)).thenAnswer(invocation -> Optional.of(device));
+    }
+
+    @Test
+    @DisplayName("Settled seqs are exactly the committed ones, whatever the order, repeats and rollbacks")
+    void settledSeqsMatchCommittedOnes() {
+        for (int run = 0; run < RUNS; run++) {
+            long seed = 1000L + run;
+            Random random = new Random(seed);
+            int seqs = 1 + random.nextInt(200);
+            device.setScoreSeqEpoch(EPOCH);
+            device.setScoreSeqHighWater(null);
+            DeviceSequenceTracker tracker = new DeviceSequenceTracker(deviceRepository, 1024);
+            Set<Long> committed = new TreeSet<>();
+
+            while (committed.size() < seqs) {
+                DeviceSequenceTracker.Batch batch = tracker.begin();
+                Set<Long> recorded = new TreeSet<>();
+                for (long seq : randomBatch(random, seqs, committed)) {
+                    // A retry of a settled seq is never judged again
+                    if (!batch.isSettled(DEVICE_ID, EPOCH, seq)) {
+                        batch.record(DEVICE_ID, EPOCH, seq);
+                        recorded.add(seq);
+                    }
+                }
+                if (random.nextInt(4) == 0) {
+                    continue; // rolled back: nothing recorded
+                }
+                committed.addAll(recorded);
+                batch.finish();
+
+                DeviceSequenceTracker.Position position = tracker.getPosition(DEVICE_ID);
+                long prefix = contiguousPrefix(committed);
+                assertEquals(prefix, position.highWaterMark(), "seed " + seed);
+                assertEquals(committed.stream().filter(seq -> seq > prefix).toList(), position.receivedAbove(),
+                    "seed " + seed);
+                assertEquals(prefix, device.getScoreSeqHighWater() == null ? 0 : device.getScoreSeqHighWater(),
+                    "seed " + seed);
+                DeviceSequenceTracker.Batch probe = tracker.begin();
+                for (long seq = 1; seq <= seqs; seq++) {
+                    assertEquals(committed.contains(seq), probe.isSettled(DEVICE_ID, EPOCH, seq), "seed " + seed + " seq " + seq);
+                }
+            }
+            assertEquals(seqs, tracker.getPosition(DEVICE_ID).highWaterMark(), "seed " + seed);
+        }
+    }
+
+    @Test
+    @DisplayName("A small window never settles an uncommitted seq, and the mark catches up on resend")
+    void smallWindowStaysSound() {
+        for (int run = 0; run < RUNS; run++) {
+            long seed = 2000L + run;
+            Random random = new Random(seed);
+            int seqs = 50 + random.nextInt(150);
+            device.setScoreSeqEpoch(EPOCH);
+            device.setScoreSeqHighWater(null);
+            DeviceSequenceTracker tracker = new DeviceSequenceTracker(deviceRepository, 1 + random.nextInt(8));
+            Set<Long> committed = new TreeSet<>();
+
+            for (int step = 0; step < 40; step++) {
+                DeviceSequenceTracker.Batch batch = tracker.begin();
+                Set<Long> recorded = new TreeSet<>();
+                for (long seq : randomBatch(random, seqs, committed)) {
+                    if (!batch.isSettled(DEVICE_ID, EPOCH, seq)) {
+                        batch.record(DEVICE_ID, EPOCH, seq);
+                        recorded.add(seq);
+                    }
+                }
+                committed.addAll(recorded);
+                batch.finish();
+
+                assertTrue(tracker.getPosition(DEVICE_ID).highWaterMark() <= contiguousPrefix(committed),
+                    "seed " + seed);
+                DeviceSequenceTracker.Batch probe = tracker.begin();
+                for (long seq = 1; seq <= seqs; seq++) {
+                    if (probe.isSettled(DEVICE_ID, EPOCH, seq)) {
+                        assertTrue(committed.contains(seq), "seed " + seed + " seq " + seq);
+                    }
+                }
+            }
+
+            // The device resends everything unacknowledged, in order
+            DeviceSequenceTracker.Batch resend = tracker.begin();
+            for (long seq = 1; seq <= seqs; seq++) {
+                if (!resend.isSettled(DEVICE_ID, EPOCH, seq)) {
+                    resend.record(DEVICE_ID, EPOCH, seq);
+                }
+            }
+            resend.finish();
+            assertEquals(seqs, tracker.getPosition(DEVICE_ID).highWaterMark(), "seed " + seed);
+        }
+    }
+
+    @Test
+    @DisplayName("After a restart only the saved mark is settled, and never more than was committed")
+    void restartKeepsSavedMark() {
+        for (int run = 0; run < RUNS; run++) {
+            long seed = 3000L + run;
+            Random random = new Random(seed);
+            int seqs = 1 + random.nextInt(100);
+            device.setScoreSeqEpoch(EPOCH);
+            device.setScoreSeqHighWater(null);
+            DeviceSequenceTracker before = new DeviceSequenceTracker(deviceRepository, 1024);
+            Set<Long> committed = new TreeSet<>();
+            for (int step = random.nextInt(10); step > 0; step--) {
+                DeviceSequenceTracker.Batch batch = before.begin();
+                List<Long> sent = randomBatch(random, seqs, committed);
+                sent.forEach(seq -> batch.record(DEVICE_ID, EPOCH, seq));
+                committed.addAll(sent);
+                batch.finish();
+            }
+
+            DeviceSequenceTracker after = new DeviceSequenceTracker(deviceRepository, 1024);
+
+            long prefix = contiguousPrefix(committed);
+            assertEquals(prefix, after.getPosition(DEVICE_ID).highWaterMark(), "seed " + seed);
+            assertEquals(List.of(), after.getPosition(DEVICE_ID).receivedAbove(), "seed " + seed);
+            DeviceSequenceTracker.Batch probe = after.begin();
+            for (long seq = 1; seq <= seqs; seq++) {
+                assertEquals(seq <= prefix, probe.isSettled(DEVICE_ID, EPOCH, seq), "seed " + seed + " seq " + seq);
+            }
+        }
+    }
+
+    @Test
+    @DisplayName("Resuming raises the mark to what the device holds synced; a new epoch starts over")
+    void resumeAdvancesOrStartsOver() {
+        DeviceSequenceTracker tracker = new DeviceSequenceTracker(deviceRepository, 1024);
+        tracker.resume(DEVICE_ID, EPOCH, 0);
+        DeviceSequenceTracker.Batch batch = tracker.begin();
+        List.of(1L, 2L, 5L, 9L).forEach(seq -> batch.record(DEVICE_ID, EPOCH, seq));
+        batch.finish();
+
+        DeviceSequenceTracker.Position position = tracker.resume(DEVICE_ID, EPOCH, 3);
+        assertEquals(3, position.highWaterMark());
+        assertEquals(List.of(5L, 9L), position.receivedAbove());
+
+        // 4 arrives late; 5 was already there
+        DeviceSequenceTracker.Batch late = tracker.begin();
+        late.record(DEVICE_ID, EPOCH, 4L);
+        late.finish();
+        assertEquals(5, tracker.getPosition(DEVICE_ID).highWaterMark());
+        assertEquals(5, device.getScoreSeqHighWater());
+
+        // The device lost its database and numbers from 1 again
+        position = tracker.resume(DEVICE_ID, "epoch-2", 0);
+        assertEquals(0, position.highWaterMark());
+        assertFalse(tracker.begin().isSettled(DEVICE_ID, "epoch-2", 1L));
+        assertEquals("epoch-2", device.getScoreSeqEpoch());
+        assertEquals(0, device.getScoreSeqHighWater());
+
+        // Seqs of another epoch are neither settled nor recorded
+        DeviceSequenceTracker.Batch stale = tracker.begin();
+        assertFalse(stale.isSettled(DEVICE_ID, EPOCH, 1L));
+        stale.record(DEVICE_ID, EPOCH, 1L);
+        stale.finish();
+        assertEquals(0, tracker.getPosition(DEVICE_ID).highWaterMark());
+
+        // Scores without a seq or an epoch are never settled
+        assertFalse(tracker.begin().isSettled(DEVICE_ID, "epoch-2", null));
+        assertFalse(tracker.begin().isSettled(DEVICE_ID, null, 1L));
+    }
+
+    /**
+     * A batch as a retrying client might send it: some new seqs near the
+     * front, some already committed, some far ahead, repeated and shuffled.
+     */
+    private static List<Long> randomBatch(Random random, int seqs, Set<Long> committed) {
+        List<Long> batch = new ArrayList<>();
+        long front = contiguousPrefix(committed) + 1;
+        int size = 1 + random.nextInt(20);
+        for (int i = 0; i < size; i++) {
+            long seq = switch (random.nextInt(4)) {
+                case 0 -> 1 + random.nextInt(seqs);                               // anything, often a retry
+                case 1 -> Math.min(seqs, Math.max(1, front - random.nextInt(5))); // just acknowledged
+                default -> Math.min(seqs, front + random.nextInt(10));            // next up
+            };
+            batch.add(seq);
+            if (random.nextInt(10) == 0) {
+                batch.add(seq);                                                   // duplicated in the batch
+            }
+        }
+        Collections.shuffle(batch, random);
+        return batch;
+    }
+
+    private static long contiguousPrefix(Set<Long> committed) {
+        long prefix = 0;
+        while (committed.contains(prefix + 1)) {
+            prefix++;
+        }
+        return prefix;
+    }
+}
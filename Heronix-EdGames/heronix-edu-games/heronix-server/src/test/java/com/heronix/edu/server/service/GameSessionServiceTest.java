@@ -1,22 +1,48 @@
 package com.heronix.edu.server.service;
 
 import com.heronix.edu.server.dto.game.*;
+import com.heronix.edu.server.engine.DatabaseGate;
+import com.heronix.edu.server.engine.JoinAdmission;
+import com.heronix.edu.server.engine.PlayerStateWriteBehind;
+import com.heronix.edu.server.engine.QuestionBankCache;
+import com.heronix.edu.server.engine.QuestionPayloadEncoder;
+import com.heronix.edu.server.engine.SessionEngine;
+import com.heronix.edu.server.engine.SessionJournal;
+import com.heronix.edu.server.engine.TeacherFeed;
+import com.heronix.edu.server.engine.TimingWheel;
 import com.heronix.edu.server.entity.*;
 import com.heronix.edu.server.repository.*;
+import com.heronix.edu.server.websocket.SessionEventRecorder;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -29,6 +55,11 @@ import static org.mockito.Mockito.*;
 @ExtendWith(MockitoExtension.class)
 class GameSessionServiceTest {
 
+    private static final long IDLE_TIMEOUT_MS = 30 * 60 * 1000;
+    // Small enough that a test can cross it
+    private static final int LARGE_SESSION_THRESHOLD = 5;
+    private static final int TOP_N = 3;
+
     @Mock
     private GameSessionRepository sessionRepository;
 
@@ -44,19 +75,68 @@ class GameSessionServiceTest {
     @Mock
     private SimpMessagingTemplate messagingTemplate;
 
+    @Mock
+    private PlayerStateWriteBehind playerStateWriter;
+
+    private SessionEngine sessionEngine;
+
+    private QuestionBankCache questionBankCache;
+
+    // Manual clock: timers only fire when a test advances the wheel
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+
+    private TimingWheel timingWheel;
+
+    // Tiny logs, so a test can overrun one: 4 events, 2 per player
+    private SessionEventRecorder eventRecorder;
+
+    // Bursts of 4 per session, then 10 a second, on the same manual clock
+    private JoinAdmission joinAdmission;
+
+    private final TeacherFeed teacherFeed = new TeacherFeed(true, 1000, 200, 50);
+
     private GameSessionService gameSessionService;
 
     @BeforeEach
     void setUp() {
-        gameSessionService = new GameSessionService(
+        sessionEngine = new SessionEngine(2, 1024);
+        questionBankCache = new QuestionBankCache(questionRepository);
+        timingWheel = new TimingWheel(100, 64, clock::get);
+        eventRecorder = new SessionEventRecorder(4, 2);
+        joinAdmission = new JoinAdmission(true, 10, 4, 100, 100, 100, 50, () -> clock.get() * 1_000_000);
+        gameSessionService = newService(sessionEngine,
+            new SessionJournal(new ObjectMapper(), false, "unused", 0, 200));
+    }
+
+    private GameSessionService newService(SessionEngine engine, SessionJournal journal) {
+        return new GameSessionService(
             sessionRepository,
             playerRepository,
             questionSetRepository,
-            questionRepository,
-            messagingTemplate
+            questionBankCache,
+            messagingTemplate,
+            engine,
+            playerStateWriter,
+            new QuestionPayloadEncoder(new ObjectMapper()),
+            journal,
+            timingWheel,
+            eventRecorder,
+            new DatabaseGate(4, 1000),
+            joinAdmission,
+            teacherFeed,
+            2000,
+            IDLE_TIMEOUT_MS,
+            LARGE_SESSION_THRESHOLD,
+            TOP_N,
+            1
         );
     }
 
+    @AfterEach
+    void tearDown() {
+        sessionEngine.shutdown();
+    }
+
     @Nested
     @DisplayName("Session Creation Tests")
     class SessionCreationTests {
@@ -243,6 +323,101 @@ class GameSessionServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Join Admission Tests")
+    class JoinAdmissionTests {
+
+        @Test
+        @DisplayName("A burst of joins should be saved and announced as one batch, and overflow told when to retry")
+        void shouldBatchJoinBurstAndRejectOverflow() throws Exception {
+            String code = createWaitingSession();
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.saveAll(anyList())).thenAnswer(i -> i.getArgument(0));
+
+            // The first join after a quiet spell goes straight in; the rest wait for the window
+            List<CompletableFuture<JoinSessionResponse>> joins = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                joins.add(gameSessionService.requestJoin(code, "player-" + i, joinRequest("student-" + i)));
+            }
+            assertTrue(joins.get(0).get(5, TimeUnit.SECONDS).isSuccess());
+            gameSessionService.executeInSession(code, () -> null).get();
+            assertFalse(joins.get(3).isDone());
+
+            // Over the session's burst: refused, with later hints for later callers
+            JoinSessionResponse refused = gameSessionService.requestJoin(code, "player-5", joinRequest("student-5")).get();
+            JoinSessionResponse refusedAgain = gameSessionService.requestJoin(code, "player-6", joinRequest("student-6")).get();
+            assertFalse(refused.isSuccess());
+            assertEquals(101L, refused.getRetryAfterMs());
+            assertEquals(201L, refusedAgain.getRetryAfterMs());
+
+            clock.addAndGet(100);
+            timingWheel.advanceTo(clock.get());
+            for (CompletableFuture<JoinSessionResponse> join : joins) {
+                assertTrue(join.get(5, TimeUnit.SECONDS).isSuccess());
+            }
+            assertEquals(3, joins.get(3).get().getOtherPlayers().size());
+
+            verify(playerRepository, times(1)).save(any(GamePlayerEntity.class));
+            verify(playerRepository, times(1)).saveAll(argThat(players -> ((List<?>) players).size() == 3));
+            ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, times(2)).convertAndSend(eq("/topic/session/" + code), events.capture());
+            GameEvent roster = (GameEvent) events.getAllValues().get(1);
+            assertEquals(GameEvent.PLAYERS_JOINED, roster.getEventType());
+            assertEquals(3, ((GameEvent.RosterData) roster.getData()).players.size());
+            assertEquals(4, ((GameEvent.RosterData) roster.getData()).totalPlayers);
+            assertEquals(2L, joinAdmission.getStats().get("batches"));
+        }
+
+        @Test
+        @DisplayName("Joins waiting when the game starts should get in, except a student joining twice")
+        void shouldApplyWaitingJoinsOnStart() throws Exception {
+            String code = createWaitingSession();
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            JoinSessionResponse first = gameSessionService.requestJoin(code, "player-1", joinRequest("student-1")).get();
+            CompletableFuture<JoinSessionResponse> second =
+                gameSessionService.requestJoin(code, "player-2", joinRequest("student-2"));
+            CompletableFuture<JoinSessionResponse> twice =
+                gameSessionService.requestJoin(code, "player-3", joinRequest("student-2"));
+
+            gameSessionService.executeInSession(code, () -> {
+                gameSessionService.startGame(code, "teacher");
+                return null;
+            }).get(5, TimeUnit.SECONDS);
+
+            assertTrue(first.isSuccess());
+            assertTrue(second.get().isSuccess());
+            assertEquals("Already joined this session", twice.get().getMessage());
+            assertEquals(2, gameSessionService.getLeaderboard(code).size());
+        }
+
+        @Test
+        @DisplayName("A join to a session that is not running should be answered at once")
+        void shouldAnswerJoinToMissingSession() throws Exception {
+            CompletableFuture<JoinSessionResponse> join =
+                gameSessionService.requestJoin("NOSUCH", "player-1", joinRequest("student-1"));
+
+            assertTrue(join.isDone());
+            assertEquals("Session not found", join.get().getMessage());
+        }
+
+        private String createWaitingSession() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(3));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            return gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+        }
+
+        private JoinSessionRequest joinRequest(String studentId) {
+            JoinSessionRequest request = new JoinSessionRequest();
+            request.setStudentId(studentId);
+            request.setStudentName("Name " + studentId);
+            request.setSecretCode("CODE");
+            return request;
+        }
+    }
+
     @Nested
     @DisplayName("Game Start Tests")
     class GameStartTests {
@@ -389,6 +564,842 @@ class GameSessionServiceTest {
         }
     }
 
+    @Nested
+    @DisplayName("Session Engine Tests")
+    class SessionEngineTests {
+
+        @Test
+        @DisplayName("Concurrent rewards for one session should not lose credits")
+        void concurrentRewardsShouldNotLoseCredits() throws Exception {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(5));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+
+            List<String> playerIds = new ArrayList<>();
+            for (int i = 1; i <= 4; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.executeInSession(code,
+                    () -> gameSessionService.joinSession(code, joinRequest)).get().getPlayerId());
+            }
+            gameSessionService.executeInSession(code, () -> {
+                gameSessionService.startGame(code, "teacher");
+                return null;
+            }).get();
+
+            // Act - 8 threads hammer the same session, like STOMP inbound threads would
+            int rewardsPerThread = 50;
+            ExecutorService callers = Executors.newFixedThreadPool(8);
+            List<CompletableFuture<Object>> futures = new CopyOnWriteArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                String playerId = playerIds.get(t % playerIds.size());
+                callers.submit(() -> {
+                    for (int i = 0; i < rewardsPerThread; i++) {
+                        futures.add(gameSessionService.executeInSession(code, () -> {
+                            gameSessionService.processRewardSelection(code, playerId, "CREDITS");
+                            return null;
+                        }));
+                    }
+                });
+            }
+            callers.shutdown();
+            assertTrue(callers.awaitTermination(10, TimeUnit.SECONDS));
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            // Assert - every reward applied exactly once (50 credits each, default avatar has no bonus)
+            int totalCredits = gameSessionService.executeInSession(code,
+                () -> gameSessionService.getLeaderboard(code)).get()
+                .stream().mapToInt(PlayerDto::getCredits).sum();
+            assertEquals(8 * rewardsPerThread * 50, totalCredits);
+        }
+    }
+
+    @Nested
+    @DisplayName("Leaderboard Broadcast Tests")
+    class LeaderboardBroadcastTests {
+
+        @Test
+        @DisplayName("Should coalesce many credit changes into one versioned delta per tick")
+        void shouldCoalesceLeaderboardBroadcasts() throws Exception {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(5));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            List<String> playerIds = new ArrayList<>();
+            for (int i = 1; i <= 3; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            }
+            gameSessionService.startGame(code, "teacher");
+
+            // First tick publishes the roster
+            publishAndWait(code);
+            List<LeaderboardUpdate> sent = leaderboardBroadcasts(code);
+            assertEquals(1, sent.size());
+            assertEquals(1, sent.get(0).getVersion());
+            assertEquals(3, sent.get(0).getEntries().size());
+
+            // A burst of rewards for one player
+            for (int i = 0; i < 10; i++) {
+                gameSessionService.processRewardSelection(code, playerIds.get(2), "CREDITS");
+            }
+            publishAndWait(code);
+            publishAndWait(code);  // nothing changed since, so no second message
+
+            sent = leaderboardBroadcasts(code);
+            assertEquals(2, sent.size());
+            LeaderboardUpdate delta = sent.get(1);
+            assertFalse(delta.isFull());
+            assertEquals(1, delta.getBaseVersion());
+            assertEquals(2, delta.getVersion());
+            // Player 3 moved to first, the other two each dropped a place
+            assertEquals(3, delta.getEntries().size());
+            assertEquals(playerIds.get(2), delta.getEntries().get(0).getPlayerId());
+            assertEquals(500, delta.getEntries().get(0).getCredits());
+
+            LeaderboardUpdate snapshot = gameSessionService.getLeaderboardSnapshot(code);
+            assertTrue(snapshot.isFull());
+            assertEquals(2, snapshot.getVersion());
+            assertEquals(3, snapshot.getEntries().size());
+        }
+
+        @Test
+        @DisplayName("Large session should broadcast the top of the board and push each player their standing")
+        void shouldSplitLeaderboardInLargeSession() throws Exception {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(5));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            List<String> playerIds = new ArrayList<>();
+            for (int i = 1; i <= LARGE_SESSION_THRESHOLD + 3; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            }
+            gameSessionService.startGame(code, "teacher");
+
+            publishAndWait(code);
+            LeaderboardUpdate board = leaderboardBroadcasts(code).get(0);
+            assertEquals(TOP_N, board.getEntries().size());
+            assertEquals(playerIds.size(), board.getTotalPlayers());
+            for (String playerId : playerIds) {
+                verify(messagingTemplate).convertAndSendToUser(eq(playerId), eq("/queue/rank"), any(RankUpdate.class));
+            }
+
+            // The last player jumps to first; everyone's standing moves
+            String climber = playerIds.get(playerIds.size() - 1);
+            gameSessionService.processRewardSelection(code, climber, "CREDITS");
+            publishAndWait(code);
+
+            ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, times(2)).convertAndSendToUser(eq(climber), eq("/queue/rank"), captor.capture());
+            RankUpdate standing = (RankUpdate) captor.getAllValues().get(1);
+            assertEquals(1, standing.getRank());
+            assertEquals(50, standing.getCredits());
+            assertEquals(playerIds.size(), standing.getTotalPlayers());
+            // Own row plus one below
+            assertEquals(2, standing.getNeighbours().size());
+            assertEquals(climber, standing.getNeighbours().get(0).getPlayerId());
+
+            LeaderboardUpdate delta = leaderboardBroadcasts(code).get(1);
+            assertEquals(climber, delta.getEntries().get(0).getPlayerId());
+            assertEquals(1, delta.getRemoved().size());  // pushed out of the top three
+
+            LeaderboardUpdate snapshot = gameSessionService.getLeaderboardSnapshot(code);
+            assertEquals(TOP_N, snapshot.getEntries().size());
+            assertEquals(playerIds.size(), snapshot.getTotalPlayers());
+        }
+
+        @Test
+        @DisplayName("Small session should not send per-player standings")
+        void shouldNotSendStandingsInSmallSession() throws Exception {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(5));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            for (int i = 1; i <= LARGE_SESSION_THRESHOLD; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                gameSessionService.joinSession(code, joinRequest);
+            }
+            gameSessionService.startGame(code, "teacher");
+
+            publishAndWait(code);
+            assertEquals(LARGE_SESSION_THRESHOLD, leaderboardBroadcasts(code).get(0).getEntries().size());
+            verify(messagingTemplate, never()).convertAndSendToUser(anyString(), eq("/queue/rank"), any());
+        }
+
+        private List<LeaderboardUpdate> leaderboardBroadcasts(String code) {
+            ArgumentCaptor<Object> captor = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, atLeastOnce()).convertAndSend(eq("/topic/session/" + code), captor.capture());
+            return captor.getAllValues().stream()
+                .filter(LeaderboardUpdate.class::isInstance)
+                .map(LeaderboardUpdate.class::cast)
+                .toList();
+        }
+
+        private void publishAndWait(String code) throws Exception {
+            gameSessionService.publishDirtyLeaderboards();
+            // Queued behind the publish on the same loop
+            gameSessionService.executeInSession(code, () -> null).get(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Nested
+    @DisplayName("Question Bank Tests")
+    class QuestionBankTests {
+
+        @Test
+        @DisplayName("Should load a question set once for many sessions")
+        void shouldShareQuestionBankAcrossSessions() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(5));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            for (int i = 0; i < 5; i++) {
+                gameSessionService.createSession(createRequest, "teacher-" + i);
+            }
+
+            verify(questionRepository, times(1)).findByQuestionSetId("test-set");
+            assertEquals(1, questionBankCache.getLoadCount());
+        }
+
+        @Test
+        @DisplayName("Edited question should reach new sessions but not running ones")
+        void editShouldOnlyReachNewSessions() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            QuestionEntity original = createSampleQuestions(1).get(0);  // "What is 1 + 1?" -> 2
+            QuestionEntity edited = createSampleQuestions(1).get(0);
+            edited.setCorrectAnswer("11");
+
+            when(questionRepository.findByQuestionSetId("test-set"))
+                .thenReturn(List.of(original))
+                .thenReturn(List.of(edited));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String running = startSessionWithPlayer(createRequest);
+
+            // Teacher edits the question; the CRUD endpoint invalidates the cached bank
+            questionBankCache.invalidate("test-set");
+            String fresh = startSessionWithPlayer(createRequest);
+
+            assertTrue(answer(running, "2").isCorrect(), "Running session keeps the bank it started with");
+            assertTrue(answer(fresh, "11").isCorrect(), "New session sees the edit");
+            assertEquals(2, questionBankCache.getLoadCount());
+        }
+
+        @Test
+        @DisplayName("Should accept answers regardless of case and surrounding spaces")
+        void shouldNormalizeAnswers() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            QuestionEntity question = createSampleQuestions(1).get(0);
+            question.setCorrectAnswer("Paris");
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(List.of(question));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = startSessionWithPlayer(createRequest);
+
+            assertTrue(answer(code, "  pARIS ").isCorrect());
+        }
+
+        @Test
+        @DisplayName("Should send each player the shared question body with their own envelope")
+        @SuppressWarnings("unchecked")
+        void shouldSendPreEncodedQuestions() throws Exception {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(1));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            List<String> playerIds = new ArrayList<>();
+            for (int i = 1; i <= 2; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            }
+            gameSessionService.startGame(code, "teacher");
+
+            ObjectMapper mapper = new ObjectMapper();
+            List<Map<String, Object>> payloads = new ArrayList<>();
+            for (String playerId : playerIds) {
+                ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+                verify(messagingTemplate).send(eq("/user/" + playerId + "/queue/question"), captor.capture());
+                payloads.add(mapper.readValue(captor.getValue().getPayload(), Map.class));
+            }
+
+            assertEquals(playerIds.get(0), payloads.get(0).get("playerId"));
+            assertEquals(playerIds.get(1), payloads.get(1).get("playerId"));
+            assertEquals(1, payloads.get(0).get("questionNumber"));
+            assertEquals("q-1", payloads.get(0).get("questionId"));
+            assertEquals(payloads.get(0).get("answers"), payloads.get(1).get("answers"));
+            assertEquals(4, ((List<?>) payloads.get(0).get("answers")).size());
+        }
+
+        private final Map<String, String> playerBySession = new HashMap<>();
+
+        private String startSessionWithPlayer(CreateSessionRequest createRequest) {
+            String code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            JoinSessionRequest joinRequest = new JoinSessionRequest();
+            joinRequest.setStudentId("student-1");
+            joinRequest.setStudentName("Player1");
+            joinRequest.setSecretCode("CODE1");
+            playerBySession.put(code, gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            gameSessionService.startGame(code, "teacher");
+            return code;
+        }
+
+        private AnswerResult answer(String code, String answer) {
+            AnswerRequest request = new AnswerRequest();
+            request.setQuestionId("q-1");
+            request.setAnswer(answer);
+            return gameSessionService.processAnswer(code, playerBySession.get(code), request);
+        }
+    }
+
+    @Nested
+    @DisplayName("Session Journal Tests")
+    class SessionJournalTests {
+
+        @TempDir
+        Path journalDir;
+
+        private final List<String> playerIds = new ArrayList<>();
+
+        @Test
+        @DisplayName("Should recover the leaderboard of a session after a crash")
+        void shouldRecoverSessionAfterCrash() throws Exception {
+            SessionJournal journal = newJournal(200);
+            GameSessionService service = newService(sessionEngine, journal);
+            String code = playGame(service);
+            List<PlayerDto> before = service.getLeaderboard(code);
+
+            // Everything acknowledged is synced; then the process dies
+            journal.flush();
+            journal.halt();
+
+            SessionEngine restartedEngine = new SessionEngine(2, 1024);
+            SessionJournal restartedJournal = newJournal(200);
+            try {
+                GameSessionService restarted = newService(restartedEngine, restartedJournal);
+                restarted.recoverSessions();
+
+                assertLeaderboardEquals(before, restarted.getLeaderboard(code));
+                assertEquals(GameSessionStatus.ACTIVE, restarted.getSession(code).getStatus());
+                verify(playerStateWriter, atLeast(3)).markDirty(any(GamePlayerEntity.class));
+
+                // The game carries on where it stopped
+                assertTrue(answer(restarted, code, playerIds.get(2), "2").isCorrect());
+                restarted.processRewardSelection(code, playerIds.get(2), "CREDITS");
+                assertEquals(before.stream().filter(p -> p.getPlayerId().equals(playerIds.get(2)))
+                        .findFirst().orElseThrow().getCredits() + 50,
+                    restarted.getLeaderboard(code).stream().filter(p -> p.getPlayerId().equals(playerIds.get(2)))
+                        .findFirst().orElseThrow().getCredits());
+            } finally {
+                restartedJournal.shutdown();
+                restartedEngine.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("Should replay events written after the last snapshot")
+        void shouldReplayEventsAfterSnapshot() throws Exception {
+            // Compact every 5 events, so the crash lands between snapshots
+            SessionJournal journal = newJournal(5);
+            GameSessionService service = newService(sessionEngine, journal);
+            String code = playGame(service);
+            List<PlayerDto> before = service.getLeaderboard(code);
+            journal.flush();
+            journal.halt();
+
+            SessionJournal restartedJournal = newJournal(5);
+            SessionEngine restartedEngine = new SessionEngine(1, 1024);
+            try {
+                GameSessionService restarted = newService(restartedEngine, restartedJournal);
+                restarted.recoverSessions();
+                assertLeaderboardEquals(before, restarted.getLeaderboard(code));
+            } finally {
+                restartedJournal.shutdown();
+                restartedEngine.shutdown();
+            }
+        }
+
+        @Test
+        @DisplayName("Should not recover ended sessions")
+        void shouldNotRecoverEndedSessions() throws Exception {
+            SessionJournal journal = newJournal(200);
+            GameSessionService service = newService(sessionEngine, journal);
+            String code = playGame(service);
+            service.endGame(code, "teacher");
+            journal.flush();
+            journal.halt();
+
+            assertFalse(Files.exists(journalDir.resolve(code + ".journal")));
+
+            SessionJournal restartedJournal = newJournal(200);
+            try {
+                GameSessionService restarted = newService(new SessionEngine(1, 16), restartedJournal);
+                restarted.recoverSessions();
+                assertTrue(restarted.getLeaderboard(code).isEmpty());
+            } finally {
+                restartedJournal.shutdown();
+            }
+        }
+
+        /**
+         * Three players: correct answers, credits, a shield, a failed and a successful hack.
+         */
+        private String playGame(GameSessionService service) {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(1));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            String code = service.createSession(createRequest, "teacher").getSessionCode();
+            for (int i = 1; i <= 3; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(service.joinSession(code, joinRequest).getPlayerId());
+            }
+            service.startGame(code, "teacher");
+
+            String p1 = playerIds.get(0);
+            String p2 = playerIds.get(1);
+            String p3 = playerIds.get(2);
+            for (int round = 0; round < 3; round++) {
+                assertTrue(answer(service, code, p1, "2").isCorrect());
+                service.processRewardSelection(code, p1, "CREDITS");
+                assertTrue(answer(service, code, p2, "2").isCorrect());
+                service.processRewardSelection(code, p2, "CREDITS");
+            }
+            assertFalse(answer(service, code, p3, "5").isCorrect());
+            assertTrue(answer(service, code, p3, "2").isCorrect());
+            service.processRewardSelection(code, p3, "SHIELD");
+
+            // p2 misses once, then breaks p1's code
+            assertTrue(answer(service, code, p2, "2").isCorrect());
+            service.processRewardSelection(code, p2, "HACK");
+            assertFalse(hack(service, code, p2, p1, "0000").isSuccess());
+            assertTrue(answer(service, code, p2, "2").isCorrect());
+            service.processRewardSelection(code, p2, "HACK");
+            assertTrue(hack(service, code, p2, p1, "CODE1").isSuccess());
+            return code;
+        }
+
+        private SessionJournal newJournal(int snapshotEvery) {
+            return new SessionJournal(new ObjectMapper(), true, journalDir.toString(), 0, snapshotEvery);
+        }
+
+        private AnswerResult answer(GameSessionService service, String code, String playerId, String answer) {
+            AnswerRequest request = new AnswerRequest();
+            request.setQuestionId("q-1");
+            request.setAnswer(answer);
+            return service.processAnswer(code, playerId, request);
+        }
+
+        private HackResult hack(GameSessionService service, String code, String hackerId, String targetId, String guess) {
+            HackRequest request = new HackRequest();
+            request.setTargetPlayerId(targetId);
+            request.setGuessedCode(guess);
+            return service.processHack(code, hackerId, request);
+        }
+
+        private void assertLeaderboardEquals(List<PlayerDto> expected, List<PlayerDto> actual) {
+            assertEquals(expected.size(), actual.size());
+            for (int i = 0; i < expected.size(); i++) {
+                PlayerDto e = expected.get(i);
+                PlayerDto a = actual.get(i);
+                assertEquals(e.getPlayerId(), a.getPlayerId());
+                assertEquals(e.getRank(), a.getRank());
+                assertEquals(e.getCredits(), a.getCredits());
+                assertEquals(e.getCorrectAnswers(), a.getCorrectAnswers());
+                assertEquals(e.getIncorrectAnswers(), a.getIncorrectAnswers());
+                assertEquals(e.getHackAttempts(), a.getHackAttempts());
+                assertEquals(e.getSuccessfulHacks(), a.getSuccessfulHacks());
+                assertEquals(e.getTimesHacked(), a.getTimesHacked());
+                assertEquals(e.getCreditsStolen(), a.getCreditsStolen());
+                assertEquals(e.getCreditsLost(), a.getCreditsLost());
+            }
+        }
+    }
+
+    @Nested
+    @DisplayName("Timer Tests")
+    class TimerTests {
+
+        private String code;
+        private final List<String> playerIds = new ArrayList<>();
+
+        @BeforeEach
+        void startGame() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(3));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            for (int i = 1; i <= 2; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            }
+            gameSessionService.startGame(code, "teacher");
+        }
+
+        @Test
+        @DisplayName("Shield should stop hacks until its timer fires")
+        void shieldShouldExpireOnTimer() throws Exception {
+            String shielded = playerIds.get(0);
+            String hacker = playerIds.get(1);
+            assertTrue(answerCurrent(shielded, true).isCorrect());
+            gameSessionService.processRewardSelection(code, shielded, "SHIELD");
+
+            advance(29_000);
+            assertEquals("Target is shielded!", hack(hacker, shielded).getHint());
+
+            advance(1_100);
+            assertTrue(hack(hacker, shielded).isSuccess());
+        }
+
+        @Test
+        @DisplayName("Unanswered question should time out on the server")
+        @SuppressWarnings("unchecked")
+        void unansweredQuestionShouldTimeOut() throws Exception {
+            String answering = playerIds.get(0);
+            String idle = playerIds.get(1);
+
+            // Deadline is 15s question time plus 2s grace
+            advance(16_000);
+            assertTrue(answerCurrent(answering, true).isCorrect());
+            verify(messagingTemplate, never()).convertAndSendToUser(eq(idle), eq("/queue/answer-result"), any());
+
+            advance(1_100);
+
+            ArgumentCaptor<Object> result = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate).convertAndSendToUser(eq(idle), eq("/queue/answer-result"), result.capture());
+            assertFalse(((AnswerResult) result.getValue()).isCorrect());
+            verify(messagingTemplate, times(2)).send(eq("/user/" + idle + "/queue/question"), any(Message.class));
+            assertEquals(1, playerStats(idle).getIncorrectAnswers());
+
+            // The player who answered in time is not timed out while choosing a reward
+            verify(messagingTemplate, never()).convertAndSendToUser(eq(answering), eq("/queue/answer-result"), any());
+            assertEquals(0, playerStats(answering).getIncorrectAnswers());
+        }
+
+        @Test
+        @DisplayName("Answers should reach the teacher as one summary per feed interval")
+        void answersShouldBeSummarisedForTeacher() throws Exception {
+            String answering = playerIds.get(0);
+            String idle = playerIds.get(1);
+
+            advance(3_000);
+            assertTrue(answerCurrent(answering, true).isCorrect());
+            gameSessionService.processRewardSelection(code, answering, "CREDITS");
+            assertFalse(answerCurrent(answering, false).isCorrect());
+
+            gameSessionService.publishTeacherFeeds();
+            gameSessionService.executeInSession(code, () -> null).get(5, TimeUnit.SECONDS);
+            gameSessionService.publishTeacherFeeds();  // nothing new since
+            gameSessionService.executeInSession(code, () -> null).get(5, TimeUnit.SECONDS);
+
+            ArgumentCaptor<Object> events = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, atLeastOnce()).convertAndSendToUser(eq("teacher"), eq("/queue/session-events"),
+                events.capture());
+            List<AnswerSummary> summaries = events.getAllValues().stream()
+                .filter(AnswerSummary.class::isInstance).map(AnswerSummary.class::cast).toList();
+            assertEquals(1, summaries.size());
+            assertTrue(events.getAllValues().stream().noneMatch(Map.class::isInstance), "no per-answer messages");
+
+            AnswerSummary summary = summaries.get(0);
+            assertEquals(2, summary.getAnswers());
+            assertEquals(List.of(true, false), summary.getEvents().stream().map(e -> e.correct).toList());
+            assertEquals(List.of(100.0, 0.0), summary.getQuestions().stream().map(q -> q.accuracy).toList());
+            assertArrayEquals(new int[] {1, 0, 1, 0, 0, 0}, summary.getResponseTimes().counts);
+            assertEquals(1, summary.getWaitingCount());
+            assertEquals(idle, summary.getWaiting().get(0).playerId);
+            assertEquals(3_000, summary.getWaiting().get(0).waitingMs);
+            assertEquals(1L, teacherFeed.getStats().get("messages"));
+        }
+
+        @Test
+        @DisplayName("Piggybacking client should get the next question sealed with its result, opened by the reveal")
+        @SuppressWarnings("unchecked")
+        void nextQuestionShouldRideOnAnswerResult() throws Exception {
+            String player = playerIds.get(0);
+            String queue = "/user/" + player + "/queue/question";
+            ObjectMapper mapper = new ObjectMapper();
+
+            AnswerResult correct = answerCurrent(player, true, true);
+            assertNull(correct.getNextQuestion());
+            assertNotNull(correct.getSealedNextQuestion());
+            verify(messagingTemplate, times(1)).send(eq(queue), any(Message.class));
+
+            // No deadline runs while the reward is being picked
+            advance(20_000);
+            verify(messagingTemplate, never()).convertAndSendToUser(eq(player), eq("/queue/answer-result"), any());
+
+            gameSessionService.processRewardSelection(code, player, "CREDITS");
+            ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+            verify(messagingTemplate, times(2)).send(eq(queue), captor.capture());
+            Map<?, ?> reveal = mapper.readValue(captor.getValue().getPayload(), Map.class);
+            assertEquals(true, reveal.get("revealed"));
+            assertNull(reveal.get("answers"));
+            Map<String, Object> held = mapper.readValue(
+                QuestionPayloadEncoder.open(correct.getSealedNextQuestion(), (String) reveal.get("key")), Map.class);
+            assertEquals(2, held.get("questionNumber"));
+            assertEquals(4, ((List<?>) held.get("answers")).size());
+            assertEquals(held.get("questionId"), reveal.get("questionId"));
+
+            // After a wrong answer the next question is only in the result
+            AnswerResult incorrect = answerCurrent(player, false, true);
+            Map<String, Object> next = mapper.readValue(incorrect.getNextQuestion(), Map.class);
+            assertEquals(3, next.get("questionNumber"));
+            verify(messagingTemplate, times(2)).send(eq(queue), any(Message.class));
+
+            // A client that does not ask keeps getting questions on the queue
+            assertNull(answerCurrent(playerIds.get(1), true).getSealedNextQuestion());
+        }
+
+        @Test
+        @DisplayName("Idle session should be torn down, active one kept")
+        void idleSessionShouldBeTornDown() throws Exception {
+            advance(IDLE_TIMEOUT_MS - 60_000);
+            assertTrue(answerCurrent(playerIds.get(0), true).isCorrect());
+
+            // Activity pushed the deadline back
+            advance(120_000);
+            assertEquals(GameSessionStatus.ACTIVE, gameSessionService.getSession(code).getStatus());
+
+            advance(IDLE_TIMEOUT_MS);
+            JoinSessionRequest lateJoin = new JoinSessionRequest();
+            lateJoin.setStudentId("student-9");
+            assertEquals("Session not found", gameSessionService.joinSession(code, lateJoin).getMessage());
+            assertEquals(0, timingWheel.getPendingCount());
+        }
+
+        @Test
+        @DisplayName("Ended session should be torn down even if its final player flush fails")
+        void endShouldTearDownWhenFlushFails() {
+            when(playerStateWriter.flush(anyCollection()))
+                .thenThrow(new TransientDataAccessResourceException("Timed out waiting for a database permit"));
+
+            gameSessionService.endGame(code, "teacher");
+
+            verify(playerStateWriter).flush(argThat((Collection<String> ids) -> ids.containsAll(playerIds)));
+            verify(playerStateWriter, never()).flush();
+            JoinSessionRequest lateJoin = new JoinSessionRequest();
+            lateJoin.setStudentId("student-9");
+            assertEquals("Session not found", gameSessionService.joinSession(code, lateJoin).getMessage());
+        }
+
+        /**
+         * Move the clock forward in one-second steps, letting the session loop run fired timers.
+         */
+        private void advance(long millis) throws Exception {
+            long target = clock.get() + millis;
+            while (clock.get() < target) {
+                clock.set(Math.min(target, clock.get() + 1000));
+                timingWheel.advanceTo(clock.get());
+                gameSessionService.executeInSession(code, () -> null).get(5, TimeUnit.SECONDS);
+            }
+        }
+
+        private AnswerResult answerCurrent(String playerId, boolean correct) throws Exception {
+            return answerCurrent(playerId, correct, false);
+        }
+
+        @SuppressWarnings("unchecked")
+        private AnswerResult answerCurrent(String playerId, boolean correct, boolean piggyback) throws Exception {
+            // The last question sent to this player
+            ArgumentCaptor<Message<byte[]>> captor = ArgumentCaptor.forClass(Message.class);
+            verify(messagingTemplate, atLeastOnce()).send(eq("/user/" + playerId + "/queue/question"), captor.capture());
+            Map<?, ?> question = new ObjectMapper().readValue(captor.getValue().getPayload(), Map.class);
+            String questionId = (String) question.get("questionId");
+            int n = Integer.parseInt(questionId.substring(2));
+
+            AnswerRequest request = new AnswerRequest();
+            request.setQuestionId(questionId);
+            request.setAnswer(correct ? String.valueOf(n * 2) : "wrong");
+            request.setPiggybackNext(piggyback);
+            return gameSessionService.processAnswer(code, playerId, request);
+        }
+
+        private HackResult hack(String hackerId, String targetId) throws Exception {
+            assertTrue(answerCurrent(hackerId, true).isCorrect());
+            gameSessionService.processRewardSelection(code, hackerId, "HACK");
+            HackRequest request = new HackRequest();
+            request.setTargetPlayerId(targetId);
+            request.setGuessedCode("CODE" + (playerIds.indexOf(targetId) + 1));
+            return gameSessionService.processHack(code, hackerId, request);
+        }
+
+        private PlayerDto playerStats(String playerId) {
+            return gameSessionService.getLeaderboard(code).stream()
+                .filter(p -> p.getPlayerId().equals(playerId))
+                .findFirst().orElseThrow();
+        }
+    }
+
+    @Nested
+    @DisplayName("Resume Tests")
+    class ResumeTests {
+
+        private String code;
+        private final List<String> playerIds = new ArrayList<>();
+
+        @BeforeEach
+        void startGame() {
+            CreateSessionRequest createRequest = new CreateSessionRequest();
+            createRequest.setQuestionSetId("test-set");
+
+            when(questionRepository.findByQuestionSetId("test-set")).thenReturn(createSampleQuestions(3));
+            when(sessionRepository.save(any(GameSessionEntity.class))).thenAnswer(i -> i.getArgument(0));
+            when(playerRepository.save(any(GamePlayerEntity.class))).thenAnswer(i -> i.getArgument(0));
+
+            code = gameSessionService.createSession(createRequest, "teacher").getSessionCode();
+            for (int i = 1; i <= 2; i++) {
+                JoinSessionRequest joinRequest = new JoinSessionRequest();
+                joinRequest.setStudentId("student-" + i);
+                joinRequest.setStudentName("Player" + i);
+                joinRequest.setSecretCode("CODE" + i);
+                playerIds.add(gameSessionService.joinSession(code, joinRequest).getPlayerId());
+            }
+            gameSessionService.startGame(code, "teacher");
+        }
+
+        @Test
+        @DisplayName("Disconnect should keep the player, marked disconnected, and tell the teacher")
+        void disconnectShouldMarkPlayer() {
+            String playerId = playerIds.get(0);
+
+            gameSessionService.handlePlayerDisconnect(code, playerId);
+            gameSessionService.handlePlayerDisconnect(code, playerId);
+
+            assertFalse(connected(playerId));
+            assertEquals(2, gameSessionService.getLeaderboard(code).size());
+            ArgumentCaptor<Object> event = ArgumentCaptor.forClass(Object.class);
+            verify(messagingTemplate, atLeastOnce()).convertAndSendToUser(eq("teacher"), eq("/queue/session-events"),
+                event.capture());
+            assertEquals(1, event.getAllValues().stream()
+                .filter(e -> e instanceof GameEvent g && GameEvent.PLAYER_DISCONNECTED.equals(g.getEventType()))
+                .count());
+        }
+
+        @Test
+        @DisplayName("Resume should replay only the events the player missed")
+        void resumeShouldReplayMissedEvents() {
+            String playerId = playerIds.get(0);
+            String other = playerIds.get(1);
+            long seen = publish("/user/" + playerId + "/queue/answer-result", "{\"correct\":true}");
+            gameSessionService.handlePlayerDisconnect(code, playerId);
+
+            long hacked = publish("/user/" + playerId + "/queue/hacked", "{\"type\":\"YOU_WERE_HACKED\"}");
+            publish("/user/" + other + "/queue/question", "{\"questionId\":\"q-2\"}");
+            long event = publish("/topic/session/" + code, "{\"eventType\":\"HACK_SUCCESS\"}");
+
+            ReplayBatch replay = gameSessionService.resumePlayer(code, playerId, seen);
+
+            assertTrue(replay.isComplete());
+            assertEquals(event, replay.getLastSeq());
+            assertEquals(List.of(hacked, event), replay.getEvents().stream().map(ReplayBatch.ReplayEvent::getSeq).toList());
+            assertEquals("/user/queue/hacked", replay.getEvents().get(0).getDestination());
+            assertEquals("{\"type\":\"YOU_WERE_HACKED\"}", replay.getEvents().get(0).getPayload());
+            assertTrue(connected(playerId));
+        }
+
+        @Test
+        @DisplayName("Resume past the end of the log should resend the unanswered question instead")
+        void resumeShouldResyncWhenLogOverrun() {
+            String playerId = playerIds.get(0);
+            long seen = publish("/topic/session/" + code, "{\"eventType\":\"GAME_STARTED\"}");
+            for (int i = 0; i < 5; i++) {
+                publish("/topic/session/" + code, "{\"eventType\":\"HACK_SUCCESS\"}");
+            }
+
+            ReplayBatch replay = gameSessionService.resumePlayer(code, playerId, seen);
+
+            assertFalse(replay.isComplete());
+            assertTrue(replay.getEvents().isEmpty());
+            assertEquals("ACTIVE", replay.getStatus());
+            verify(messagingTemplate, times(2)).send(eq("/user/" + playerId + "/queue/question"), any(Message.class));
+        }
+
+        @Test
+        @DisplayName("Resume into an ended session should say so")
+        void resumeShouldReportEndedSession() {
+            gameSessionService.endGame(code, "teacher");
+
+            ReplayBatch replay = gameSessionService.resumePlayer(code, playerIds.get(0), 0);
+
+            assertFalse(replay.isComplete());
+            assertEquals("ENDED", replay.getStatus());
+        }
+
+        /**
+         * Pass a JSON message through the recorder as the broker channel would.
+         */
+        private long publish(String destination, String json) {
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(destination);
+            Message<?> sent = eventRecorder.preSend(
+                MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders()), null);
+            SimpMessageHeaderAccessor sentAccessor = SimpMessageHeaderAccessor.wrap(sent);
+            return Long.parseLong(sentAccessor.getFirstNativeHeader(SessionEventRecorder.SEQ_HEADER));
+        }
+
+        private boolean connected(String playerId) {
+            return gameSessionService.getLeaderboard(code).stream()
+                .filter(p -> p.getPlayerId().equals(playerId))
+                .findFirst().orElseThrow().getConnected();
+        }
+    }
+
     // Helper methods
 
     private List<QuestionEntity> createSampleQuestions(int count) {
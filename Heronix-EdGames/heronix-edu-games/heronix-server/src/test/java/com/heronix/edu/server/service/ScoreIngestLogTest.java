@@ -0,0 +1,221 @@
+package com.heronix.edu.server.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.dto.response.SyncState;
+import com.heronix.edu.server.dto.response.SyncStatusResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Crash recovery tests for ScoreIngestLog
+ */
+class ScoreIngestLogTest {
+
+    @TempDir
+    Path directory;
+
+    private final List<ScoreIngestLog> logs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        logs.forEach(ScoreIngestLog::halt);
+    }
+
+    @Test
+    @DisplayName("Should resume acknowledged uploads after a crash, in order, and not finished ones")
+    void shouldResumeUnfinishedUploads() throws Exception {
+        ScoreIngestLog log = newLog(Long.MAX_VALUE);
+        append(log, upload("sync-1", 2));
+        append(log, upload("sync-2", 1));
+        append(log, upload("sync-3", 3));
+        log.complete("sync-2", result("sync-2", 1));
+        log.flush();
+        log.halt();
+
+        ScoreIngestLog.Recovery recovery = newLog(Long.MAX_VALUE).recovered();
+
+        assertEquals(List.of("sync-1", "sync-3"), recovery.pending().stream().map(QueuedUpload::syncId).toList());
+        assertEquals(3, recovery.pending().get(1).scores().size());
+        assertEquals("score-sync-3-2", recovery.pending().get(1).scores().get(2).getScoreId());
+        assertEquals(1, recovery.completed().size());
+        assertEquals(SyncState.COMPLETED, recovery.completed().get(0).state());
+        assertEquals(1, recovery.completed().get(0).result().scoresAccepted());
+    }
+
+    @Test
+    @DisplayName("Should replay an upload whose completion was lost in the crash")
+    void shouldReplayWhenCompletionNotWritten() throws Exception {
+        ScoreIngestLog log = newLog(Long.MAX_VALUE);
+        append(log, upload("sync-1", 1));
+        // Saved to the database, then the process dies before the DONE line is written
+        log.halt();
+        log.complete("sync-1", result("sync-1", 1));
+
+        ScoreIngestLog.Recovery recovery = newLog(Long.MAX_VALUE).recovered();
+
+        assertEquals(List.of("sync-1"), recovery.pending().stream().map(QueuedUpload::syncId).toList());
+    }
+
+    @Test
+    @DisplayName("Should keep uploads before a torn final line and never append after it")
+    void shouldIgnoreTornTail() throws Exception {
+        ScoreIngestLog log = newLog(Long.MAX_VALUE);
+        append(log, upload("sync-1", 1));
+        append(log, upload("sync-2", 1));
+        log.halt();
+
+        // Power loss in the middle of the next append
+        Files.writeString(directory.resolve("ingest-000001.log"), "{\"type\":\"UPLOAD\",\"upload\":{\"syncId\":\"sy",
+            StandardCharsets.UTF_8, StandardOpenOption.APPEND);
+
+        ScoreIngestLog second = newLog(Long.MAX_VALUE);
+        assertEquals(2, second.recovered().pending().size());
+        append(second, upload("sync-3", 1));
+        second.halt();
+
+        ScoreIngestLog.Recovery recovery = newLog(Long.MAX_VALUE).recovered();
+        assertEquals(List.of("sync-1", "sync-2", "sync-3"),
+            recovery.pending().stream().map(QueuedUpload::syncId).toList());
+    }
+
+    @Test
+    @DisplayName("Should delete finished segments oldest first")
+    void shouldDeleteFinishedSegmentsInOrder() throws Exception {
+        // Every upload rolls to a new segment
+        ScoreIngestLog log = newLog(1);
+        append(log, upload("sync-1", 1));
+        append(log, upload("sync-2", 1));
+        append(log, upload("sync-3", 1));
+        log.complete("sync-2", result("sync-2", 1));
+        log.complete("sync-3", result("sync-3", 1));
+        log.flush();
+
+        // sync-1's segment is still needed, and it keeps the later ones
+        assertEquals(3, log.getSegmentCount());
+
+        log.complete("sync-1", result("sync-1", 1));
+        log.flush();
+        assertEquals(1, log.getSegmentCount());
+        log.halt();
+
+        assertTrue(newLog(1).recovered().pending().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should keep appending readable lines after a failed write")
+    void shouldRecoverAfterFailedWrite() throws Exception {
+        AtomicBoolean failNext = new AtomicBoolean();
+        ScoreIngestLog log = new ScoreIngestLog(objectMapper(), directory.toString(), 0, Long.MAX_VALUE) {
+            @Override
+            void write(byte[] line) throws IOException {
+                if (failNext.getAndSet(false)) {
+                    // Disk full halfway through the line
+                    super.write(Arrays.copyOf(line, line.length / 2));
+                    throw new IOException("No space left on device");
+                }
+                super.write(line);
+            }
+        };
+        logs.add(log);
+        append(log, upload("sync-1", 1));
+
+        failNext.set(true);
+        ExecutionException failure = assertThrows(ExecutionException.class,
+            () -> append(log, upload("sync-2", 1)));
+        assertInstanceOf(IOException.class, failure.getCause());
+
+        append(log, upload("sync-3", 1));
+        log.complete("sync-1", result("sync-1", 1));
+        log.flush();
+        log.halt();
+
+        ScoreIngestLog.Recovery recovery = newLog(Long.MAX_VALUE).recovered();
+        assertEquals(List.of("sync-3"), recovery.pending().stream().map(QueuedUpload::syncId).toList());
+        assertEquals(1, recovery.completed().size());
+    }
+
+    @Test
+    @DisplayName("Should not replay uploads from a failed batch")
+    void shouldDropFailedBatch() throws Exception {
+        AtomicInteger writes = new AtomicInteger();
+        // A long sync interval puts the first two appends in one batch
+        ScoreIngestLog log = new ScoreIngestLog(objectMapper(), directory.toString(), 200, Long.MAX_VALUE) {
+            @Override
+            void write(byte[] line) throws IOException {
+                if (writes.incrementAndGet() == 2) {
+                    throw new IOException("I/O error");
+                }
+                super.write(line);
+            }
+        };
+        logs.add(log);
+
+        CompletableFuture<Void> first = log.append(upload("sync-1", 1));
+        CompletableFuture<Void> second = log.append(upload("sync-2", 1));
+        assertThrows(ExecutionException.class, () -> first.get(5, TimeUnit.SECONDS));
+        assertThrows(ExecutionException.class, () -> second.get(5, TimeUnit.SECONDS));
+
+        append(log, upload("sync-3", 1));
+        log.complete("sync-3", result("sync-3", 1));
+        log.flush();
+        log.halt();
+
+        // sync-1 was answered with a failure, so it must not come back either
+        ScoreIngestLog.Recovery recovery = newLog(Long.MAX_VALUE).recovered();
+        assertTrue(recovery.pending().isEmpty());
+        assertEquals(List.of("sync-3"), recovery.completed().stream().map(SyncStatusResponse::syncId).toList());
+    }
+
+    private ScoreIngestLog newLog(long segmentBytes) {
+        ScoreIngestLog log = new ScoreIngestLog(objectMapper(), directory.toString(), 0, segmentBytes);
+        logs.add(log);
+        return log;
+    }
+
+    private static ObjectMapper objectMapper() {
+        return new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+    }
+
+    private static void append(ScoreIngestLog log, QueuedUpload upload) throws Exception {
+        log.append(upload).get(5, TimeUnit.SECONDS);
+    }
+
+    private static QueuedUpload upload(String syncId, int scores) {
+        List<GameScore> list = new ArrayList<>();
+        for (int i = 0; i < scores; i++) {
+            GameScore score = new GameScore("student-1", "math-sprint", 80);
+            score.setScoreId("score-" + syncId + "-" + i);
+            score.setDeviceId("device-1");
+            list.add(score);
+        }
+        return new QueuedUpload(syncId, "device-1", list, LocalDateTime.now());
+    }
+
+    private static SyncResponse result(String syncId, int accepted) {
+        return new SyncResponse(true, accepted, accepted, 0, List.of(), syncId, LocalDateTime.now());
+    }
+}
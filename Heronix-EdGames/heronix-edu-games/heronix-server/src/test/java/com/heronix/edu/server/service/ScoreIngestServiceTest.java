@@ -0,0 +1,218 @@
+package com.heronix.edu.server.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.dto.response.SyncState;
+import com.heronix.edu.server.dto.response.SyncStatusResponse;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ScoreIngestService with its log in a temporary directory
+ */
+@ExtendWith(MockitoExtension.class)
+class ScoreIngestServiceTest {
+
+    private static final String DEVICE_ID = "device-1";
+
+    @TempDir
+    Path directory;
+
+    @Mock
+    private SyncService syncService;
+
+    @Mock
+    private DeviceService deviceService;
+
+    @Mock
+    private AuditService auditService;
+
+    private final List<ScoreIngestService> services = new ArrayList<>();
+    private final List<ScoreIngestLog> logs = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        services.forEach(ScoreIngestService::shutdown);
+        logs.forEach(ScoreIngestLog::halt);
+    }
+
+    @Test
+    @DisplayName("Should answer QUEUED at once and complete once a worker saves the upload")
+    void shouldCompleteQueuedUpload() throws Exception {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(syncService.uploadQueued(anyList())).thenAnswer(invocation -> accept(invocation.getArgument(0)));
+        ScoreIngestService service = newService(newLog(), 100);
+
+        SyncStatusResponse queued = service.submit(DEVICE_ID, scores("a", 3));
+
+        assertEquals(SyncState.QUEUED, queued.state());
+        SyncStatusResponse done = awaitFinished(service, queued.syncId());
+        assertEquals(SyncState.COMPLETED, done.state());
+        assertEquals(3, done.result().scoresAccepted());
+        assertEquals(queued.syncId(), done.result().syncId());
+        assertEquals(0, service.getPendingCount());
+    }
+
+    @Test
+    @DisplayName("Should save uploads left in the log by a crash on the next start")
+    void shouldResumeAfterCrash() throws Exception {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        ScoreIngestLog crashed = newLog();
+        ScoreIngestService before = newService(crashed, 100);
+        // The worker is stuck in its transaction when the process dies
+        CountDownLatch crash = new CountDownLatch(1);
+        when(syncService.uploadQueued(anyList())).thenAnswer(invocation -> {
+            crash.await();
+            throw new IllegalStateException("database unavailable");
+        });
+        String first = before.submit(DEVICE_ID, scores("a", 2)).syncId();
+        String second = before.submit(DEVICE_ID, scores("b", 1)).syncId();
+        crashed.halt();
+        crash.countDown();
+        before.shutdown();
+
+        reset(syncService);
+        when(syncService.uploadQueued(anyList())).thenAnswer(invocation -> accept(invocation.getArgument(0)));
+        ScoreIngestLog restarted = newLog();
+        ScoreIngestService after = newService(restarted, 100);
+
+        assertEquals(SyncState.COMPLETED, awaitFinished(after, first).state());
+        assertEquals(SyncState.COMPLETED, awaitFinished(after, second).state());
+        restarted.flush();
+        assertEquals(1, restarted.getSegmentCount());
+        assertTrue(newLog().recovered().pending().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should retry a failed upload and report FAILED once retries run out")
+    void shouldRetryThenFail() throws Exception {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(syncService.uploadQueued(anyList()))
+            .thenThrow(new IllegalStateException("deadlock"))
+            .thenAnswer(invocation -> accept(invocation.getArgument(0)))
+            .thenThrow(new IllegalStateException("disk full"));
+        ScoreIngestService service = newService(newLog(), 100);
+
+        // First attempt fails, the retry succeeds
+        assertEquals(SyncState.COMPLETED, awaitFinished(service, service.submit(DEVICE_ID, scores("a", 1)).syncId())
+            .state());
+
+        // Fails every time
+        SyncStatusResponse failed = awaitFinished(service, service.submit(DEVICE_ID, scores("b", 1)).syncId());
+        assertEquals(SyncState.FAILED, failed.state());
+        assertEquals("Failed to save scores", failed.result().conflicts().get(0).message());
+        verify(auditService).logScoreSync(DEVICE_ID, 0, "ERROR");
+    }
+
+    @Test
+    @DisplayName("Should refuse unapproved devices and a full queue without queueing")
+    void shouldRefuseWithoutQueueing() {
+        when(deviceService.isDeviceApproved("stranger")).thenReturn(false);
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        ScoreIngestLog log = newLog();
+        ScoreIngestService service = newService(log, 0);
+
+        SyncStatusResponse rejected = service.submit("stranger", scores("a", 1));
+        assertEquals(SyncState.FAILED, rejected.state());
+        assertEquals(ConflictType.DEVICE_NOT_AUTHORIZED, rejected.result().conflicts().get(0).type());
+
+        assertThrows(RejectedExecutionException.class, () -> service.submit(DEVICE_ID, scores("b", 1)));
+        assertEquals(0, service.getPendingCount());
+        verifyNoInteractions(syncService);
+        log.halt();
+        assertTrue(newLog().recovered().pending().isEmpty());
+    }
+
+    @Test
+    @DisplayName("Should bound the queue by scores, not uploads")
+    void shouldBoundQueueByScores() throws Exception {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        CountDownLatch saving = new CountDownLatch(1);
+        when(syncService.uploadQueued(anyList())).thenAnswer(invocation -> {
+            saving.await();
+            return accept(invocation.getArgument(0));
+        });
+        ScoreIngestService service = newService(newLog(), 5);
+
+        String first = service.submit(DEVICE_ID, scores("a", 3)).syncId();
+        // One upload waiting, but it already holds 3 of the 5 scores allowed
+        assertThrows(RejectedExecutionException.class, () -> service.submit(DEVICE_ID, scores("b", 3)));
+        String second = service.submit(DEVICE_ID, scores("c", 2)).syncId();
+        assertEquals(5, service.getPendingScores());
+        assertThrows(RejectedExecutionException.class, () -> service.submit(DEVICE_ID, scores("d", 1)));
+
+        saving.countDown();
+        assertEquals(SyncState.COMPLETED, awaitFinished(service, first).state());
+        assertEquals(SyncState.COMPLETED, awaitFinished(service, second).state());
+        assertEquals(0, service.getPendingScores());
+        assertEquals(SyncState.QUEUED, service.submit(DEVICE_ID, scores("e", 5)).state());
+    }
+
+    private ScoreIngestLog newLog() {
+        ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        ScoreIngestLog log = new ScoreIngestLog(objectMapper, directory.toString(), 0, Long.MAX_VALUE);
+        logs.add(log);
+        return log;
+    }
+
+    private ScoreIngestService newService(ScoreIngestLog log, int maxPendingScores) {
+        ScoreIngestService service = new ScoreIngestService(log, syncService, deviceService, auditService,
+            2, 100, maxPendingScores, 2, 100, 5000);
+        service.start();
+        services.add(service);
+        return service;
+    }
+
+    private static SyncStatusResponse awaitFinished(ScoreIngestService service, String syncId)
+            throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (System.nanoTime() < deadline) {
+            SyncStatusResponse status = service.getStatus(syncId).orElseThrow();
+            if (status.state() != SyncState.QUEUED) {
+                return status;
+            }
+            Thread.sleep(10);
+        }
+        return fail("Upload " + syncId + " still queued");
+    }
+
+    private static List<SyncResponse> accept(List<QueuedUpload> uploads) {
+        return uploads.stream()
+            .map(upload -> new SyncResponse(true, upload.scores().size(), upload.scores().size(), 0, List.of(),
+                upload.syncId(), LocalDateTime.now()))
+            .toList();
+    }
+
+    private static List<GameScore> scores(String prefix, int count) {
+        List<GameScore> scores = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            GameScore score = new GameScore("student-1", "math-sprint", 80);
+            score.setScoreId(prefix + "-" + i);
+            score.setDeviceId(DEVICE_ID);
+            scores.add(score);
+        }
+        return scores;
+    }
+}
@@ -0,0 +1,148 @@
+package com.heronix.edu.server.service;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.server.dto.response.ConflictInfo;
+import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.ScoreResult;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import jakarta.persistence.EntityManager;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for ScoreStreamService
+ */
+@ExtendWith(MockitoExtension.class)
+class ScoreStreamServiceTest {
+
+    private static final String DEVICE_ID = "device-1";
+
+    @Mock
+    private SyncService syncService;
+
+    @Mock
+    private DeviceService deviceService;
+
+    @Mock
+    private AuditService auditService;
+
+    @Mock
+    private EntityManager entityManager;
+
+    private final ObjectMapper objectMapper = new ObjectMapper()
+            .findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    private ScoreStreamService scoreStreamService;
+
+    @BeforeEach
+    void setUp() {
+        scoreStreamService = new ScoreStreamService(syncService, deviceService, auditService, objectMapper,
+                entityManager, 2);
+    }
+
+    @Test
+    @DisplayName("Should commit in chunks and stream a result line per score")
+    void shouldCommitInChunks() throws IOException {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(syncService.uploadChunk(eq(DEVICE_ID), anyList(), anySet())).thenAnswer(invocation -> {
+            List<GameScore> chunk = invocation.getArgument(1);
+            return chunk.stream().map(score -> ScoreResult.accepted(score.getScoreId())).toList();
+        });
+        when(syncService.completeStream(DEVICE_ID, 5, 5, null)).thenReturn(summary(true, 5));
+
+        List<JsonNode> lines = ingest(ndjson(5));
+
+        verify(syncService, times(3)).uploadChunk(eq(DEVICE_ID), anyList(), anySet());
+        verify(entityManager, times(3)).clear();
+        assertEquals(6, lines.size());
+        assertEquals("score-0", lines.get(0).get("scoreId").asText());
+        assertTrue(lines.get(4).get("accepted").asBoolean());
+        assertFalse(lines.get(4).has("conflictType"));
+        assertEquals(5, lines.get(5).get("scoresAccepted").asInt());
+    }
+
+    @Test
+    @DisplayName("Should save the scores before a malformed line and report where it stopped")
+    void shouldStopAtMalformedLine() throws IOException {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(syncService.uploadChunk(eq(DEVICE_ID), anyList(), anySet())).thenAnswer(invocation -> {
+            List<GameScore> chunk = invocation.getArgument(1);
+            return chunk.stream().map(score -> ScoreResult.accepted(score.getScoreId())).toList();
+        });
+        when(syncService.completeStream(eq(DEVICE_ID), eq(3), eq(3), any())).thenReturn(summary(false, 3));
+
+        ingest(ndjson(3) + "{\"scoreId\": \"broken\n" + ndjson(2));
+
+        ArgumentCaptor<ConflictInfo> failure = ArgumentCaptor.forClass(ConflictInfo.class);
+        verify(syncService).completeStream(eq(DEVICE_ID), eq(3), eq(3), failure.capture());
+        assertTrue(failure.getValue().message().startsWith("Upload unreadable after 3 scores"),
+                failure.getValue().message());
+        verify(syncService, times(2)).uploadChunk(eq(DEVICE_ID), anyList(), anySet());
+    }
+
+    @Test
+    @DisplayName("Should answer an unapproved device without reading its scores")
+    void shouldRejectUnapprovedDevice() throws IOException {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(false);
+
+        List<JsonNode> lines = ingest(ndjson(3));
+
+        assertEquals(1, lines.size());
+        assertFalse(lines.get(0).get("success").asBoolean());
+        assertEquals(ConflictType.DEVICE_NOT_AUTHORIZED.name(),
+                lines.get(0).get("conflicts").get(0).get("type").asText());
+        verify(syncService, never()).uploadChunk(any(), any(), any());
+        verify(auditService).logScoreSync(DEVICE_ID, 0, "FAILURE");
+    }
+
+    private List<JsonNode> ingest(String body) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        scoreStreamService.ingest(DEVICE_ID, new ByteArrayInputStream(body.getBytes(StandardCharsets.UTF_8)), out);
+
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : out.toString(StandardCharsets.UTF_8).split("\n")) {
+            lines.add(objectMapper.readTree(line));
+        }
+        return lines;
+    }
+
+    private String ndjson(int count) throws IOException {
+        StringBuilder body = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            GameScore score = new GameScore("student-1", "math-sprint", 70 + i);
+            score.setScoreId("score-" + i);
+            score.setDeviceId(DEVICE_ID);
+            body.append(objectMapper.writeValueAsString(score)).append('\n');
+        }
+        return body.toString();
+    }
+
+    private static SyncResponse summary(boolean success, int accepted) {
+        return new SyncResponse(success, accepted, accepted, 0, List.of(),
+                UUID.randomUUID().toString(), LocalDateTime.now());
+    }
+}
@@ -0,0 +1,277 @@
+package com.heronix.edu.server.service;
+
+import com.heronix.edu.common.model.Device;
+import com.heronix.edu.common.model.GameScore;
+import com.heronix.edu.common.model.Student;
+import com.heronix.edu.server.dto.response.ConflictInfo;
+import com.heronix.edu.server.dto.response.ConflictType;
+import com.heronix.edu.server.dto.response.ScoreResult;
+import com.heronix.edu.server.dto.response.SyncResponse;
+import com.heronix.edu.server.entity.DeviceEntity;
+import com.heronix.edu.server.repository.DeviceRepository;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Unit tests for SyncService score uploads.
+ */
+@ExtendWith(MockitoExtension.class)
+class SyncServiceTest {
+
+    private static final String DEVICE_ID = "device-1";
+    private static final String EPOCH = "epoch-1";
+
+    @Mock
+    private GameScoreService gameScoreService;
+
+    @Mock
+    private DeviceService deviceService;
+
+    @Mock
+    private StudentService studentService;
+
+    @Mock
+    private AuditService auditService;
+
+    @Spy
+    private DeviceSequenceTracker sequenceTracker = new DeviceSequenceTracker(deviceRepository(), 1024);
+
+    @InjectMocks
+    private SyncService syncService;
+
+    @Test
+    @DisplayName("Should check a whole upload with one student and one score id lookup")
+    @SuppressWarnings("unchecked")
+    void shouldValidateUploadWithSetLookups() {
+        Student eligible = student("s-1", true);
+        Student optedOut = student("s-2", false);
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(studentService.getStudents(anyCollection())).thenReturn(Map.of("s-1", eligible, "s-2", optedOut));
+        when(gameScoreService.findExistingScoreIds(anyCollection())).thenReturn(Set.of("old"));
+
+        List<GameScore> scores = List.of(
+            score("new-1", "s-1"),
+            score("old", "s-1"),
+            score("new-2", "s-2"),
+            score("new-3", "s-unknown"),
+            score("new-4", "s-1"),
+            score("new-4", "s-1"));
+
+        SyncResponse response = syncService.uploadScores(DEVICE_ID, scores);
+
+        assertEquals(6, response.scoresProcessed());
+        assertEquals(2, response.scoresAccepted());
+        assertEquals(4, response.scoresRejected());
+        assertEquals(List.of(ConflictType.DUPLICATE_SCORE, ConflictType.VALIDATION_ERROR,
+                ConflictType.VALIDATION_ERROR, ConflictType.DUPLICATE_SCORE),
+            response.conflicts().stream().map(ConflictInfo::type).toList());
+        assertEquals("Student not found: s-unknown", response.conflicts().get(2).message());
+
+        ArgumentCaptor<Collection<String>> studentIds = ArgumentCaptor.forClass(Collection.class);
+        verify(studentService).getStudents(studentIds.capture());
+        assertEquals(Set.of("s-1", "s-2", "s-unknown"), Set.copyOf(studentIds.getValue()));
+        verify(gameScoreService).findExistingScoreIds(anyCollection());
+        verify(studentService, never()).studentExists(any());
+        verify(studentService, never()).canParticipate(any());
+        verify(gameScoreService, never()).scoreExists(any());
+
+        ArgumentCaptor<List<GameScore>> saved = ArgumentCaptor.forClass(List.class);
+        verify(gameScoreService).saveScores(saved.capture());
+        assertEquals(List.of("new-1", "new-4"), saved.getValue().stream().map(GameScore::getScoreId).toList());
+    }
+
+    @Test
+    @DisplayName("Should reject a score already accepted in an earlier chunk of the stream")
+    void shouldCarryUploadedIdsAcrossChunks() {
+        when(studentService.getStudents(anyCollection())).thenReturn(Map.of("s-1", student("s-1", true)));
+        when(gameScoreService.findExistingScoreIds(anyCollection())).thenReturn(Set.of());
+        Set<String> uploadedScoreIds = new HashSet<>();
+
+        List<ScoreResult> first = syncService.uploadChunk(DEVICE_ID,
+            List.of(score("a", "s-1"), score("b", "s-1")), uploadedScoreIds);
+        List<ScoreResult> second = syncService.uploadChunk(DEVICE_ID,
+            List.of(score("b", "s-1"), score("c", "s-1")), uploadedScoreIds);
+
+        assertTrue(first.stream().allMatch(ScoreResult::accepted));
+        assertFalse(second.get(0).accepted());
+        assertEquals(ConflictType.DUPLICATE_SCORE, second.get(0).conflictType());
+        assertTrue(second.get(1).accepted());
+        verify(gameScoreService, times(2)).saveScores(anyList());
+        verify(deviceService, never()).isDeviceApproved(any());
+    }
+
+    @Test
+    @DisplayName("Should reject the whole upload from an unapproved device without lookups")
+    void shouldRejectUnapprovedDevice() {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(false);
+
+        SyncResponse response = syncService.uploadScores(DEVICE_ID, List.of(score("new-1", "s-1")));
+
+        assertFalse(response.success());
+        assertEquals(ConflictType.DEVICE_NOT_AUTHORIZED, response.conflicts().get(0).type());
+        verifyNoInteractions(studentService, gameScoreService);
+    }
+
+    @Test
+    @DisplayName("Should save every score once and look each id up at most once, however uploads are retried")
+    @SuppressWarnings("unchecked")
+    void shouldDeduplicateRetriesBySeq() {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(studentService.getStudents(anyCollection())).thenReturn(Map.of("s-1", student("s-1", true)));
+        Set<String> stored = new HashSet<>();
+        Map<String, Integer> lookups = new HashMap<>();
+        when(gameScoreService.findExistingScoreIds(anyCollection())).thenAnswer(invocation -> {
+            Set<String> existing = new HashSet<>();
+            for (String scoreId : (Collection<String>) invocation.getArgument(0)) {
+                lookups.merge(scoreId, 1, Integer::sum);
+                if (stored.contains(scoreId)) {
+                    existing.add(scoreId);
+                }
+            }
+            return existing;
+        });
+        Map<String, Integer> saves = new HashMap<>();
+        when(gameScoreService.saveScores(anyList())).thenAnswer(invocation -> {
+            for (GameScore score : (List<GameScore>) invocation.getArgument(0)) {
+                saves.merge(score.getScoreId(), 1, Integer::sum);
+                stored.add(score.getScoreId());
+            }
+            return invocation.getArgument(0);
+        });
+
+        Random random = new Random(25);
+        List<GameScore> played = new ArrayList<>();
+        for (long seq = 1; seq <= 300; seq++) {
+            GameScore score = score("score-" + seq, "s-1");
+            score.setSeq(seq);
+            score.setSeqEpoch(EPOCH);
+            played.add(score);
+        }
+        // The device resends whatever it has no answer for: answers get lost,
+        // batches overlap and arrive out of order
+        Set<String> answered = new HashSet<>();
+        while (answered.size() < played.size()) {
+            List<GameScore> batch = new ArrayList<>();
+            for (GameScore score : played) {
+                if ((!answered.contains(score.getScoreId()) && random.nextInt(3) > 0) || random.nextInt(50) == 0) {
+                    batch.add(score);
+                }
+                if (batch.size() == 40) {
+                    break;
+                }
+            }
+            Collections.shuffle(batch, random);
+            if (batch.isEmpty()) {
+                continue;
+            }
+
+            SyncResponse response = syncService.uploadScores(DEVICE_ID, batch);
+
+            assertEquals(batch.size(), response.scoresProcessed());
+            if (random.nextInt(3) > 0) {
+                batch.forEach(score -> answered.add(score.getScoreId()));
+            }
+        }
+
+        assertEquals(played.size(), stored.size());
+        assertTrue(saves.values().stream().allMatch(count -> count == 1), "saved twice: " + saves);
+        assertTrue(lookups.values().stream().allMatch(count -> count == 1), "looked up twice: " + lookups);
+        assertEquals(300, sequenceTracker.getPosition(DEVICE_ID).highWaterMark());
+    }
+
+    @Test
+    @DisplayName("Should judge a rejected score again when it is resent")
+    void shouldJudgeRejectedScoresAgain() {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(studentService.getStudents(anyCollection()))
+            .thenReturn(Map.of())
+            .thenReturn(Map.of("s-1", student("s-1", true)));
+        when(gameScoreService.findExistingScoreIds(anyCollection())).thenReturn(Set.of());
+        GameScore score = score("score-1", "s-1");
+        score.setSeq(1L);
+        score.setSeqEpoch(EPOCH);
+
+        SyncResponse first = syncService.uploadScores(DEVICE_ID, List.of(score));
+        // The student has been added to the roster since
+        SyncResponse retry = syncService.uploadScores(DEVICE_ID, List.of(score));
+
+        assertEquals(ConflictType.VALIDATION_ERROR, first.conflicts().get(0).type());
+        assertEquals(0, first.scoresAccepted());
+        assertEquals(1, retry.scoresAccepted());
+        assertEquals(List.of(), retry.conflicts());
+        verify(gameScoreService).saveScores(List.of(score));
+        assertEquals(1, sequenceTracker.getPosition(DEVICE_ID).highWaterMark());
+    }
+
+    @Test
+    @DisplayName("Should check scores numbered under another epoch by score id")
+    void shouldCheckOtherEpochsByScoreId() {
+        when(deviceService.isDeviceApproved(DEVICE_ID)).thenReturn(true);
+        when(studentService.getStudents(anyCollection())).thenReturn(Map.of("s-1", student("s-1", true)));
+        when(gameScoreService.findExistingScoreIds(anyCollection())).thenReturn(Set.of());
+        List<GameScore> before = new ArrayList<>();
+        List<GameScore> reinstalled = new ArrayList<>();
+        for (long seq = 1; seq <= 3; seq++) {
+            GameScore score = score("old-" + seq, "s-1");
+            score.setSeq(seq);
+            score.setSeqEpoch(EPOCH);
+            before.add(score);
+            // A new local database numbers from 1 again, and its resume did not reach the server
+            GameScore fresh = score("new-" + seq, "s-1");
+            fresh.setSeq(seq);
+            fresh.setSeqEpoch("epoch-2");
+            reinstalled.add(fresh);
+        }
+
+        syncService.uploadScores(DEVICE_ID, before);
+        SyncResponse response = syncService.uploadScores(DEVICE_ID, reinstalled);
+
+        assertEquals(3, response.scoresAccepted());
+        assertEquals(List.of(), response.conflicts());
+        verify(gameScoreService).saveScores(reinstalled);
+        assertEquals(3, sequenceTracker.getPosition(DEVICE_ID).highWaterMark());
+    }
+
+    private static DeviceRepository deviceRepository() {
+        DeviceEntity device = new DeviceEntity(DEVICE_ID, "s-1", "Tablet", Device.DeviceType.TABLET);
+        device.setScoreSeqEpoch(EPOCH);
+        DeviceRepository repository = mock(DeviceRepository.class);
+        when(repository.findByDeviceId(DEVICE_ID)).thenReturn(Optional.of(device));
+        return repository;
+    }
+
+    private static Student student(String studentId, boolean canParticipate) {
+        Student student = new Student(studentId, "Student", "B", "4");
+        student.setConsentGiven(true);
+        student.setOptedOut(!canParticipate);
+        return student;
+    }
+
+    private static GameScore score(String scoreId, String studentId) {
+        GameScore score = new GameScore(studentId, "math-sprint", 80);
+        score.setScoreId(scoreId);
+        score.setDeviceId(DEVICE_ID);
+        return score;
+    }
+}
@@ -0,0 +1,84 @@
+package com.heronix.edu.server.util;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for LatencyHistogram
+ */
+class LatencyHistogramTest {
+
+    @Test
+    @DisplayName("Should report exact values below the first power-of-two split")
+    void shouldBeExactForSmallValues() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int i = 1; i <= 100; i++) {
+            histogram.record(i);
+        }
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(50, histogram.getValueAtPercentile(50));
+        assertEquals(99, histogram.getValueAtPercentile(99));
+        assertEquals(100, histogram.getValueAtPercentile(100));
+        assertEquals(50.5, histogram.getMean(), 1e-9);
+    }
+
+    @Test
+    @DisplayName("Percentiles should stay within the bucket precision of the exact value")
+    void shouldMatchExactPercentilesWithinPrecision() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        Random random = new Random(11);
+        long[] values = new long[100_000];
+        for (int i = 0; i < values.length; i++) {
+            // Log-normal around 2ms in nanoseconds, like answer round trips
+            values[i] = (long) (2_000_000 * Math.exp(random.nextGaussian()));
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = histogram.getValueAtPercentile(percentile);
+            assertTrue(reported >= exact, "never below the exact value at p" + percentile);
+            assertTrue(reported <= exact + exact / 64 + 1, "within 1/64 at p" + percentile);
+        }
+        assertEquals(values[values.length - 1], histogram.getMax());
+    }
+
+    @Test
+    @DisplayName("Buckets should cover the full long range without gaps")
+    void bucketsShouldBeContiguous() {
+        long previousUpper = -1;
+        for (int bucket = 0; LatencyHistogram.highestValueIn(bucket) < Long.MAX_VALUE; bucket++) {
+            long upper = LatencyHistogram.highestValueIn(bucket);
+            assertEquals(bucket, LatencyHistogram.bucketOf(previousUpper + 1));
+            assertEquals(bucket, LatencyHistogram.bucketOf(upper));
+            previousUpper = upper;
+        }
+        assertEquals(LatencyHistogram.bucketOf(Long.MAX_VALUE), LatencyHistogram.bucketOf(previousUpper + 1));
+    }
+
+    @Test
+    @DisplayName("Should merge and reset")
+    void shouldMergeAndReset() {
+        LatencyHistogram a = new LatencyHistogram();
+        LatencyHistogram b = new LatencyHistogram();
+        a.record(10);
+        b.record(1_000_000);
+        b.record(-5);
+
+        a.add(b);
+        assertEquals(3, a.getCount());
+        assertEquals(1_000_000, a.getMax());
+        assertEquals(0, a.getValueAtPercentile(1));
+
+        a.reset();
+        assertEquals(0, a.getCount());
+        assertEquals(0, a.getValueAtPercentile(99));
+    }
+}
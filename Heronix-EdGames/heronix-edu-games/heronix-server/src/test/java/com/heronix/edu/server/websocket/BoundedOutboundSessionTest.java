@@ -0,0 +1,194 @@
+package com.heronix.edu.server.websocket;
+
+import org.junit.jupiter.api.*;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for BoundedOutboundSession with a reader that stops reading
+ */
+class BoundedOutboundSessionTest {
+
+    private static final String TOPIC = "/topic/session/ABC123";
+
+    private final AtomicLong clock = new AtomicLong(1_000_000);
+    private ExecutorService writers;
+
+    @BeforeEach
+    void setUp() {
+        writers = Executors.newFixedThreadPool(2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        writers.shutdownNow();
+    }
+
+    @Test
+    @DisplayName("Stalled reader should keep questions and results and drop leaderboard deltas past the bound")
+    void shouldDropOnlyLeaderboardDeltasWhenBehind() throws Exception {
+        StalledSocket socket = new StalledSocket("a");
+        BoundedOutboundSession session = new BoundedOutboundSession(socket.session, writers, 4, 1 << 20, clock::get);
+
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q1\"}"));
+        socket.awaitWriteStarted();  // q1 is stuck in the socket
+
+        for (int i = 1; i <= 4; i++) {
+            session.sendMessage(frame("/user/queue/answer-result", "{\"result\":" + i + "}"));
+        }
+        assertEquals(4, session.getQueuedMessages());
+        assertNotEquals(0, session.getOverLimitSince());
+
+        for (int i = 0; i < 3; i++) {
+            session.sendMessage(frame(TOPIC, "{\"type\":\"LEADERBOARD_UPDATE\",\"version\":" + i + "}"));
+        }
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q2\"}"));
+        assertEquals(3, session.getDroppedFrames());
+        assertEquals(5, session.getQueuedMessages());
+
+        socket.resume();
+        List<String> written = socket.awaitWritten(6);
+        assertTrue(written.get(0).contains("q1"));
+        for (int i = 1; i <= 4; i++) {
+            assertTrue(written.get(i).contains("\"result\":" + i));
+        }
+        assertTrue(written.get(5).contains("q2"));
+        assertTrue(written.stream().noneMatch(f -> f.contains("LEADERBOARD_UPDATE")));
+        assertEquals(0, session.getOverLimitSince());
+    }
+
+    @Test
+    @DisplayName("Newer rank frame should replace the one still queued")
+    void shouldReplaceQueuedRankFrame() throws Exception {
+        StalledSocket socket = new StalledSocket("a");
+        BoundedOutboundSession session = new BoundedOutboundSession(socket.session, writers, 100, 1 << 20, clock::get);
+
+        session.sendMessage(frame(TOPIC, "{\"type\":\"GAME_EVENT\"}"));
+        socket.awaitWriteStarted();
+        session.sendMessage(frame("/user/queue/rank", "{\"type\":\"RANK_UPDATE\",\"rank\":9}"));
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q1\"}"));
+        session.sendMessage(frame("/user/queue/rank", "{\"type\":\"RANK_UPDATE\",\"rank\":3}"));
+        assertEquals(2, session.getQueuedMessages());
+        assertEquals(1, session.getReplacedFrames());
+
+        socket.resume();
+        List<String> written = socket.awaitWritten(3);
+        assertTrue(written.get(1).contains("\"rank\":3"));
+        assertTrue(written.get(2).contains("q1"));
+    }
+
+    @Test
+    @DisplayName("Reader that stays behind should be reported slow and closed")
+    void shouldDisconnectPersistentlySlowReader() throws Exception {
+        StalledSocket socket = new StalledSocket("a");
+        BoundedOutboundSession session = new BoundedOutboundSession(socket.session, writers, 2, 1 << 20, clock::get);
+
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q1\"}"));
+        socket.awaitWriteStarted();
+        session.sendMessage(frame("/user/queue/answer-result", "{}"));
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q2\"}"));
+
+        assertFalse(session.isSlowConsumer(5_000));
+        clock.addAndGet(5_000);
+        assertTrue(session.isSlowConsumer(5_000));
+
+        session.closeSlowConsumer();
+        verify(socket.session).close(BoundedOutboundSession.SLOW_CONSUMER);
+        assertEquals(0, session.getQueuedMessages());
+        assertEquals(2, session.getDroppedFrames());
+
+        // Nothing more is queued once closed
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q3\"}"));
+        assertEquals(0, session.getQueuedMessages());
+    }
+
+    @Test
+    @DisplayName("Queue at twice its bound should close the connection at once")
+    void shouldCloseOnOverflow() throws Exception {
+        StalledSocket socket = new StalledSocket("a");
+        BoundedOutboundSession session = new BoundedOutboundSession(socket.session, writers, 2, 1 << 20, clock::get);
+
+        session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q0\"}"));
+        socket.awaitWriteStarted();
+        for (int i = 1; i <= 4; i++) {
+            session.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q" + i + "\"}"));
+        }
+
+        verify(socket.session).close(BoundedOutboundSession.SLOW_CONSUMER);
+        assertEquals(0, session.getQueuedMessages());
+    }
+
+    @Test
+    @DisplayName("Stalled reader should not delay another connection")
+    void stalledReaderShouldNotDelayOthers() throws Exception {
+        StalledSocket stalled = new StalledSocket("a");
+        StalledSocket healthy = new StalledSocket("b");
+        healthy.resume();
+        BoundedOutboundSession slow = new BoundedOutboundSession(stalled.session, writers, 100, 1 << 20, clock::get);
+        BoundedOutboundSession fast = new BoundedOutboundSession(healthy.session, writers, 100, 1 << 20, clock::get);
+
+        slow.sendMessage(frame("/user/queue/question", "{\"questionId\":\"q1\"}"));
+        stalled.awaitWriteStarted();
+        for (int i = 0; i < 50; i++) {
+            slow.sendMessage(frame(TOPIC, "{\"type\":\"GAME_EVENT\",\"n\":" + i + "}"));
+            fast.sendMessage(frame(TOPIC, "{\"type\":\"GAME_EVENT\",\"n\":" + i + "}"));
+        }
+
+        assertEquals(50, healthy.awaitWritten(50).size());
+        assertEquals(50, slow.getQueuedMessages());
+        stalled.resume();
+    }
+
+    private static TextMessage frame(String destination, String body) {
+        return new TextMessage("MESSAGE\ndestination:" + destination + "\ncontent-type:application/json\n"
+            + "subscription:sub-0\nmessage-id:m-1\ncontent-length:" + body.length() + "\n\n" + body + "\0");
+    }
+
+    /**
+     * A socket whose writes block until the reader resumes.
+     */
+    private static class StalledSocket {
+        final WebSocketSession session = mock(WebSocketSession.class);
+        final BlockingQueue<String> written = new LinkedBlockingQueue<>();
+        final CountDownLatch writeStarted = new CountDownLatch(1);
+        final CountDownLatch resumed = new CountDownLatch(1);
+
+        StalledSocket(String id) throws Exception {
+            when(session.getId()).thenReturn(id);
+            doAnswer(invocation -> {
+                writeStarted.countDown();
+                resumed.await();
+                written.add(((WebSocketMessage<?>) invocation.getArgument(0)).getPayload().toString());
+                return null;
+            }).when(session).sendMessage(any());
+        }
+
+        void awaitWriteStarted() throws InterruptedException {
+            assertTrue(writeStarted.await(5, TimeUnit.SECONDS));
+        }
+
+        void resume() {
+            resumed.countDown();
+        }
+
+        List<String> awaitWritten(int count) throws InterruptedException {
+            List<String> frames = new ArrayList<>();
+            while (frames.size() < count) {
+                String next = written.poll(5, TimeUnit.SECONDS);
+                assertNotNull(next, "only " + frames.size() + " of " + count + " frames written");
+                frames.add(next);
+            }
+            return frames;
+        }
+    }
+}
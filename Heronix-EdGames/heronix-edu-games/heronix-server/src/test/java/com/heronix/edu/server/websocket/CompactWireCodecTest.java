@@ -0,0 +1,188 @@
+package com.heronix.edu.server.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import com.heronix.edu.common.wire.CompactWireCodec;
+import com.heronix.edu.server.dto.game.*;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round trips of the multiplayer messages through CompactWireCodec
+ */
+class CompactWireCodecTest {
+
+    // As the server's mapper writes them
+    private final ObjectMapper mapper = new ObjectMapper()
+        .registerModule(new JavaTimeModule())
+        .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+
+    @Test
+    @DisplayName("Every fixed message type should come back as the same JSON, and smaller")
+    void shouldRoundTripMessageTypes() throws Exception {
+        for (Object message : sampleMessages()) {
+            byte[] json = mapper.writeValueAsBytes(message);
+            byte[] compact = CompactWireCodec.fromJson(json);
+
+            assertEquals(new String(json, StandardCharsets.UTF_8),
+                new String(CompactWireCodec.toJson(compact), StandardCharsets.UTF_8), message.getClass().getSimpleName());
+            assertTrue(compact.length < json.length, message.getClass().getSimpleName() + ": "
+                + compact.length + " vs " + json.length + " bytes");
+            assertArrayEquals(compact, CompactWireCodec.write(mapper, message), "straight from objects");
+        }
+    }
+
+    @Test
+    @DisplayName("Should bind to the same objects and maps as the JSON does")
+    void shouldBindLikeJson() throws Exception {
+        LeaderboardUpdate update = leaderboardDelta(20);
+        byte[] json = mapper.writeValueAsBytes(update);
+        byte[] compact = CompactWireCodec.write(mapper, update);
+
+        Map<?, ?> fromJson = mapper.readValue(json, Map.class);
+        Map<?, ?> fromCompact = CompactWireCodec.read(mapper, compact, mapper.constructType(Map.class));
+        assertEquals(fromJson, fromCompact);
+        assertEquals(Integer.class, ((Map<?, ?>) ((List<?>) fromCompact.get("entries")).get(0)).get("credits").getClass());
+
+        LeaderboardEntry entry = CompactWireCodec.read(mapper,
+            CompactWireCodec.write(mapper, update.getEntries().get(3)), mapper.constructType(LeaderboardEntry.class));
+        assertEquals(update.getEntries().get(3).getPlayerId(), entry.getPlayerId());
+        assertEquals(update.getEntries().get(3).getCredits(), entry.getCredits());
+    }
+
+    @Test
+    @DisplayName("Should keep numbers at the edges of each encoding exact")
+    void shouldRoundTripNumbers() throws Exception {
+        List<Object> values = new ArrayList<>(List.of(0, 1, 29, 30, 31, 32, 127, 128, 16_383, 16_384,
+            -1, -30, -31, -32, -33, Integer.MAX_VALUE, Integer.MIN_VALUE, Long.MAX_VALUE, Long.MIN_VALUE,
+            0.5, -0.25, 0.1, 1.0 / 3, 1e300, -1e-300, Double.MAX_VALUE, Double.MIN_VALUE, 3.0f, 95.5));
+        values.add(new BigInteger("123456789012345678901234567890"));
+        values.add(new BigDecimal("-98765432109876543210.0123456789"));
+
+        byte[] json = mapper.writeValueAsBytes(values);
+        List<?> decoded = mapper.readValue(CompactWireCodec.toJson(CompactWireCodec.fromJson(json)), List.class);
+        assertEquals(mapper.readValue(json, List.class), decoded);
+        assertEquals(Long.MIN_VALUE, decoded.get(18));
+        assertEquals(0.1, decoded.get(21));
+    }
+
+    @Test
+    @DisplayName("Should keep strings, empty containers, nulls and nesting")
+    void shouldRoundTripStructure() throws Exception {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("", "");
+        message.put("ab", "x");
+        message.put("unicode", "Zoë 数学 🚀 \"quoted\" \\ \n");
+        message.put("long", "a".repeat(5_000));
+        message.put("emptyObject", Map.of());
+        message.put("emptyArray", List.of());
+        message.put("nothing", null);
+        message.put("flags", Arrays.asList(true, false, null));
+        Object nested = "deep";
+        for (int i = 0; i < 40; i++) {
+            nested = List.of(Map.of("level", nested));
+        }
+        message.put("nested", nested);
+
+        byte[] json = mapper.writeValueAsBytes(message);
+        assertArrayEquals(json, CompactWireCodec.toJson(CompactWireCodec.fromJson(json)));
+    }
+
+    @Test
+    @DisplayName("A string repeated through a message should be sent once")
+    void shouldReferenceRepeatedStrings() throws Exception {
+        List<Map<String, Object>> rows = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            rows.add(Map.of("avatarId", "ROOKIE_ROBOT", "rank", i));
+        }
+        byte[] compact = CompactWireCodec.write(mapper, rows);
+
+        assertEquals(1, occurrences(compact, "ROOKIE_ROBOT".getBytes(StandardCharsets.UTF_8)));
+        // Per row: object, two one-byte keys, a reference, a rank of at most two bytes, end
+        assertTrue(compact.length < 100 * 7 + 20, compact.length + " bytes");
+    }
+
+    @Test
+    @DisplayName("Truncated, unknown-version and trailing input should be rejected")
+    void shouldRejectMalformedInput() throws Exception {
+        byte[] compact = CompactWireCodec.write(mapper, leaderboardDelta(5));
+
+        for (int length = 0; length < compact.length; length++) {
+            byte[] truncated = Arrays.copyOf(compact, length);
+            assertThrows(IOException.class, () -> CompactWireCodec.toJson(truncated), "length " + length);
+        }
+        byte[] otherVersion = compact.clone();
+        otherVersion[0] = (byte) (CompactWireCodec.VERSION + 1);
+        assertThrows(IOException.class, () -> CompactWireCodec.toJson(otherVersion));
+        byte[] trailing = Arrays.copyOf(compact, compact.length + 1);
+        assertThrows(IOException.class, () -> CompactWireCodec.toJson(trailing));
+        assertThrows(IOException.class, () -> CompactWireCodec.fromJson("{\"open\":".getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private List<Object> sampleMessages() {
+        List<Object> messages = new ArrayList<>();
+        messages.add(leaderboardDelta(10));
+        messages.add(LeaderboardUpdate.snapshot(7, leaderboardDelta(30).getEntries()));
+        messages.add(new RankUpdate(42, 118, 2_350, 3_000, leaderboardDelta(5).getEntries()));
+
+        QuestionDto question = new QuestionDto("q-17", "What is 7 x 8?", List.of("54", "56", "63", "48"));
+        question.setDifficulty(2);
+        question.setTimeLimitSeconds(20);
+        messages.add(question);
+
+        AnswerResult correct = AnswerResult.correct(List.of(RewardOption.earnCredits(100),
+            RewardOption.hackAttempt(), RewardOption.shield(30), RewardOption.doubleNext()));
+        correct.setNewTotalCredits(1_450);
+        messages.add(correct);
+        messages.add(AnswerResult.incorrect("56", "7 x 8 = 56"));
+        messages.add(HackResult.success("Student 12", 150, 1_600));
+        messages.add(HackResult.failure("Try the third digit", 2));
+
+        GameEvent event = new GameEvent(GameEvent.PLAYER_JOINED, "ABC123");
+        event.setPlayerId("player-1a2b3c4d");
+        event.setPlayerName("Student 3");
+        event.setTimestamp(LocalDateTime.of(2026, 3, 14, 9, 26, 53, 589_000_000));
+        event.setData(Map.of("totalPlayers", 31, "accuracy", 0.75));
+        messages.add(event);
+
+        messages.add(new ReplayBatch(true, 42, "COMPLETE", List.of(
+            new ReplayBatch.ReplayEvent(41, "/topic/session/ABC123", "{\"eventType\":\"PLAYER_LEFT\",\"playerId\":\"p\"}"),
+            new ReplayBatch.ReplayEvent(42, "/user/queue/rank", "{\"type\":\"RANK_UPDATE\",\"rank\":3}"))));
+        return messages;
+    }
+
+    private static LeaderboardUpdate leaderboardDelta(int players) {
+        List<LeaderboardEntry> entries = new ArrayList<>();
+        for (int i = 0; i < players; i++) {
+            LeaderboardEntry entry = new LeaderboardEntry(i + 1, "player-" + Integer.toHexString(0x1000000 + i * 7919),
+                "Student " + i, i % 3 == 0 ? "ROOKIE_ROBOT" : "CYBER_FOX", 5_000 - i * 137);
+            entry.setCorrectAnswers(40 - i);
+            entries.add(entry);
+        }
+        return LeaderboardUpdate.delta(41, 42, 3_000, entries, List.of("player-gone"));
+    }
+
+    private static int occurrences(byte[] data, byte[] pattern) {
+        int count = 0;
+        for (int i = 0; i + pattern.length <= data.length; i++) {
+            if (Arrays.equals(data, i, i + pattern.length, pattern, 0, pattern.length)) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
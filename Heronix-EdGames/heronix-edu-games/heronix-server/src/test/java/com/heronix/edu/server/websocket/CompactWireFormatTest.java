@@ -0,0 +1,155 @@
+package com.heronix.edu.server.websocket;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.heronix.edu.common.wire.CompactWireCodec;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+import org.springframework.web.socket.messaging.SessionDisconnectEvent;
+import org.springframework.web.socket.sockjs.transport.SockJsSession;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for CompactWireFormat negotiation and outbound frames
+ */
+class CompactWireFormatTest {
+
+    private static final String RANK_JSON = "{\"type\":\"RANK_UPDATE\",\"rank\":3,\"credits\":1200}";
+
+    private OutboundBackpressure backpressure;
+    private CompactWireFormat wireFormat;
+
+    @BeforeEach
+    void setUp() {
+        backpressure = new OutboundBackpressure(256, 1 << 20, 10_000, 2);
+        wireFormat = new CompactWireFormat(backpressure, true);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backpressure.shutdown();
+    }
+
+    @Test
+    @DisplayName("A negotiated connection should be sent a binary frame with the compact body")
+    void shouldSendCompactFrameToNegotiatedConnection() throws Exception {
+        WebSocketSession socket = connect("a", WebSocketSession.class);
+        wireFormat.handleConnect(connectEvent("a", CompactWireCodec.MIME_TYPE));
+        assertTrue(wireFormat.isCompact("a"));
+
+        assertNull(wireFormat.beforeHandle(toUserQueue("a", RANK_JSON), null, null));
+
+        Message<byte[]> frame = decode(written(socket));
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+        assertEquals(StompCommand.MESSAGE, headers.getCommand());
+        assertEquals("/user/queue/rank", headers.getDestination());
+        assertEquals("sub-7", headers.getSubscriptionId());
+        assertEquals(CompactWireCodec.MIME_TYPE, headers.getFirstNativeHeader("content-type"));
+        assertNull(headers.getFirstNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION));
+        assertEquals(RANK_JSON, new String(CompactWireCodec.toJson(frame.getPayload()), StandardCharsets.UTF_8));
+        assertEquals(1L, wireFormat.getStats().get("framesEncoded"));
+
+        wireFormat.handleDisconnect(new SessionDisconnectEvent(this, frame, "a", CloseStatus.NORMAL));
+        assertFalse(wireFormat.isCompact("a"));
+    }
+
+    @Test
+    @DisplayName("Connections that did not ask, or are on SockJS, should keep getting JSON")
+    void shouldLeaveOtherConnectionsOnJson() throws Exception {
+        connect("json", WebSocketSession.class);
+        connect("sockjs", SockJsSession.class);
+        wireFormat.handleConnect(connectEvent("json", null));
+        wireFormat.handleConnect(connectEvent("sockjs", CompactWireCodec.MIME_TYPE));
+
+        assertFalse(wireFormat.isCompact("json"));
+        assertFalse(wireFormat.isCompact("sockjs"));
+        Message<?> message = toUserQueue("json", RANK_JSON);
+        assertSame(message, wireFormat.beforeHandle(message, null, null));
+
+        CompactWireFormat disabled = new CompactWireFormat(backpressure, false);
+        disabled.handleConnect(connectEvent("json", CompactWireCodec.MIME_TYPE));
+        assertFalse(disabled.isCompact("json"));
+    }
+
+    @Test
+    @DisplayName("The converter should bind compact bodies and leave untyped messages to JSON")
+    void shouldConvertCompactBodies() throws Exception {
+        ObjectMapper mapper = new ObjectMapper();
+        CompactWireMessageConverter converter = new CompactWireMessageConverter(mapper);
+        byte[] body = CompactWireCodec.write(mapper, Map.of("lastSeq", 42));
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setContentType(CompactWireFormat.MIME_TYPE);
+        Map<?, ?> payload = (Map<?, ?>) converter.fromMessage(
+            MessageBuilder.createMessage(body, accessor.getMessageHeaders()), Map.class);
+        assertEquals(42, payload.get("lastSeq"));
+
+        SimpMessageHeaderAccessor json = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        assertNull(converter.fromMessage(MessageBuilder.createMessage(body, json.getMessageHeaders()), Map.class));
+        assertNull(converter.toMessage(Map.of("lastSeq", 42), json.getMessageHeaders()));
+    }
+
+    private WebSocketSession connect(String id, Class<? extends WebSocketSession> type) throws Exception {
+        WebSocketSession socket = mock(type);
+        when(socket.getId()).thenReturn(id);
+        when(socket.isOpen()).thenReturn(true);
+        backpressure.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(socket);
+        return socket;
+    }
+
+    private static SessionConnectEvent connectEvent(String sessionId, String wireFormat) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (wireFormat != null) {
+            accessor.setNativeHeader(CompactWireFormat.CONNECT_HEADER, wireFormat);
+        }
+        return new SessionConnectEvent(CompactWireFormatTest.class,
+            MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()));
+    }
+
+    /**
+     * A user queue message as the user destination resolver hands it to the outbound channel.
+     */
+    private static Message<byte[]> toUserQueue(String sessionId, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-7");
+        accessor.setDestination("/queue/rank-user" + sessionId);
+        accessor.setNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, "/user/queue/rank");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static BinaryMessage written(WebSocketSession socket) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(socket, timeout(2_000)).sendMessage(sent.capture());
+        return (BinaryMessage) sent.getValue();
+    }
+
+    private static Message<byte[]> decode(BinaryMessage frame) {
+        List<Message<byte[]>> messages = new StompDecoder().decode(ByteBuffer.wrap(frame.getPayload().array()));
+        assertEquals(1, messages.size());
+        return messages.get(0);
+    }
+}
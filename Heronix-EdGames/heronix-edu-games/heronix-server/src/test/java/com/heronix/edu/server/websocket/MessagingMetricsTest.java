@@ -0,0 +1,148 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.server.engine.SessionEngine;
+import com.heronix.edu.server.engine.SessionMailbox;
+import org.junit.jupiter.api.*;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.annotation.support.SimpAnnotationMethodMessageHandler;
+import org.springframework.messaging.simp.broker.SimpleBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for MessagingMetrics counts and request-to-reply tracing
+ */
+class MessagingMetricsTest {
+
+    private static final String ANSWER = "SEND /app/session/{code}/answer";
+    private static final String ANSWER_RESULT = "MESSAGE /user/queue/answer-result";
+
+    private SessionEngine engine;
+    private MessagingMetrics metrics;
+    private MessageHandler appHandler;
+    private MessageHandler brokerHandler;
+
+    @BeforeEach
+    void setUp() {
+        engine = new SessionEngine(1, 16);
+        metrics = new MessagingMetrics(engine, true);
+        ExecutorSubscribableChannel channel = new ExecutorSubscribableChannel();
+        appHandler = new SimpAnnotationMethodMessageHandler(channel, channel, new SimpMessagingTemplate(channel));
+        brokerHandler = new SimpleBrokerMessageHandler(channel, channel, channel, List.of("/topic"));
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.shutdown();
+    }
+
+    @Test
+    @DisplayName("Destinations should be counted without their session code or user suffix")
+    void shouldReduceDestinationsToPatterns() {
+        assertEquals("/app/session/{code}/answer", MessagingMetrics.destinationPattern("/app/session/ABJKR2/answer"));
+        assertEquals("/topic/session/{code}", MessagingMetrics.destinationPattern("/topic/session/ABC123"));
+        assertEquals("/app/session/create", MessagingMetrics.destinationPattern("/app/session/create"));
+        assertEquals("/queue/answer-result",
+            MessagingMetrics.destinationPattern("/queue/answer-result-user1620814a-be6c-d2d9"));
+        assertEquals("/user/queue/answer-result", MessagingMetrics.destinationPattern("/user/queue/answer-result"));
+        assertEquals("", MessagingMetrics.destinationPattern(null));
+    }
+
+    @Test
+    @DisplayName("A reply sent from the session loop should be timed against the request it answers")
+    void shouldTraceReplyThroughSessionLoop() throws Exception {
+        Message<?> answer = metrics.inbound().preSend(send("/app/session/ABC123/answer", "s1"), null);
+        // Every channel subscriber gets the message; only the application handler is timed
+        assertSame(answer, metrics.inbound().beforeHandle(answer, null, brokerHandler));
+        metrics.inbound().afterMessageHandled(answer, null, brokerHandler, null);
+        metrics.inbound().beforeHandle(answer, null, appHandler);
+
+        SessionMailbox mailbox = engine.openMailbox("ABC123");
+        Message<?> reply = engine.submit(mailbox, () -> metrics.broker().preSend(toUser("s1"), null))
+            .get(2, TimeUnit.SECONDS);
+        metrics.inbound().afterMessageHandled(answer, null, appHandler, null);
+        assertNotNull(reply.getHeaders().get(MessagingMetrics.TRACE_HEADER));
+
+        metrics.outbound().beforeHandle(reply, null, null);
+        metrics.outbound().beforeHandle(copyFor(reply, "s2"), null, null);  // the same event to another player
+
+        Map<String, Object> inbound = section("inbound");
+        Map<?, ?> answers = (Map<?, ?>) inbound.get(ANSWER);
+        assertEquals(1L, answers.get("count"));
+        assertEquals(1L, answers.get("replies"));
+        assertNotNull(answers.get("queueWaitMicros"));
+        assertNotNull(answers.get("handlerMicros"));
+        assertEquals(2L, ((Map<?, ?>) section("outbound").get(ANSWER_RESULT)).get("count"));
+    }
+
+    @Test
+    @DisplayName("Messages outside a request should carry no trace, and disabled metrics should record nothing")
+    void shouldLeaveUntracedMessagesAlone() {
+        Message<?> untraced = toUser("s1");
+        assertSame(untraced, metrics.broker().preSend(untraced, null));
+
+        Message<?> subscribe = metrics.inbound().preSend(subscribe("/topic/session/ABC123", "s1"), null);
+        metrics.inbound().beforeHandle(subscribe, null, brokerHandler);
+        Map<?, ?> subscriptions = (Map<?, ?>) section("inbound").get("SUBSCRIBE /topic/session/{code}");
+        assertEquals(1L, subscriptions.get("count"));
+        assertNull(subscriptions.get("queueWaitMicros"));
+
+        MessagingMetrics disabled = new MessagingMetrics(engine, false);
+        Message<?> answer = send("/app/session/ABC123/answer", "s1");
+        assertSame(answer, disabled.inbound().preSend(answer, null));
+        disabled.outbound().beforeHandle(untraced, null, null);
+        assertTrue(((Map<?, ?>) disabled.getStats().get("inbound")).isEmpty());
+        assertTrue(((Map<?, ?>) disabled.getStats().get("outbound")).isEmpty());
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> section(String name) {
+        return (Map<String, Object>) metrics.getStats().get(name);
+    }
+
+    private static Message<byte[]> send(String destination, String sessionId) {
+        return inbound(StompCommand.SEND, destination, sessionId);
+    }
+
+    private static Message<byte[]> subscribe(String destination, String sessionId) {
+        return inbound(StompCommand.SUBSCRIBE, destination, sessionId);
+    }
+
+    /**
+     * As the STOMP handler hands a client frame to the inbound channel.
+     */
+    private static Message<byte[]> inbound(StompCommand command, String destination, String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(command);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> toUser(String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/queue/answer-result-user" + sessionId);
+        accessor.setNativeHeader(SimpMessageHeaderAccessor.ORIGINAL_DESTINATION, "/user/queue/answer-result");
+        return MessageBuilder.createMessage("{}".getBytes(), accessor.getMessageHeaders());
+    }
+
+    private static Message<?> copyFor(Message<?> message, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.copyHeadersIfAbsent(message.getHeaders());
+        return MessageBuilder.createMessage(message.getPayload(), accessor.getMessageHeaders());
+    }
+}
@@ -0,0 +1,71 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.server.engine.SessionEventLog;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for SessionEventRecorder on the broker channel
+ */
+class SessionEventRecorderTest {
+
+    private static final String CODE = "ABC123";
+    private static final String TOPIC = "/topic/session/" + CODE;
+
+    private final SessionEventRecorder recorder = new SessionEventRecorder(64, 8);
+
+    @Test
+    @DisplayName("Session events should be numbered and kept, state updates passed through untouched")
+    void shouldNumberOnlyReplayableEvents() {
+        recorder.open(CODE);
+        recorder.register(CODE, "player-1");
+
+        Long joined = seq(recorder.preSend(message(TOPIC, "{\"eventType\":\"PLAYER_JOINED\"}"), null));
+        Long question = seq(recorder.preSend(message("/user/player-1/queue/question", "{\"questionId\":\"q-1\"}"), null));
+        Long leaderboard = seq(recorder.preSend(message(TOPIC, "{\"type\":\"LEADERBOARD_UPDATE\",\"version\":3}"), null));
+        Long rank = seq(recorder.preSend(message("/user/player-1/queue/rank", "{\"type\":\"RANK_UPDATE\"}"), null));
+        Long stranger = seq(recorder.preSend(message("/user/teacher/queue/question", "{}"), null));
+
+        assertNotNull(joined);
+        assertEquals(joined + 1, question);
+        assertNull(leaderboard);
+        assertNull(rank);
+        assertNull(stranger);
+
+        SessionEventLog.Replay replay = recorder.replay(CODE, "player-1", joined);
+        assertTrue(replay.complete());
+        assertEquals(1, replay.events().size());
+        assertEquals("/user/queue/question", replay.events().get(0).destination());
+    }
+
+    @Test
+    @DisplayName("Closed session should keep nothing and replay incomplete")
+    void shouldForgetClosedSession() {
+        recorder.open(CODE);
+        recorder.register(CODE, "player-1");
+        recorder.close(CODE);
+
+        assertNull(seq(recorder.preSend(message(TOPIC, "{\"eventType\":\"GAME_ENDED\"}"), null)));
+        assertNull(seq(recorder.preSend(message("/user/player-1/queue/question", "{}"), null)));
+        assertFalse(recorder.replay(CODE, "player-1", 0).complete());
+    }
+
+    private static Message<byte[]> message(String destination, String json) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        return MessageBuilder.createMessage(json.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+
+    private static Long seq(Message<?> message) {
+        String seq = SimpMessageHeaderAccessor.wrap(message).getFirstNativeHeader(SessionEventRecorder.SEQ_HEADER);
+        return seq != null ? Long.valueOf(seq) : null;
+    }
+}
@@ -0,0 +1,200 @@
+package com.heronix.edu.server.websocket;
+
+import com.heronix.edu.common.wire.CompactWireCodec;
+import org.apache.commons.logging.LogFactory;
+import org.junit.jupiter.api.*;
+import org.mockito.ArgumentCaptor;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.broker.OrderedMessageChannelDecorator;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompDecoder;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+import org.springframework.web.socket.BinaryMessage;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.messaging.SessionConnectEvent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tests for SessionTopicFanout on the broker and outbound channels
+ */
+class SessionTopicFanoutTest {
+
+    private static final String TOPIC = "/topic/session/ABC123";
+
+    private OutboundBackpressure backpressure;
+    private CompactWireFormat wireFormat;
+    private SessionTopicFanout fanout;
+
+    @BeforeEach
+    void setUp() {
+        backpressure = new OutboundBackpressure(256, 1 << 20, 10_000, 2);
+        wireFormat = new CompactWireFormat(backpressure, true);
+        fanout = new SessionTopicFanout(backpressure, wireFormat);
+    }
+
+    @AfterEach
+    void tearDown() {
+        backpressure.shutdown();
+    }
+
+    @Test
+    @DisplayName("Every subscriber should be written the same frame, encoded once with the broadcast's headers")
+    void shouldShareOneFrameAcrossSubscribers() throws Exception {
+        WebSocketSession first = connect("a");
+        WebSocketSession second = connect("b");
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(TOPIC);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(SessionEventRecorder.SEQ_HEADER, "17");
+        Message<?> broadcast = fanout.preSend(
+            MessageBuilder.createMessage(payload("{\"eventType\":\"PLAYER_JOINED\"}"), accessor.getMessageHeaders()), null);
+
+        assertNull(fanout.beforeHandle(toSubscriber(broadcast, "a", "sub-2"), null, null));
+        assertNull(fanout.beforeHandle(toSubscriber(broadcast, "b", "sub-2"), null, null));
+
+        TextMessage sentToFirst = written(first);
+        TextMessage sentToSecond = written(second);
+        assertSame(sentToFirst, sentToSecond);
+        String frame = sentToFirst.getPayload();
+        assertTrue(frame.startsWith("MESSAGE\n"));
+        assertTrue(frame.contains("destination:" + TOPIC + "\n"));
+        assertTrue(frame.contains("subscription:sub-2\n"));
+        assertTrue(frame.contains("seq:17\n"));
+        assertTrue(frame.contains("content-type:application/json\n"));
+        assertTrue(frame.endsWith("\n\n{\"eventType\":\"PLAYER_JOINED\"}\0"));
+        assertEquals(1L, fanout.getStats().get("framesEncoded"));
+        assertEquals(2L, fanout.getStats().get("framesShared"));
+    }
+
+    @Test
+    @DisplayName("Compact connections should share one binary frame, re-encoded once per broadcast")
+    void shouldShareCompactFrameAcrossCompactSubscribers() throws Exception {
+        WebSocketSession text = connect("a");
+        WebSocketSession first = connect("b");
+        WebSocketSession second = connect("c");
+        negotiateCompact("b");
+        negotiateCompact("c");
+
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(TOPIC);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setNativeHeader(SessionEventRecorder.SEQ_HEADER, "18");
+        String json = "{\"eventType\":\"PLAYER_LEFT\",\"playerId\":\"player-1a2b3c4d\"}";
+        Message<?> broadcast = fanout.preSend(MessageBuilder.createMessage(payload(json), accessor.getMessageHeaders()), null);
+
+        for (String sessionId : new String[] {"a", "b", "c"}) {
+            assertNull(fanout.beforeHandle(toSubscriber(broadcast, sessionId, "sub-2"), null, null));
+        }
+
+        assertInstanceOf(TextMessage.class, sent(text));
+        BinaryMessage sentToFirst = (BinaryMessage) sent(first);
+        assertSame(sentToFirst, sent(second));
+        Message<byte[]> frame = new StompDecoder().decode(ByteBuffer.wrap(sentToFirst.getPayload().array())).get(0);
+        StompHeaderAccessor headers = StompHeaderAccessor.wrap(frame);
+        assertEquals("18", headers.getFirstNativeHeader(SessionEventRecorder.SEQ_HEADER));
+        assertEquals(CompactWireCodec.MIME_TYPE, headers.getFirstNativeHeader("content-type"));
+        assertEquals(json, new String(CompactWireCodec.toJson(frame.getPayload()), StandardCharsets.UTF_8));
+        assertEquals(1L, wireFormat.getStats().get("framesEncoded"));
+    }
+
+    @Test
+    @DisplayName("Other destinations pass untouched, and unknown connections fall back to the STOMP handler")
+    void shouldLeaveOtherMessagesToStompHandler() {
+        Message<?> userQueue = fanout.preSend(message("/user/player-1/queue/question", null), null);
+        assertNull(userQueue.getHeaders().get(SessionTopicFanout.FRAME_HEADER));
+        Message<?> addressed = fanout.preSend(message(TOPIC, "a"), null);
+        assertNull(addressed.getHeaders().get(SessionTopicFanout.FRAME_HEADER));
+
+        Message<?> broadcast = fanout.preSend(message(TOPIC, null), null);
+        assertNotNull(broadcast.getHeaders().get(SessionTopicFanout.FRAME_HEADER));
+        Message<?> toStranger = toSubscriber(broadcast, "gone", "sub-0");
+        assertSame(toStranger, fanout.beforeHandle(toStranger, null, null));
+        assertEquals(1L, fanout.getStats().get("fallbacks"));
+    }
+
+    @Test
+    @DisplayName("A connection's next message should follow a shared frame under ordered publishing")
+    void shouldReleaseNextMessageInOrder() throws Exception {
+        WebSocketSession socket = connect("a");
+        ExecutorSubscribableChannel outbound = new ExecutorSubscribableChannel();
+        outbound.addInterceptor(fanout);
+        OrderedMessageChannelDecorator.configureInterceptor(outbound, true);
+        List<Message<?>> toStompHandler = new ArrayList<>();
+        outbound.subscribe(toStompHandler::add);
+        OrderedMessageChannelDecorator ordered = new OrderedMessageChannelDecorator(outbound, LogFactory.getLog(getClass()));
+
+        Message<?> broadcast = fanout.preSend(message(TOPIC, null), null);
+        ordered.send(toSubscriber(broadcast, "a", "sub-0"));
+        ordered.send(toSubscriber(message("/queue/rank-usera", null), "a", "sub-9"));
+
+        assertInstanceOf(TextMessage.class, sent(socket));
+        assertEquals(1, toStompHandler.size());
+        assertEquals("sub-9", SimpMessageHeaderAccessor.getSubscriptionId(toStompHandler.get(0).getHeaders()));
+    }
+
+    private WebSocketSession connect(String id) throws Exception {
+        WebSocketSession socket = mock(WebSocketSession.class);
+        when(socket.getId()).thenReturn(id);
+        when(socket.isOpen()).thenReturn(true);
+        backpressure.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(socket);
+        return socket;
+    }
+
+    private void negotiateCompact(String sessionId) {
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(sessionId);
+        connect.setNativeHeader(CompactWireFormat.CONNECT_HEADER, CompactWireCodec.MIME_TYPE);
+        wireFormat.handleConnect(new SessionConnectEvent(this,
+            MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders())));
+    }
+
+    private static TextMessage written(WebSocketSession socket) throws Exception {
+        return (TextMessage) sent(socket);
+    }
+
+    private static WebSocketMessage<?> sent(WebSocketSession socket) throws Exception {
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<WebSocketMessage<?>> sent = ArgumentCaptor.forClass(WebSocketMessage.class);
+        verify(socket, timeout(2_000)).sendMessage(sent.capture());
+        return sent.getValue();
+    }
+
+    /**
+     * The copy the broker makes for one subscriber.
+     */
+    private static Message<?> toSubscriber(Message<?> broadcast, String sessionId, String subscriptionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.copyHeadersIfAbsent(broadcast.getHeaders());
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(broadcast.getPayload(), accessor.getMessageHeaders());
+    }
+
+    private static Message<byte[]> message(String destination, String sessionId) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(payload("{}"), accessor.getMessageHeaders());
+    }
+
+    private static byte[] payload(String json) {
+        return json.getBytes(StandardCharsets.UTF_8);
+    }
+}